@@ -3,8 +3,12 @@ package com.ace.templateengine;
 import org.springframework.boot.SpringApplication;
 import org.springframework.boot.autoconfigure.SpringBootApplication;
 import org.springframework.boot.autoconfigure.mongo.MongoAutoConfiguration;
+import org.springframework.scheduling.annotation.EnableAsync;
+import org.springframework.scheduling.annotation.EnableScheduling;
 
 @SpringBootApplication(exclude = {MongoAutoConfiguration.class})
+@EnableScheduling
+@EnableAsync
 public class AceTemplateEngineApplication {
 
     public static void main(String[] args) {
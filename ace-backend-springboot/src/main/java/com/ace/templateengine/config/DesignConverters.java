@@ -0,0 +1,354 @@
+package com.ace.templateengine.config;
+
+import com.ace.templateengine.model.Design;
+import org.bson.Document;
+import org.bson.types.ObjectId;
+import org.springframework.core.convert.converter.Converter;
+import org.springframework.data.convert.ReadingConverter;
+import org.springframework.data.convert.WritingConverter;
+
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Date;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Hand-written mapping of the Design aggregate to and from BSON documents.
+ *
+ * Registered as custom conversions in MongoConfig, so designs (including the ones embedded in
+ * history entries) and split design components skip the reflective property access and @Field
+ * name lookups of MappingMongoConverter. Documents have the same shape the reflective mapping
+ * writes, without the _class hint, and documents it wrote read back unchanged: absent fields
+ * keep the defaults of the constructors, nested documents become LinkedHashMaps.
+ */
+public final class DesignConverters {
+
+    private static final ZoneId ZONE = ZoneId.systemDefault();
+
+    private DesignConverters() {}
+
+    public static List<Converter<?, ?>> converters() {
+        return List.of(new DesignWritingConverter(), new DesignReadingConverter(),
+                new ComponentWritingConverter(), new ComponentReadingConverter());
+    }
+
+    public static Document toDocument(Design design) {
+        Document document = new Document();
+        putId(document, design.getId());
+        put(document, "name", design.getName());
+        put(document, "description", design.getDescription());
+        if (design.getCanvasConfig() != null) {
+            document.put("canvas_config", toDocument(design.getCanvasConfig()));
+        }
+        if (design.getComponents() != null) {
+            List<Object> components = new ArrayList<>(design.getComponents().size());
+            for (Design.DesignComponent component : design.getComponents()) {
+                components.add(component == null ? null : toDocument(component));
+            }
+            document.put("components", components);
+        }
+        put(document, "global_styles", design.getGlobalStyles());
+        if (design.getThemeSettings() != null) {
+            document.put("theme_settings", toDocument(design.getThemeSettings()));
+        }
+        if (design.getMetadata() != null) {
+            document.put("metadata", toDocument(design.getMetadata()));
+        }
+        put(document, "version", design.getVersion());
+        put(document, "status", design.getStatus());
+        put(document, "tags", design.getTags());
+        put(document, "created_at", design.getCreatedAt());
+        put(document, "updated_at", design.getUpdatedAt());
+        put(document, "created_by", design.getCreatedBy());
+        put(document, "updated_by", design.getUpdatedBy());
+        put(document, "is_public", design.getIsPublic());
+        put(document, "preview_image", design.getPreviewImage());
+        put(document, "content_hash", design.getContentHash());
+        put(document, "component_storage", design.getComponentStorage());
+        put(document, "component_count", design.getComponentCount());
+        put(document, "component_types", design.getComponentTypes());
+        put(document, "component_names", design.getComponentNames());
+        return document;
+    }
+
+    public static Design toDesign(Document document) {
+        Design design = new Design();
+        for (Map.Entry<String, Object> field : document.entrySet()) {
+            Object value = field.getValue();
+            switch (field.getKey()) {
+                case "_id" -> design.setId(value instanceof ObjectId objectId ? objectId.toHexString() : asString(value));
+                case "name" -> design.setName(asString(value));
+                case "description" -> design.setDescription(asString(value));
+                case "canvas_config" -> design.setCanvasConfig(value instanceof Document nested ? toCanvasConfig(nested) : null);
+                case "components" -> design.setComponents(toComponents(value));
+                case "global_styles" -> design.setGlobalStyles(asMap(value));
+                case "theme_settings" -> design.setThemeSettings(value instanceof Document nested ? toThemeSettings(nested) : null);
+                case "metadata" -> design.setMetadata(value instanceof Document nested ? toMetadata(nested) : null);
+                case "version" -> design.setVersion(asString(value));
+                case "status" -> design.setStatus(value == null ? null : Design.DesignStatus.valueOf(value.toString()));
+                case "tags" -> design.setTags(asStringList(value));
+                case "created_at" -> design.setCreatedAt(asDateTime(value));
+                case "updated_at" -> design.setUpdatedAt(asDateTime(value));
+                case "created_by" -> design.setCreatedBy(asString(value));
+                case "updated_by" -> design.setUpdatedBy(asString(value));
+                case "is_public" -> design.setIsPublic((Boolean) value);
+                case "preview_image" -> design.setPreviewImage(asString(value));
+                case "content_hash" -> design.setContentHash(asString(value));
+                case "component_storage" -> design.setComponentStorage(value == null ? null : Design.ComponentStorage.valueOf(value.toString()));
+                case "component_count" -> design.setComponentCount(asInteger(value));
+                case "component_types" -> design.setComponentTypes(asStringList(value));
+                case "component_names" -> design.setComponentNames(asStringList(value));
+                case "score" -> design.setScore(value instanceof Number number ? number.floatValue() : null);
+                default -> {
+                    // _class hints of the reflective mapping and unknown fields are ignored, as before
+                }
+            }
+        }
+        return design;
+    }
+
+    public static Document toDocument(Design.DesignComponent component) {
+        Document document = new Document();
+        // The reflective mapping stores a nested id property as _id as well
+        putId(document, component.getId());
+        put(document, "type", component.getType());
+        put(document, "name", component.getName());
+        put(document, "properties", component.getProperties());
+        put(document, "styles", component.getStyles());
+        put(document, "position", component.getPosition());
+        put(document, "size", component.getSize());
+        put(document, "children", component.getChildren());
+        put(document, "parentId", component.getParentId());
+        put(document, "zIndex", component.getZIndex());
+        put(document, "visible", component.getVisible());
+        put(document, "locked", component.getLocked());
+        put(document, "contentHash", component.getContentHash());
+        return document;
+    }
+
+    public static Design.DesignComponent toComponent(Document document) {
+        Design.DesignComponent component = new Design.DesignComponent();
+        for (Map.Entry<String, Object> field : document.entrySet()) {
+            Object value = field.getValue();
+            switch (field.getKey()) {
+                case "_id", "id" -> component.setId(value instanceof ObjectId objectId ? objectId.toHexString() : asString(value));
+                case "type" -> component.setType(asString(value));
+                case "name" -> component.setName(asString(value));
+                case "properties" -> component.setProperties(asMap(value));
+                case "styles" -> component.setStyles(asMap(value));
+                case "position" -> component.setPosition(asMap(value));
+                case "size" -> component.setSize(asMap(value));
+                case "children" -> component.setChildren(asStringList(value));
+                case "parentId" -> component.setParentId(asString(value));
+                case "zIndex" -> component.setZIndex(asInteger(value));
+                case "visible" -> component.setVisible((Boolean) value);
+                case "locked" -> component.setLocked((Boolean) value);
+                case "contentHash" -> component.setContentHash(asString(value));
+                default -> {
+                }
+            }
+        }
+        return component;
+    }
+
+    private static Document toDocument(Design.CanvasConfig canvas) {
+        Document document = new Document();
+        put(document, "width", canvas.getWidth());
+        put(document, "height", canvas.getHeight());
+        put(document, "backgroundColor", canvas.getBackgroundColor());
+        put(document, "gridSize", canvas.getGridSize());
+        put(document, "showGrid", canvas.getShowGrid());
+        put(document, "zoomLevel", canvas.getZoomLevel());
+        put(document, "orientation", canvas.getOrientation());
+        return document;
+    }
+
+    private static Design.CanvasConfig toCanvasConfig(Document document) {
+        Design.CanvasConfig canvas = new Design.CanvasConfig();
+        canvas.setWidth(asInteger(document.get("width")));
+        canvas.setHeight(asInteger(document.get("height")));
+        canvas.setBackgroundColor(asString(document.get("backgroundColor")));
+        canvas.setGridSize(asInteger(document.get("gridSize")));
+        canvas.setShowGrid((Boolean) document.get("showGrid"));
+        canvas.setZoomLevel(asInteger(document.get("zoomLevel")));
+        canvas.setOrientation(asString(document.get("orientation")));
+        return canvas;
+    }
+
+    private static Document toDocument(Design.ThemeSettings theme) {
+        Document document = new Document();
+        put(document, "primaryColor", theme.getPrimaryColor());
+        put(document, "secondaryColor", theme.getSecondaryColor());
+        put(document, "backgroundColor", theme.getBackgroundColor());
+        put(document, "textColor", theme.getTextColor());
+        put(document, "fontFamily", theme.getFontFamily());
+        put(document, "fontSize", theme.getFontSize());
+        put(document, "fontWeight", theme.getFontWeight());
+        put(document, "borderRadius", theme.getBorderRadius());
+        put(document, "spacing", theme.getSpacing());
+        put(document, "shadowStyle", theme.getShadowStyle());
+        return document;
+    }
+
+    private static Design.ThemeSettings toThemeSettings(Document document) {
+        Design.ThemeSettings theme = new Design.ThemeSettings();
+        theme.setPrimaryColor(asString(document.get("primaryColor")));
+        theme.setSecondaryColor(asString(document.get("secondaryColor")));
+        theme.setBackgroundColor(asString(document.get("backgroundColor")));
+        theme.setTextColor(asString(document.get("textColor")));
+        theme.setFontFamily(asString(document.get("fontFamily")));
+        theme.setFontSize(asString(document.get("fontSize")));
+        theme.setFontWeight(asString(document.get("fontWeight")));
+        theme.setBorderRadius(asString(document.get("borderRadius")));
+        theme.setSpacing(asString(document.get("spacing")));
+        theme.setShadowStyle(asString(document.get("shadowStyle")));
+        return theme;
+    }
+
+    private static Document toDocument(Design.DesignMetadata metadata) {
+        Document document = new Document();
+        put(document, "category", metadata.getCategory());
+        put(document, "difficulty", metadata.getDifficulty());
+        put(document, "requiredFeatures", metadata.getRequiredFeatures());
+        put(document, "customFields", metadata.getCustomFields());
+        put(document, "exportFormat", metadata.getExportFormat());
+        put(document, "targetPlatform", metadata.getTargetPlatform());
+        return document;
+    }
+
+    private static Design.DesignMetadata toMetadata(Document document) {
+        Design.DesignMetadata metadata = new Design.DesignMetadata();
+        metadata.setCategory(asString(document.get("category")));
+        metadata.setDifficulty(asString(document.get("difficulty")));
+        metadata.setRequiredFeatures(asStringList(document.get("requiredFeatures")));
+        metadata.setCustomFields(asMap(document.get("customFields")));
+        metadata.setExportFormat(asString(document.get("exportFormat")));
+        metadata.setTargetPlatform(asString(document.get("targetPlatform")));
+        return metadata;
+    }
+
+    private static List<Design.DesignComponent> toComponents(Object value) {
+        if (!(value instanceof List<?> list)) {
+            return null;
+        }
+        List<Design.DesignComponent> components = new ArrayList<>(list.size());
+        for (Object item : list) {
+            components.add(item instanceof Document document ? toComponent(document) : null);
+        }
+        return components;
+    }
+
+    private static void putId(Document document, String id) {
+        if (id != null) {
+            document.put("_id", ObjectId.isValid(id) ? new ObjectId(id) : id);
+        }
+    }
+
+    // Null fields are left out, like the reflective mapping does
+    private static void put(Document document, String key, Object value) {
+        if (value != null) {
+            document.put(key, toBson(value));
+        }
+    }
+
+    private static Object toBson(Object value) {
+        if (value instanceof Document) {
+            return value;
+        }
+        if (value instanceof Map<?, ?> map) {
+            Document document = new Document();
+            map.forEach((key, item) -> document.put(String.valueOf(key), item == null ? null : toBson(item)));
+            return document;
+        }
+        if (value instanceof Collection<?> collection) {
+            List<Object> list = new ArrayList<>(collection.size());
+            collection.forEach(item -> list.add(item == null ? null : toBson(item)));
+            return list;
+        }
+        if (value instanceof Enum<?> constant) {
+            return constant.name();
+        }
+        if (value instanceof LocalDateTime dateTime) {
+            return Date.from(dateTime.atZone(ZONE).toInstant());
+        }
+        return value;
+    }
+
+    private static Object fromBson(Object value) {
+        if (value instanceof Map<?, ?> map) {
+            return asMap(map);
+        }
+        if (value instanceof List<?> list) {
+            List<Object> copy = new ArrayList<>(list.size());
+            list.forEach(item -> copy.add(fromBson(item)));
+            return copy;
+        }
+        return value;
+    }
+
+    private static Map<String, Object> asMap(Object value) {
+        if (!(value instanceof Map<?, ?> map)) {
+            return null;
+        }
+        Map<String, Object> copy = new LinkedHashMap<>(Math.max(4, map.size() * 4 / 3 + 1));
+        map.forEach((key, item) -> copy.put(String.valueOf(key), fromBson(item)));
+        return copy;
+    }
+
+    private static List<String> asStringList(Object value) {
+        if (!(value instanceof List<?> list)) {
+            return null;
+        }
+        List<String> strings = new ArrayList<>(list.size());
+        list.forEach(item -> strings.add(asString(item)));
+        return strings;
+    }
+
+    private static String asString(Object value) {
+        return value == null ? null : value.toString();
+    }
+
+    private static Integer asInteger(Object value) {
+        return value instanceof Number number ? number.intValue() : null;
+    }
+
+    private static LocalDateTime asDateTime(Object value) {
+        return value instanceof Date date ? LocalDateTime.ofInstant(date.toInstant(), ZONE) : null;
+    }
+
+    @WritingConverter
+    static class DesignWritingConverter implements Converter<Design, Document> {
+        @Override
+        public Document convert(Design source) {
+            return toDocument(source);
+        }
+    }
+
+    @ReadingConverter
+    static class DesignReadingConverter implements Converter<Document, Design> {
+        @Override
+        public Design convert(Document source) {
+            return toDesign(source);
+        }
+    }
+
+    @WritingConverter
+    static class ComponentWritingConverter implements Converter<Design.DesignComponent, Document> {
+        @Override
+        public Document convert(Design.DesignComponent source) {
+            return toDocument(source);
+        }
+    }
+
+    @ReadingConverter
+    static class ComponentReadingConverter implements Converter<Document, Design.DesignComponent> {
+        @Override
+        public Design.DesignComponent convert(Document source) {
+            return toComponent(source);
+        }
+    }
+}
@@ -1,15 +1,32 @@
 package com.ace.templateengine.config;
 
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.data.mongodb.config.AbstractMongoClientConfiguration;
+import org.springframework.data.mongodb.core.convert.MongoCustomConversions;
 import org.springframework.data.mongodb.repository.config.EnableMongoRepositories;
 
 @Configuration
 @EnableMongoRepositories(basePackages = "com.ace.templateengine.repository")
 public class MongoConfig extends AbstractMongoClientConfiguration {
 
+    @Value("${spring.data.mongodb.auto-index-creation:false}")
+    private boolean autoIndexCreation;
+
     @Override
     protected String getDatabaseName() {
         return "ace_template_engine";
     }
+
+    // Creates annotated indexes of supporting collections; the designs collection is managed by DesignIndexManager
+    @Override
+    protected boolean autoIndexCreation() {
+        return autoIndexCreation;
+    }
+
+    // Designs and their components are mapped by hand instead of reflectively (see DesignConverters)
+    @Override
+    protected void configureConverters(MongoCustomConversions.MongoConverterConfigurationAdapter adapter) {
+        adapter.registerConverters(DesignConverters.converters());
+    }
 }
@@ -0,0 +1,39 @@
+package com.ace.templateengine.config;
+
+import com.ace.templateengine.controller.DesignCollaborationHandler;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.web.socket.config.annotation.EnableWebSocket;
+import org.springframework.web.socket.config.annotation.WebSocketConfigurer;
+import org.springframework.web.socket.config.annotation.WebSocketHandlerRegistry;
+import org.springframework.web.socket.server.standard.ServletServerContainerFactoryBean;
+
+@Configuration
+@EnableWebSocket
+public class WebSocketConfig implements WebSocketConfigurer {
+
+    @Value("${app.cors.allowed-origins}")
+    private String allowedOrigins;
+
+    @Value("${app.designs.collaboration.max-message-bytes:1048576}")
+    private int maxMessageBytes;
+
+    @Autowired
+    private DesignCollaborationHandler designCollaborationHandler;
+
+    @Override
+    public void registerWebSocketHandlers(WebSocketHandlerRegistry registry) {
+        registry.addHandler(designCollaborationHandler, "/ws/designs/*")
+                .setAllowedOriginPatterns(allowedOrigins.split(","));
+    }
+
+    // Operation batches with whole components easily exceed the container's default 8 KB message size
+    @Bean
+    public ServletServerContainerFactoryBean createWebSocketContainer() {
+        ServletServerContainerFactoryBean container = new ServletServerContainerFactoryBean();
+        container.setMaxTextMessageBufferSize(maxMessageBytes);
+        return container;
+    }
+}
@@ -0,0 +1,39 @@
+package com.ace.templateengine.controller;
+
+import com.ace.templateengine.dto.ComponentUsageReport;
+import com.ace.templateengine.service.ComponentUsageService;
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.Parameter;
+import io.swagger.v3.oas.annotations.tags.Tag;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+@RestController
+@RequestMapping("/api/admin/component-usage")
+@Tag(name = "Component Usage", description = "Component usage counters across all designs")
+public class ComponentUsageController {
+
+    @Autowired
+    private ComponentUsageService componentUsageService;
+
+    @Operation(
+        summary = "Report component usage",
+        description = "Designs and components per component type and per creator, maintained on every design write"
+    )
+    @GetMapping
+    public ResponseEntity<ComponentUsageReport> getComponentUsage(
+            @Parameter(description = "Only this creator's breakdown") @RequestParam(required = false) String createdBy,
+            @Parameter(description = "Most used property keys and key combinations listed per type") @RequestParam(defaultValue = "10") int limit) {
+        return ResponseEntity.ok(componentUsageService.report(createdBy, limit));
+    }
+
+    @Operation(
+        summary = "Backfill component usage",
+        description = "Recomputes the counters from all designs with a parallel scan and replaces the stored ones"
+    )
+    @PostMapping("/backfill")
+    public ResponseEntity<ComponentUsageReport> backfill() {
+        return ResponseEntity.ok(componentUsageService.backfill());
+    }
+}
@@ -0,0 +1,36 @@
+package com.ace.templateengine.controller;
+
+import com.ace.templateengine.dto.ContentStoreReport;
+import com.ace.templateengine.service.ContentStore;
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.tags.Tag;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+@RestController
+@RequestMapping("/api/admin/content-store")
+@Tag(name = "Content Store Administration", description = "Inspection and garbage collection of shared component content")
+public class ContentStoreAdminController {
+
+    @Autowired
+    private ContentStore contentStore;
+
+    @Operation(
+        summary = "Report content store",
+        description = "Number of stored and cached content blobs"
+    )
+    @GetMapping
+    public ResponseEntity<ContentStoreReport> getContentStoreReport() {
+        return ResponseEntity.ok(contentStore.report());
+    }
+
+    @Operation(
+        summary = "Collect garbage",
+        description = "Deletes content blobs no longer referenced by any design or history entry and untouched for the grace period"
+    )
+    @PostMapping("/gc")
+    public ResponseEntity<ContentStoreReport> collectGarbage() {
+        return ResponseEntity.ok(contentStore.collectGarbage());
+    }
+}
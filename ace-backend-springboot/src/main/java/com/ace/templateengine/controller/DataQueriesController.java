@@ -1,5 +1,14 @@
 package com.ace.templateengine.controller;
 
+import com.ace.templateengine.dto.DataQueryRunResult;
+import com.ace.templateengine.model.DataQuery;
+import com.ace.templateengine.service.DataQueryService;
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.Parameter;
+import io.swagger.v3.oas.annotations.responses.ApiResponse;
+import io.swagger.v3.oas.annotations.responses.ApiResponses;
+import io.swagger.v3.oas.annotations.tags.Tag;
+import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 
@@ -8,78 +17,86 @@ import java.util.Map;
 
 @RestController
 @RequestMapping("/api/data_queries")
+@Tag(name = "Data Queries", description = "Saved data queries of ACE Template Engine applications")
 public class DataQueriesController {
 
+    @Autowired
+    private DataQueryService dataQueryService;
+
     // Get all data queries for an app - matches GET /data_queries
+    @Operation(summary = "Get all data queries", description = "Saved queries of an app, oldest first")
     @GetMapping
-    public ResponseEntity<List<Map<String, Object>>> getAllDataQueries(
-            @RequestParam("app_id") String appId) {
-        
-        // Return empty list for now - in real implementation would fetch from database
-        List<Map<String, Object>> queries = List.of();
+    public ResponseEntity<List<DataQuery>> getAllDataQueries(
+            @Parameter(description = "App ID") @RequestParam("app_id") String appId) {
         
-        return ResponseEntity.ok(queries);
+        return ResponseEntity.ok(dataQueryService.getDataQueries(appId));
     }
 
     // Create data query - matches POST /data_queries
+    @Operation(
+        summary = "Create data query",
+        description = "Saves a query of an app. Queries of kind acedb or mongodb are compiled and checked on save; "
+                + "their options name a collection and an operation (find, aggregate or count) with filter, pipeline, "
+                + "sort, projection, skip and limit, and may use {{parameter}} placeholders"
+    )
+    @ApiResponses(value = {
+        @ApiResponse(responseCode = "200", description = "Query saved"),
+        @ApiResponse(responseCode = "400", description = "Missing app_id or invalid query options")
+    })
     @PostMapping
-    public ResponseEntity<Map<String, Object>> createDataQuery(
+    public ResponseEntity<DataQuery> createDataQuery(
             @RequestBody Map<String, Object> queryData) {
         
-        String newId = "query_" + System.currentTimeMillis();
-        Map<String, Object> newQuery = Map.of(
-            "id", newId,
-            "name", queryData.getOrDefault("name", "Untitled Query"),
-            "app_id", queryData.get("app_id"),
-            "kind", queryData.getOrDefault("kind", "restapi"),
-            "options", queryData.getOrDefault("options", Map.of()),
-            "data_source_id", queryData.getOrDefault("data_source_id", ""),
-            "created_at", java.time.Instant.now().toString(),
-            "updated_at", java.time.Instant.now().toString()
-        );
-        
-        return ResponseEntity.ok(newQuery);
+        return ResponseEntity.ok(dataQueryService.createDataQuery(queryData));
     }
 
     // Update data query - matches PUT /data_queries/:id
+    @Operation(summary = "Update data query", description = "Changes the given fields of a saved query")
+    @ApiResponses(value = {
+        @ApiResponse(responseCode = "200", description = "Query saved"),
+        @ApiResponse(responseCode = "400", description = "Invalid query options"),
+        @ApiResponse(responseCode = "404", description = "Query not found")
+    })
     @PutMapping("/{id}")
-    public ResponseEntity<Map<String, Object>> updateDataQuery(
-            @PathVariable String id,
+    public ResponseEntity<DataQuery> updateDataQuery(
+            @Parameter(description = "Query ID") @PathVariable String id,
             @RequestBody Map<String, Object> queryData) {
         
-        Map<String, Object> updatedQuery = Map.of(
-            "id", id,
-            "name", queryData.getOrDefault("name", "Untitled Query"),
-            "kind", queryData.getOrDefault("kind", "restapi"),
-            "options", queryData.getOrDefault("options", Map.of()),
-            "data_source_id", queryData.getOrDefault("data_source_id", ""),
-            "updated_at", java.time.Instant.now().toString()
-        );
-        
-        return ResponseEntity.ok(updatedQuery);
+        return ResponseEntity.ok(dataQueryService.updateDataQuery(id, queryData));
     }
 
     // Delete data query - matches DELETE /data_queries/:id
+    @Operation(summary = "Delete data query")
+    @ApiResponses(value = {
+        @ApiResponse(responseCode = "204", description = "Query deleted"),
+        @ApiResponse(responseCode = "404", description = "Query not found")
+    })
     @DeleteMapping("/{id}")
-    public ResponseEntity<Void> deleteDataQuery(@PathVariable String id) {
+    public ResponseEntity<Void> deleteDataQuery(
+            @Parameter(description = "Query ID") @PathVariable String id) {
+        
+        dataQueryService.deleteDataQuery(id);
         return ResponseEntity.noContent().build();
     }
 
     // Run data query - matches POST /data_queries/:id/run
+    @Operation(
+        summary = "Run data query",
+        description = "Runs a saved database query with the parameters under parameters in the body, or the body "
+                + "itself, and returns its rows with the row count and execution time"
+    )
+    @ApiResponses(value = {
+        @ApiResponse(responseCode = "200", description = "Query ran, or failed with a message in the result"),
+        @ApiResponse(responseCode = "404", description = "Query not found")
+    })
     @PostMapping("/{id}/run")
-    public ResponseEntity<Map<String, Object>> runDataQuery(
-            @PathVariable String id,
-            @RequestBody Map<String, Object> runData) {
-        
-        Map<String, Object> result = Map.of(
-            "status", "completed",
-            "data", List.of(),
-            "metadata", Map.of(
-                "query_id", id,
-                "execution_time", "100ms"
-            )
-        );
+    @SuppressWarnings("unchecked")
+    public ResponseEntity<DataQueryRunResult> runDataQuery(
+            @Parameter(description = "Query ID") @PathVariable String id,
+            @RequestBody(required = false) Map<String, Object> runData) {
         
-        return ResponseEntity.ok(result);
+        Map<String, Object> parameters = runData == null ? Map.of()
+                : runData.get("parameters") instanceof Map<?, ?> nested ? (Map<String, Object>) nested : runData;
+        return ResponseEntity.ok(dataQueryService.runDataQuery(id, parameters));
     }
 }
@@ -0,0 +1,54 @@
+package com.ace.templateengine.controller;
+
+import com.ace.templateengine.exception.DesignNotFoundException;
+import com.ace.templateengine.service.CollaborationService;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+import org.springframework.web.socket.CloseStatus;
+import org.springframework.web.socket.TextMessage;
+import org.springframework.web.socket.WebSocketSession;
+import org.springframework.web.socket.handler.TextWebSocketHandler;
+import org.springframework.web.util.UriComponentsBuilder;
+
+import java.net.URI;
+import java.util.List;
+
+/**
+ * WebSocket endpoint for collaborative editing at /ws/designs/{id}?user={name}.
+ *
+ * Clients receive a welcome with the current design and server sequence, then send batches of
+ * component operations ({"type": "ops", "clientSeq": n, "ops": [...]}) and receive the coalesced
+ * operations of all participants once per frame (see CollaborationService).
+ */
+@Component
+public class DesignCollaborationHandler extends TextWebSocketHandler {
+
+    @Autowired
+    private CollaborationService collaborationService;
+
+    @Override
+    public void afterConnectionEstablished(WebSocketSession session) throws Exception {
+        URI uri = session.getUri();
+        if (uri == null) {
+            session.close(CloseStatus.BAD_DATA);
+            return;
+        }
+        List<String> segments = UriComponentsBuilder.fromUri(uri).build().getPathSegments();
+        String user = UriComponentsBuilder.fromUri(uri).build().getQueryParams().getFirst("user");
+        try {
+            collaborationService.join(session, segments.get(segments.size() - 1), user);
+        } catch (DesignNotFoundException e) {
+            session.close(CloseStatus.POLICY_VIOLATION.withReason("Design not found"));
+        }
+    }
+
+    @Override
+    protected void handleTextMessage(WebSocketSession session, TextMessage message) throws Exception {
+        collaborationService.receive(session, message.getPayload());
+    }
+
+    @Override
+    public void afterConnectionClosed(WebSocketSession session, CloseStatus status) {
+        collaborationService.leave(session);
+    }
+}
@@ -1,8 +1,23 @@
 package com.ace.templateengine.controller;
 
 import com.ace.templateengine.model.Design;
+import com.ace.templateengine.model.DesignVersion;
+import com.ace.templateengine.dto.AutosaveStatus;
 import com.ace.templateengine.dto.DesignRequestDTO;
+import com.ace.templateengine.dto.DesignDiff;
+import com.ace.templateengine.dto.DesignImportStatus;
 import com.ace.templateengine.dto.DesignStats;
+import com.ace.templateengine.dto.DuplicateReport;
+import com.ace.templateengine.dto.FacetQueryResult;
+import com.ace.templateengine.dto.SimilarDesign;
+import com.ace.templateengine.service.AutosaveService;
+import com.ace.templateengine.service.CollaborationService;
+import com.ace.templateengine.service.ContentHasher;
+import com.ace.templateengine.service.DesignArchiveService;
+import com.ace.templateengine.service.DesignChangeFeed;
+import com.ace.templateengine.service.DesignRenderer;
+import com.ace.templateengine.service.DesignFacetIndex;
+import com.ace.templateengine.service.DesignSimilarityIndex;
 import com.ace.templateengine.service.DesignService;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.Parameter;
@@ -11,15 +26,26 @@ import io.swagger.v3.oas.annotations.media.Schema;
 import io.swagger.v3.oas.annotations.responses.ApiResponse;
 import io.swagger.v3.oas.annotations.responses.ApiResponses;
 import io.swagger.v3.oas.annotations.tags.Tag;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
 import jakarta.validation.Valid;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.data.domain.Page;
 import org.springframework.format.annotation.DateTimeFormat;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
 
+import java.io.IOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
 import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.Arrays;
+import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 
@@ -31,6 +57,27 @@ public class DesignController {
     @Autowired
     private DesignService designService;
 
+    @Autowired
+    private AutosaveService autosaveService;
+    
+    @Autowired
+    private DesignChangeFeed designChangeFeed;
+
+    @Autowired
+    private CollaborationService collaborationService;
+
+    @Autowired
+    private DesignFacetIndex designFacetIndex;
+
+    @Autowired
+    private DesignSimilarityIndex designSimilarityIndex;
+
+    @Autowired
+    private DesignArchiveService designArchiveService;
+
+    @Autowired
+    private DesignRenderer designRenderer;
+
     @Operation(
         summary = "Create a new design",
         description = "Creates a new design with all canvas properties and components"
@@ -86,16 +133,145 @@ public class DesignController {
     @ApiResponses(value = {
         @ApiResponse(responseCode = "200", description = "Design found",
                 content = @Content(schema = @Schema(implementation = Design.class))),
+        @ApiResponse(responseCode = "304", description = "Design unchanged since the ETag sent in If-None-Match"),
         @ApiResponse(responseCode = "404", description = "Design not found")
     })
     @GetMapping("/{id}")
     public ResponseEntity<Design> getDesignById(
+            @Parameter(description = "Design ID") @PathVariable String id,
+            WebRequest webRequest) {
+        
+        // The stored hash answers conditional requests before split components are loaded
+        Design design = designService.getDesignShell(id);
+        String eTag = eTagOf(design);
+        if (webRequest.checkNotModified(eTag)) {
+            return ResponseEntity.status(HttpStatus.NOT_MODIFIED).eTag(eTag).build();
+        }
+        return ResponseEntity.ok().eTag(eTag).body(designService.withComponents(design));
+    }
+
+    @Operation(
+        summary = "Get design shell",
+        description = "Retrieves a design without the components of designs in split storage, for loading large designs lazily"
+    )
+    @GetMapping("/{id}/shell")
+    public ResponseEntity<Design> getDesignShell(
             @Parameter(description = "Design ID") @PathVariable String id) {
         
-        Design design = designService.getDesignById(id);
+        Design design = designService.getDesignShell(id);
+        if (design.getComponentStorage() == Design.ComponentStorage.SPLIT) {
+            return ResponseEntity.ok(design);
+        }
+        design.setComponentCount(design.getComponents() == null ? 0 : design.getComponents().size());
+        design.setComponents(null);
+        return ResponseEntity.ok(design);
+    }
+
+    @Operation(
+        summary = "Get design components",
+        description = "Retrieves one page of a design's components in list order"
+    )
+    @GetMapping("/{id}/components")
+    public ResponseEntity<Page<Design.DesignComponent>> getDesignComponents(
+            @Parameter(description = "Design ID") @PathVariable String id,
+            @Parameter(description = "Page number (0-based)") @RequestParam(defaultValue = "0") int page,
+            @Parameter(description = "Page size") @RequestParam(defaultValue = "200") int size) {
+        
+        Page<Design.DesignComponent> components = designService.getDesignComponents(id, page, size);
+        return ResponseEntity.ok(components);
+    }
+
+    @Operation(
+        summary = "Get component subtree",
+        description = "Retrieves a component and all of its descendants, parents before their children"
+    )
+    @GetMapping("/{id}/components/{componentId}/subtree")
+    public ResponseEntity<List<Design.DesignComponent>> getComponentSubtree(
+            @Parameter(description = "Design ID") @PathVariable String id,
+            @Parameter(description = "Root component ID") @PathVariable String componentId) {
+        
+        List<Design.DesignComponent> components = designService.getComponentSubtree(id, componentId);
+        return ResponseEntity.ok(components);
+    }
+
+    @Operation(
+        summary = "Get component ancestors",
+        description = "Retrieves the ancestors of a component, top level first"
+    )
+    @GetMapping("/{id}/components/{componentId}/ancestors")
+    public ResponseEntity<List<Design.DesignComponent>> getComponentAncestors(
+            @Parameter(description = "Design ID") @PathVariable String id,
+            @Parameter(description = "Component ID") @PathVariable String componentId) {
+        
+        List<Design.DesignComponent> components = designService.getComponentAncestors(id, componentId);
+        return ResponseEntity.ok(components);
+    }
+
+    @Operation(
+        summary = "Move component subtree",
+        description = "Moves a component and its descendants under a new parent, or to the top level when no parent is given"
+    )
+    @ApiResponses(value = {
+        @ApiResponse(responseCode = "200", description = "Component moved",
+                content = @Content(schema = @Schema(implementation = Design.class))),
+        @ApiResponse(responseCode = "400", description = "Move would put the component inside its own subtree"),
+        @ApiResponse(responseCode = "404", description = "Design or component not found"),
+        @ApiResponse(responseCode = "409", description = "Design is being edited collaboratively")
+    })
+    @PostMapping("/{id}/components/{componentId}/move")
+    public ResponseEntity<Design> moveComponent(
+            @Parameter(description = "Design ID") @PathVariable String id,
+            @Parameter(description = "Component ID") @PathVariable String componentId,
+            @Parameter(description = "New parent component ID") @RequestParam(required = false) String parentId,
+            @Parameter(description = "Position among the new siblings, appended when omitted") @RequestParam(required = false) Integer index,
+            @Parameter(description = "User moving the component") @RequestParam(required = false) String updatedBy) {
+        
+        collaborationService.checkNoRoom(id);
+        autosaveService.flushPending(id);
+        Design design = designService.moveComponent(id, componentId, parentId, index, updatedBy);
         return ResponseEntity.ok(design);
     }
 
+    @Operation(
+        summary = "Get components in region",
+        description = "Retrieves the components whose bounding box intersects a canvas region, e.g. the editor viewport, in paint order"
+    )
+    @GetMapping("/{id}/components/region")
+    public ResponseEntity<List<Design.DesignComponent>> getComponentsInRegion(
+            @Parameter(description = "Design ID") @PathVariable String id,
+            @Parameter(description = "Left edge of the region") @RequestParam double x,
+            @Parameter(description = "Top edge of the region") @RequestParam double y,
+            @Parameter(description = "Region width") @RequestParam double width,
+            @Parameter(description = "Region height") @RequestParam double height,
+            @Parameter(description = "Include components with visible set to false") @RequestParam(defaultValue = "false") boolean includeHidden) {
+        
+        List<Design.DesignComponent> components = designService.getComponentsInRegion(id, x, y, width, height, includeHidden);
+        return ResponseEntity.ok(components);
+    }
+
+    @Operation(
+        summary = "Hit-test component",
+        description = "Retrieves the top-most visible component at a canvas point by zIndex, then list order"
+    )
+    @ApiResponses(value = {
+        @ApiResponse(responseCode = "200", description = "Component found",
+                content = @Content(schema = @Schema(implementation = Design.DesignComponent.class))),
+        @ApiResponse(responseCode = "204", description = "No visible component at the point"),
+        @ApiResponse(responseCode = "404", description = "Design not found")
+    })
+    @GetMapping("/{id}/components/at")
+    public ResponseEntity<Design.DesignComponent> getComponentAt(
+            @Parameter(description = "Design ID") @PathVariable String id,
+            @Parameter(description = "Canvas x coordinate") @RequestParam double x,
+            @Parameter(description = "Canvas y coordinate") @RequestParam double y) {
+        
+        Design.DesignComponent component = designService.getComponentAt(id, x, y);
+        if (component == null) {
+            return ResponseEntity.noContent().build();
+        }
+        return ResponseEntity.ok(component);
+    }
+
     @Operation(
         summary = "Update design",
         description = "Updates an existing design with new data"
@@ -104,7 +280,7 @@ public class DesignController {
         @ApiResponse(responseCode = "200", description = "Design updated successfully",
                 content = @Content(schema = @Schema(implementation = Design.class))),
         @ApiResponse(responseCode = "404", description = "Design not found"),
-        @ApiResponse(responseCode = "409", description = "Design name already exists for user")
+        @ApiResponse(responseCode = "409", description = "Design name already exists for user, or components changed while the design is edited collaboratively")
     })
     @PutMapping("/{id}")
     public ResponseEntity<Design> updateDesign(
@@ -116,6 +292,8 @@ public class DesignController {
             design.setUpdatedBy(updatedBy);
         }
         
+        collaborationService.checkNoRoom(id);
+        autosaveService.flushPending(id);
         Design updatedDesign = designService.updateDesign(id, design);
         return ResponseEntity.ok(updatedDesign);
     }
@@ -128,7 +306,7 @@ public class DesignController {
         @ApiResponse(responseCode = "200", description = "Design updated successfully",
                 content = @Content(schema = @Schema(implementation = Design.class))),
         @ApiResponse(responseCode = "404", description = "Design not found"),
-        @ApiResponse(responseCode = "409", description = "Design name already exists for user")
+        @ApiResponse(responseCode = "409", description = "Design name already exists for user, or components changed while the design is edited collaboratively")
     })
     @PatchMapping("/{id}")
     public ResponseEntity<Design> patchDesign(
@@ -140,23 +318,80 @@ public class DesignController {
             partialDesign.setUpdatedBy(updatedBy);
         }
         
+        if (partialDesign.getComponents() != null) {
+            collaborationService.checkNoRoom(id);
+        }
+        autosaveService.flushPending(id);
         Design updatedDesign = designService.patchDesign(id, partialDesign);
         return ResponseEntity.ok(updatedDesign);
     }
 
+    @Operation(
+        summary = "Autosave design",
+        description = "Buffers an editor autosave; successive edits are coalesced and written once the design is quiet for the debounce interval"
+    )
+    @ApiResponses(value = {
+        @ApiResponse(responseCode = "202", description = "Edit buffered",
+                content = @Content(schema = @Schema(implementation = AutosaveStatus.class))),
+        @ApiResponse(responseCode = "404", description = "Design not found"),
+        @ApiResponse(responseCode = "409", description = "Components changed while the design is edited collaboratively")
+    })
+    @PostMapping("/{id}/autosave")
+    public ResponseEntity<AutosaveStatus> autosaveDesign(
+            @Parameter(description = "Design ID") @PathVariable String id,
+            @RequestBody Map<String, Object> edit,
+            @Parameter(description = "User editing the design") @RequestParam(required = false) String updatedBy) {
+        
+        if (edit.containsKey("components")) {
+            collaborationService.checkNoRoom(id);
+        }
+        return ResponseEntity.status(HttpStatus.ACCEPTED).body(autosaveService.autosave(id, edit, updatedBy));
+    }
+
+    @Operation(
+        summary = "Get autosave status",
+        description = "Reports the autosaved edits of a design not yet written"
+    )
+    @GetMapping("/{id}/autosave")
+    public ResponseEntity<AutosaveStatus> getAutosaveStatus(
+            @Parameter(description = "Design ID") @PathVariable String id) {
+        
+        return ResponseEntity.ok(autosaveService.status(id));
+    }
+
+    @Operation(
+        summary = "Save autosaved edits",
+        description = "Writes the buffered autosave edits of a design now and returns the stored design"
+    )
+    @ApiResponses(value = {
+        @ApiResponse(responseCode = "200", description = "Design saved",
+                content = @Content(schema = @Schema(implementation = Design.class))),
+        @ApiResponse(responseCode = "404", description = "Design not found")
+    })
+    @PostMapping("/{id}/autosave/flush")
+    public ResponseEntity<Design> flushAutosave(
+            @Parameter(description = "Design ID") @PathVariable String id) {
+        
+        return ResponseEntity.ok(autosaveService.flush(id));
+    }
+
     @Operation(
         summary = "Delete design",
         description = "Deletes a design permanently"
     )
     @ApiResponses(value = {
         @ApiResponse(responseCode = "204", description = "Design deleted successfully"),
-        @ApiResponse(responseCode = "404", description = "Design not found")
+        @ApiResponse(responseCode = "404", description = "Design not found"),
+        @ApiResponse(responseCode = "409", description = "A collaboration room is open on the design")
     })
     @DeleteMapping("/{id}")
     public ResponseEntity<Void> deleteDesign(
             @Parameter(description = "Design ID") @PathVariable String id) {
         
+        // An open room would save the design back once it is gone
+        collaborationService.checkNoRoom(id);
         designService.deleteDesign(id);
+        autosaveService.discard(id);
         return ResponseEntity.noContent().build();
     }
 
@@ -184,14 +419,43 @@ public class DesignController {
 
     @Operation(
         summary = "Search designs",
-        description = "Search designs by name or description"
+        description = "Full-text search over name, description, tags, category and component names/types, ranked by relevance"
     )
     @GetMapping("/search")
-    public ResponseEntity<List<Design>> searchDesigns(
-            @Parameter(description = "Search term") @RequestParam String q) {
+    public ResponseEntity<?> searchDesigns(
+            @Parameter(description = "Search term") @RequestParam String q,
+            @Parameter(description = "Enable pagination") @RequestParam(defaultValue = "false") boolean paginated,
+            @Parameter(description = "Page number (0-based)") @RequestParam(defaultValue = "0") int page,
+            @Parameter(description = "Page size") @RequestParam(defaultValue = "10") int size) {
         
-        List<Design> designs = designService.searchDesigns(q);
-        return ResponseEntity.ok(designs);
+        if (paginated) {
+            Page<Design> designs = designService.searchDesigns(q, page, size);
+            return ResponseEntity.ok(designs);
+        } else {
+            List<Design> designs = designService.searchDesigns(q);
+            return ResponseEntity.ok(designs);
+        }
+    }
+
+    @Operation(
+        summary = "Filter designs by facets",
+        description = "Boolean query over the tag, category, status, public and type facets, answered from an in-memory "
+                + "bitmap index, e.g. tag:finance AND (status:PUBLISHED OR NOT type:chart). Returns a page of matching "
+                + "design ids, in id order, and per-facet value counts over all matches; pass next as after for the following page"
+    )
+    @ApiResponses(value = {
+        @ApiResponse(responseCode = "200", description = "Query answered"),
+        @ApiResponse(responseCode = "400", description = "Invalid facet query")
+    })
+    @GetMapping("/facets")
+    public ResponseEntity<FacetQueryResult> queryFacets(
+            @Parameter(description = "Facet query; empty matches all designs") @RequestParam(required = false) String q,
+            @Parameter(description = "Design id the page starts after, the next value of the previous page") @RequestParam(required = false) String after,
+            @Parameter(description = "Number of matching ids to skip") @RequestParam(defaultValue = "0") int offset,
+            @Parameter(description = "Number of matching ids to return") @RequestParam(defaultValue = "50") int limit,
+            @Parameter(description = "Facets to count; all facets when omitted") @RequestParam(required = false) List<String> counts) {
+        
+        return ResponseEntity.ok(designFacetIndex.query(q, after, offset, limit, counts));
     }
 
     @Operation(
@@ -289,6 +553,53 @@ public class DesignController {
         return ResponseEntity.ok(designs);
     }
 
+    @Operation(
+        summary = "Subscribe to design changes",
+        description = "Server-sent stream of compact change events (design id, operation, changed fields, new version) "
+                + "for designs matching all given filters. Reconnecting clients send Last-Event-ID to receive missed "
+                + "events; a resync event asks them to reload once through /updated-after"
+    )
+    @GetMapping(value = "/changes", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public SseEmitter subscribeToChanges(
+            @Parameter(description = "Only designs created by this user") @RequestParam(required = false) String createdBy,
+            @Parameter(description = "Only designs with this tag") @RequestParam(required = false) String tag,
+            @Parameter(description = "Only designs with this status") @RequestParam(required = false) Design.DesignStatus status,
+            @Parameter(description = "Id of the last event received before reconnecting")
+            @RequestHeader(value = "Last-Event-ID", required = false) String lastEventId) {
+        
+        return designChangeFeed.subscribe(createdBy, tag, status == null ? null : status.name(), lastEventId);
+    }
+
+    @Operation(
+        summary = "Get similar designs",
+        description = "Designs whose component types, hierarchy and key properties are similar to this design's, "
+                + "with their estimated Jaccard similarity, most similar first"
+    )
+    @ApiResponses(value = {
+        @ApiResponse(responseCode = "200", description = "Similar designs found"),
+        @ApiResponse(responseCode = "404", description = "Design not found")
+    })
+    @GetMapping("/{id}/similar")
+    public ResponseEntity<List<SimilarDesign>> getSimilarDesigns(
+            @Parameter(description = "Design ID") @PathVariable String id,
+            @Parameter(description = "Maximum number of designs") @RequestParam(defaultValue = "10") int limit,
+            @Parameter(description = "Minimum estimated similarity between 0 and 1") @RequestParam(defaultValue = "0.5") double minSimilarity) {
+        
+        return ResponseEntity.ok(designService.getSimilarDesigns(id, limit, minSimilarity));
+    }
+
+    @Operation(
+        summary = "Report near-duplicate designs",
+        description = "Groups the design library into clusters of designs at or above the similarity threshold, largest clusters first"
+    )
+    @GetMapping("/duplicates")
+    public ResponseEntity<DuplicateReport> getDuplicateReport(
+            @Parameter(description = "Minimum estimated similarity between 0 and 1") @RequestParam(defaultValue = "0.8") double threshold,
+            @Parameter(description = "Maximum number of clusters") @RequestParam(defaultValue = "100") int limit) {
+        
+        return ResponseEntity.ok(designSimilarityIndex.duplicates(threshold, limit));
+    }
+
     @Operation(
         summary = "Clone design",
         description = "Creates a copy of an existing design with a new name"
@@ -309,9 +620,88 @@ public class DesignController {
         return ResponseEntity.status(HttpStatus.CREATED).body(clonedDesign);
     }
 
+    @Operation(
+        summary = "Get design version history",
+        description = "Lists the recorded versions of a design, newest first, without their content"
+    )
+    @GetMapping("/{id}/versions")
+    public ResponseEntity<List<DesignVersion>> getDesignVersions(
+            @Parameter(description = "Design ID") @PathVariable String id) {
+        
+        List<DesignVersion> versions = designService.getDesignVersions(id);
+        return ResponseEntity.ok(versions);
+    }
+
+    @Operation(
+        summary = "Get design version",
+        description = "Rebuilds a design as it was at a given history entry"
+    )
+    @ApiResponses(value = {
+        @ApiResponse(responseCode = "200", description = "Version found",
+                content = @Content(schema = @Schema(implementation = Design.class))),
+        @ApiResponse(responseCode = "404", description = "Design or version not found")
+    })
+    @GetMapping("/{id}/versions/{sequence}")
+    public ResponseEntity<Design> getDesignVersion(
+            @Parameter(description = "Design ID") @PathVariable String id,
+            @Parameter(description = "History sequence number") @PathVariable long sequence) {
+        
+        Design design = designService.getDesignVersion(id, sequence);
+        return ResponseEntity.ok(design);
+    }
+
+    @Operation(
+        summary = "Diff design versions",
+        description = "Structural diff between two history entries of a design, or an entry and the current design when 'to' is omitted"
+    )
+    @GetMapping("/{id}/versions/{sequence}/diff")
+    public ResponseEntity<DesignDiff> diffDesignVersions(
+            @Parameter(description = "Design ID") @PathVariable String id,
+            @Parameter(description = "History sequence number to diff from") @PathVariable long sequence,
+            @Parameter(description = "History sequence number to diff to") @RequestParam(required = false) Long to) {
+        
+        DesignDiff diff = designService.diffVersions(id, sequence, to);
+        return ResponseEntity.ok(diff);
+    }
+
+    @Operation(
+        summary = "Diff designs",
+        description = "Structural diff between two designs as JSON Patch style operations with components addressed by id"
+    )
+    @GetMapping("/diff")
+    public ResponseEntity<DesignDiff> diffDesigns(
+            @Parameter(description = "ID of the design to diff from") @RequestParam String left,
+            @Parameter(description = "ID of the design to diff to") @RequestParam String right) {
+        
+        DesignDiff diff = designService.diffDesigns(left, right);
+        return ResponseEntity.ok(diff);
+    }
+
+    @Operation(
+        summary = "Roll back design",
+        description = "Restores the content of a history entry as a new version of the design"
+    )
+    @ApiResponses(value = {
+        @ApiResponse(responseCode = "200", description = "Design rolled back",
+                content = @Content(schema = @Schema(implementation = Design.class))),
+        @ApiResponse(responseCode = "404", description = "Design or version not found"),
+        @ApiResponse(responseCode = "409", description = "Restored name already exists for user, or the design is being edited collaboratively")
+    })
+    @PostMapping("/{id}/versions/{sequence}/rollback")
+    public ResponseEntity<Design> rollbackDesign(
+            @Parameter(description = "Design ID") @PathVariable String id,
+            @Parameter(description = "History sequence number") @PathVariable long sequence,
+            @Parameter(description = "User performing the rollback") @RequestParam(required = false) String updatedBy) {
+        
+        collaborationService.checkNoRoom(id);
+        autosaveService.flushPending(id);
+        Design design = designService.rollbackDesign(id, sequence, updatedBy);
+        return ResponseEntity.ok(design);
+    }
+
     @Operation(
         summary = "Get design statistics",
-        description = "Retrieves overall design statistics"
+        description = "Retrieves overall design statistics with counts by status, visibility, category, tag and component type"
     )
     @GetMapping("/stats")
     public ResponseEntity<DesignStats> getDesignStats() {
@@ -321,7 +711,7 @@ public class DesignController {
 
     @Operation(
         summary = "Get user design statistics",
-        description = "Retrieves design statistics for a specific user"
+        description = "Retrieves design statistics and facet counts for a specific user"
     )
     @GetMapping("/stats/user/{createdBy}")
     public ResponseEntity<DesignStats> getDesignStatsByUser(
@@ -335,6 +725,10 @@ public class DesignController {
         summary = "Bulk update design status",
         description = "Updates the status of multiple designs"
     )
+    @ApiResponses(value = {
+        @ApiResponse(responseCode = "200", description = "Statuses updated"),
+        @ApiResponse(responseCode = "409", description = "A collaboration room is open on one of the designs")
+    })
     @PatchMapping("/bulk/status")
     public ResponseEntity<Map<String, Object>> bulkUpdateStatus(
             @RequestBody Map<String, Object> request) {
@@ -351,8 +745,12 @@ public class DesignController {
             "timestamp", LocalDateTime.now()
         );
         
+        // Refuse before any design changes, so a room open on one leaves the whole batch untouched
+        designIds.forEach(collaborationService::checkNoRoom);
+        
         // Process each design
         designIds.forEach(id -> {
+            autosaveService.flushPending(id);
             Design partialUpdate = new Design();
             partialUpdate.setStatus(status);
             partialUpdate.setUpdatedBy(updatedBy);
@@ -375,4 +773,138 @@ public class DesignController {
                 .header("Content-Disposition", "attachment; filename=\"design-" + design.getName() + ".json\"")
                 .body(design);
     }
+
+    @Operation(
+        summary = "Export designs in bulk",
+        description = "Streams the designs matching all given filters as an NDJSON archive, one design per line with "
+                + "components and preview image inline, gzip compressed unless compression=none. Designs come in id "
+                + "order; an interrupted export continues with afterId set to the last exported id"
+    )
+    @GetMapping("/export")
+    public void exportDesigns(
+            @Parameter(description = "Only designs created by this user") @RequestParam(required = false) String createdBy,
+            @Parameter(description = "Only designs with this status") @RequestParam(required = false) Design.DesignStatus status,
+            @Parameter(description = "Only designs with this tag") @RequestParam(required = false) String tag,
+            @Parameter(description = "Only designs in this category") @RequestParam(required = false) String category,
+            @Parameter(description = "Only designs updated after this date") @RequestParam(required = false)
+            @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime updatedAfter,
+            @Parameter(description = "Only designs with a greater id") @RequestParam(required = false) String afterId,
+            @Parameter(description = "gzip or none") @RequestParam(defaultValue = "gzip") String compression,
+            HttpServletResponse response) throws IOException {
+        
+        boolean gzip = !"none".equalsIgnoreCase(compression);
+        String fileName = "designs-" + LocalDateTime.now().format(DateTimeFormatter.ofPattern("yyyyMMdd-HHmmss"))
+                + (gzip ? ".ndjson.gz" : ".ndjson");
+        response.setContentType(gzip ? "application/gzip" : "application/x-ndjson");
+        response.setHeader("Content-Disposition", "attachment; filename=\"" + fileName + "\"");
+        designArchiveService.exportDesigns(createdBy, status, tag, category, updatedAfter, afterId, gzip,
+                response.getOutputStream());
+    }
+
+    @Operation(
+        summary = "Import designs in bulk",
+        description = "Imports an NDJSON archive as written by the bulk export, plain or gzip compressed, streamed "
+                + "as the request body. Designs that already exist are skipped. Progress can be followed under "
+                + "/imports/{importId}; an interrupted import resumes with skipLines set to its committed line"
+    )
+    @ApiResponses(value = {
+        @ApiResponse(responseCode = "200", description = "Import finished; the status tells whether it completed"),
+        @ApiResponse(responseCode = "409", description = "An import with this id is still running")
+    })
+    @PostMapping(value = "/import", consumes = {"application/x-ndjson", "application/gzip", MediaType.APPLICATION_OCTET_STREAM_VALUE})
+    public ResponseEntity<DesignImportStatus> importDesigns(
+            @Parameter(description = "Id for following progress; generated when missing") @RequestParam(required = false) String importId,
+            @Parameter(description = "Lines already committed by an earlier attempt") @RequestParam(defaultValue = "0") long skipLines,
+            HttpServletRequest request) throws IOException {
+        
+        DesignImportStatus status = designArchiveService.beginImport(importId);
+        if (status == null) {
+            return ResponseEntity.status(HttpStatus.CONFLICT).body(designArchiveService.getImportStatus(importId));
+        }
+        return ResponseEntity.ok(designArchiveService.importDesigns(status, request.getInputStream(), skipLines));
+    }
+
+    @Operation(
+        summary = "Get import progress",
+        description = "Lines read and committed, designs imported, skipped and failed so far"
+    )
+    @GetMapping("/imports/{importId}")
+    public ResponseEntity<DesignImportStatus> getImportStatus(
+            @Parameter(description = "Import ID") @PathVariable String importId) {
+        
+        DesignImportStatus status = designArchiveService.getImportStatus(importId);
+        return status == null ? ResponseEntity.notFound().build() : ResponseEntity.ok(status);
+    }
+
+    @Operation(
+        summary = "Render design as HTML",
+        description = "Renders the design on the server, streaming HTML for emails, PDFs and previews. Query "
+                + "parameters other than fragment are variables for {{placeholders}} in text and data queries; "
+                + "fragment=true returns only the design element for embedding"
+    )
+    @ApiResponses(value = {
+        @ApiResponse(responseCode = "200", description = "Design rendered"),
+        @ApiResponse(responseCode = "404", description = "Design not found")
+    })
+    @GetMapping("/{id}/render")
+    public void renderDesign(
+            @Parameter(description = "Design ID") @PathVariable String id,
+            @Parameter(description = "Only the design element instead of a complete document") @RequestParam(defaultValue = "false") boolean fragment,
+            @Parameter(description = "Variables for placeholders") @RequestParam Map<String, String> variables,
+            HttpServletResponse response) throws IOException {
+        
+        Map<String, Object> values = new HashMap<>(variables);
+        values.remove("fragment");
+        render(id, values, fragment, response);
+    }
+
+    @Operation(
+        summary = "Render design as HTML with data",
+        description = "Same as the GET variant with the variables, which may be numbers, booleans or nested "
+                + "objects, sent as a JSON body"
+    )
+    @PostMapping("/{id}/render")
+    public void renderDesignWithData(
+            @Parameter(description = "Design ID") @PathVariable String id,
+            @Parameter(description = "Only the design element instead of a complete document") @RequestParam(defaultValue = "false") boolean fragment,
+            @RequestBody(required = false) Map<String, Object> variables,
+            HttpServletResponse response) throws IOException {
+        
+        render(id, variables == null ? Map.of() : variables, fragment, response);
+    }
+
+    private void render(String id, Map<String, Object> variables, boolean fragment, HttpServletResponse response) throws IOException {
+        // The writer is only requested once the design is found, so a missing one still gets a JSON error
+        designRenderer.render(id, variables, fragment, new Writer() {
+            private Writer target;
+
+            @Override
+            public void write(char[] buffer, int offset, int length) throws IOException {
+                if (target == null) {
+                    response.setContentType(MediaType.TEXT_HTML_VALUE);
+                    response.setCharacterEncoding(StandardCharsets.UTF_8.name());
+                    target = response.getWriter();
+                }
+                target.write(buffer, offset, length);
+            }
+
+            @Override
+            public void flush() throws IOException {
+                if (target != null) {
+                    target.flush();
+                }
+            }
+
+            @Override
+            public void close() throws IOException {
+                flush();
+            }
+        });
+    }
+
+    // The content hash leaves out version, timestamps and authorship, which the body also carries
+    private static String eTagOf(Design design) {
+        return "\"" + ContentHasher.hashValue(Arrays.asList(ContentHasher.hashOf(design), design.getVersion(),
+                design.getUpdatedAt() == null ? null : design.getUpdatedAt().toString(), design.getUpdatedBy())) + "\"";
+    }
 }
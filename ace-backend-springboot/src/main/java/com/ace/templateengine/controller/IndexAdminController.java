@@ -0,0 +1,36 @@
+package com.ace.templateengine.controller;
+
+import com.ace.templateengine.dto.IndexReport;
+import com.ace.templateengine.repository.DesignIndexManager;
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.tags.Tag;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+@RestController
+@RequestMapping("/api/admin/indexes")
+@Tag(name = "Index Administration", description = "Verification and synchronization of database indexes")
+public class IndexAdminController {
+
+    @Autowired
+    private DesignIndexManager designIndexManager;
+
+    @Operation(
+        summary = "Report design indexes",
+        description = "Lists missing, outdated, undeclared and unused indexes of the designs collection and the explain plan of every repository query"
+    )
+    @GetMapping("/designs")
+    public ResponseEntity<IndexReport> getDesignIndexReport() {
+        return ResponseEntity.ok(designIndexManager.report());
+    }
+
+    @Operation(
+        summary = "Synchronize design indexes",
+        description = "Creates missing indexes and rebuilds outdated ones when the declared index version is newer than the applied one"
+    )
+    @PostMapping("/designs/sync")
+    public ResponseEntity<IndexReport> synchronizeDesignIndexes() {
+        return ResponseEntity.ok(designIndexManager.synchronize());
+    }
+}
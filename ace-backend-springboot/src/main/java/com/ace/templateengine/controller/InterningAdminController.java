@@ -0,0 +1,48 @@
+package com.ace.templateengine.controller;
+
+import com.ace.templateengine.dto.InterningReport;
+import com.ace.templateengine.model.Design;
+import com.ace.templateengine.service.DesignService;
+import com.ace.templateengine.service.StyleInterner;
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.Parameter;
+import io.swagger.v3.oas.annotations.tags.Tag;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+import java.util.List;
+
+@RestController
+@RequestMapping("/api/admin/interning")
+@Tag(name = "Interning Administration", description = "Sharing of repeated style, property and theme values")
+public class InterningAdminController {
+
+    @Autowired
+    private StyleInterner styleInterner;
+
+    @Autowired
+    private DesignService designService;
+
+    @Operation(
+        summary = "Report interning",
+        description = "Canonical instances held and estimated heap saved since startup"
+    )
+    @GetMapping
+    public ResponseEntity<InterningReport> getInterningReport() {
+        return ResponseEntity.ok(styleInterner.report());
+    }
+
+    @Operation(
+        summary = "Analyze sharing savings",
+        description = "Measures heap and storage taken by style and property maps of the most recently updated designs, with and without sharing"
+    )
+    @GetMapping("/analysis")
+    public ResponseEntity<InterningReport> analyze(
+            @Parameter(description = "Number of designs to sample") @RequestParam(defaultValue = "200") int limit) {
+        List<Design> designs = designService.getAllDesigns(0, Math.max(1, Math.min(limit, 5000)), "updatedAt", "desc").getContent().stream()
+                .map(designService::withComponents)
+                .toList();
+        return ResponseEntity.ok(styleInterner.analyze(designs));
+    }
+}
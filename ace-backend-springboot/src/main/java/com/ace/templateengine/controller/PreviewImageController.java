@@ -0,0 +1,78 @@
+package com.ace.templateengine.controller;
+
+import com.ace.templateengine.service.PreviewImageService;
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.Parameter;
+import io.swagger.v3.oas.annotations.responses.ApiResponse;
+import io.swagger.v3.oas.annotations.responses.ApiResponses;
+import io.swagger.v3.oas.annotations.tags.Tag;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.CacheControl;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
+
+import java.time.Duration;
+import java.util.Optional;
+import java.util.function.Supplier;
+
+@RestController
+@RequestMapping("/api/previews")
+@Tag(name = "Preview Images", description = "Stored design preview images and their thumbnails")
+public class PreviewImageController {
+
+    // Images are addressed by the hash of their content and never change
+    private static final CacheControl IMMUTABLE = CacheControl.maxAge(Duration.ofDays(365)).cachePublic().immutable();
+
+    @Autowired
+    private PreviewImageService previewImageService;
+
+    @Operation(
+        summary = "Get preview image",
+        description = "Serves a stored preview image; designs reference it by URL in previewImage"
+    )
+    @ApiResponses(value = {
+        @ApiResponse(responseCode = "200", description = "Image found"),
+        @ApiResponse(responseCode = "304", description = "Image already cached by the client"),
+        @ApiResponse(responseCode = "404", description = "Image not found")
+    })
+    @GetMapping("/{hash}")
+    public ResponseEntity<byte[]> getPreviewImage(
+            @Parameter(description = "Content hash of the image") @PathVariable String hash,
+            WebRequest webRequest) {
+        return serve(hash, () -> previewImageService.load(hash), webRequest);
+    }
+
+    @Operation(
+        summary = "Get preview thumbnail",
+        description = "Serves a PNG thumbnail of a stored preview image, generating it on first request"
+    )
+    @ApiResponses(value = {
+        @ApiResponse(responseCode = "200", description = "Thumbnail found"),
+        @ApiResponse(responseCode = "304", description = "Thumbnail already cached by the client"),
+        @ApiResponse(responseCode = "404", description = "Image not found, width not configured or image not thumbnailable")
+    })
+    @GetMapping("/{hash}/thumbnails/{width}")
+    public ResponseEntity<byte[]> getPreviewThumbnail(
+            @Parameter(description = "Content hash of the image") @PathVariable String hash,
+            @Parameter(description = "Thumbnail width in pixels") @PathVariable int width,
+            WebRequest webRequest) {
+        return serve(hash + "@" + width, () -> previewImageService.loadThumbnail(hash, width), webRequest);
+    }
+
+    // Content never changes per name, so conditional requests are answered without reading the image
+    private ResponseEntity<byte[]> serve(String name, Supplier<Optional<PreviewImageService.StoredImage>> image, WebRequest webRequest) {
+        String eTag = "\"" + name + "\"";
+        if (webRequest.checkNotModified(eTag)) {
+            return ResponseEntity.status(HttpStatus.NOT_MODIFIED).eTag(eTag).cacheControl(IMMUTABLE).build();
+        }
+        return image.get().map(stored -> ResponseEntity.ok()
+                        .eTag(eTag)
+                        .cacheControl(IMMUTABLE)
+                        .contentType(MediaType.parseMediaType(stored.contentType()))
+                        .body(stored.bytes()))
+                .orElseGet(() -> ResponseEntity.notFound().build());
+    }
+}
@@ -1,6 +1,7 @@
 package com.ace.templateengine.controller;
 
 import com.ace.templateengine.model.Design;
+import com.ace.templateengine.service.CollaborationService;
 import com.ace.templateengine.service.DesignService;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.Parameter;
@@ -27,6 +28,9 @@ public class ProjectsController {
     @Autowired
     private DesignService designService;
 
+    @Autowired
+    private CollaborationService collaborationService;
+
     @Operation(summary = "Create a new project", description = "Creates a new project (same as design)")
     @PostMapping
     public ResponseEntity<Design> createProject(
@@ -73,6 +77,7 @@ public class ProjectsController {
             project.setUpdatedBy(updatedBy);
         }
         
+        collaborationService.checkNoRoom(id);
         Design updated = designService.updateDesign(id, project);
         return ResponseEntity.ok(updated);
     }
@@ -80,11 +85,12 @@ public class ProjectsController {
     @Operation(summary = "Delete project", description = "Delete a project by ID")
     @DeleteMapping("/{id}")
     public ResponseEntity<Void> deleteProject(@PathVariable String id) {
+        collaborationService.checkNoRoom(id);
         designService.deleteDesign(id);
         return ResponseEntity.noContent().build();
     }
 
-    @Operation(summary = "Search projects", description = "Search projects by name or description")
+    @Operation(summary = "Search projects", description = "Full-text search over projects, ranked by relevance")
     @GetMapping("/search")
     public ResponseEntity<List<Design>> searchProjects(
             @Parameter(description = "Search query") @RequestParam String query) {
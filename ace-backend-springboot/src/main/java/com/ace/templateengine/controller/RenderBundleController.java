@@ -0,0 +1,97 @@
+package com.ace.templateengine.controller;
+
+import com.ace.templateengine.model.Design;
+import com.ace.templateengine.service.ContentHasher;
+import com.ace.templateengine.service.DesignService;
+import com.ace.templateengine.service.RenderBundleService;
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.Parameter;
+import io.swagger.v3.oas.annotations.responses.ApiResponse;
+import io.swagger.v3.oas.annotations.responses.ApiResponses;
+import io.swagger.v3.oas.annotations.tags.Tag;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.CacheControl;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
+
+import java.time.Duration;
+
+@RestController
+@RequestMapping("/api/render-bundles")
+@Tag(name = "Render Bundles", description = "Precomputed, style-resolved render bundles of published designs")
+public class RenderBundleController {
+
+    private static final String URL_PREFIX = "/api/render-bundles/";
+
+    // Bundles are addressed by the content hash of their design and never change
+    private static final CacheControl IMMUTABLE = CacheControl.maxAge(Duration.ofDays(365)).cachePublic().immutable();
+
+    @Autowired
+    private RenderBundleService renderBundleService;
+
+    @Autowired
+    private DesignService designService;
+
+    @Operation(
+        summary = "Get render bundle",
+        description = "Serves a stored render bundle by the content hash of its design, with immutable cache headers"
+    )
+    @ApiResponses(value = {
+        @ApiResponse(responseCode = "200", description = "Bundle found"),
+        @ApiResponse(responseCode = "304", description = "Bundle already cached by the client"),
+        @ApiResponse(responseCode = "404", description = "Bundle not found")
+    })
+    @GetMapping("/{hash}")
+    public ResponseEntity<byte[]> getRenderBundle(
+            @Parameter(description = "Content hash of the design") @PathVariable String hash,
+            WebRequest webRequest) {
+        
+        String eTag = "\"" + hash + "\"";
+        if (webRequest.checkNotModified(eTag)) {
+            return ResponseEntity.status(HttpStatus.NOT_MODIFIED).eTag(eTag).cacheControl(IMMUTABLE).build();
+        }
+        return renderBundleService.load(hash)
+                .map(bundle -> ResponseEntity.ok()
+                        .eTag(eTag)
+                        .cacheControl(IMMUTABLE)
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .body(bundle))
+                .orElseGet(() -> ResponseEntity.notFound().build());
+    }
+
+    @Operation(
+        summary = "Get current render bundle of a design",
+        description = "Serves the bundle of the design as currently published, building it if needed. Clients "
+                + "revalidate it on every load; Content-Location names the immutable URL of this version"
+    )
+    @ApiResponses(value = {
+        @ApiResponse(responseCode = "200", description = "Bundle of the published design"),
+        @ApiResponse(responseCode = "304", description = "Published design unchanged since the client's copy"),
+        @ApiResponse(responseCode = "404", description = "Design not found or not published")
+    })
+    @GetMapping("/designs/{designId}")
+    public ResponseEntity<byte[]> getDesignRenderBundle(
+            @Parameter(description = "Design ID") @PathVariable String designId,
+            WebRequest webRequest) {
+        
+        Design design = designService.getDesignShell(designId);
+        if (design.getStatus() != Design.DesignStatus.PUBLISHED) {
+            return ResponseEntity.notFound().build();
+        }
+        String hash = ContentHasher.hashOf(design);
+        String eTag = "\"" + hash + "\"";
+        if (webRequest.checkNotModified(eTag)) {
+            return ResponseEntity.status(HttpStatus.NOT_MODIFIED).eTag(eTag).cacheControl(CacheControl.noCache()).build();
+        }
+        return ResponseEntity.ok()
+                .eTag(eTag)
+                .cacheControl(CacheControl.noCache())
+                .header(HttpHeaders.CONTENT_LOCATION, URL_PREFIX + hash)
+                .contentType(MediaType.APPLICATION_JSON)
+                .body(renderBundleService.bundleFor(design));
+    }
+}
@@ -0,0 +1,108 @@
+package com.ace.templateengine.controller;
+
+import com.ace.templateengine.dto.ReportJobRequest;
+import com.ace.templateengine.dto.ReportJobStatus;
+import com.ace.templateengine.service.FundReportService;
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.Parameter;
+import io.swagger.v3.oas.annotations.responses.ApiResponse;
+import io.swagger.v3.oas.annotations.responses.ApiResponses;
+import io.swagger.v3.oas.annotations.tags.Tag;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.core.io.FileSystemResource;
+import org.springframework.core.io.Resource;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.List;
+
+@RestController
+@RequestMapping("/api/report-jobs")
+@Tag(name = "Report Jobs", description = "Batch rendering of a design as a report for every fund")
+public class ReportJobController {
+
+    @Autowired
+    private FundReportService fundReportService;
+
+    @Operation(
+        summary = "Start a report job",
+        description = "Queues rendering of a published design once per fund of fund_info, or of the given funds, "
+                + "into a zip archive or a directory of <fund_code>.html files. Each report sees the fund as fund "
+                + "and its code as fund_code, next to the request's variables"
+    )
+    @ApiResponses(value = {
+        @ApiResponse(responseCode = "202", description = "Job queued"),
+        @ApiResponse(responseCode = "400", description = "Design not published, parallelism out of range or invalid request"),
+        @ApiResponse(responseCode = "404", description = "Design not found")
+    })
+    @PostMapping
+    public ResponseEntity<ReportJobStatus> startJob(@RequestBody ReportJobRequest request) {
+        return ResponseEntity.status(HttpStatus.ACCEPTED).body(fundReportService.submit(request));
+    }
+
+    @Operation(
+        summary = "List report jobs",
+        description = "Queued, running and recently finished jobs, most recent first"
+    )
+    @GetMapping
+    public ResponseEntity<List<ReportJobStatus>> getJobs() {
+        return ResponseEntity.ok(fundReportService.getJobs());
+    }
+
+    @Operation(
+        summary = "Get report job progress",
+        description = "Funds rendered, failed and retried so far, with the throughput in reports per second"
+    )
+    @GetMapping("/{jobId}")
+    public ResponseEntity<ReportJobStatus> getJob(
+            @Parameter(description = "Job ID") @PathVariable String jobId) {
+        
+        ReportJobStatus status = fundReportService.getJob(jobId);
+        return status == null ? ResponseEntity.notFound().build() : ResponseEntity.ok(status);
+    }
+
+    @Operation(
+        summary = "Download a report archive",
+        description = "The zip archive of a completed job with zip output"
+    )
+    @ApiResponses(value = {
+        @ApiResponse(responseCode = "200", description = "Archive"),
+        @ApiResponse(responseCode = "404", description = "Job unknown, not completed or without an archive")
+    })
+    @GetMapping("/{jobId}/archive")
+    public ResponseEntity<Resource> downloadArchive(
+            @Parameter(description = "Job ID") @PathVariable String jobId) {
+        
+        ReportJobStatus status = fundReportService.getJob(jobId);
+        if (status == null || status.getOutput() != ReportJobRequest.OutputFormat.ZIP
+                || status.getState() != ReportJobStatus.JobState.COMPLETED) {
+            return ResponseEntity.notFound().build();
+        }
+        Path archive = Paths.get(status.getLocation());
+        if (!Files.exists(archive)) {
+            return ResponseEntity.notFound().build();
+        }
+        return ResponseEntity.ok()
+                .contentType(MediaType.parseMediaType("application/zip"))
+                .header(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=\"reports-" + jobId + ".zip\"")
+                .body(new FileSystemResource(archive));
+    }
+
+    @Operation(
+        summary = "Cancel a report job",
+        description = "Stops a queued or running job; reports already rendered are kept"
+    )
+    @DeleteMapping("/{jobId}")
+    public ResponseEntity<ReportJobStatus> cancelJob(
+            @Parameter(description = "Job ID") @PathVariable String jobId) {
+        
+        ReportJobStatus status = fundReportService.cancel(jobId);
+        return status == null ? ResponseEntity.notFound().build() : ResponseEntity.ok(status);
+    }
+}
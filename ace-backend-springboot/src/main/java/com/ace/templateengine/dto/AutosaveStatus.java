@@ -0,0 +1,46 @@
+package com.ace.templateengine.dto;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+
+import java.time.LocalDateTime;
+import java.util.Set;
+
+/**
+ * Data Transfer Object describing the autosaved edits of a design not yet written to the database
+ */
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public class AutosaveStatus {
+    private String designId;
+    private int pendingEdits;
+    private Set<String> pendingFields;
+    private LocalDateTime firstEditAt;
+    private LocalDateTime lastEditAt;
+    private LocalDateTime flushDueAt;
+    
+    // Constructors
+    public AutosaveStatus() {}
+    
+    public AutosaveStatus(String designId) {
+        this.designId = designId;
+        this.pendingFields = Set.of();
+    }
+    
+    // Getters and setters
+    public String getDesignId() { return designId; }
+    public void setDesignId(String designId) { this.designId = designId; }
+    
+    public int getPendingEdits() { return pendingEdits; }
+    public void setPendingEdits(int pendingEdits) { this.pendingEdits = pendingEdits; }
+    
+    public Set<String> getPendingFields() { return pendingFields; }
+    public void setPendingFields(Set<String> pendingFields) { this.pendingFields = pendingFields; }
+    
+    public LocalDateTime getFirstEditAt() { return firstEditAt; }
+    public void setFirstEditAt(LocalDateTime firstEditAt) { this.firstEditAt = firstEditAt; }
+    
+    public LocalDateTime getLastEditAt() { return lastEditAt; }
+    public void setLastEditAt(LocalDateTime lastEditAt) { this.lastEditAt = lastEditAt; }
+    
+    public LocalDateTime getFlushDueAt() { return flushDueAt; }
+    public void setFlushDueAt(LocalDateTime flushDueAt) { this.flushDueAt = flushDueAt; }
+}
@@ -0,0 +1,101 @@
+package com.ace.templateengine.dto;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Data Transfer Object for component usage across the design library: totals, usage per
+ * component type and the breakdown per creator
+ */
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public class ComponentUsageReport {
+    private long designs;
+    private long components;
+    private List<TypeUsage> types;
+    private List<CreatorUsage> creators;
+    private Long backfillMillis;
+    
+    // Constructors
+    public ComponentUsageReport() {}
+    
+    // Getters and setters
+    public long getDesigns() { return designs; }
+    public void setDesigns(long designs) { this.designs = designs; }
+    
+    public long getComponents() { return components; }
+    public void setComponents(long components) { this.components = components; }
+    
+    public List<TypeUsage> getTypes() { return types; }
+    public void setTypes(List<TypeUsage> types) { this.types = types; }
+    
+    public List<CreatorUsage> getCreators() { return creators; }
+    public void setCreators(List<CreatorUsage> creators) { this.creators = creators; }
+    
+    public Long getBackfillMillis() { return backfillMillis; }
+    public void setBackfillMillis(Long backfillMillis) { this.backfillMillis = backfillMillis; }
+    
+    /**
+     * Usage of one component type: its components, the designs using it, and how many of its
+     * components set each property key and each combination of keys
+     */
+    @JsonInclude(JsonInclude.Include.NON_NULL)
+    public static class TypeUsage {
+        private String type;
+        private long components;
+        private long designs;
+        private Map<String, Long> properties;
+        private Map<String, Long> combinations;
+        
+        public TypeUsage() {}
+        
+        public TypeUsage(String type) {
+            this.type = type;
+        }
+        
+        public String getType() { return type; }
+        public void setType(String type) { this.type = type; }
+        
+        public long getComponents() { return components; }
+        public void setComponents(long components) { this.components = components; }
+        
+        public long getDesigns() { return designs; }
+        public void setDesigns(long designs) { this.designs = designs; }
+        
+        public Map<String, Long> getProperties() { return properties; }
+        public void setProperties(Map<String, Long> properties) { this.properties = properties; }
+        
+        public Map<String, Long> getCombinations() { return combinations; }
+        public void setCombinations(Map<String, Long> combinations) { this.combinations = combinations; }
+    }
+    
+    /**
+     * Designs and components of one creator, with their components per type
+     */
+    @JsonInclude(JsonInclude.Include.NON_NULL)
+    public static class CreatorUsage {
+        private String createdBy;
+        private long designs;
+        private long components;
+        private Map<String, Long> types;
+        
+        public CreatorUsage() {}
+        
+        public CreatorUsage(String createdBy) {
+            this.createdBy = createdBy;
+        }
+        
+        public String getCreatedBy() { return createdBy; }
+        public void setCreatedBy(String createdBy) { this.createdBy = createdBy; }
+        
+        public long getDesigns() { return designs; }
+        public void setDesigns(long designs) { this.designs = designs; }
+        
+        public long getComponents() { return components; }
+        public void setComponents(long components) { this.components = components; }
+        
+        public Map<String, Long> getTypes() { return types; }
+        public void setTypes(Map<String, Long> types) { this.types = types; }
+    }
+}
@@ -0,0 +1,46 @@
+package com.ace.templateengine.dto;
+
+import java.time.LocalDateTime;
+
+/**
+ * Data Transfer Object describing the content-addressable component store
+ */
+public class ContentStoreReport {
+    private boolean enabled;
+    private long blobs;
+    private long cachedBlobs;
+    private long gcGraceMinutes;
+    // Filled in by garbage collection runs only
+    private Long referencedBlobs;
+    private Long sweptBlobs;
+    private Long durationMs;
+    private LocalDateTime generatedAt = LocalDateTime.now();
+    
+    // Constructors
+    public ContentStoreReport() {}
+    
+    // Getters and setters
+    public boolean isEnabled() { return enabled; }
+    public void setEnabled(boolean enabled) { this.enabled = enabled; }
+    
+    public long getBlobs() { return blobs; }
+    public void setBlobs(long blobs) { this.blobs = blobs; }
+    
+    public long getCachedBlobs() { return cachedBlobs; }
+    public void setCachedBlobs(long cachedBlobs) { this.cachedBlobs = cachedBlobs; }
+    
+    public long getGcGraceMinutes() { return gcGraceMinutes; }
+    public void setGcGraceMinutes(long gcGraceMinutes) { this.gcGraceMinutes = gcGraceMinutes; }
+    
+    public Long getReferencedBlobs() { return referencedBlobs; }
+    public void setReferencedBlobs(Long referencedBlobs) { this.referencedBlobs = referencedBlobs; }
+    
+    public Long getSweptBlobs() { return sweptBlobs; }
+    public void setSweptBlobs(Long sweptBlobs) { this.sweptBlobs = sweptBlobs; }
+    
+    public Long getDurationMs() { return durationMs; }
+    public void setDurationMs(Long durationMs) { this.durationMs = durationMs; }
+    
+    public LocalDateTime getGeneratedAt() { return generatedAt; }
+    public void setGeneratedAt(LocalDateTime generatedAt) { this.generatedAt = generatedAt; }
+}
@@ -0,0 +1,85 @@
+package com.ace.templateengine.dto;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import com.fasterxml.jackson.annotation.JsonProperty;
+
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Data Transfer Object for the outcome of running a saved data query: status completed with
+ * the rows, or failed with a message.
+ */
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public class DataQueryRunResult {
+    private String status;
+    private List<Map<String, Object>> data;
+    private String message;
+    private Metadata metadata;
+    
+    // Constructors
+    public DataQueryRunResult() {}
+    
+    public DataQueryRunResult(String status, List<Map<String, Object>> data, String message, Metadata metadata) {
+        this.status = status;
+        this.data = data;
+        this.message = message;
+        this.metadata = metadata;
+    }
+    
+    // Getters and setters
+    public String getStatus() { return status; }
+    public void setStatus(String status) { this.status = status; }
+    
+    public List<Map<String, Object>> getData() { return data; }
+    public void setData(List<Map<String, Object>> data) { this.data = data; }
+    
+    public String getMessage() { return message; }
+    public void setMessage(String message) { this.message = message; }
+    
+    public Metadata getMetadata() { return metadata; }
+    public void setMetadata(Metadata metadata) { this.metadata = metadata; }
+    
+    @JsonInclude(JsonInclude.Include.NON_NULL)
+    public static class Metadata {
+        @JsonProperty("query_id")
+        private String queryId;
+        private String collection;
+        private String operation;
+        @JsonProperty("row_count")
+        private Integer rowCount;
+        @JsonProperty("execution_time")
+        private String executionTime;
+        @JsonProperty("execution_time_ms")
+        private Double executionTimeMs;
+        @JsonProperty("plan_cached")
+        private Boolean planCached;
+        
+        public Metadata() {}
+        
+        public Metadata(String queryId) {
+            this.queryId = queryId;
+        }
+        
+        public String getQueryId() { return queryId; }
+        public void setQueryId(String queryId) { this.queryId = queryId; }
+        
+        public String getCollection() { return collection; }
+        public void setCollection(String collection) { this.collection = collection; }
+        
+        public String getOperation() { return operation; }
+        public void setOperation(String operation) { this.operation = operation; }
+        
+        public Integer getRowCount() { return rowCount; }
+        public void setRowCount(Integer rowCount) { this.rowCount = rowCount; }
+        
+        public String getExecutionTime() { return executionTime; }
+        public void setExecutionTime(String executionTime) { this.executionTime = executionTime; }
+        
+        public Double getExecutionTimeMs() { return executionTimeMs; }
+        public void setExecutionTimeMs(Double executionTimeMs) { this.executionTimeMs = executionTimeMs; }
+        
+        public Boolean getPlanCached() { return planCached; }
+        public void setPlanCached(Boolean planCached) { this.planCached = planCached; }
+    }
+}
@@ -0,0 +1,71 @@
+package com.ace.templateengine.dto;
+
+import com.fasterxml.jackson.annotation.JsonIgnore;
+import com.fasterxml.jackson.annotation.JsonInclude;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+/**
+ * Data Transfer Object describing one write to a design, pushed to change subscribers instead of
+ * the design itself
+ */
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public class DesignChangeEvent {
+    private String designId;
+    private Operation op;
+    // Top-level design fields the write changed; null when they are not known
+    private List<String> changedFields;
+    private String version;
+    private LocalDateTime updatedAt;
+    private String updatedBy;
+    private String createdBy;
+    private String status;
+    private List<String> tags;
+    // Resume token of the change, sent as the SSE event id
+    @JsonIgnore
+    private String eventId;
+    
+    public enum Operation {
+        CREATE, UPDATE, DELETE
+    }
+    
+    // Constructors
+    public DesignChangeEvent() {}
+    
+    public DesignChangeEvent(String designId, Operation op) {
+        this.designId = designId;
+        this.op = op;
+    }
+    
+    // Getters and setters
+    public String getDesignId() { return designId; }
+    public void setDesignId(String designId) { this.designId = designId; }
+    
+    public Operation getOp() { return op; }
+    public void setOp(Operation op) { this.op = op; }
+    
+    public List<String> getChangedFields() { return changedFields; }
+    public void setChangedFields(List<String> changedFields) { this.changedFields = changedFields; }
+    
+    public String getVersion() { return version; }
+    public void setVersion(String version) { this.version = version; }
+    
+    public LocalDateTime getUpdatedAt() { return updatedAt; }
+    public void setUpdatedAt(LocalDateTime updatedAt) { this.updatedAt = updatedAt; }
+    
+    public String getUpdatedBy() { return updatedBy; }
+    public void setUpdatedBy(String updatedBy) { this.updatedBy = updatedBy; }
+    
+    public String getCreatedBy() { return createdBy; }
+    public void setCreatedBy(String createdBy) { this.createdBy = createdBy; }
+    
+    public String getStatus() { return status; }
+    public void setStatus(String status) { this.status = status; }
+    
+    public List<String> getTags() { return tags; }
+    public void setTags(List<String> tags) { this.tags = tags; }
+    
+    public String getEventId() { return eventId; }
+    public void setEventId(String eventId) { this.eventId = eventId; }
+}
@@ -0,0 +1,102 @@
+package com.ace.templateengine.dto;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Data Transfer Object for the structural difference between two designs or design versions.
+ *
+ * Operations use JSON Pointer paths where components are addressed by id rather than by
+ * array index, e.g. /components/header/styles/color. Children lists are addressed by index,
+ * as in JSON Patch. Operations apply in order; an added component is appended to the
+ * component list and then moved into place.
+ */
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public class DesignDiff {
+    private String left;
+    private String right;
+    private boolean identical;
+    private int addedComponents;
+    private int removedComponents;
+    private int modifiedComponents;
+    private int movedComponents;
+    private List<PatchOperation> operations = new ArrayList<>();
+    
+    // Constructors
+    public DesignDiff() {}
+    
+    public DesignDiff(String left, String right) {
+        this.left = left;
+        this.right = right;
+    }
+    
+    // Getters and setters
+    public String getLeft() { return left; }
+    public void setLeft(String left) { this.left = left; }
+    
+    public String getRight() { return right; }
+    public void setRight(String right) { this.right = right; }
+    
+    public boolean isIdentical() { return identical; }
+    public void setIdentical(boolean identical) { this.identical = identical; }
+    
+    public int getAddedComponents() { return addedComponents; }
+    public void setAddedComponents(int addedComponents) { this.addedComponents = addedComponents; }
+    
+    public int getRemovedComponents() { return removedComponents; }
+    public void setRemovedComponents(int removedComponents) { this.removedComponents = removedComponents; }
+    
+    public int getModifiedComponents() { return modifiedComponents; }
+    public void setModifiedComponents(int modifiedComponents) { this.modifiedComponents = modifiedComponents; }
+    
+    public int getMovedComponents() { return movedComponents; }
+    public void setMovedComponents(int movedComponents) { this.movedComponents = movedComponents; }
+    
+    public List<PatchOperation> getOperations() { return operations; }
+    public void setOperations(List<PatchOperation> operations) { this.operations = operations; }
+    
+    /**
+     * Single change: add, remove, replace or move. A move within a children list has from, a
+     * move of a component holds its new index in value.
+     */
+    @JsonInclude(JsonInclude.Include.NON_NULL)
+    public static class PatchOperation {
+        private String op;
+        private String from;
+        private String path;
+        private Object value;
+        private Object oldValue;
+        
+        public PatchOperation() {}
+        
+        public PatchOperation(String op, String path, Object value, Object oldValue) {
+            this.op = op;
+            this.path = path;
+            this.value = value;
+            this.oldValue = oldValue;
+        }
+        
+        public static PatchOperation move(String from, String path) {
+            PatchOperation move = new PatchOperation("move", path, null, null);
+            move.setFrom(from);
+            return move;
+        }
+        
+        public String getOp() { return op; }
+        public void setOp(String op) { this.op = op; }
+        
+        public String getFrom() { return from; }
+        public void setFrom(String from) { this.from = from; }
+        
+        public String getPath() { return path; }
+        public void setPath(String path) { this.path = path; }
+        
+        public Object getValue() { return value; }
+        public void setValue(Object value) { this.value = value; }
+        
+        public Object getOldValue() { return oldValue; }
+        public void setOldValue(Object oldValue) { this.oldValue = oldValue; }
+    }
+}
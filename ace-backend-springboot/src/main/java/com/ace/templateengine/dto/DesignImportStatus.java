@@ -0,0 +1,99 @@
+package com.ace.templateengine.dto;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Data Transfer Object describing the progress of a bulk design import.
+ *
+ * Every line up to committedLine has been imported, skipped or reported as failed, so an
+ * interrupted import resumes by sending the archive again with skipLines set to it.
+ */
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public class DesignImportStatus {
+    private String importId;
+    private ImportState state;
+    private long linesRead;
+    private long committedLine;
+    private long imported;
+    private long skipped;
+    private long failed;
+    private List<ImportError> errors;
+    private String message;
+    private LocalDateTime startedAt;
+    private LocalDateTime finishedAt;
+    
+    public enum ImportState {
+        RUNNING, COMPLETED, FAILED
+    }
+    
+    // Constructors
+    public DesignImportStatus() {}
+    
+    public DesignImportStatus(String importId) {
+        this.importId = importId;
+        this.state = ImportState.RUNNING;
+        this.errors = new ArrayList<>();
+        this.startedAt = LocalDateTime.now();
+    }
+    
+    // Getters and setters
+    public String getImportId() { return importId; }
+    public void setImportId(String importId) { this.importId = importId; }
+    
+    public ImportState getState() { return state; }
+    public void setState(ImportState state) { this.state = state; }
+    
+    public long getLinesRead() { return linesRead; }
+    public void setLinesRead(long linesRead) { this.linesRead = linesRead; }
+    
+    public long getCommittedLine() { return committedLine; }
+    public void setCommittedLine(long committedLine) { this.committedLine = committedLine; }
+    
+    public long getImported() { return imported; }
+    public void setImported(long imported) { this.imported = imported; }
+    
+    public long getSkipped() { return skipped; }
+    public void setSkipped(long skipped) { this.skipped = skipped; }
+    
+    public long getFailed() { return failed; }
+    public void setFailed(long failed) { this.failed = failed; }
+    
+    public List<ImportError> getErrors() { return errors; }
+    public void setErrors(List<ImportError> errors) { this.errors = errors; }
+    
+    public String getMessage() { return message; }
+    public void setMessage(String message) { this.message = message; }
+    
+    public LocalDateTime getStartedAt() { return startedAt; }
+    public void setStartedAt(LocalDateTime startedAt) { this.startedAt = startedAt; }
+    
+    public LocalDateTime getFinishedAt() { return finishedAt; }
+    public void setFinishedAt(LocalDateTime finishedAt) { this.finishedAt = finishedAt; }
+    
+    public static class ImportError {
+        private long line;
+        private String designId;
+        private String message;
+        
+        public ImportError() {}
+        
+        public ImportError(long line, String designId, String message) {
+            this.line = line;
+            this.designId = designId;
+            this.message = message;
+        }
+        
+        public long getLine() { return line; }
+        public void setLine(long line) { this.line = line; }
+        
+        public String getDesignId() { return designId; }
+        public void setDesignId(String designId) { this.designId = designId; }
+        
+        public String getMessage() { return message; }
+        public void setMessage(String message) { this.message = message; }
+    }
+}
@@ -1,5 +1,8 @@
 package com.ace.templateengine.dto;
 
+import java.util.LinkedHashMap;
+import java.util.Map;
+
 /**
  * Data Transfer Object for Design Statistics
  */
@@ -8,6 +11,13 @@ public class DesignStats {
     private long publicDesigns;
     private long privateDesigns;
     
+    // Facet counts (number of designs per value)
+    private Map<String, Long> byStatus = new LinkedHashMap<>();
+    private Map<String, Long> byVisibility = new LinkedHashMap<>();
+    private Map<String, Long> byCategory = new LinkedHashMap<>();
+    private Map<String, Long> byTag = new LinkedHashMap<>();
+    private Map<String, Long> byComponentType = new LinkedHashMap<>();
+    
     // Constructors
     public DesignStats() {}
     
@@ -41,4 +51,44 @@ public class DesignStats {
     public void setPrivateDesigns(long privateDesigns) { 
         this.privateDesigns = privateDesigns; 
     }
+    
+    public Map<String, Long> getByStatus() {
+        return byStatus;
+    }
+    
+    public void setByStatus(Map<String, Long> byStatus) {
+        this.byStatus = byStatus;
+    }
+    
+    public Map<String, Long> getByVisibility() {
+        return byVisibility;
+    }
+    
+    public void setByVisibility(Map<String, Long> byVisibility) {
+        this.byVisibility = byVisibility;
+    }
+    
+    public Map<String, Long> getByCategory() {
+        return byCategory;
+    }
+    
+    public void setByCategory(Map<String, Long> byCategory) {
+        this.byCategory = byCategory;
+    }
+    
+    public Map<String, Long> getByTag() {
+        return byTag;
+    }
+    
+    public void setByTag(Map<String, Long> byTag) {
+        this.byTag = byTag;
+    }
+    
+    public Map<String, Long> getByComponentType() {
+        return byComponentType;
+    }
+    
+    public void setByComponentType(Map<String, Long> byComponentType) {
+        this.byComponentType = byComponentType;
+    }
 }
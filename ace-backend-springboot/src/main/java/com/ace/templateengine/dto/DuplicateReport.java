@@ -0,0 +1,71 @@
+package com.ace.templateengine.dto;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+
+import java.util.List;
+
+/**
+ * Data Transfer Object for the groups of near-duplicate designs in the library
+ */
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public class DuplicateReport {
+    private double threshold;
+    private int indexedDesigns;
+    private long comparedPairs;
+    private int sampledBuckets;
+    private int totalClusters;
+    private List<DuplicateCluster> clusters;
+    private long elapsedMillis;
+    
+    // Constructors
+    public DuplicateReport() {}
+    
+    public DuplicateReport(double threshold) {
+        this.threshold = threshold;
+    }
+    
+    // Getters and setters
+    public double getThreshold() { return threshold; }
+    public void setThreshold(double threshold) { this.threshold = threshold; }
+    
+    public int getIndexedDesigns() { return indexedDesigns; }
+    public void setIndexedDesigns(int indexedDesigns) { this.indexedDesigns = indexedDesigns; }
+    
+    public long getComparedPairs() { return comparedPairs; }
+    public void setComparedPairs(long comparedPairs) { this.comparedPairs = comparedPairs; }
+    
+    public int getSampledBuckets() { return sampledBuckets; }
+    public void setSampledBuckets(int sampledBuckets) { this.sampledBuckets = sampledBuckets; }
+    
+    public int getTotalClusters() { return totalClusters; }
+    public void setTotalClusters(int totalClusters) { this.totalClusters = totalClusters; }
+    
+    public List<DuplicateCluster> getClusters() { return clusters; }
+    public void setClusters(List<DuplicateCluster> clusters) { this.clusters = clusters; }
+    
+    public long getElapsedMillis() { return elapsedMillis; }
+    public void setElapsedMillis(long elapsedMillis) { this.elapsedMillis = elapsedMillis; }
+    
+    /**
+     * Designs linked by pairwise similarity above the threshold; similarities of the members are
+     * to the representative, the member with the smallest id
+     */
+    @JsonInclude(JsonInclude.Include.NON_NULL)
+    public static class DuplicateCluster {
+        private SimilarDesign representative;
+        private List<SimilarDesign> duplicates;
+        
+        public DuplicateCluster() {}
+        
+        public DuplicateCluster(SimilarDesign representative, List<SimilarDesign> duplicates) {
+            this.representative = representative;
+            this.duplicates = duplicates;
+        }
+        
+        public SimilarDesign getRepresentative() { return representative; }
+        public void setRepresentative(SimilarDesign representative) { this.representative = representative; }
+        
+        public List<SimilarDesign> getDuplicates() { return duplicates; }
+        public void setDuplicates(List<SimilarDesign> duplicates) { this.duplicates = duplicates; }
+    }
+}
@@ -0,0 +1,51 @@
+package com.ace.templateengine.dto;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Data Transfer Object for the result of a facet query: a page of matching design ids and, per
+ * facet, how many matching designs carry each value
+ */
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public class FacetQueryResult {
+    private String query;
+    private int total;
+    private List<String> designIds;
+    // Cursor for the following page, the last id of this one; absent on the last page
+    private String next;
+    private Map<String, Map<String, Integer>> counts;
+    private int indexedDesigns;
+    private long elapsedMicros;
+    
+    // Constructors
+    public FacetQueryResult() {}
+    
+    public FacetQueryResult(String query) {
+        this.query = query;
+    }
+    
+    // Getters and setters
+    public String getQuery() { return query; }
+    public void setQuery(String query) { this.query = query; }
+    
+    public int getTotal() { return total; }
+    public void setTotal(int total) { this.total = total; }
+    
+    public List<String> getDesignIds() { return designIds; }
+    public void setDesignIds(List<String> designIds) { this.designIds = designIds; }
+    
+    public String getNext() { return next; }
+    public void setNext(String next) { this.next = next; }
+    
+    public Map<String, Map<String, Integer>> getCounts() { return counts; }
+    public void setCounts(Map<String, Map<String, Integer>> counts) { this.counts = counts; }
+    
+    public int getIndexedDesigns() { return indexedDesigns; }
+    public void setIndexedDesigns(int indexedDesigns) { this.indexedDesigns = indexedDesigns; }
+    
+    public long getElapsedMicros() { return elapsedMicros; }
+    public void setElapsedMicros(long elapsedMicros) { this.elapsedMicros = elapsedMicros; }
+}
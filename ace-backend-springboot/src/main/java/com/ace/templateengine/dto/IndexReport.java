@@ -0,0 +1,104 @@
+package com.ace.templateengine.dto;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Data Transfer Object describing the index state of a collection
+ */
+public class IndexReport {
+    private String collection;
+    private int declaredVersion;
+    private int appliedVersion;
+    private List<String> created = new ArrayList<>();
+    private List<String> rebuilt = new ArrayList<>();
+    private List<String> missing = new ArrayList<>();
+    private List<String> outdated = new ArrayList<>();
+    private List<String> undeclared = new ArrayList<>();
+    private List<String> unused = new ArrayList<>();
+    private List<String> failures = new ArrayList<>();
+    private List<AccessPathPlan> accessPaths = new ArrayList<>();
+    private LocalDateTime generatedAt = LocalDateTime.now();
+    
+    // Constructors
+    public IndexReport() {}
+    
+    public IndexReport(String collection, int declaredVersion) {
+        this.collection = collection;
+        this.declaredVersion = declaredVersion;
+    }
+    
+    // True when every declared index exists with its declared options and no query path scans the collection
+    public boolean isHealthy() {
+        return missing.isEmpty() && outdated.isEmpty() && failures.isEmpty()
+                && accessPaths.stream().noneMatch(AccessPathPlan::isCollectionScan);
+    }
+    
+    // Getters and setters
+    public String getCollection() { return collection; }
+    public void setCollection(String collection) { this.collection = collection; }
+    
+    public int getDeclaredVersion() { return declaredVersion; }
+    public void setDeclaredVersion(int declaredVersion) { this.declaredVersion = declaredVersion; }
+    
+    public int getAppliedVersion() { return appliedVersion; }
+    public void setAppliedVersion(int appliedVersion) { this.appliedVersion = appliedVersion; }
+    
+    public List<String> getCreated() { return created; }
+    public void setCreated(List<String> created) { this.created = created; }
+    
+    public List<String> getRebuilt() { return rebuilt; }
+    public void setRebuilt(List<String> rebuilt) { this.rebuilt = rebuilt; }
+    
+    public List<String> getMissing() { return missing; }
+    public void setMissing(List<String> missing) { this.missing = missing; }
+    
+    public List<String> getOutdated() { return outdated; }
+    public void setOutdated(List<String> outdated) { this.outdated = outdated; }
+    
+    public List<String> getUndeclared() { return undeclared; }
+    public void setUndeclared(List<String> undeclared) { this.undeclared = undeclared; }
+    
+    public List<String> getUnused() { return unused; }
+    public void setUnused(List<String> unused) { this.unused = unused; }
+    
+    public List<String> getFailures() { return failures; }
+    public void setFailures(List<String> failures) { this.failures = failures; }
+    
+    public List<AccessPathPlan> getAccessPaths() { return accessPaths; }
+    public void setAccessPaths(List<AccessPathPlan> accessPaths) { this.accessPaths = accessPaths; }
+    
+    public LocalDateTime getGeneratedAt() { return generatedAt; }
+    public void setGeneratedAt(LocalDateTime generatedAt) { this.generatedAt = generatedAt; }
+    
+    /**
+     * Winning plan of one repository access path as reported by explain
+     */
+    public static class AccessPathPlan {
+        private String name;
+        private List<String> stages;
+        private List<String> indexes;
+        
+        public AccessPathPlan() {}
+        
+        public AccessPathPlan(String name, List<String> stages, List<String> indexes) {
+            this.name = name;
+            this.stages = stages;
+            this.indexes = indexes;
+        }
+        
+        public boolean isCollectionScan() {
+            return stages != null && stages.contains("COLLSCAN");
+        }
+        
+        public String getName() { return name; }
+        public void setName(String name) { this.name = name; }
+        
+        public List<String> getStages() { return stages; }
+        public void setStages(List<String> stages) { this.stages = stages; }
+        
+        public List<String> getIndexes() { return indexes; }
+        public void setIndexes(List<String> indexes) { this.indexes = indexes; }
+    }
+}
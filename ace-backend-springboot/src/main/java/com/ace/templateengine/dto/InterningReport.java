@@ -0,0 +1,74 @@
+package com.ace.templateengine.dto;
+
+import java.time.LocalDateTime;
+
+/**
+ * Data Transfer Object describing style and property interning and what sharing saves
+ */
+public class InterningReport {
+    private boolean enabled;
+    private long canonicalInstances;
+    private long canonicalThemes;
+    private long lookups;
+    private long hits;
+    private long estimatedHeapBytesSaved;
+    // Filled in by corpus analysis only
+    private Integer sampledDesigns;
+    private Long maps;
+    private Long distinctMaps;
+    private Long heapBytesWithoutInterning;
+    private Long heapBytesWithInterning;
+    private Long storageBytesInline;
+    private Long storageBytesSharedMaps;
+    private Long storageBytesSharedComponentBodies;
+    private LocalDateTime generatedAt = LocalDateTime.now();
+    
+    // Constructors
+    public InterningReport() {}
+    
+    // Getters and setters
+    public boolean isEnabled() { return enabled; }
+    public void setEnabled(boolean enabled) { this.enabled = enabled; }
+    
+    public long getCanonicalInstances() { return canonicalInstances; }
+    public void setCanonicalInstances(long canonicalInstances) { this.canonicalInstances = canonicalInstances; }
+    
+    public long getCanonicalThemes() { return canonicalThemes; }
+    public void setCanonicalThemes(long canonicalThemes) { this.canonicalThemes = canonicalThemes; }
+    
+    public long getLookups() { return lookups; }
+    public void setLookups(long lookups) { this.lookups = lookups; }
+    
+    public long getHits() { return hits; }
+    public void setHits(long hits) { this.hits = hits; }
+    
+    public long getEstimatedHeapBytesSaved() { return estimatedHeapBytesSaved; }
+    public void setEstimatedHeapBytesSaved(long estimatedHeapBytesSaved) { this.estimatedHeapBytesSaved = estimatedHeapBytesSaved; }
+    
+    public Integer getSampledDesigns() { return sampledDesigns; }
+    public void setSampledDesigns(Integer sampledDesigns) { this.sampledDesigns = sampledDesigns; }
+    
+    public Long getMaps() { return maps; }
+    public void setMaps(Long maps) { this.maps = maps; }
+    
+    public Long getDistinctMaps() { return distinctMaps; }
+    public void setDistinctMaps(Long distinctMaps) { this.distinctMaps = distinctMaps; }
+    
+    public Long getHeapBytesWithoutInterning() { return heapBytesWithoutInterning; }
+    public void setHeapBytesWithoutInterning(Long heapBytesWithoutInterning) { this.heapBytesWithoutInterning = heapBytesWithoutInterning; }
+    
+    public Long getHeapBytesWithInterning() { return heapBytesWithInterning; }
+    public void setHeapBytesWithInterning(Long heapBytesWithInterning) { this.heapBytesWithInterning = heapBytesWithInterning; }
+    
+    public Long getStorageBytesInline() { return storageBytesInline; }
+    public void setStorageBytesInline(Long storageBytesInline) { this.storageBytesInline = storageBytesInline; }
+    
+    public Long getStorageBytesSharedMaps() { return storageBytesSharedMaps; }
+    public void setStorageBytesSharedMaps(Long storageBytesSharedMaps) { this.storageBytesSharedMaps = storageBytesSharedMaps; }
+    
+    public Long getStorageBytesSharedComponentBodies() { return storageBytesSharedComponentBodies; }
+    public void setStorageBytesSharedComponentBodies(Long storageBytesSharedComponentBodies) { this.storageBytesSharedComponentBodies = storageBytesSharedComponentBodies; }
+    
+    public LocalDateTime getGeneratedAt() { return generatedAt; }
+    public void setGeneratedAt(LocalDateTime generatedAt) { this.generatedAt = generatedAt; }
+}
@@ -0,0 +1,125 @@
+package com.ace.templateengine.dto;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Data Transfer Object for the render bundle of a published design: everything a viewer needs
+ * with the style cascade already resolved.
+ *
+ * Theme settings, global styles, component properties and component styles are folded into
+ * one map of CSS declarations per component, inherited values included. Components are flat,
+ * at canvas coordinates and in paint order (zIndex, then hierarchy order); hidden components
+ * and their subtrees are left out. Bundles depend only on the design's content, so they are
+ * addressed by its content hash and never change.
+ */
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public class RenderBundle {
+    private String contentHash;
+    private String name;
+    private Integer width;
+    private Integer height;
+    private Map<String, String> rootStyle;
+    private List<StyleRule> rules;
+    private List<BundleComponent> components;
+    
+    // Constructors
+    public RenderBundle() {}
+    
+    // Getters and setters
+    public String getContentHash() { return contentHash; }
+    public void setContentHash(String contentHash) { this.contentHash = contentHash; }
+    
+    public String getName() { return name; }
+    public void setName(String name) { this.name = name; }
+    
+    public Integer getWidth() { return width; }
+    public void setWidth(Integer width) { this.width = width; }
+    
+    public Integer getHeight() { return height; }
+    public void setHeight(Integer height) { this.height = height; }
+    
+    public Map<String, String> getRootStyle() { return rootStyle; }
+    public void setRootStyle(Map<String, String> rootStyle) { this.rootStyle = rootStyle; }
+    
+    public List<StyleRule> getRules() { return rules; }
+    public void setRules(List<StyleRule> rules) { this.rules = rules; }
+    
+    public List<BundleComponent> getComponents() { return components; }
+    public void setComponents(List<BundleComponent> components) { this.components = components; }
+    
+    // A global style rule for a selector, scoped to the design root
+    public static class StyleRule {
+        private String selector;
+        private Map<String, String> declarations;
+        
+        public StyleRule() {}
+        
+        public StyleRule(String selector, Map<String, String> declarations) {
+            this.selector = selector;
+            this.declarations = declarations;
+        }
+        
+        public String getSelector() { return selector; }
+        public void setSelector(String selector) { this.selector = selector; }
+        
+        public Map<String, String> getDeclarations() { return declarations; }
+        public void setDeclarations(Map<String, String> declarations) { this.declarations = declarations; }
+    }
+    
+    @JsonInclude(JsonInclude.Include.NON_NULL)
+    public static class BundleComponent {
+        private String id;
+        private String type;
+        private String name;
+        private String parentId;
+        private int depth;
+        private double x;
+        private double y;
+        private Object width;
+        private Object height;
+        private int zIndex;
+        private Map<String, String> style;
+        private Map<String, Object> properties;
+        
+        public BundleComponent() {}
+        
+        public String getId() { return id; }
+        public void setId(String id) { this.id = id; }
+        
+        public String getType() { return type; }
+        public void setType(String type) { this.type = type; }
+        
+        public String getName() { return name; }
+        public void setName(String name) { this.name = name; }
+        
+        public String getParentId() { return parentId; }
+        public void setParentId(String parentId) { this.parentId = parentId; }
+        
+        public int getDepth() { return depth; }
+        public void setDepth(int depth) { this.depth = depth; }
+        
+        public double getX() { return x; }
+        public void setX(double x) { this.x = x; }
+        
+        public double getY() { return y; }
+        public void setY(double y) { this.y = y; }
+        
+        public Object getWidth() { return width; }
+        public void setWidth(Object width) { this.width = width; }
+        
+        public Object getHeight() { return height; }
+        public void setHeight(Object height) { this.height = height; }
+        
+        public int getZIndex() { return zIndex; }
+        public void setZIndex(int zIndex) { this.zIndex = zIndex; }
+        
+        public Map<String, String> getStyle() { return style; }
+        public void setStyle(Map<String, String> style) { this.style = style; }
+        
+        public Map<String, Object> getProperties() { return properties; }
+        public void setProperties(Map<String, Object> properties) { this.properties = properties; }
+    }
+}
@@ -0,0 +1,48 @@
+package com.ace.templateengine.dto;
+
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Data Transfer Object for starting a batch report job, which renders one published design
+ * once per fund.
+ */
+public class ReportJobRequest {
+    private String designId;
+    private List<String> fundCodes;
+    private OutputFormat output = OutputFormat.ZIP;
+    private boolean fragment;
+    private Integer parallelism;
+    private Map<String, Object> variables;
+    
+    public enum OutputFormat {
+        DIRECTORY, ZIP
+    }
+    
+    // Constructors
+    public ReportJobRequest() {}
+    
+    public ReportJobRequest(String designId, OutputFormat output) {
+        this.designId = designId;
+        this.output = output;
+    }
+    
+    // Getters and setters
+    public String getDesignId() { return designId; }
+    public void setDesignId(String designId) { this.designId = designId; }
+    
+    public List<String> getFundCodes() { return fundCodes; }
+    public void setFundCodes(List<String> fundCodes) { this.fundCodes = fundCodes; }
+    
+    public OutputFormat getOutput() { return output; }
+    public void setOutput(OutputFormat output) { this.output = output; }
+    
+    public boolean isFragment() { return fragment; }
+    public void setFragment(boolean fragment) { this.fragment = fragment; }
+    
+    public Integer getParallelism() { return parallelism; }
+    public void setParallelism(Integer parallelism) { this.parallelism = parallelism; }
+    
+    public Map<String, Object> getVariables() { return variables; }
+    public void setVariables(Map<String, Object> variables) { this.variables = variables; }
+}
@@ -0,0 +1,124 @@
+package com.ace.templateengine.dto;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Data Transfer Object describing the progress of a batch report job.
+ *
+ * Counts cover funds whose report is finished, written or failed after all retries;
+ * reportsPerSecond is the throughput since the job started.
+ */
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public class ReportJobStatus {
+    private String jobId;
+    private String designId;
+    private String designName;
+    private JobState state;
+    private ReportJobRequest.OutputFormat output;
+    private String location;
+    private int parallelism;
+    private long totalFunds;
+    private long rendered;
+    private long failed;
+    private long retries;
+    private long bytesWritten;
+    private double reportsPerSecond;
+    private List<ReportError> errors;
+    private String message;
+    private LocalDateTime queuedAt;
+    private LocalDateTime startedAt;
+    private LocalDateTime finishedAt;
+    
+    public enum JobState {
+        QUEUED, RUNNING, COMPLETED, FAILED, CANCELLED
+    }
+    
+    // Constructors
+    public ReportJobStatus() {}
+    
+    public ReportJobStatus(String jobId, String designId, ReportJobRequest.OutputFormat output) {
+        this.jobId = jobId;
+        this.designId = designId;
+        this.output = output;
+        this.state = JobState.QUEUED;
+        this.errors = new ArrayList<>();
+        this.queuedAt = LocalDateTime.now();
+    }
+    
+    // Getters and setters
+    public String getJobId() { return jobId; }
+    public void setJobId(String jobId) { this.jobId = jobId; }
+    
+    public String getDesignId() { return designId; }
+    public void setDesignId(String designId) { this.designId = designId; }
+    
+    public String getDesignName() { return designName; }
+    public void setDesignName(String designName) { this.designName = designName; }
+    
+    public JobState getState() { return state; }
+    public void setState(JobState state) { this.state = state; }
+    
+    public ReportJobRequest.OutputFormat getOutput() { return output; }
+    public void setOutput(ReportJobRequest.OutputFormat output) { this.output = output; }
+    
+    public String getLocation() { return location; }
+    public void setLocation(String location) { this.location = location; }
+    
+    public int getParallelism() { return parallelism; }
+    public void setParallelism(int parallelism) { this.parallelism = parallelism; }
+    
+    public long getTotalFunds() { return totalFunds; }
+    public void setTotalFunds(long totalFunds) { this.totalFunds = totalFunds; }
+    
+    public long getRendered() { return rendered; }
+    public void setRendered(long rendered) { this.rendered = rendered; }
+    
+    public long getFailed() { return failed; }
+    public void setFailed(long failed) { this.failed = failed; }
+    
+    public long getRetries() { return retries; }
+    public void setRetries(long retries) { this.retries = retries; }
+    
+    public long getBytesWritten() { return bytesWritten; }
+    public void setBytesWritten(long bytesWritten) { this.bytesWritten = bytesWritten; }
+    
+    public double getReportsPerSecond() { return reportsPerSecond; }
+    public void setReportsPerSecond(double reportsPerSecond) { this.reportsPerSecond = reportsPerSecond; }
+    
+    public List<ReportError> getErrors() { return errors; }
+    public void setErrors(List<ReportError> errors) { this.errors = errors; }
+    
+    public String getMessage() { return message; }
+    public void setMessage(String message) { this.message = message; }
+    
+    public LocalDateTime getQueuedAt() { return queuedAt; }
+    public void setQueuedAt(LocalDateTime queuedAt) { this.queuedAt = queuedAt; }
+    
+    public LocalDateTime getStartedAt() { return startedAt; }
+    public void setStartedAt(LocalDateTime startedAt) { this.startedAt = startedAt; }
+    
+    public LocalDateTime getFinishedAt() { return finishedAt; }
+    public void setFinishedAt(LocalDateTime finishedAt) { this.finishedAt = finishedAt; }
+    
+    public static class ReportError {
+        private String fundCode;
+        private String message;
+        
+        public ReportError() {}
+        
+        public ReportError(String fundCode, String message) {
+            this.fundCode = fundCode;
+            this.message = message;
+        }
+        
+        public String getFundCode() { return fundCode; }
+        public void setFundCode(String fundCode) { this.fundCode = fundCode; }
+        
+        public String getMessage() { return message; }
+        public void setMessage(String message) { this.message = message; }
+    }
+}
@@ -0,0 +1,36 @@
+package com.ace.templateengine.dto;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+
+/**
+ * Data Transfer Object for a design structurally similar to another one, with the estimated
+ * Jaccard similarity of their component structure
+ */
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public class SimilarDesign {
+    private String designId;
+    private String name;
+    private String createdBy;
+    private double similarity;
+    
+    // Constructors
+    public SimilarDesign() {}
+    
+    public SimilarDesign(String designId, double similarity) {
+        this.designId = designId;
+        this.similarity = similarity;
+    }
+    
+    // Getters and setters
+    public String getDesignId() { return designId; }
+    public void setDesignId(String designId) { this.designId = designId; }
+    
+    public String getName() { return name; }
+    public void setName(String name) { this.name = name; }
+    
+    public String getCreatedBy() { return createdBy; }
+    public void setCreatedBy(String createdBy) { this.createdBy = createdBy; }
+    
+    public double getSimilarity() { return similarity; }
+    public void setSimilarity(double similarity) { this.similarity = similarity; }
+}
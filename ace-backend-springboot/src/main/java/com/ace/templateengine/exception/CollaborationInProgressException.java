@@ -0,0 +1,7 @@
+package com.ace.templateengine.exception;
+
+public class CollaborationInProgressException extends RuntimeException {
+    public CollaborationInProgressException(String message) {
+        super(message);
+    }
+}
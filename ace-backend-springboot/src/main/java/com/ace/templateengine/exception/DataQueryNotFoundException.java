@@ -0,0 +1,7 @@
+package com.ace.templateengine.exception;
+
+public class DataQueryNotFoundException extends RuntimeException {
+    public DataQueryNotFoundException(String message) {
+        super(message);
+    }
+}
@@ -1,5 +1,7 @@
 package com.ace.templateengine.exception;
 
+import com.ace.templateengine.repository.DesignIndexes;
+import org.springframework.dao.DuplicateKeyException;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.MethodArgumentNotValidException;
@@ -54,6 +56,93 @@ public class GlobalExceptionHandler {
         return ResponseEntity.status(HttpStatus.CONFLICT).body(error);
     }
 
+    // The open collaboration room owns the components; a direct write would be overwritten by its next save
+    @ExceptionHandler(CollaborationInProgressException.class)
+    public ResponseEntity<ErrorResponse> handleCollaborationInProgressException(CollaborationInProgressException ex) {
+        ErrorResponse error = new ErrorResponse(
+            "COLLABORATION_IN_PROGRESS",
+            ex.getMessage(),
+            LocalDateTime.now()
+        );
+        return ResponseEntity.status(HttpStatus.CONFLICT).body(error);
+    }
+
+    // Unique index violations on the designs collection surface here instead of a pre-save existence check
+    @ExceptionHandler(DuplicateKeyException.class)
+    public ResponseEntity<ErrorResponse> handleDuplicateKeyException(DuplicateKeyException ex) {
+        if (ex.getMessage() != null && ex.getMessage().contains(DesignIndexes.CREATOR_NAME_INDEX)) {
+            return handleDuplicateDesignNameException(new DuplicateDesignNameException(
+                "A design with this name already exists for this user", ex));
+        }
+        ErrorResponse error = new ErrorResponse(
+            "DUPLICATE_KEY",
+            "A record with the same unique key already exists",
+            LocalDateTime.now()
+        );
+        return ResponseEntity.status(HttpStatus.CONFLICT).body(error);
+    }
+
+    @ExceptionHandler(InvalidComponentHierarchyException.class)
+    public ResponseEntity<Map<String, Object>> handleInvalidComponentHierarchyException(InvalidComponentHierarchyException ex) {
+        Map<String, Object> response = new HashMap<>();
+        response.put("error", "INVALID_COMPONENT_HIERARCHY");
+        response.put("message", ex.getMessage());
+        response.put("problems", ex.getProblems());
+        response.put("timestamp", LocalDateTime.now());
+        return ResponseEntity.status(HttpStatus.BAD_REQUEST).body(response);
+    }
+
+    @ExceptionHandler(InvalidFacetQueryException.class)
+    public ResponseEntity<ErrorResponse> handleInvalidFacetQueryException(InvalidFacetQueryException ex) {
+        ErrorResponse error = new ErrorResponse(
+            "INVALID_FACET_QUERY",
+            ex.getMessage(),
+            LocalDateTime.now()
+        );
+        return ResponseEntity.status(HttpStatus.BAD_REQUEST).body(error);
+    }
+
+    @ExceptionHandler(InvalidReportJobException.class)
+    public ResponseEntity<ErrorResponse> handleInvalidReportJobException(InvalidReportJobException ex) {
+        ErrorResponse error = new ErrorResponse(
+            "INVALID_REPORT_JOB",
+            ex.getMessage(),
+            LocalDateTime.now()
+        );
+        return ResponseEntity.status(HttpStatus.BAD_REQUEST).body(error);
+    }
+
+    @ExceptionHandler(DataQueryNotFoundException.class)
+    public ResponseEntity<ErrorResponse> handleDataQueryNotFoundException(DataQueryNotFoundException ex) {
+        ErrorResponse error = new ErrorResponse(
+            "DATA_QUERY_NOT_FOUND",
+            ex.getMessage(),
+            LocalDateTime.now()
+        );
+        return ResponseEntity.status(HttpStatus.NOT_FOUND).body(error);
+    }
+
+    @ExceptionHandler(InvalidDataQueryException.class)
+    public ResponseEntity<ErrorResponse> handleInvalidDataQueryException(InvalidDataQueryException ex) {
+        ErrorResponse error = new ErrorResponse(
+            "INVALID_DATA_QUERY",
+            ex.getMessage(),
+            LocalDateTime.now()
+        );
+        return ResponseEntity.status(HttpStatus.BAD_REQUEST).body(error);
+    }
+
+    // A design that references missing content is not served partially, so it cannot be saved back without it
+    @ExceptionHandler(MissingContentBlobException.class)
+    public ResponseEntity<ErrorResponse> handleMissingContentBlobException(MissingContentBlobException ex) {
+        ErrorResponse error = new ErrorResponse(
+            "CONTENT_BLOB_MISSING",
+            ex.getMessage(),
+            LocalDateTime.now()
+        );
+        return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).body(error);
+    }
+
     @ExceptionHandler(ProjectAccessDeniedException.class)
     public ResponseEntity<ErrorResponse> handleProjectAccessDeniedException(ProjectAccessDeniedException ex) {
         ErrorResponse error = new ErrorResponse(
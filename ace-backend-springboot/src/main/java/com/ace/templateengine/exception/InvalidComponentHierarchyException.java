@@ -0,0 +1,16 @@
+package com.ace.templateengine.exception;
+
+import java.util.List;
+
+public class InvalidComponentHierarchyException extends RuntimeException {
+    private final List<String> problems;
+    
+    public InvalidComponentHierarchyException(String message, List<String> problems) {
+        super(message);
+        this.problems = problems;
+    }
+    
+    public List<String> getProblems() {
+        return problems;
+    }
+}
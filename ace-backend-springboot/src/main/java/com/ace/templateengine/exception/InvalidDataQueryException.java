@@ -0,0 +1,7 @@
+package com.ace.templateengine.exception;
+
+public class InvalidDataQueryException extends RuntimeException {
+    public InvalidDataQueryException(String message) {
+        super(message);
+    }
+}
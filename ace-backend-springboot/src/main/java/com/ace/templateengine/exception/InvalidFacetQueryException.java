@@ -0,0 +1,7 @@
+package com.ace.templateengine.exception;
+
+public class InvalidFacetQueryException extends RuntimeException {
+    public InvalidFacetQueryException(String message) {
+        super(message);
+    }
+}
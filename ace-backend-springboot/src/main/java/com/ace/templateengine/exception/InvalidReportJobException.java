@@ -0,0 +1,7 @@
+package com.ace.templateengine.exception;
+
+public class InvalidReportJobException extends RuntimeException {
+    public InvalidReportJobException(String message) {
+        super(message);
+    }
+}
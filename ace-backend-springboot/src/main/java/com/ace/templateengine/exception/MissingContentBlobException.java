@@ -0,0 +1,7 @@
+package com.ace.templateengine.exception;
+
+public class MissingContentBlobException extends RuntimeException {
+    public MissingContentBlobException(String message) {
+        super(message);
+    }
+}
@@ -0,0 +1,81 @@
+package com.ace.templateengine.model;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import com.fasterxml.jackson.annotation.JsonProperty;
+import org.springframework.data.annotation.Id;
+import org.springframework.data.mongodb.core.index.Indexed;
+import org.springframework.data.mongodb.core.mapping.Document;
+import org.springframework.data.mongodb.core.mapping.Field;
+
+import java.time.LocalDateTime;
+import java.util.Map;
+
+/**
+ * A saved data query of an app.
+ *
+ * Queries of kind acedb or mongodb read from the application database: options name the
+ * collection and operation (find, aggregate or count) with filter, pipeline, sort, projection,
+ * skip and limit. String values in filter and pipeline may hold {{parameter}} placeholders,
+ * bound when the query runs. Other kinds are stored for clients that run them themselves.
+ */
+@Document(collection = "data_queries")
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public class DataQuery {
+
+    @Id
+    private String id;
+
+    @Indexed
+    @Field("app_id")
+    @JsonProperty("app_id")
+    private String appId;
+
+    @Field("name")
+    private String name;
+
+    @Field("kind")
+    private String kind;
+
+    @Field("options")
+    private Map<String, Object> options;
+
+    @Field("data_source_id")
+    @JsonProperty("data_source_id")
+    private String dataSourceId;
+
+    @Field("created_at")
+    @JsonProperty("created_at")
+    private LocalDateTime createdAt;
+
+    @Field("updated_at")
+    @JsonProperty("updated_at")
+    private LocalDateTime updatedAt;
+
+    // Constructors
+    public DataQuery() {}
+
+    // Getters and Setters
+    public String getId() { return id; }
+    public void setId(String id) { this.id = id; }
+
+    public String getAppId() { return appId; }
+    public void setAppId(String appId) { this.appId = appId; }
+
+    public String getName() { return name; }
+    public void setName(String name) { this.name = name; }
+
+    public String getKind() { return kind; }
+    public void setKind(String kind) { this.kind = kind; }
+
+    public Map<String, Object> getOptions() { return options; }
+    public void setOptions(Map<String, Object> options) { this.options = options; }
+
+    public String getDataSourceId() { return dataSourceId; }
+    public void setDataSourceId(String dataSourceId) { this.dataSourceId = dataSourceId; }
+
+    public LocalDateTime getCreatedAt() { return createdAt; }
+    public void setCreatedAt(LocalDateTime createdAt) { this.createdAt = createdAt; }
+
+    public LocalDateTime getUpdatedAt() { return updatedAt; }
+    public void setUpdatedAt(LocalDateTime updatedAt) { this.updatedAt = updatedAt; }
+}
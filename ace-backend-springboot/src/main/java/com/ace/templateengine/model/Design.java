@@ -3,8 +3,11 @@ package com.ace.templateengine.model;
 import org.springframework.data.annotation.Id;
 import org.springframework.data.mongodb.core.mapping.Document;
 import org.springframework.data.mongodb.core.mapping.Field;
+import org.springframework.data.mongodb.core.mapping.TextScore;
 import com.fasterxml.jackson.annotation.JsonInclude;
+import com.fasterxml.jackson.annotation.JsonIgnore;
 import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
+import com.fasterxml.jackson.annotation.JsonProperty;
 import jakarta.validation.constraints.NotBlank;
 import jakarta.validation.constraints.NotNull;
 
@@ -69,6 +72,34 @@ public class Design {
     @Field("preview_image")
     private String previewImage;
     
+    // Structural hash of the design content, maintained by the server (see ContentHasher)
+    @Field("content_hash")
+    @JsonProperty(access = JsonProperty.Access.READ_ONLY)
+    private String contentHash;
+    
+    // Where the components live; SPLIT designs keep them in the design_components collection
+    @Field("component_storage")
+    @JsonProperty(access = JsonProperty.Access.READ_ONLY)
+    private ComponentStorage componentStorage;
+    
+    @Field("component_count")
+    @JsonProperty(access = JsonProperty.Access.READ_ONLY)
+    private Integer componentCount;
+    
+    // Distinct component types of SPLIT designs, so type queries and facets still match them
+    @Field("component_types")
+    @JsonIgnore
+    private List<String> componentTypes;
+    
+    // Distinct component names of SPLIT designs, so full-text search still matches their components
+    @Field("component_names")
+    @JsonIgnore
+    private List<String> componentNames;
+    
+    // Relevance of the design for a full-text search, only populated on search results
+    @TextScore
+    private Float score;
+    
     // Constructors
     public Design() {
         this.createdAt = LocalDateTime.now();
@@ -133,6 +164,24 @@ public class Design {
     public String getPreviewImage() { return previewImage; }
     public void setPreviewImage(String previewImage) { this.previewImage = previewImage; }
     
+    public String getContentHash() { return contentHash; }
+    public void setContentHash(String contentHash) { this.contentHash = contentHash; }
+    
+    public ComponentStorage getComponentStorage() { return componentStorage; }
+    public void setComponentStorage(ComponentStorage componentStorage) { this.componentStorage = componentStorage; }
+    
+    public Integer getComponentCount() { return componentCount; }
+    public void setComponentCount(Integer componentCount) { this.componentCount = componentCount; }
+    
+    public List<String> getComponentTypes() { return componentTypes; }
+    public void setComponentTypes(List<String> componentTypes) { this.componentTypes = componentTypes; }
+    
+    public List<String> getComponentNames() { return componentNames; }
+    public void setComponentNames(List<String> componentNames) { this.componentNames = componentNames; }
+    
+    public Float getScore() { return score; }
+    public void setScore(Float score) { this.score = score; }
+    
     // Nested classes for complex properties
     public static class CanvasConfig {
         private Integer width;
@@ -182,6 +231,8 @@ public class Design {
         private Integer zIndex;
         private Boolean visible;
         private Boolean locked;
+        @JsonProperty(access = JsonProperty.Access.READ_ONLY)
+        private String contentHash;
         
         // Constructors, getters and setters
         public DesignComponent() {}
@@ -221,6 +272,9 @@ public class Design {
         
         public Boolean getLocked() { return locked; }
         public void setLocked(Boolean locked) { this.locked = locked; }
+        
+        public String getContentHash() { return contentHash; }
+        public void setContentHash(String contentHash) { this.contentHash = contentHash; }
     }
     
     public static class ThemeSettings {
@@ -302,4 +356,8 @@ public class Design {
     public enum DesignStatus {
         DRAFT, PUBLISHED, ARCHIVED, UNDER_REVIEW
     }
+    
+    public enum ComponentStorage {
+        INLINE, SPLIT
+    }
 }
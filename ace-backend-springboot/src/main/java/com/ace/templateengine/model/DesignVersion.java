@@ -0,0 +1,125 @@
+package com.ace.templateengine.model;
+
+import org.springframework.data.annotation.Id;
+import org.springframework.data.mongodb.core.index.CompoundIndex;
+import org.springframework.data.mongodb.core.mapping.Document;
+import org.springframework.data.mongodb.core.mapping.Field;
+import com.fasterxml.jackson.annotation.JsonInclude;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+/**
+ * One entry of a design's version history.
+ *
+ * Every N-th entry is a full snapshot, the entries in between only hold what changed since
+ * the previous entry, so materializing any version replays at most N-1 deltas.
+ */
+@Document(collection = "design_versions")
+@CompoundIndex(name = "design_sequence", def = "{ 'design_id': 1, 'sequence': -1 }", unique = true)
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public class DesignVersion {
+
+    @Id
+    private String id;
+
+    @Field("design_id")
+    private String designId;
+
+    // Position in the history of the design, starting at 1
+    @Field("sequence")
+    private Long sequence;
+
+    // Design version string at the time of this entry
+    @Field("version")
+    private String version;
+
+    @Field("kind")
+    private Kind kind;
+
+    @Field("content_hash")
+    private String contentHash;
+
+    @Field("snapshot")
+    private Design snapshot;
+
+    @Field("delta")
+    private DesignDelta delta;
+
+    @Field("created_at")
+    private LocalDateTime createdAt;
+
+    @Field("created_by")
+    private String createdBy;
+
+    // Constructors
+    public DesignVersion() {
+        this.createdAt = LocalDateTime.now();
+    }
+
+    // Getters and Setters
+    public String getId() { return id; }
+    public void setId(String id) { this.id = id; }
+
+    public String getDesignId() { return designId; }
+    public void setDesignId(String designId) { this.designId = designId; }
+
+    public Long getSequence() { return sequence; }
+    public void setSequence(Long sequence) { this.sequence = sequence; }
+
+    public String getVersion() { return version; }
+    public void setVersion(String version) { this.version = version; }
+
+    public Kind getKind() { return kind; }
+    public void setKind(Kind kind) { this.kind = kind; }
+
+    public String getContentHash() { return contentHash; }
+    public void setContentHash(String contentHash) { this.contentHash = contentHash; }
+
+    public Design getSnapshot() { return snapshot; }
+    public void setSnapshot(Design snapshot) { this.snapshot = snapshot; }
+
+    public DesignDelta getDelta() { return delta; }
+    public void setDelta(DesignDelta delta) { this.delta = delta; }
+
+    public LocalDateTime getCreatedAt() { return createdAt; }
+    public void setCreatedAt(LocalDateTime createdAt) { this.createdAt = createdAt; }
+
+    public String getCreatedBy() { return createdBy; }
+    public void setCreatedBy(String createdBy) { this.createdBy = createdBy; }
+
+    // Changes between two consecutive history entries
+    @JsonInclude(JsonInclude.Include.NON_NULL)
+    public static class DesignDelta {
+        // Top-level fields that changed; their new values are carried in fields
+        private List<String> changedFields;
+        private Design fields;
+        // Components added or modified, matched by id
+        private List<Design.DesignComponent> upsertedComponents;
+        private List<String> removedComponentIds;
+        // Full component id order, only present when it cannot be derived from the changes above
+        private List<String> componentOrder;
+
+        // Constructors, getters and setters
+        public DesignDelta() {}
+
+        public List<String> getChangedFields() { return changedFields; }
+        public void setChangedFields(List<String> changedFields) { this.changedFields = changedFields; }
+
+        public Design getFields() { return fields; }
+        public void setFields(Design fields) { this.fields = fields; }
+
+        public List<Design.DesignComponent> getUpsertedComponents() { return upsertedComponents; }
+        public void setUpsertedComponents(List<Design.DesignComponent> upsertedComponents) { this.upsertedComponents = upsertedComponents; }
+
+        public List<String> getRemovedComponentIds() { return removedComponentIds; }
+        public void setRemovedComponentIds(List<String> removedComponentIds) { this.removedComponentIds = removedComponentIds; }
+
+        public List<String> getComponentOrder() { return componentOrder; }
+        public void setComponentOrder(List<String> componentOrder) { this.componentOrder = componentOrder; }
+    }
+
+    public enum Kind {
+        SNAPSHOT, DELTA
+    }
+}
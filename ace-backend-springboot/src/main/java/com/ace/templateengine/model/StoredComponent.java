@@ -0,0 +1,104 @@
+package com.ace.templateengine.model;
+
+import org.springframework.data.annotation.Id;
+import org.springframework.data.mongodb.core.index.CompoundIndex;
+import org.springframework.data.mongodb.core.index.CompoundIndexes;
+import org.springframework.data.mongodb.core.mapping.Document;
+import org.springframework.data.mongodb.core.mapping.Field;
+
+/**
+ * One component of a design with split component storage.
+ *
+ * The bounding box, zIndex and visibility are denormalized from the component so the spatial
+ * index of a design can be built without loading component bodies.
+ */
+@Document(collection = "design_components")
+@CompoundIndexes({
+    @CompoundIndex(name = "design_component", def = "{ 'design_id': 1, 'component_id': 1 }", unique = true),
+    @CompoundIndex(name = "design_order", def = "{ 'design_id': 1, 'order': 1 }")
+})
+public class StoredComponent {
+
+    @Id
+    private String id;
+
+    @Field("design_id")
+    private String designId;
+
+    @Field("component_id")
+    private String componentId;
+
+    // Position of the component in the design's component list
+    @Field("order")
+    private Integer order;
+
+    @Field("parent_id")
+    private String parentId;
+
+    @Field("left")
+    private Double left;
+
+    @Field("top")
+    private Double top;
+
+    @Field("right")
+    private Double right;
+
+    @Field("bottom")
+    private Double bottom;
+
+    @Field("z_index")
+    private Integer zIndex;
+
+    @Field("visible")
+    private Boolean visible;
+
+    @Field("content_hash")
+    private String contentHash;
+
+    @Field("component")
+    private Design.DesignComponent component;
+
+    // Constructors
+    public StoredComponent() {}
+
+    // Getters and Setters
+    public String getId() { return id; }
+    public void setId(String id) { this.id = id; }
+
+    public String getDesignId() { return designId; }
+    public void setDesignId(String designId) { this.designId = designId; }
+
+    public String getComponentId() { return componentId; }
+    public void setComponentId(String componentId) { this.componentId = componentId; }
+
+    public Integer getOrder() { return order; }
+    public void setOrder(Integer order) { this.order = order; }
+
+    public String getParentId() { return parentId; }
+    public void setParentId(String parentId) { this.parentId = parentId; }
+
+    public Double getLeft() { return left; }
+    public void setLeft(Double left) { this.left = left; }
+
+    public Double getTop() { return top; }
+    public void setTop(Double top) { this.top = top; }
+
+    public Double getRight() { return right; }
+    public void setRight(Double right) { this.right = right; }
+
+    public Double getBottom() { return bottom; }
+    public void setBottom(Double bottom) { this.bottom = bottom; }
+
+    public Integer getZIndex() { return zIndex; }
+    public void setZIndex(Integer zIndex) { this.zIndex = zIndex; }
+
+    public Boolean getVisible() { return visible; }
+    public void setVisible(Boolean visible) { this.visible = visible; }
+
+    public String getContentHash() { return contentHash; }
+    public void setContentHash(String contentHash) { this.contentHash = contentHash; }
+
+    public Design.DesignComponent getComponent() { return component; }
+    public void setComponent(Design.DesignComponent component) { this.component = component; }
+}
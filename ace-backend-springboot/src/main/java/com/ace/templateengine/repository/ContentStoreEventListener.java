@@ -0,0 +1,69 @@
+package com.ace.templateengine.repository;
+
+import com.ace.templateengine.service.ContentStore;
+import org.bson.Document;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.mongodb.core.mapping.event.AbstractMongoEventListener;
+import org.springframework.data.mongodb.core.mapping.event.AfterLoadEvent;
+import org.springframework.data.mongodb.core.mapping.event.BeforeSaveEvent;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+
+/**
+ * Moves component bodies of designs, split design components and design history into the {@link ContentStore} on the
+ * way to Mongo and back on the way out, working on the raw documents so entities stay unaware
+ */
+@Component
+public class ContentStoreEventListener extends AbstractMongoEventListener<Object> {
+
+    private static final String DESIGNS = "designs";
+    private static final String DESIGN_VERSIONS = "design_versions";
+    private static final String DESIGN_COMPONENTS = "design_components";
+
+    @Autowired
+    private ContentStore contentStore;
+
+    @Override
+    public void onBeforeSave(BeforeSaveEvent<Object> event) {
+        Document document = event.getDocument();
+        if (document == null) {
+            return;
+        }
+        if (DESIGNS.equals(event.getCollectionName())) {
+            contentStore.dehydrate(document);
+        } else if (DESIGN_VERSIONS.equals(event.getCollectionName())) {
+            contentStore.dehydrate(document.get("snapshot", Document.class));
+            Document delta = document.get("delta", Document.class);
+            if (delta != null) {
+                contentStore.dehydrateComponents(delta.getList("upsertedComponents", Object.class));
+                contentStore.dehydrate(delta.get("fields", Document.class));
+            }
+        } else if (DESIGN_COMPONENTS.equals(event.getCollectionName()) && document.get("component") != null) {
+            contentStore.dehydrateComponents(List.of(document.get("component")));
+        }
+    }
+
+    @Override
+    public void onAfterLoad(AfterLoadEvent<Object> event) {
+        Document document = event.getDocument();
+        if (document == null) {
+            return;
+        }
+        if (DESIGNS.equals(event.getCollectionName())) {
+            contentStore.hydrate(document);
+        } else if (DESIGN_VERSIONS.equals(event.getCollectionName())) {
+            contentStore.hydrate(document.get("snapshot", Document.class));
+            Document delta = document.get("delta", Document.class);
+            if (delta != null) {
+                List<Object> components = delta.getList("upsertedComponents", Object.class);
+                if (components != null) {
+                    contentStore.hydrateComponents(components);
+                }
+                contentStore.hydrate(delta.get("fields", Document.class));
+            }
+        } else if (DESIGN_COMPONENTS.equals(event.getCollectionName()) && document.get("component") != null) {
+            contentStore.hydrateComponents(List.of(document.get("component")));
+        }
+    }
+}
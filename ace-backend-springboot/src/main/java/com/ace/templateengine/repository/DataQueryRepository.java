@@ -0,0 +1,20 @@
+package com.ace.templateengine.repository;
+
+import com.ace.templateengine.model.DataQuery;
+import org.springframework.data.mongodb.repository.MongoRepository;
+import org.springframework.data.mongodb.repository.Query;
+import org.springframework.stereotype.Repository;
+
+import java.util.List;
+import java.util.Optional;
+
+@Repository
+public interface DataQueryRepository extends MongoRepository<DataQuery, String> {
+    
+    // Queries of an app in the order they were created
+    List<DataQuery> findByAppIdOrderByCreatedAtAsc(String appId);
+    
+    // Only the update time, for checking a cached plan is still current
+    @Query(value = "{ '_id': ?0 }", fields = "{ 'updated_at': 1 }")
+    Optional<DataQuery> findUpdatedAtById(String id);
+}
@@ -0,0 +1,360 @@
+package com.ace.templateengine.repository;
+
+import com.ace.templateengine.dto.IndexReport;
+import com.mongodb.MongoException;
+import com.mongodb.client.AggregateIterable;
+import com.mongodb.client.FindIterable;
+import com.mongodb.client.MongoCollection;
+import com.mongodb.client.model.Aggregates;
+import com.mongodb.client.model.Collation;
+import com.mongodb.client.model.Filters;
+import com.mongodb.client.model.IndexModel;
+import com.mongodb.client.model.ReplaceOptions;
+import com.mongodb.client.model.Sorts;
+import org.bson.Document;
+import org.bson.conversions.Bson;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Creates, verifies and reports on the indexes declared in {@link DesignIndexes}.
+ *
+ * The applied index version is stored in the index_versions collection. Indexes whose
+ * options differ from their declaration are only rebuilt when the declared version is
+ * newer than the applied one, so a stale deployment never fights a newer one over them.
+ */
+@Component
+public class DesignIndexManager {
+
+    private static final Logger logger = LoggerFactory.getLogger(DesignIndexManager.class);
+
+    private static final String VERSIONS_COLLECTION = "index_versions";
+
+    @Autowired
+    private MongoTemplate mongoTemplate;
+
+    // Whether the live creator/name index is the unique one, as of the last report
+    private volatile boolean uniqueNamesEnforced;
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void bootstrap() {
+        try {
+            IndexReport report = synchronize();
+            if (!report.isHealthy()) {
+                logger.warn("Design indexes need attention: missing={}, outdated={}, failures={}, collection scans={}",
+                        report.getMissing(), report.getOutdated(), report.getFailures(),
+                        report.getAccessPaths().stream().filter(IndexReport.AccessPathPlan::isCollectionScan)
+                                .map(IndexReport.AccessPathPlan::getName).toList());
+            }
+        } catch (MongoException e) {
+            // Queries fall back to collection scans until the indexes exist, but the API stays usable
+            logger.warn("Could not synchronize design indexes: {}", e.getMessage());
+        }
+    }
+
+    /**
+     * Create missing indexes, rebuild outdated ones when the declared version moved forward and
+     * return a fresh report
+     */
+    public synchronized IndexReport synchronize() {
+        MongoCollection<Document> collection = designs();
+        int appliedVersion = appliedVersion();
+        Map<String, Document> existing = existingIndexes(collection);
+
+        List<String> created = new ArrayList<>();
+        List<String> rebuilt = new ArrayList<>();
+        List<String> failures = new ArrayList<>();
+
+        for (IndexModel declared : DesignIndexes.all()) {
+            String name = declared.getOptions().getName();
+            Document current = existing.get(name);
+            try {
+                if (current == null) {
+                    collection.createIndexes(List.of(declared));
+                    created.add(name);
+                } else if (!signature(declared).equals(signature(current)) && appliedVersion < DesignIndexes.VERSION) {
+                    rebuild(collection, declared, current);
+                    rebuilt.add(name);
+                }
+            } catch (MongoException e) {
+                failures.add(name + ": " + e.getMessage());
+            }
+        }
+
+        if (failures.isEmpty() && appliedVersion < DesignIndexes.VERSION) {
+            mongoTemplate.getCollection(VERSIONS_COLLECTION).replaceOne(
+                    Filters.eq("_id", DesignIndexes.COLLECTION),
+                    new Document("_id", DesignIndexes.COLLECTION)
+                            .append("version", DesignIndexes.VERSION)
+                            .append("applied_at", new Date()),
+                    new ReplaceOptions().upsert(true));
+        }
+
+        if (!created.isEmpty() || !rebuilt.isEmpty()) {
+            logger.info("Design indexes synchronized to version {}: created={}, rebuilt={}",
+                    DesignIndexes.VERSION, created, rebuilt);
+        }
+
+        IndexReport report = report();
+        report.setCreated(created);
+        report.setRebuilt(rebuilt);
+        report.getFailures().addAll(failures);
+        return report;
+    }
+
+    /**
+     * Replace an index with its new declaration. A unique declaration is checked against the
+     * existing documents first, so duplicates leave the old index in place rather than no index
+     * at all; if the build still fails, the old definition is restored.
+     */
+    private void rebuild(MongoCollection<Document> collection, IndexModel declared, Document current) {
+        String name = declared.getOptions().getName();
+        if (declared.getOptions().isUnique()) {
+            List<String> duplicates = duplicateKeys(collection, declared);
+            if (!duplicates.isEmpty()) {
+                throw new MongoException("Cannot make " + name + " unique, duplicate keys exist: " + duplicates);
+            }
+        }
+        collection.dropIndex(name);
+        try {
+            collection.createIndexes(List.of(declared));
+        } catch (MongoException e) {
+            Document previous = new Document(current);
+            previous.remove("ns");
+            mongoTemplate.getDb().runCommand(new Document("createIndexes", DesignIndexes.COLLECTION)
+                    .append("indexes", List.of(previous)));
+            logger.warn("Rebuilding index {} failed, previous definition restored: {}", name, e.getMessage());
+            throw e;
+        }
+    }
+
+    // Up to five keys that more than one document in scope of a unique declaration shares
+    private static List<String> duplicateKeys(MongoCollection<Document> collection, IndexModel declared) {
+        Document group = new Document();
+        int i = 0;
+        for (String field : declared.getKeys().toBsonDocument().keySet()) {
+            group.append("k" + i++, "$" + field);
+        }
+        List<Bson> pipeline = new ArrayList<>();
+        if (declared.getOptions().getPartialFilterExpression() != null) {
+            pipeline.add(Aggregates.match(declared.getOptions().getPartialFilterExpression()));
+        }
+        pipeline.add(new Document("$group", new Document("_id", group).append("count", new Document("$sum", 1))));
+        pipeline.add(Aggregates.match(Filters.gt("count", 1)));
+        pipeline.add(Aggregates.limit(5));
+
+        List<String> duplicates = new ArrayList<>();
+        AggregateIterable<Document> groups = collection.aggregate(pipeline).allowDiskUse(true);
+        if (declared.getOptions().getCollation() != null) {
+            groups = groups.collation(declared.getOptions().getCollation());
+        }
+        for (Document duplicate : groups) {
+            duplicates.add(duplicate.get("_id", Document.class).values() + " x" + duplicate.get("count"));
+        }
+        return duplicates;
+    }
+
+    /**
+     * Compare the live indexes with their declarations, list indexes without recorded use and
+     * explain every repository access path
+     */
+    public IndexReport report() {
+        MongoCollection<Document> collection = designs();
+        Map<String, Document> existing = existingIndexes(collection);
+
+        IndexReport report = new IndexReport(DesignIndexes.COLLECTION, DesignIndexes.VERSION);
+        report.setAppliedVersion(appliedVersion());
+
+        List<String> declaredNames = new ArrayList<>();
+        for (IndexModel declared : DesignIndexes.all()) {
+            String name = declared.getOptions().getName();
+            declaredNames.add(name);
+            Document current = existing.get(name);
+            if (current == null) {
+                report.getMissing().add(name);
+            } else if (!signature(declared).equals(signature(current))) {
+                report.getOutdated().add(name);
+            }
+        }
+        uniqueNamesEnforced = existing.containsKey(DesignIndexes.CREATOR_NAME_INDEX)
+                && !report.getOutdated().contains(DesignIndexes.CREATOR_NAME_INDEX);
+
+        existing.keySet().stream()
+                .filter(name -> !"_id_".equals(name) && !declaredNames.contains(name))
+                .forEach(report.getUndeclared()::add);
+
+        // Access counters reset on server restart, so "unused" means unused since then
+        for (Document stats : collection.aggregate(List.of(new Document("$indexStats", new Document())))) {
+            Document accesses = stats.get("accesses", Document.class);
+            long ops = accesses == null ? 0 : accesses.get("ops", Number.class).longValue();
+            String name = stats.getString("name");
+            if (ops == 0 && !"_id_".equals(name)) {
+                report.getUnused().add(name);
+            }
+        }
+
+        for (AccessPath path : accessPaths()) {
+            try {
+                report.getAccessPaths().add(explain(collection, path));
+            } catch (MongoException e) {
+                report.getFailures().add(path.name() + ": " + e.getMessage());
+            }
+        }
+
+        return report;
+    }
+
+    /**
+     * Whether the unique index rejects duplicate design names per creator. False until the
+     * indexes were checked, and while duplicates keep the unique index from being built.
+     */
+    public boolean enforcesUniqueNames() {
+        return uniqueNamesEnforced;
+    }
+
+    // Query shapes issued by DesignRepository, one per query method; DesignIndexManagerTest keeps them in sync
+    static List<AccessPath> accessPaths() {
+        Date now = new Date();
+        Date weekAgo = new Date(now.getTime() - 7L * 24 * 60 * 60 * 1000);
+        return List.of(
+            new AccessPath("findByNameIgnoreCase", Filters.eq("name", "probe"), null, DesignIndexes.CASE_INSENSITIVE),
+            new AccessPath("existsByNameIgnoreCaseAndCreatedBy",
+                    Filters.and(Filters.eq("name", "probe"), Filters.eq("created_by", "probe")), null,
+                    DesignIndexes.CASE_INSENSITIVE),
+            new AccessPath("findByCreatedBy", Filters.eq("created_by", "probe"), Sorts.descending("updated_at"), null),
+            new AccessPath("countByCreatedBy", Filters.eq("created_by", "probe"), null, null),
+            new AccessPath("findByStatus", Filters.eq("status", "DRAFT"), null, null),
+            new AccessPath("findByIsPublicTrue", Filters.eq("is_public", true), null, null),
+            new AccessPath("countByIsPublicTrue", Filters.eq("is_public", true), null, null),
+            new AccessPath("findByTagsContaining", Filters.eq("tags", "probe"), null, null),
+            new AccessPath("findByAllTags", Filters.all("tags", List.of("probe", "sample")), null, null),
+            new AccessPath("findByCategory", Filters.eq("metadata.category", "probe"), null, null),
+            new AccessPath("findByVersion", Filters.eq("version", "1.0.0"), null, null),
+            new AccessPath("findByComponentTypes", Filters.or(
+                    Filters.in("components.type", List.of("button", "table")),
+                    Filters.in("component_types", List.of("button", "table"))), null, null),
+            new AccessPath("findByCreatedAtBetween",
+                    Filters.and(Filters.gt("created_at", weekAgo), Filters.lt("created_at", now)), null, null),
+            new AccessPath("findByUpdatedAtAfter", Filters.gt("updated_at", weekAgo), null, null),
+            new AccessPath("findAllByOrderByScoreDesc", Filters.text("probe"), Sorts.metaTextScore("score"), null),
+            new AccessPath("findAllBy", Filters.text("probe"), null, null)
+        );
+    }
+
+    static IndexReport.AccessPathPlan explain(MongoCollection<Document> collection, AccessPath path) {
+        FindIterable<Document> find = collection.find(path.filter());
+        if (path.sort() != null) {
+            find = find.sort(path.sort());
+        }
+        if (path.collation() != null) {
+            find = find.collation(path.collation());
+        }
+
+        Document queryPlanner = find.explain().get("queryPlanner", Document.class);
+        List<String> stages = new ArrayList<>();
+        List<String> indexes = new ArrayList<>();
+        collectPlan(queryPlanner.get("winningPlan"), stages, indexes);
+        return new IndexReport.AccessPathPlan(path.name(), stages, indexes);
+    }
+
+    // Walk the plan tree (classic and slot-based engine layouts) collecting stage and index names
+    private static void collectPlan(Object node, List<String> stages, List<String> indexes) {
+        if (node instanceof Document document) {
+            if (document.get("stage") instanceof String stage) {
+                stages.add(stage);
+            }
+            if (document.get("indexName") instanceof String indexName && !indexes.contains(indexName)) {
+                indexes.add(indexName);
+            }
+            for (Object child : document.values()) {
+                collectPlan(child, stages, indexes);
+            }
+        } else if (node instanceof List<?> list) {
+            for (Object child : list) {
+                collectPlan(child, stages, indexes);
+            }
+        }
+    }
+
+    private int appliedVersion() {
+        Document applied = mongoTemplate.getCollection(VERSIONS_COLLECTION)
+                .find(Filters.eq("_id", DesignIndexes.COLLECTION)).first();
+        return applied == null ? 0 : applied.get("version", Number.class).intValue();
+    }
+
+    private MongoCollection<Document> designs() {
+        return mongoTemplate.getCollection(DesignIndexes.COLLECTION);
+    }
+
+    private static Map<String, Document> existingIndexes(MongoCollection<Document> collection) {
+        Map<String, Document> indexes = new LinkedHashMap<>();
+        for (Document index : collection.listIndexes()) {
+            indexes.put(index.getString("name"), index);
+        }
+        return indexes;
+    }
+
+    // Comparable form of a declared index: keys, uniqueness, partial filter, collation and text weights
+    private static Document signature(IndexModel declared) {
+        Document keys = Document.parse(declared.getKeys().toBsonDocument().toJson());
+        Document info = new Document("key", keys);
+        if (keys.containsValue("text")) {
+            info.put("key", new Document("_fts", "text").append("_ftsx", 1));
+            info.put("weights", declared.getOptions().getWeights());
+        }
+        if (declared.getOptions().isUnique()) {
+            info.put("unique", true);
+        }
+        if (declared.getOptions().getPartialFilterExpression() != null) {
+            info.put("partialFilterExpression",
+                    Document.parse(declared.getOptions().getPartialFilterExpression().toBsonDocument().toJson()));
+        }
+        Collation collation = declared.getOptions().getCollation();
+        if (collation != null) {
+            info.put("collation", new Document("locale", collation.getLocale())
+                    .append("strength", collation.getStrength().getIntRepresentation()));
+        }
+        return signature(info);
+    }
+
+    // Comparable form of an index as listed by the server
+    private static Document signature(Document info) {
+        Document signature = new Document("key", normalize(info.get("key", Document.class)));
+        signature.put("unique", info.getBoolean("unique", false));
+        Document collation = info.get("collation", Document.class);
+        if (collation != null) {
+            signature.put("collation", new Document("locale", collation.get("locale"))
+                    .append("strength", ((Number) collation.get("strength")).intValue()));
+        }
+        Document partialFilter = info.get("partialFilterExpression", Document.class);
+        if (partialFilter != null) {
+            signature.put("partialFilterExpression", partialFilter.toJson());
+        }
+        Object weights = info.get("weights");
+        if (weights instanceof Bson bson) {
+            signature.put("weights", normalize(Document.parse(bson.toBsonDocument().toJson())));
+        }
+        return signature;
+    }
+
+    // Numbers come back as int, long or double depending on how the index was created
+    private static Document normalize(Document document) {
+        Document normalized = new Document();
+        document.forEach((key, value) -> normalized.put(key,
+                value instanceof Number number ? (Object) number.doubleValue() : value));
+        return normalized;
+    }
+
+    record AccessPath(String name, Bson filter, Bson sort, Collation collation) {}
+}
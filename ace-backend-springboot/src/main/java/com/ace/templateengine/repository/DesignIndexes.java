@@ -0,0 +1,84 @@
+package com.ace.templateengine.repository;
+
+import com.mongodb.client.model.Collation;
+import com.mongodb.client.model.CollationStrength;
+import com.mongodb.client.model.Filters;
+import com.mongodb.client.model.IndexModel;
+import com.mongodb.client.model.IndexOptions;
+import com.mongodb.client.model.Indexes;
+import org.bson.Document;
+
+import java.util.List;
+
+/**
+ * Declared indexes of the designs collection.
+ *
+ * Bump {@link #VERSION} whenever a definition changes so {@link DesignIndexManager}
+ * rebuilds indexes whose options no longer match on the next startup.
+ */
+public final class DesignIndexes {
+    
+    public static final String COLLECTION = "designs";
+    
+    public static final int VERSION = 5;
+    
+    public static final String TEXT_INDEX = "design_text_search";
+    public static final String CREATOR_NAME_INDEX = "created_by_name_ci";
+    
+    // Case-insensitive comparison used by name lookups; queries must pass the same collation to use the index
+    public static final Collation CASE_INSENSITIVE = Collation.builder()
+            .locale("en")
+            .collationStrength(CollationStrength.SECONDARY)
+            .build();
+    
+    private DesignIndexes() {}
+    
+    public static List<IndexModel> all() {
+        return List.of(
+            // findByCreatedBy (paged, sorted by updatedAt) and countByCreatedBy
+            new IndexModel(Indexes.compoundIndex(Indexes.ascending("created_by"), Indexes.descending("updated_at")),
+                    new IndexOptions().name("created_by_updated_at")),
+            // Design names are unique per creator, ignoring case; designs without a creator are exempt
+            new IndexModel(Indexes.ascending("created_by", "name"),
+                    new IndexOptions().name(CREATOR_NAME_INDEX).collation(CASE_INSENSITIVE).unique(true)
+                            .partialFilterExpression(Filters.exists("created_by"))),
+            // findByNameIgnoreCase
+            new IndexModel(Indexes.ascending("name"), new IndexOptions().name("name_ci").collation(CASE_INSENSITIVE)),
+            // findByStatus
+            new IndexModel(Indexes.compoundIndex(Indexes.ascending("status"), Indexes.descending("updated_at")),
+                    new IndexOptions().name("status_updated_at")),
+            // findByIsPublicTrue and countByIsPublicTrue
+            new IndexModel(Indexes.compoundIndex(Indexes.ascending("is_public"), Indexes.descending("updated_at")),
+                    new IndexOptions().name("is_public_updated_at")),
+            // findByTagsContaining and findByAllTags (multikey)
+            new IndexModel(Indexes.ascending("tags"), new IndexOptions().name("tags")),
+            // findByComponentTypes (multikey)
+            new IndexModel(Indexes.ascending("components.type"), new IndexOptions().name("components_type")),
+            // findByComponentTypes for designs with split component storage (multikey)
+            new IndexModel(Indexes.ascending("component_types"), new IndexOptions().name("component_types")),
+            // findByCategory
+            new IndexModel(Indexes.ascending("metadata.category"), new IndexOptions().name("metadata_category")),
+            // findByVersion
+            new IndexModel(Indexes.ascending("version"), new IndexOptions().name("version")),
+            // findByCreatedAtBetween
+            new IndexModel(Indexes.ascending("created_at"), new IndexOptions().name("created_at")),
+            // findByUpdatedAtAfter and the default updatedAt sort of the design list
+            new IndexModel(Indexes.descending("updated_at"), new IndexOptions().name("updated_at")),
+            // Full-text search: a hit in the name outranks tags and category, which outrank components and description;
+            // split designs match their components through the summaries on the design document
+            new IndexModel(Indexes.compoundIndex(
+                        Indexes.text("name"), Indexes.text("tags"), Indexes.text("metadata.category"),
+                        Indexes.text("components.name"), Indexes.text("components.type"),
+                        Indexes.text("component_names"), Indexes.text("component_types"), Indexes.text("description")),
+                    new IndexOptions().name(TEXT_INDEX).defaultLanguage("english").weights(new Document()
+                            .append("name", 10)
+                            .append("tags", 5)
+                            .append("metadata.category", 5)
+                            .append("components.name", 2)
+                            .append("components.type", 2)
+                            .append("component_names", 2)
+                            .append("component_types", 2)
+                            .append("description", 1)))
+        );
+    }
+}
@@ -3,6 +3,7 @@ package com.ace.templateengine.repository;
 import com.ace.templateengine.model.Design;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.mongodb.core.query.TextCriteria;
 import org.springframework.data.mongodb.repository.MongoRepository;
 import org.springframework.data.mongodb.repository.Query;
 import org.springframework.stereotype.Repository;
@@ -12,11 +13,16 @@ import java.util.List;
 import java.util.Optional;
 
 @Repository
-public interface DesignRepository extends MongoRepository<Design, String> {
+public interface DesignRepository extends MongoRepository<Design, String>, DesignRepositoryCustom {
     
-    // Find by name (case-insensitive)
+    // Find by name (case-insensitive), through the collation of the name_ci index rather than a regex
+    @Query(value = "{ 'name': ?0 }", collation = "{ 'locale': 'en', 'strength': 2 }")
     Optional<Design> findByNameIgnoreCase(String name);
     
+    // Whether the creator has a design of this name, ignoring case; only needed while the unique index is not in place
+    @Query(value = "{ 'name': ?0, 'created_by': ?1 }", collation = "{ 'locale': 'en', 'strength': 2 }", exists = true)
+    boolean existsByNameIgnoreCaseAndCreatedBy(String name, String createdBy);
+    
     // Find designs by creator
     List<Design> findByCreatedBy(String createdBy);
     
@@ -35,12 +41,11 @@ public interface DesignRepository extends MongoRepository<Design, String> {
     // Find designs with pagination and sorting
     Page<Design> findByCreatedBy(String createdBy, Pageable pageable);
     
-    // Search designs by name or description (case-insensitive)
-    @Query("{ $or: [ " +
-           "{ 'name': { $regex: ?0, $options: 'i' } }, " +
-           "{ 'description': { $regex: ?0, $options: 'i' } } " +
-           "] }")
-    List<Design> findByNameOrDescriptionContainingIgnoreCase(String searchTerm);
+    // Full-text search over the design text index, ranked by relevance
+    List<Design> findAllByOrderByScoreDesc(TextCriteria criteria);
+    
+    // Full-text search with pagination (sort by "score" to rank by relevance)
+    Page<Design> findAllBy(TextCriteria criteria, Pageable pageable);
     
     // Find designs by category in metadata
     @Query("{ 'metadata.category': ?0 }")
@@ -49,8 +54,8 @@ public interface DesignRepository extends MongoRepository<Design, String> {
     // Find designs by version
     List<Design> findByVersion(String version);
     
-    // Custom query to find designs with specific component types
-    @Query("{ 'components.type': { $in: ?0 } }")
+    // Custom query to find designs with specific component types, inline or split
+    @Query("{ $or: [ { 'components.type': { $in: ?0 } }, { 'component_types': { $in: ?0 } } ] }")
     List<Design> findByComponentTypes(List<String> componentTypes);
     
     // Find designs updated after a specific date
@@ -65,7 +70,5 @@ public interface DesignRepository extends MongoRepository<Design, String> {
     // Find designs by multiple tags
     @Query("{ 'tags': { $all: ?0 } }")
     List<Design> findByAllTags(List<String> tags);
-    
-    // Check if design name exists for a specific user
-    boolean existsByNameIgnoreCaseAndCreatedBy(String name, String createdBy);
+
 }
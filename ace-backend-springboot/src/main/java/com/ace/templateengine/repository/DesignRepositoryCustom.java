@@ -0,0 +1,12 @@
+package com.ace.templateengine.repository;
+
+import com.ace.templateengine.dto.DesignStats;
+
+/**
+ * Custom queries for {@link DesignRepository} that cannot be expressed as derived queries
+ */
+public interface DesignRepositoryCustom {
+    
+    // Compute totals and facet counts in a single aggregation round trip (createdBy may be null)
+    DesignStats aggregateDesignStats(String createdBy);
+}
@@ -0,0 +1,93 @@
+package com.ace.templateengine.repository;
+
+import com.ace.templateengine.dto.DesignStats;
+import com.mongodb.client.model.Accumulators;
+import com.mongodb.client.model.Aggregates;
+import com.mongodb.client.model.Facet;
+import com.mongodb.client.model.Filters;
+import com.mongodb.client.model.Projections;
+import org.bson.Document;
+import org.bson.conversions.Bson;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.mongodb.core.MongoTemplate;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Implementation of {@link DesignRepositoryCustom}, picked up by Spring Data through the Impl suffix
+ */
+public class DesignRepositoryImpl implements DesignRepositoryCustom {
+    
+    private static final String COLLECTION = "designs";
+    private static final String UNSET = "(none)";
+    
+    @Autowired
+    private MongoTemplate mongoTemplate;
+    
+    @Override
+    public DesignStats aggregateDesignStats(String createdBy) {
+        List<Bson> pipeline = new ArrayList<>();
+        if (createdBy != null) {
+            pipeline.add(Aggregates.match(Filters.eq("created_by", createdBy)));
+        }
+        
+        // Keep only the fields the facets need so components, styles and preview images never enter the pipeline
+        pipeline.add(Aggregates.project(Projections.fields(
+                Projections.include("status", "is_public", "metadata.category", "tags"),
+                Projections.computed("componentTypes", new Document("$setUnion", List.of(
+                        new Document("$ifNull", List.of("$components.type", List.of())),
+                        new Document("$ifNull", List.of("$component_types", List.of()))))))));
+        
+        pipeline.add(Aggregates.facet(
+                new Facet("total", Aggregates.count("count")),
+                new Facet("byStatus", countBy("$status")),
+                new Facet("byVisibility", countBy("$is_public")),
+                new Facet("byCategory", countBy("$metadata.category")),
+                new Facet("byTag", countBy("$tags", Aggregates.unwind("$tags"))),
+                new Facet("byComponentType", countBy("$componentTypes", Aggregates.unwind("$componentTypes")))));
+        
+        Document result = mongoTemplate.getCollection(COLLECTION).aggregate(pipeline).first();
+        
+        DesignStats stats = new DesignStats();
+        if (result == null) {
+            return stats;
+        }
+        
+        List<Document> total = result.getList("total", Document.class);
+        stats.setTotalDesigns(total.isEmpty() ? 0 : total.get(0).get("count", Number.class).longValue());
+        stats.setByStatus(toCounts(result.getList("byStatus", Document.class)));
+        stats.setByCategory(toCounts(result.getList("byCategory", Document.class)));
+        stats.setByTag(toCounts(result.getList("byTag", Document.class)));
+        stats.setByComponentType(toCounts(result.getList("byComponentType", Document.class)));
+        
+        Map<String, Long> byVisibility = toCounts(result.getList("byVisibility", Document.class));
+        long publicDesigns = byVisibility.getOrDefault("true", 0L);
+        Map<String, Long> visibility = new LinkedHashMap<>();
+        visibility.put("public", publicDesigns);
+        visibility.put("private", stats.getTotalDesigns() - publicDesigns);
+        stats.setByVisibility(visibility);
+        stats.setPublicDesigns(publicDesigns);
+        stats.setPrivateDesigns(stats.getTotalDesigns() - publicDesigns);
+        
+        return stats;
+    }
+    
+    private static List<Bson> countBy(String fieldExpression, Bson... preStages) {
+        List<Bson> stages = new ArrayList<>(List.of(preStages));
+        stages.add(Aggregates.group(fieldExpression, Accumulators.sum("count", 1)));
+        stages.add(Aggregates.sort(new Document("count", -1).append("_id", 1)));
+        return stages;
+    }
+    
+    private static Map<String, Long> toCounts(List<Document> buckets) {
+        Map<String, Long> counts = new LinkedHashMap<>();
+        for (Document bucket : buckets) {
+            Object key = bucket.get("_id");
+            counts.put(key == null ? UNSET : key.toString(), bucket.get("count", Number.class).longValue());
+        }
+        return counts;
+    }
+}
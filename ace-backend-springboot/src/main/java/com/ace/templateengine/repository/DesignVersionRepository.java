@@ -0,0 +1,34 @@
+package com.ace.templateengine.repository;
+
+import com.ace.templateengine.model.DesignVersion;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.repository.MongoRepository;
+import org.springframework.data.mongodb.repository.Query;
+import org.springframework.stereotype.Repository;
+
+import java.util.List;
+import java.util.Optional;
+
+@Repository
+public interface DesignVersionRepository extends MongoRepository<DesignVersion, String> {
+    
+    // Latest history entry of a design, without its payload
+    @Query(value = "{ 'design_id': ?0 }", fields = "{ 'snapshot': 0, 'delta': 0 }", sort = "{ 'sequence': -1 }")
+    List<DesignVersion> findLatestHeader(String designId, Pageable pageable);
+    
+    // History of a design without snapshot and delta payloads
+    @Query(value = "{ 'design_id': ?0 }", fields = "{ 'snapshot': 0, 'delta': 0 }")
+    List<DesignVersion> findHeadersByDesignId(String designId, Sort sort);
+    
+    // Closest full snapshot at or before a sequence number
+    Optional<DesignVersion> findFirstByDesignIdAndKindAndSequenceLessThanEqualOrderBySequenceDesc(
+            String designId, DesignVersion.Kind kind, Long sequence);
+    
+    // Entries after a snapshot up to and including the target sequence
+    @Query("{ 'design_id': ?0, 'sequence': { $gt: ?1, $lte: ?2 } }")
+    List<DesignVersion> findRange(String designId, Long afterSequence, Long toSequence, Sort sort);
+    
+    // Remove the history of a deleted design
+    void deleteByDesignId(String designId);
+}
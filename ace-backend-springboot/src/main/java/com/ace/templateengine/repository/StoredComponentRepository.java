@@ -0,0 +1,36 @@
+package com.ace.templateengine.repository;
+
+import com.ace.templateengine.model.StoredComponent;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.mongodb.repository.MongoRepository;
+import org.springframework.data.mongodb.repository.Query;
+import org.springframework.stereotype.Repository;
+
+import java.util.Collection;
+import java.util.List;
+
+@Repository
+public interface StoredComponentRepository extends MongoRepository<StoredComponent, String> {
+    
+    // All components of a design in list order
+    List<StoredComponent> findByDesignIdOrderByOrder(String designId);
+    
+    // One page of components in list order
+    Page<StoredComponent> findByDesignId(String designId, Pageable pageable);
+    
+    // Identity, order and content hash only, for diffing against a new component list
+    @Query(value = "{ 'design_id': ?0 }", fields = "{ 'component_id': 1, 'order': 1, 'content_hash': 1 }")
+    List<StoredComponent> findHeadersByDesignId(String designId);
+    
+    // Everything the spatial index needs, without component bodies
+    @Query(value = "{ 'design_id': ?0 }",
+           fields = "{ 'component_id': 1, 'order': 1, 'content_hash': 1, 'left': 1, 'top': 1, 'right': 1, 'bottom': 1, 'z_index': 1, 'visible': 1 }")
+    List<StoredComponent> findSpatialByDesignId(String designId);
+    
+    List<StoredComponent> findByDesignIdAndComponentIdIn(String designId, Collection<String> componentIds);
+    
+    void deleteByDesignIdAndComponentIdIn(String designId, Collection<String> componentIds);
+    
+    void deleteByDesignId(String designId);
+}
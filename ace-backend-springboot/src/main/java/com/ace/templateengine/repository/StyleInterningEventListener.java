@@ -0,0 +1,35 @@
+package com.ace.templateengine.repository;
+
+import com.ace.templateengine.model.Design;
+import com.ace.templateengine.model.DesignVersion;
+import com.ace.templateengine.model.StoredComponent;
+import com.ace.templateengine.service.StyleInterner;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.mongodb.core.mapping.event.AbstractMongoEventListener;
+import org.springframework.data.mongodb.core.mapping.event.AfterConvertEvent;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+
+/**
+ * Hands designs, design history and split design components to the {@link StyleInterner} as
+ * they are loaded, so repeated style and property maps share one instance on the heap
+ */
+@Component
+public class StyleInterningEventListener extends AbstractMongoEventListener<Object> {
+
+    @Autowired
+    private StyleInterner styleInterner;
+
+    @Override
+    public void onAfterConvert(AfterConvertEvent<Object> event) {
+        Object source = event.getSource();
+        if (source instanceof Design design) {
+            styleInterner.intern(design);
+        } else if (source instanceof DesignVersion version) {
+            styleInterner.intern(version);
+        } else if (source instanceof StoredComponent stored && stored.getComponent() != null) {
+            styleInterner.internComponents(List.of(stored.getComponent()));
+        }
+    }
+}
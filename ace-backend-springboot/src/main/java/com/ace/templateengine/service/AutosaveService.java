@@ -0,0 +1,395 @@
+package com.ace.templateengine.service;
+
+import com.ace.templateengine.dto.AutosaveStatus;
+import com.ace.templateengine.exception.DesignNotFoundException;
+import com.ace.templateengine.exception.DuplicateDesignNameException;
+import com.ace.templateengine.exception.InvalidComponentHierarchyException;
+import com.ace.templateengine.model.Design;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Stream;
+
+/**
+ * Write-behind buffer for editor autosaves.
+ *
+ * Autosaved edits of a design are coalesced in memory field by field, the latest value winning,
+ * and written as a single patch once the design has been quiet for the debounce interval, at the
+ * latest after the maximum delay, or when a save is requested. Each edit is appended to a local
+ * journal segment first; a segment is deleted once the edits it holds are written, and segments
+ * left behind by a crash are replayed into the buffer on startup.
+ */
+@Service
+public class AutosaveService {
+
+    private static final Logger logger = LoggerFactory.getLogger(AutosaveService.class);
+
+    // Fields an autosave may change; anything else in an edit is ignored
+    private static final Set<String> FIELDS = Set.of("name", "description", "canvasConfig", "components",
+            "globalStyles", "themeSettings", "metadata", "version", "status", "tags", "isPublic", "previewImage");
+    private static final String JOURNAL_SUFFIX = ".journal";
+
+    @Autowired
+    private DesignService designService;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Value("${app.designs.autosave.debounce-ms:3000}")
+    private long debounceMs;
+
+    @Value("${app.designs.autosave.max-delay-ms:30000}")
+    private long maxDelayMs;
+
+    @Value("${app.designs.autosave.journal-dir:data/autosave}")
+    private String journalDir;
+
+    @Value("${app.designs.autosave.journal-fsync:false}")
+    private boolean journalFsync;
+
+    private final Map<String, Pending> pending = new ConcurrentHashMap<>();
+
+    // Flushes of one design run one at a time so patches reach the database in edit order
+    private final Object[] flushLocks = new Object[64];
+
+    private final AtomicLong segmentCounter = new AtomicLong();
+
+    public AutosaveService() {
+        for (int i = 0; i < flushLocks.length; i++) {
+            flushLocks[i] = new Object();
+        }
+    }
+
+    /**
+     * Buffer an edit of a design; only the top-level fields present in the edit change
+     */
+    public AutosaveStatus autosave(String id, Map<String, Object> edit, String updatedBy) {
+        Map<String, Object> fields = new LinkedHashMap<>();
+        edit.forEach((field, value) -> {
+            if (FIELDS.contains(field)) {
+                fields.put(field, value);
+            }
+        });
+        // Malformed edits fail now rather than when the buffer is written
+        objectMapper.convertValue(fields, Design.class);
+        if (!pending.containsKey(id)) {
+            designService.getDesignShell(id);
+        }
+
+        while (true) {
+            Pending buffer = pending.computeIfAbsent(id, key -> new Pending(key, newSegment(key)));
+            synchronized (buffer) {
+                if (buffer.closed) {
+                    // Taken by a flush in the meantime; the next edit starts a new buffer
+                    continue;
+                }
+                Instant now = Instant.now();
+                append(buffer.segments.get(buffer.segments.size() - 1), new JournalRecord(id, now.toEpochMilli(), updatedBy, fields));
+                buffer.apply(fields, updatedBy, now);
+                return statusOf(buffer);
+            }
+        }
+    }
+
+    public AutosaveStatus status(String id) {
+        Pending buffer = pending.get(id);
+        if (buffer == null) {
+            return new AutosaveStatus(id);
+        }
+        synchronized (buffer) {
+            return statusOf(buffer);
+        }
+    }
+
+    // Write the pending edits of a design now and return the design as stored
+    public Design flush(String id) {
+        Design saved = flushPending(id);
+        return saved != null ? saved : designService.getDesignById(id);
+    }
+
+    /**
+     * Write the pending edits of a design now, if there are any; direct writes call this first so
+     * older autosaved edits cannot land on top of them later. Returns null without pending edits.
+     */
+    public Design flushPending(String id) {
+        synchronized (flushLocks[Math.floorMod(id.hashCode(), flushLocks.length)]) {
+            Pending buffer = pending.get(id);
+            if (buffer == null) {
+                return null;
+            }
+            synchronized (buffer) {
+                buffer.closed = true;
+                pending.remove(id, buffer);
+            }
+            try {
+                Design saved = designService.patchDesign(id, toPatch(buffer));
+                deleteSegments(buffer.segments);
+                logger.debug("Autosave wrote {} edits of design {} in one patch", buffer.edits, id);
+                return saved;
+            } catch (DesignNotFoundException | InvalidComponentHierarchyException | DuplicateDesignNameException e) {
+                // Edits that can never be applied are dropped rather than retried forever
+                logger.warn("Dropping {} autosaved edits of design {}: {}", buffer.edits, id, e.getMessage());
+                deleteSegments(buffer.segments);
+                throw e;
+            } catch (RuntimeException e) {
+                requeue(buffer);
+                throw e;
+            }
+        }
+    }
+
+    // Forget the pending edits of a design, e.g. when it is deleted
+    public void discard(String id) {
+        Pending buffer = pending.remove(id);
+        if (buffer != null) {
+            synchronized (buffer) {
+                buffer.closed = true;
+            }
+            deleteSegments(buffer.segments);
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${app.designs.autosave.flush-check-ms:500}")
+    public void flushDue() {
+        Instant now = Instant.now();
+        for (Pending buffer : pending.values()) {
+            Instant due;
+            synchronized (buffer) {
+                due = buffer.dueAt(debounceMs, maxDelayMs);
+            }
+            if (due.isAfter(now)) {
+                continue;
+            }
+            try {
+                flushPending(buffer.designId);
+            } catch (RuntimeException e) {
+                logger.warn("Autosave of design {} failed: {}", buffer.designId, e.getMessage());
+            }
+        }
+    }
+
+    // Put edits left in the journal by a previous run back into the buffer; the scheduler writes them
+    @EventListener(ApplicationReadyEvent.class)
+    public void recoverJournal() {
+        Path dir = Path.of(journalDir);
+        if (!Files.isDirectory(dir)) {
+            return;
+        }
+        List<Path> segments;
+        try (Stream<Path> files = Files.list(dir)) {
+            segments = files.filter(file -> file.getFileName().toString().endsWith(JOURNAL_SUFFIX)).sorted().toList();
+        } catch (IOException e) {
+            logger.warn("Could not read autosave journal {}: {}", dir, e.getMessage());
+            return;
+        }
+        int recovered = 0;
+        for (Path segment : segments) {
+            List<JournalRecord> records = read(segment);
+            if (records.isEmpty()) {
+                deleteSegments(List.of(segment));
+                continue;
+            }
+            Pending buffer = pending.computeIfAbsent(records.get(0).designId(), key -> new Pending(key, null));
+            synchronized (buffer) {
+                buffer.segments.add(segment);
+                for (JournalRecord record : records) {
+                    buffer.apply(record.fields(), record.updatedBy(), Instant.ofEpochMilli(record.at()));
+                }
+            }
+            recovered += records.size();
+        }
+        if (recovered > 0) {
+            logger.info("Recovered {} autosaved edits from {} journal segments", recovered, segments.size());
+        }
+    }
+
+    private Design toPatch(Pending buffer) {
+        Design patch = objectMapper.convertValue(buffer.fields, Design.class);
+        // Defaults of the Design constructor are not edits
+        if (!buffer.fields.containsKey("version")) {
+            patch.setVersion(null);
+        }
+        if (!buffer.fields.containsKey("status")) {
+            patch.setStatus(null);
+        }
+        if (!buffer.fields.containsKey("isPublic")) {
+            patch.setIsPublic(null);
+        }
+        patch.setUpdatedBy(buffer.updatedBy);
+        return patch;
+    }
+
+    // Return the edits of a failed flush to the buffer, under any edits made since, and retry after the debounce interval
+    private void requeue(Pending failed) {
+        while (true) {
+            Pending current = pending.get(failed.designId);
+            if (current == null) {
+                failed.closed = false;
+                failed.firstEdit = Instant.now();
+                failed.lastEdit = failed.firstEdit;
+                if (pending.putIfAbsent(failed.designId, failed) == null) {
+                    return;
+                }
+                continue;
+            }
+            synchronized (current) {
+                if (!current.closed) {
+                    current.prepend(failed);
+                    return;
+                }
+            }
+        }
+    }
+
+    private Path newSegment(String designId) {
+        String safeId = designId.replaceAll("[^A-Za-z0-9_-]", "_");
+        return Path.of(journalDir, String.format("%013d-%06d-%s%s",
+                System.currentTimeMillis(), segmentCounter.incrementAndGet() % 1_000_000, safeId, JOURNAL_SUFFIX));
+    }
+
+    private void append(Path segment, JournalRecord record) {
+        try {
+            byte[] line = (objectMapper.writeValueAsString(record) + "\n").getBytes(StandardCharsets.UTF_8);
+            Files.createDirectories(segment.getParent());
+            try (FileChannel channel = FileChannel.open(segment,
+                    StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.APPEND)) {
+                ByteBuffer buffer = ByteBuffer.wrap(line);
+                while (buffer.hasRemaining()) {
+                    channel.write(buffer);
+                }
+                if (journalFsync) {
+                    channel.force(false);
+                }
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException("Could not journal autosave of design " + record.designId(), e);
+        }
+    }
+
+    private List<JournalRecord> read(Path segment) {
+        List<JournalRecord> records = new ArrayList<>();
+        try {
+            for (String line : Files.readAllLines(segment, StandardCharsets.UTF_8)) {
+                if (line.isBlank()) {
+                    continue;
+                }
+                try {
+                    records.add(objectMapper.readValue(line, JournalRecord.class));
+                } catch (JsonProcessingException e) {
+                    // A torn last line of a crash; everything before it is intact
+                    logger.warn("Skipping unreadable autosave journal entry in {}", segment);
+                }
+            }
+        } catch (IOException e) {
+            logger.warn("Could not read autosave journal segment {}: {}", segment, e.getMessage());
+        }
+        return records;
+    }
+
+    private void deleteSegments(List<Path> segments) {
+        for (Path segment : segments) {
+            try {
+                Files.deleteIfExists(segment);
+            } catch (IOException e) {
+                logger.warn("Could not delete autosave journal segment {}: {}", segment, e.getMessage());
+            }
+        }
+    }
+
+    private AutosaveStatus statusOf(Pending buffer) {
+        AutosaveStatus status = new AutosaveStatus(buffer.designId);
+        status.setPendingEdits(buffer.edits);
+        status.setPendingFields(new LinkedHashSet<>(buffer.fields.keySet()));
+        status.setFirstEditAt(toLocal(buffer.firstEdit));
+        status.setLastEditAt(toLocal(buffer.lastEdit));
+        status.setFlushDueAt(toLocal(buffer.dueAt(debounceMs, maxDelayMs)));
+        return status;
+    }
+
+    private static LocalDateTime toLocal(Instant instant) {
+        return instant == null ? null : LocalDateTime.ofInstant(instant, ZoneId.systemDefault());
+    }
+
+    /**
+     * One journaled edit
+     */
+    record JournalRecord(String designId, long at, String updatedBy, Map<String, Object> fields) {}
+
+    // Coalesced edits of one design; guarded by its own monitor
+    private static final class Pending {
+        final String designId;
+        final List<Path> segments = new ArrayList<>();
+        Map<String, Object> fields = new LinkedHashMap<>();
+        String updatedBy;
+        int edits;
+        Instant firstEdit;
+        Instant lastEdit;
+        boolean closed;
+
+        Pending(String designId, Path segment) {
+            this.designId = designId;
+            if (segment != null) {
+                segments.add(segment);
+            }
+        }
+
+        void apply(Map<String, Object> edit, String editor, Instant at) {
+            fields.putAll(edit);
+            if (editor != null) {
+                updatedBy = editor;
+            }
+            edits++;
+            if (firstEdit == null || at.isBefore(firstEdit)) {
+                firstEdit = at;
+            }
+            if (lastEdit == null || at.isAfter(lastEdit)) {
+                lastEdit = at;
+            }
+        }
+
+        // Take in the edits of an older buffer; its values lose against ours
+        void prepend(Pending older) {
+            Map<String, Object> merged = new LinkedHashMap<>(older.fields);
+            merged.putAll(fields);
+            fields = merged;
+            if (updatedBy == null) {
+                updatedBy = older.updatedBy;
+            }
+            edits += older.edits;
+            segments.addAll(0, older.segments);
+        }
+
+        Instant dueAt(long debounceMs, long maxDelayMs) {
+            Instant quiet = lastEdit.plusMillis(debounceMs);
+            Instant latest = firstEdit.plusMillis(maxDelayMs);
+            return quiet.isBefore(latest) ? quiet : latest;
+        }
+    }
+}
@@ -0,0 +1,485 @@
+package com.ace.templateengine.service;
+
+import com.ace.templateengine.exception.CollaborationInProgressException;
+import com.ace.templateengine.model.Design;
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.web.socket.TextMessage;
+import org.springframework.web.socket.WebSocketSession;
+import org.springframework.web.socket.handler.ConcurrentWebSocketSessionDecorator;
+
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+
+/**
+ * Real-time collaborative editing sessions, one room per open design.
+ *
+ * The room holds the authoritative component list while it is open. Component operations
+ * from participants are applied in arrival order and numbered with a server sequence; the
+ * operations of one frame are coalesced per component and broadcast to every participant as a
+ * single message, together with the last client sequence applied for each sender. The room
+ * saves its components through the autosave buffer, so an editing session costs a debounced
+ * patch rather than a write per operation; everything is flushed when the last participant
+ * leaves. The room stays registered until that final save is written, so a participant joining
+ * meanwhile waits for it and starts from the saved state. Component edits through the REST API
+ * are rejected while a room is open, since the room's next save would overwrite them.
+ *
+ * Operations: upsert {component}, patch {id, fields} (top-level component fields are
+ * replaced) and delete {id}. A batch that references a missing component or would break the
+ * component hierarchy is rejected as a whole.
+ */
+@Service
+public class CollaborationService {
+
+    private static final Logger logger = LoggerFactory.getLogger(CollaborationService.class);
+
+    // Component fields whose change can break the hierarchy
+    private static final Set<String> STRUCTURAL_FIELDS = Set.of("id", "parentId", "children");
+
+    @Autowired
+    private DesignService designService;
+
+    @Autowired
+    private AutosaveService autosaveService;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Value("${app.designs.collaboration.send-time-limit-ms:5000}")
+    private int sendTimeLimitMs;
+
+    @Value("${app.designs.collaboration.send-buffer-limit-bytes:4194304}")
+    private int sendBufferLimitBytes;
+
+    private final Map<String, Room> rooms = new ConcurrentHashMap<>();
+    private final Map<String, Participant> participants = new ConcurrentHashMap<>();
+
+    public void join(WebSocketSession socket, String designId, String user) throws IOException {
+        Participant participant = new Participant(
+                new ConcurrentWebSocketSessionDecorator(socket, sendTimeLimitMs, sendBufferLimitBytes),
+                user == null || user.isBlank() ? "anonymous" : user);
+        while (true) {
+            Room room = rooms.get(designId);
+            if (room == null) {
+                // Pending autosaves belong in the state the room starts from
+                autosaveService.flushPending(designId);
+                Room opened = new Room(designId, designService.getDesignById(designId));
+                room = rooms.putIfAbsent(designId, opened);
+                if (room == null) {
+                    room = opened;
+                }
+            }
+            Map<String, Object> welcome;
+            synchronized (room) {
+                if (!room.closed) {
+                    participant.room = room;
+                    room.participants.add(participant);
+                    participants.put(socket.getId(), participant);
+                    welcome = welcome(room);
+                } else {
+                    welcome = null;
+                }
+            }
+            if (welcome == null) {
+                // The last participant just left; the next room starts from its final save
+                awaitSaved(room);
+                continue;
+            }
+            send(participant, welcome);
+            broadcastPresence(room);
+            return;
+        }
+    }
+
+    /**
+     * Reject a direct write of the components of a design, or its deletion, while a collaboration
+     * room holds them
+     */
+    public void checkNoRoom(String designId) {
+        if (rooms.containsKey(designId)) {
+            throw new CollaborationInProgressException(
+                    "Design " + designId + " is being edited collaboratively; it cannot be changed or deleted directly");
+        }
+    }
+
+    private static void awaitSaved(Room room) throws IOException {
+        try {
+            room.saved.await();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Interrupted while design " + room.designId + " was being saved");
+        }
+    }
+
+    public void receive(WebSocketSession socket, String payload) throws IOException {
+        Participant participant = participants.get(socket.getId());
+        if (participant == null) {
+            return;
+        }
+        Map<String, Object> message = objectMapper.readValue(payload, new TypeReference<Map<String, Object>>() {});
+        if (!"ops".equals(message.get("type")) || !(message.get("ops") instanceof List<?> ops)) {
+            send(participant, Map.of("type", "error", "message", "Expected {\"type\": \"ops\", \"ops\": [...]}"));
+            return;
+        }
+        Object clientSeq = message.get("clientSeq");
+        Room room = participant.room;
+        List<String> problems;
+        synchronized (room) {
+            if (room.closed) {
+                return;
+            }
+            problems = room.apply(ops, participant);
+            if (problems.isEmpty() && clientSeq != null) {
+                room.acks.put(participant.id, clientSeq);
+            }
+        }
+        if (!problems.isEmpty()) {
+            Map<String, Object> reject = new LinkedHashMap<>();
+            reject.put("type", "reject");
+            reject.put("clientSeq", clientSeq);
+            reject.put("problems", problems);
+            send(participant, reject);
+        }
+    }
+
+    public void leave(WebSocketSession socket) {
+        Participant participant = participants.remove(socket.getId());
+        if (participant == null) {
+            return;
+        }
+        Room room = participant.room;
+        boolean last;
+        synchronized (room) {
+            room.participants.remove(participant);
+            last = room.participants.isEmpty();
+            if (last) {
+                room.closed = true;
+            }
+        }
+        if (!last) {
+            broadcastPresence(room);
+            return;
+        }
+        try {
+            save(room);
+            autosaveService.flushPending(room.designId);
+        } catch (RuntimeException e) {
+            logger.warn("Could not save collaborative edits of design {}: {}", room.designId, e.getMessage());
+        } finally {
+            // Only now can a new room load the design, with these edits in it
+            rooms.remove(room.designId, room);
+            room.saved.countDown();
+        }
+    }
+
+    // Broadcast the coalesced operations of the current frame of every room
+    @Scheduled(fixedDelayString = "${app.designs.collaboration.frame-ms:50}")
+    public void broadcastFrames() {
+        for (Room room : rooms.values()) {
+            Map<String, Object> frame;
+            List<Participant> recipients;
+            synchronized (room) {
+                if (room.outbox.isEmpty() && room.acks.isEmpty()) {
+                    continue;
+                }
+                frame = new LinkedHashMap<>();
+                frame.put("type", "ops");
+                frame.put("seq", room.seq);
+                frame.put("ops", new ArrayList<>(room.outbox.values()));
+                frame.put("acks", new LinkedHashMap<>(room.acks));
+                room.outbox.clear();
+                room.acks.clear();
+                recipients = new ArrayList<>(room.participants);
+            }
+            broadcast(recipients, frame);
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${app.designs.collaboration.save-ms:1000}")
+    public void saveRooms() {
+        for (Room room : rooms.values()) {
+            try {
+                save(room);
+            } catch (RuntimeException e) {
+                logger.warn("Could not save collaborative edits of design {}: {}", room.designId, e.getMessage());
+            }
+        }
+    }
+
+    private void save(Room room) {
+        List<Map<String, Object>> components;
+        String author;
+        synchronized (room) {
+            if (!room.dirty) {
+                return;
+            }
+            components = new ArrayList<>(room.components.values());
+            author = room.lastAuthor;
+            room.dirty = false;
+        }
+        autosaveService.autosave(room.designId, Map.of("components", components), author);
+    }
+
+    private Map<String, Object> welcome(Room room) {
+        Map<String, Object> design = objectMapper.convertValue(room.design, new TypeReference<Map<String, Object>>() {});
+        design.put("components", new ArrayList<>(room.components.values()));
+        Map<String, Object> welcome = new LinkedHashMap<>();
+        welcome.put("type", "welcome");
+        welcome.put("roomId", room.roomId);
+        welcome.put("seq", room.seq);
+        welcome.put("participants", room.participants.stream().map(Participant::describe).toList());
+        welcome.put("design", design);
+        return welcome;
+    }
+
+    private void broadcastPresence(Room room) {
+        Map<String, Object> presence = new LinkedHashMap<>();
+        List<Participant> recipients;
+        synchronized (room) {
+            presence.put("type", "presence");
+            presence.put("participants", room.participants.stream().map(Participant::describe).toList());
+            recipients = new ArrayList<>(room.participants);
+        }
+        broadcast(recipients, presence);
+    }
+
+    private void broadcast(List<Participant> recipients, Map<String, Object> message) {
+        TextMessage text;
+        try {
+            text = new TextMessage(objectMapper.writeValueAsString(message));
+        } catch (IOException e) {
+            logger.warn("Could not serialize collaboration message: {}", e.getMessage());
+            return;
+        }
+        for (Participant participant : recipients) {
+            send(participant, text);
+        }
+    }
+
+    private void send(Participant participant, Map<String, Object> message) throws IOException {
+        send(participant, new TextMessage(objectMapper.writeValueAsString(message)));
+    }
+
+    private void send(Participant participant, TextMessage message) {
+        try {
+            participant.socket.sendMessage(message);
+        } catch (IOException | RuntimeException e) {
+            // Slow or broken connections are dropped; the client reconnects and gets a fresh welcome
+            logger.debug("Dropping collaboration participant {}: {}", participant.id, e.getMessage());
+            try {
+                participant.socket.close();
+            } catch (IOException ignored) {
+                // Already gone
+            }
+        }
+    }
+
+    private final class Room {
+        final String designId;
+        final String roomId = UUID.randomUUID().toString();
+        final Design design;
+        // Components as JSON maps by id, in design order
+        LinkedHashMap<String, Map<String, Object>> components = new LinkedHashMap<>();
+        final List<Participant> participants = new ArrayList<>();
+        // Operations of the current frame, coalesced per component
+        final LinkedHashMap<String, Map<String, Object>> outbox = new LinkedHashMap<>();
+        final Map<String, Object> acks = new LinkedHashMap<>();
+        long seq;
+        boolean dirty;
+        boolean closed;
+        String lastAuthor;
+        // Released once the final save after closing is written
+        final CountDownLatch saved = new CountDownLatch(1);
+
+        Room(String designId, Design design) {
+            this.designId = designId;
+            this.design = design;
+            List<Design.DesignComponent> loaded = design.getComponents() == null ? List.of() : design.getComponents();
+            for (int i = 0; i < loaded.size(); i++) {
+                Map<String, Object> component = objectMapper.convertValue(loaded.get(i), new TypeReference<Map<String, Object>>() {});
+                component.remove("contentHash");
+                components.put(DesignComponentStore.componentId(loaded.get(i), i), component);
+            }
+            design.setComponents(null);
+        }
+
+        // Apply a batch of operations, all or nothing; returns the problems of a rejected batch
+        List<String> apply(List<?> ops, Participant author) {
+            List<String> problems = new ArrayList<>();
+            boolean structural = false;
+            for (Object op : ops) {
+                if (!(op instanceof Map<?, ?> map) || !(map.get("op") instanceof String type)) {
+                    problems.add("Operation without an op type: " + op);
+                    continue;
+                }
+                structural |= !"patch".equals(type)
+                        || (map.get("fields") instanceof Map<?, ?> fields && fields.keySet().stream().anyMatch(STRUCTURAL_FIELDS::contains));
+            }
+            if (!structural) {
+                // Patches only: every id can be checked against the current state before anything changes
+                for (Object op : ops) {
+                    Map<?, ?> map = (Map<?, ?>) op;
+                    if (!(map.get("id") instanceof String id) || !components.containsKey(id) || !(map.get("fields") instanceof Map<?, ?>)) {
+                        problems.add("patch needs the id of an existing component and fields: " + map.get("id"));
+                    }
+                }
+            }
+            if (!problems.isEmpty()) {
+                return problems;
+            }
+
+            // Structural batches run against a copy so a hierarchy problem leaves the room untouched
+            LinkedHashMap<String, Map<String, Object>> target = structural ? new LinkedHashMap<>(components) : components;
+            List<Map<String, Object>> applied = new ArrayList<>();
+            for (Object op : ops) {
+                Map<String, Object> result = applyOne(target, (Map<?, ?>) op, problems);
+                if (result != null) {
+                    applied.add(result);
+                }
+                if (!problems.isEmpty()) {
+                    return problems;
+                }
+            }
+            if (structural) {
+                List<Design.DesignComponent> skeleton = new ArrayList<>(target.size());
+                for (Map<String, Object> component : target.values()) {
+                    skeleton.add(skeletonOf(component));
+                }
+                problems.addAll(HierarchyIndex.build(skeleton).problems());
+                if (!problems.isEmpty()) {
+                    return problems;
+                }
+                components = target;
+            }
+
+            for (Map<String, Object> op : applied) {
+                op.put("seq", ++seq);
+                op.put("author", author.user);
+                coalesce(op);
+            }
+            dirty = true;
+            lastAuthor = author.user;
+            return problems;
+        }
+
+        private Map<String, Object> applyOne(LinkedHashMap<String, Map<String, Object>> target, Map<?, ?> op, List<String> problems) {
+            String type = (String) op.get("op");
+            Object id = op.get("id");
+            switch (type) {
+                case "upsert" -> {
+                    if (!(op.get("component") instanceof Map<?, ?> body) || !(body.get("id") instanceof String componentId)) {
+                        problems.add("upsert needs a component with an id");
+                        return null;
+                    }
+                    Map<String, Object> component = copy(body);
+                    component.remove("contentHash");
+                    target.put(componentId, component);
+                    return operation("upsert", componentId, "component", component);
+                }
+                case "patch" -> {
+                    if (!(id instanceof String componentId) || !target.containsKey(componentId)
+                            || !(op.get("fields") instanceof Map<?, ?> fields)) {
+                        problems.add("patch needs the id of an existing component and fields: " + id);
+                        return null;
+                    }
+                    Map<String, Object> changes = copy(fields);
+                    changes.remove("id");
+                    changes.remove("contentHash");
+                    Map<String, Object> component = new LinkedHashMap<>(target.get(componentId));
+                    component.putAll(changes);
+                    // Changed components lose their stored hash (see ContentHasher)
+                    component.remove("contentHash");
+                    target.put(componentId, component);
+                    return operation("patch", componentId, "fields", changes);
+                }
+                case "delete" -> {
+                    if (!(id instanceof String componentId) || target.remove(componentId) == null) {
+                        problems.add("delete needs the id of an existing component: " + id);
+                        return null;
+                    }
+                    return operation("delete", componentId, null, null);
+                }
+                default -> {
+                    problems.add("Unknown operation: " + type);
+                    return null;
+                }
+            }
+        }
+
+        // Merge an operation into the frame; later operations on a component absorb earlier ones
+        private void coalesce(Map<String, Object> op) {
+            String id = (String) op.get("id");
+            Map<String, Object> previous = outbox.get(id);
+            if ("patch".equals(op.get("op")) && previous != null && !"delete".equals(previous.get("op"))) {
+                @SuppressWarnings("unchecked")
+                Map<String, Object> target = (Map<String, Object>) previous.get("upsert".equals(previous.get("op")) ? "component" : "fields");
+                @SuppressWarnings("unchecked")
+                Map<String, Object> fields = (Map<String, Object>) op.get("fields");
+                target.putAll(fields);
+                previous.put("seq", op.get("seq"));
+                previous.put("author", op.get("author"));
+                return;
+            }
+            outbox.remove(id);
+            outbox.put(id, op);
+        }
+    }
+
+    private static Map<String, Object> operation(String type, String id, String key, Map<String, Object> value) {
+        Map<String, Object> op = new LinkedHashMap<>();
+        op.put("op", type);
+        op.put("id", id);
+        if (key != null) {
+            // Copied, since frame coalescing merges into it
+            op.put(key, new LinkedHashMap<>(value));
+        }
+        return op;
+    }
+
+    private static Map<String, Object> copy(Map<?, ?> map) {
+        Map<String, Object> copy = new LinkedHashMap<>();
+        map.forEach((key, value) -> copy.put(String.valueOf(key), value));
+        return copy;
+    }
+
+    private static Design.DesignComponent skeletonOf(Map<String, Object> component) {
+        Design.DesignComponent skeleton = new Design.DesignComponent();
+        skeleton.setId((String) component.get("id"));
+        skeleton.setParentId(component.get("parentId") instanceof String parentId ? parentId : null);
+        if (component.get("children") instanceof List<?> children) {
+            skeleton.setChildren(children.stream().map(String::valueOf).toList());
+        }
+        return skeleton;
+    }
+
+    private static final class Participant {
+        final ConcurrentWebSocketSessionDecorator socket;
+        final String id;
+        final String user;
+        Room room;
+
+        Participant(ConcurrentWebSocketSessionDecorator socket, String user) {
+            this.socket = socket;
+            this.id = socket.getId();
+            this.user = user;
+        }
+
+        Map<String, Object> describe() {
+            return Map.of("id", id, "user", user);
+        }
+    }
+}
@@ -0,0 +1,226 @@
+package com.ace.templateengine.service;
+
+import com.ace.templateengine.model.Design;
+import com.mongodb.client.model.Filters;
+import com.mongodb.client.model.UpdateOneModel;
+import com.mongodb.client.model.UpdateOptions;
+import com.mongodb.client.model.WriteModel;
+import org.bson.Document;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeSet;
+
+/**
+ * Component usage counters: designs and components overall, per component type (with property
+ * keys and key combinations) and per creator.
+ *
+ * One instance holds the contribution of a single design, the difference between two states of
+ * a design, or the totals of the whole library; they all combine by adding. Stored as one
+ * document per type and creator plus a totals document, so a difference becomes $inc updates.
+ */
+final class ComponentUsage {
+
+    static final String TOTALS_ID = "totals";
+    static final String TYPE_PREFIX = "type:";
+    static final String CREATOR_PREFIX = "creator:";
+
+    long designs;
+    long components;
+    final Map<String, TypeUsage> types = new HashMap<>();
+    final Map<String, CreatorUsage> creators = new HashMap<>();
+
+    static final class TypeUsage {
+        long components;
+        long designs;
+        final Map<String, Long> properties = new HashMap<>();
+        final Map<String, Long> combinations = new HashMap<>();
+    }
+
+    static final class CreatorUsage {
+        long designs;
+        long components;
+        final Map<String, Long> types = new HashMap<>();
+    }
+
+    // What one design adds to the counters
+    static ComponentUsage of(String createdBy, List<Design.DesignComponent> components) {
+        ComponentUsage usage = new ComponentUsage();
+        usage.designs = 1;
+        CreatorUsage creator = createdBy == null ? null : usage.creators.computeIfAbsent(createdBy, key -> new CreatorUsage());
+        if (creator != null) {
+            creator.designs = 1;
+        }
+        if (components == null) {
+            return usage;
+        }
+        for (Design.DesignComponent component : components) {
+            if (component == null) {
+                continue;
+            }
+            String type = component.getType() == null ? "unknown" : component.getType();
+            TypeUsage typeUsage = usage.types.computeIfAbsent(type, key -> new TypeUsage());
+            typeUsage.components++;
+            typeUsage.designs = 1;
+            if (component.getProperties() != null && !component.getProperties().isEmpty()) {
+                TreeSet<String> keys = new TreeSet<>(component.getProperties().keySet());
+                keys.forEach(key -> typeUsage.properties.merge(key, 1L, Long::sum));
+                typeUsage.combinations.merge(String.join(",", keys), 1L, Long::sum);
+            }
+            usage.components++;
+            if (creator != null) {
+                creator.components++;
+                creator.types.merge(type, 1L, Long::sum);
+            }
+        }
+        return usage;
+    }
+
+    // Same for a design entity; nothing for a null design
+    static ComponentUsage of(Design design) {
+        return design == null ? new ComponentUsage() : of(design.getCreatedBy(), design.getComponents());
+    }
+
+    // Add sign times the other counters to these
+    void add(ComponentUsage other, int sign) {
+        designs += sign * other.designs;
+        components += sign * other.components;
+        other.types.forEach((type, usage) -> {
+            TypeUsage target = types.computeIfAbsent(type, key -> new TypeUsage());
+            target.components += sign * usage.components;
+            target.designs += sign * usage.designs;
+            usage.properties.forEach((key, count) -> target.properties.merge(key, sign * count, Long::sum));
+            usage.combinations.forEach((key, count) -> target.combinations.merge(key, sign * count, Long::sum));
+        });
+        other.creators.forEach((name, usage) -> {
+            CreatorUsage target = creators.computeIfAbsent(name, key -> new CreatorUsage());
+            target.designs += sign * usage.designs;
+            target.components += sign * usage.components;
+            usage.types.forEach((type, count) -> target.types.merge(type, sign * count, Long::sum));
+        });
+    }
+
+    // $inc upserts applying these counters as a difference; zero counters are left out
+    List<WriteModel<Document>> toIncrements() {
+        List<WriteModel<Document>> updates = new ArrayList<>();
+        Document totals = new Document();
+        putNonZero(totals, "designs", designs);
+        putNonZero(totals, "components", components);
+        addIncrement(updates, TOTALS_ID, null, null, totals);
+
+        types.forEach((type, usage) -> {
+            Document increments = new Document();
+            putNonZero(increments, "components", usage.components);
+            putNonZero(increments, "designs", usage.designs);
+            usage.properties.forEach((key, count) -> putNonZero(increments, "properties." + escape(key), count));
+            usage.combinations.forEach((key, count) -> putNonZero(increments, "combinations." + escape(key), count));
+            addIncrement(updates, TYPE_PREFIX + type, "type", type, increments);
+        });
+        creators.forEach((name, usage) -> {
+            Document increments = new Document();
+            putNonZero(increments, "designs", usage.designs);
+            putNonZero(increments, "components", usage.components);
+            usage.types.forEach((type, count) -> putNonZero(increments, "types." + escape(type), count));
+            addIncrement(updates, CREATOR_PREFIX + name, "creator", name, increments);
+        });
+        return updates;
+    }
+
+    // Documents holding these counters as absolute values
+    List<Document> toDocuments() {
+        List<Document> documents = new ArrayList<>();
+        documents.add(new Document("_id", TOTALS_ID).append("designs", designs).append("components", components));
+        types.forEach((type, usage) -> documents.add(new Document("_id", TYPE_PREFIX + type)
+                .append("kind", "type")
+                .append("name", type)
+                .append("components", usage.components)
+                .append("designs", usage.designs)
+                .append("properties", escapeKeys(usage.properties))
+                .append("combinations", escapeKeys(usage.combinations))));
+        creators.forEach((name, usage) -> documents.add(new Document("_id", CREATOR_PREFIX + name)
+                .append("kind", "creator")
+                .append("name", name)
+                .append("designs", usage.designs)
+                .append("components", usage.components)
+                .append("types", escapeKeys(usage.types))));
+        return documents;
+    }
+
+    static ComponentUsage fromDocuments(Iterable<Document> documents) {
+        ComponentUsage usage = new ComponentUsage();
+        for (Document document : documents) {
+            String id = document.getString("_id");
+            if (TOTALS_ID.equals(id)) {
+                usage.designs = count(document, "designs");
+                usage.components = count(document, "components");
+            } else if ("type".equals(document.getString("kind"))) {
+                TypeUsage type = usage.types.computeIfAbsent(document.getString("name"), key -> new TypeUsage());
+                type.components = count(document, "components");
+                type.designs = count(document, "designs");
+                readCounts(document.get("properties", Document.class), type.properties);
+                readCounts(document.get("combinations", Document.class), type.combinations);
+            } else if ("creator".equals(document.getString("kind"))) {
+                CreatorUsage creator = usage.creators.computeIfAbsent(document.getString("name"), key -> new CreatorUsage());
+                creator.designs = count(document, "designs");
+                creator.components = count(document, "components");
+                readCounts(document.get("types", Document.class), creator.types);
+            }
+        }
+        return usage;
+    }
+
+    private static void addIncrement(List<WriteModel<Document>> updates, String id, String kind, String name, Document increments) {
+        if (increments.isEmpty()) {
+            return;
+        }
+        Document update = new Document("$inc", increments);
+        if (kind != null) {
+            update.append("$setOnInsert", new Document("kind", kind).append("name", name));
+        }
+        updates.add(new UpdateOneModel<>(Filters.eq("_id", id), update, new UpdateOptions().upsert(true)));
+    }
+
+    private static void putNonZero(Document document, String field, long value) {
+        if (value != 0) {
+            document.put(field, value);
+        }
+    }
+
+    private static long count(Document document, String field) {
+        return document.get(field) instanceof Number number ? number.longValue() : 0;
+    }
+
+    private static void readCounts(Document document, Map<String, Long> counts) {
+        if (document != null) {
+            document.forEach((key, value) -> {
+                if (value instanceof Number number && number.longValue() != 0) {
+                    counts.put(unescape(key), number.longValue());
+                }
+            });
+        }
+    }
+
+    private static Document escapeKeys(Map<String, Long> counts) {
+        Document document = new Document();
+        counts.forEach((key, count) -> putNonZero(document, escape(key), count));
+        return document;
+    }
+
+    // Property keys, type names and creators become field names, which cannot hold dots or start with $
+    static String escape(String key) {
+        if (key.isEmpty()) {
+            return "%";
+        }
+        String escaped = key.replace("%", "%25").replace(".", "%2E");
+        return escaped.startsWith("$") ? "%24" + escaped.substring(1) : escaped;
+    }
+
+    static String unescape(String key) {
+        if (key.equals("%")) {
+            return "";
+        }
+        return key.replace("%24", "$").replace("%2E", ".").replace("%25", "%");
+    }
+}
@@ -0,0 +1,438 @@
+package com.ace.templateengine.service;
+
+import com.ace.templateengine.config.DesignConverters;
+import com.ace.templateengine.dto.ComponentUsageReport;
+import com.ace.templateengine.model.Design;
+import com.mongodb.MongoException;
+import com.mongodb.MongoNamespace;
+import com.mongodb.client.MongoCollection;
+import com.mongodb.client.model.Aggregates;
+import com.mongodb.client.model.BulkWriteOptions;
+import com.mongodb.client.model.Filters;
+import com.mongodb.client.model.Projections;
+import com.mongodb.client.model.RenameCollectionOptions;
+import com.mongodb.client.model.WriteModel;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.bson.BsonType;
+import org.bson.Document;
+import org.bson.conversions.Bson;
+import org.bson.types.ObjectId;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.scheduling.annotation.Async;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * Component usage across the design library, kept as counters in the component_usage collection.
+ *
+ * Every design write applies the difference between the old and new design to the counters, so
+ * reading them never touches the designs. A backfill recomputes them with a parallel scan over
+ * ranges of design ids; writes made during the scan are reconciled before the result replaces
+ * the counters. The same numbers are published as Micrometer gauges per component type.
+ */
+@Service
+public class ComponentUsageService {
+
+    private static final Logger logger = LoggerFactory.getLogger(ComponentUsageService.class);
+
+    private static final String COLLECTION = "component_usage";
+    private static final String STAGING_COLLECTION = "component_usage_staging";
+    private static final String DESIGNS_COLLECTION = "designs";
+
+    private static final ZoneId ZONE = ZoneId.systemDefault();
+
+    // Enough samples per segment for even ranges without reading much
+    private static final int SAMPLES_PER_SEGMENT = 32;
+
+    @Autowired
+    private MongoTemplate mongoTemplate;
+
+    @Autowired
+    private ContentStore contentStore;
+
+    @Autowired
+    private DesignComponentStore designComponentStore;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Value("${app.designs.usage.backfill-parallelism:4}")
+    private int backfillParallelism;
+
+    // Counter updates hold the read lock; the end of a backfill holds the write lock to swap in its result
+    private final ReentrantReadWriteLock gate = new ReentrantReadWriteLock();
+
+    // Writes made while a backfill scans; null while none runs
+    private volatile Queue<Write> backfillWrites;
+
+    // Values behind the gauges
+    private final AtomicLong designGauge = new AtomicLong();
+    private final AtomicLong componentGauge = new AtomicLong();
+    private final Map<String, AtomicLong> typeComponentGauges = new ConcurrentHashMap<>();
+    private final Map<String, AtomicLong> typeDesignGauges = new ConcurrentHashMap<>();
+    private volatile boolean gaugesRegistered;
+
+    // A counted write: the design moved from one state to another, identified by updatedAt; null when absent
+    private record Write(String designId, Long from, Long to, ComponentUsage delta) {}
+
+    // Counters are created by a backfill on first start; afterwards writes keep them current
+    @Async
+    @EventListener(ApplicationReadyEvent.class)
+    public void initialize() {
+        try {
+            if (collection().countDocuments(Filters.eq("_id", ComponentUsage.TOTALS_ID)) == 0) {
+                logger.info("No component usage counters yet, backfilling them");
+                backfill();
+            } else {
+                refreshGauges();
+            }
+        } catch (MongoException e) {
+            logger.warn("Could not initialize component usage counters: {}", e.getMessage());
+        }
+    }
+
+    // Count a design write; previous is null for new designs and current is null for deletes
+    public void record(Design previous, Design current) {
+        Design design = current != null ? current : previous;
+        if (design == null) {
+            return;
+        }
+        ComponentUsage delta = ComponentUsage.of(current);
+        delta.add(ComponentUsage.of(previous), -1);
+        List<WriteModel<Document>> increments = delta.toIncrements();
+
+        gate.readLock().lock();
+        try {
+            if (!increments.isEmpty()) {
+                collection().bulkWrite(increments, new BulkWriteOptions().ordered(false));
+            }
+            Queue<Write> writes = backfillWrites;
+            if (writes != null) {
+                writes.add(new Write(design.getId(), stamp(previous), stamp(current), delta));
+            }
+        } finally {
+            gate.readLock().unlock();
+        }
+        updateGauges(delta, 1);
+    }
+
+    // Count a batch of new designs, e.g. an import, with one update per type and creator
+    public void recordAll(List<Design> created) {
+        ComponentUsage delta = new ComponentUsage();
+        List<Write> batch = new ArrayList<>(created.size());
+        for (Design design : created) {
+            ComponentUsage usage = ComponentUsage.of(design);
+            delta.add(usage, 1);
+            batch.add(new Write(design.getId(), null, stamp(design), usage));
+        }
+        List<WriteModel<Document>> increments = delta.toIncrements();
+
+        gate.readLock().lock();
+        try {
+            if (!increments.isEmpty()) {
+                collection().bulkWrite(increments, new BulkWriteOptions().ordered(false));
+            }
+            Queue<Write> writes = backfillWrites;
+            if (writes != null) {
+                writes.addAll(batch);
+            }
+        } finally {
+            gate.readLock().unlock();
+        }
+        updateGauges(delta, 1);
+    }
+
+    /**
+     * Usage counters, optionally only one creator's breakdown; limit caps the property keys and
+     * combinations listed per type, most used first
+     */
+    public ComponentUsageReport report(String createdBy, int limit) {
+        Bson filter = createdBy == null
+                ? Filters.empty()
+                : Filters.in("_id", ComponentUsage.TOTALS_ID, ComponentUsage.CREATOR_PREFIX + createdBy);
+        ComponentUsage usage = ComponentUsage.fromDocuments(collection().find(filter));
+        return toReport(usage, createdBy == null, limit);
+    }
+
+    // Recompute all counters from the designs and replace the stored ones
+    public synchronized ComponentUsageReport backfill() {
+        long started = System.currentTimeMillis();
+        Queue<Write> writes = new ConcurrentLinkedQueue<>();
+        backfillWrites = writes;
+
+        Map<String, Long> scanned = new ConcurrentHashMap<>();
+        ComponentUsage totals;
+        try {
+            totals = parallelScan(scanned);
+        } catch (RuntimeException e) {
+            backfillWrites = null;
+            throw e;
+        }
+
+        gate.writeLock().lock();
+        try {
+            backfillWrites = null;
+            // Apply, in order, the writes the scan did not see: those starting from the state it read
+            Map<String, Long> states = new HashMap<>(scanned);
+            for (Write write : writes) {
+                if (Objects.equals(states.get(write.designId()), write.from())) {
+                    totals.add(write.delta(), 1);
+                    if (write.to() == null) {
+                        states.remove(write.designId());
+                    } else {
+                        states.put(write.designId(), write.to());
+                    }
+                }
+            }
+            replace(totals);
+        } finally {
+            gate.writeLock().unlock();
+        }
+        refreshGauges();
+
+        ComponentUsageReport report = toReport(totals, false, 0);
+        report.setBackfillMillis(System.currentTimeMillis() - started);
+        logger.info("Backfilled component usage of {} designs in {} ms", totals.designs, report.getBackfillMillis());
+        return report;
+    }
+
+    // Pick up counter updates made by other instances
+    @Scheduled(fixedDelayString = "${app.designs.usage.gauge-refresh-ms:60000}", initialDelayString = "${app.designs.usage.gauge-refresh-ms:60000}")
+    public void refreshGauges() {
+        try {
+            ComponentUsage usage = ComponentUsage.fromDocuments(collection().find(Filters.ne("kind", "creator")));
+            designGauge.set(0);
+            componentGauge.set(0);
+            typeComponentGauges.forEach((type, gauge) -> gauge.set(0));
+            typeDesignGauges.forEach((type, gauge) -> gauge.set(0));
+            updateGauges(usage, 1);
+        } catch (MongoException e) {
+            logger.warn("Could not refresh component usage gauges: {}", e.getMessage());
+        }
+    }
+
+    private ComponentUsage parallelScan(Map<String, Long> scanned) {
+        List<Bson> segments = segments();
+        AtomicInteger threads = new AtomicInteger();
+        ExecutorService executor = Executors.newFixedThreadPool(Math.min(backfillParallelism, segments.size()),
+                runnable -> new Thread(runnable, "component-usage-backfill-" + threads.incrementAndGet()));
+        try {
+            List<Future<ComponentUsage>> results = new ArrayList<>();
+            for (Bson segment : segments) {
+                results.add(executor.submit(() -> scanSegment(segment, scanned)));
+            }
+            ComponentUsage totals = new ComponentUsage();
+            for (Future<ComponentUsage> result : results) {
+                totals.add(result.get(), 1);
+            }
+            return totals;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Component usage backfill was interrupted", e);
+        } catch (ExecutionException e) {
+            throw e.getCause() instanceof RuntimeException runtime ? runtime : new IllegalStateException(e.getCause());
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    // Ranges of ObjectId ids split at sampled boundaries, plus one segment for designs with other ids
+    private List<Bson> segments() {
+        List<ObjectId> sample = new ArrayList<>();
+        for (Document document : designs().aggregate(List.of(
+                Aggregates.match(Filters.type("_id", BsonType.OBJECT_ID)),
+                Aggregates.sample(backfillParallelism * SAMPLES_PER_SEGMENT),
+                Aggregates.project(Projections.include("_id"))))) {
+            sample.add(document.getObjectId("_id"));
+        }
+        sample.sort(null);
+
+        List<ObjectId> bounds = new ArrayList<>();
+        for (int i = 1; i < backfillParallelism && !sample.isEmpty(); i++) {
+            ObjectId bound = sample.get(i * sample.size() / backfillParallelism);
+            if (bounds.isEmpty() || !bounds.get(bounds.size() - 1).equals(bound)) {
+                bounds.add(bound);
+            }
+        }
+
+        // Range operators only match ids of the bound's type, so these cover ObjectIds alone
+        List<Bson> segments = new ArrayList<>();
+        if (bounds.isEmpty()) {
+            segments.add(Filters.type("_id", BsonType.OBJECT_ID));
+        } else {
+            segments.add(Filters.lt("_id", bounds.get(0)));
+            for (int i = 1; i < bounds.size(); i++) {
+                segments.add(Filters.and(Filters.gte("_id", bounds.get(i - 1)), Filters.lt("_id", bounds.get(i))));
+            }
+            segments.add(Filters.gte("_id", bounds.get(bounds.size() - 1)));
+        }
+        segments.add(Filters.not(Filters.type("_id", BsonType.OBJECT_ID)));
+        return segments;
+    }
+
+    private ComponentUsage scanSegment(Bson segment, Map<String, Long> scanned) {
+        ComponentUsage totals = new ComponentUsage();
+        for (Document design : designs().find(segment)
+                .projection(Projections.include("created_by", "updated_at", "components", "component_storage"))
+                .batchSize(500)) {
+            String id = design.get("_id") instanceof ObjectId objectId ? objectId.toHexString() : String.valueOf(design.get("_id"));
+            List<Design.DesignComponent> components;
+            if (Design.ComponentStorage.SPLIT.name().equals(design.getString("component_storage"))) {
+                components = designComponentStore.loadAll(id);
+            } else {
+                contentStore.hydrate(design);
+                components = new ArrayList<>();
+                if (design.get("components") instanceof List<?> stored) {
+                    for (Object component : stored) {
+                        if (component instanceof Document document) {
+                            components.add(DesignConverters.toComponent(document));
+                        }
+                    }
+                }
+            }
+            totals.add(ComponentUsage.of(design.getString("created_by"), components), 1);
+            scanned.put(id, design.get("updated_at") instanceof Date updatedAt ? updatedAt.getTime() : 0L);
+        }
+        return totals;
+    }
+
+    // Readers switch from the old counters to the new ones at once
+    private void replace(ComponentUsage totals) {
+        MongoCollection<Document> staging = mongoTemplate.getCollection(STAGING_COLLECTION);
+        staging.drop();
+        staging.insertMany(totals.toDocuments());
+        staging.renameCollection(new MongoNamespace(mongoTemplate.getDb().getName(), COLLECTION),
+                new RenameCollectionOptions().dropTarget(true));
+    }
+
+    private void updateGauges(ComponentUsage usage, int sign) {
+        registerGauges();
+        if (usage != null && sign != 0) {
+            designGauge.addAndGet(sign * usage.designs);
+            componentGauge.addAndGet(sign * usage.components);
+            usage.types.forEach((type, typeUsage) -> {
+                gauge(typeComponentGauges, "ace.design.components", "Components of this type across all designs", type)
+                        .addAndGet(sign * typeUsage.components);
+                gauge(typeDesignGauges, "ace.design.component.designs", "Designs using this component type", type)
+                        .addAndGet(sign * typeUsage.designs);
+            });
+        }
+    }
+
+    private void registerGauges() {
+        if (gaugesRegistered) {
+            return;
+        }
+        synchronized (this) {
+            if (!gaugesRegistered) {
+                Gauge.builder("ace.designs", designGauge, AtomicLong::get)
+                        .description("Designs in the library")
+                        .register(meterRegistry);
+                Gauge.builder("ace.design.components.total", componentGauge, AtomicLong::get)
+                        .description("Components across all designs")
+                        .register(meterRegistry);
+                gaugesRegistered = true;
+            }
+        }
+    }
+
+    private AtomicLong gauge(Map<String, AtomicLong> gauges, String name, String description, String type) {
+        return gauges.computeIfAbsent(type, key -> {
+            AtomicLong value = new AtomicLong();
+            Gauge.builder(name, value, AtomicLong::get)
+                    .description(description)
+                    .tag("type", key)
+                    .register(meterRegistry);
+            return value;
+        });
+    }
+
+    private ComponentUsageReport toReport(ComponentUsage usage, boolean includeTypes, int limit) {
+        ComponentUsageReport report = new ComponentUsageReport();
+        report.setDesigns(usage.designs);
+        report.setComponents(usage.components);
+        if (includeTypes) {
+            List<ComponentUsageReport.TypeUsage> types = new ArrayList<>();
+            usage.types.forEach((type, typeUsage) -> {
+                if (typeUsage.components > 0) {
+                    ComponentUsageReport.TypeUsage entry = new ComponentUsageReport.TypeUsage(type);
+                    entry.setComponents(typeUsage.components);
+                    entry.setDesigns(typeUsage.designs);
+                    entry.setProperties(mostUsed(typeUsage.properties, limit));
+                    entry.setCombinations(mostUsed(typeUsage.combinations, limit));
+                    types.add(entry);
+                }
+            });
+            types.sort(Comparator.comparingLong(ComponentUsageReport.TypeUsage::getComponents).reversed());
+            report.setTypes(types);
+        }
+        List<ComponentUsageReport.CreatorUsage> creators = new ArrayList<>();
+        usage.creators.forEach((createdBy, creatorUsage) -> {
+            if (creatorUsage.designs > 0) {
+                ComponentUsageReport.CreatorUsage entry = new ComponentUsageReport.CreatorUsage(createdBy);
+                entry.setDesigns(creatorUsage.designs);
+                entry.setComponents(creatorUsage.components);
+                entry.setTypes(mostUsed(creatorUsage.types, Integer.MAX_VALUE));
+                creators.add(entry);
+            }
+        });
+        creators.sort(Comparator.comparingLong(ComponentUsageReport.CreatorUsage::getComponents).reversed());
+        report.setCreators(creators);
+        return report;
+    }
+
+    private static Map<String, Long> mostUsed(Map<String, Long> counts, int limit) {
+        Map<String, Long> top = new LinkedHashMap<>();
+        counts.entrySet().stream()
+                .filter(entry -> entry.getValue() > 0)
+                .sorted(Map.Entry.<String, Long>comparingByValue().reversed().thenComparing(Map.Entry.comparingByKey()))
+                .limit(Math.max(limit, 0))
+                .forEach(entry -> top.put(entry.getKey(), entry.getValue()));
+        return top;
+    }
+
+    // Millisecond updatedAt as stored, identifying a state of a design; null for no design
+    private static Long stamp(Design design) {
+        if (design == null) {
+            return null;
+        }
+        LocalDateTime updatedAt = design.getUpdatedAt();
+        return updatedAt == null ? 0L : updatedAt.atZone(ZONE).toInstant().toEpochMilli();
+    }
+
+    private MongoCollection<Document> collection() {
+        return mongoTemplate.getCollection(COLLECTION);
+    }
+
+    private MongoCollection<Document> designs() {
+        return mongoTemplate.getCollection(DESIGNS_COLLECTION);
+    }
+}
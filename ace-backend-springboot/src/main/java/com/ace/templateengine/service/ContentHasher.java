@@ -0,0 +1,228 @@
+package com.ace.templateengine.service;
+
+import com.ace.templateengine.model.Design;
+
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Stable structural hashes for designs and their components.
+ *
+ * Values are canonicalized before hashing: map keys are sorted, numbers compare by value
+ * (1, 1L and 1.0 hash alike) and every value is type-tagged and length-prefixed, so two
+ * structurally equal trees hash equally no matter how they were deserialized.
+ *
+ * Component hashes are computed lazily and then trusted: clients cannot send them (they are
+ * read-only in JSON), so code that mutates a stored component in place must clear its hash.
+ */
+public final class ContentHasher {
+
+    // 128 bits of SHA-256: cheap to compare and store, collision-safe for content addressing
+    private static final int HASH_BYTES = 16;
+
+    private ContentHasher() {}
+
+    // Hash every component and the design itself, storing the results on the design
+    public static String apply(Design design) {
+        design.setContentHash(hashDesign(design));
+        return design.getContentHash();
+    }
+
+    // Stored hash of a design, computed for documents written before hashes existed
+    public static String hashOf(Design design) {
+        return design.getContentHash() != null ? design.getContentHash() : hashDesign(design);
+    }
+
+    // Stored hash of a component, computed and stored when missing
+    public static String hashOf(Design.DesignComponent component) {
+        if (component != null && component.getContentHash() == null) {
+            component.setContentHash(hashComponent(component));
+        }
+        return component == null ? null : component.getContentHash();
+    }
+
+    // Hash of everything a client can edit; timestamps, authorship and ids are excluded
+    public static String hashDesign(Design design) {
+        Canonical canonical = new Canonical();
+        canonical.value(design.getName());
+        canonical.value(design.getDescription());
+        canonical.value(hashCanvasConfig(design.getCanvasConfig()));
+        canonical.value(componentHashes(design.getComponents()));
+        canonical.value(design.getGlobalStyles());
+        canonical.value(hashThemeSettings(design.getThemeSettings()));
+        canonical.value(hashMetadata(design.getMetadata()));
+        canonical.value(design.getTags());
+        canonical.value(design.getStatus() == null ? null : design.getStatus().name());
+        canonical.value(design.getIsPublic());
+        canonical.value(design.getPreviewImage());
+        return canonical.digest();
+    }
+
+    public static String hashComponent(Design.DesignComponent component) {
+        if (component == null) {
+            return null;
+        }
+        Canonical canonical = new Canonical();
+        canonical.value(component.getId());
+        canonical.value(component.getType());
+        canonical.value(component.getName());
+        canonical.value(component.getProperties());
+        canonical.value(component.getStyles());
+        canonical.value(component.getPosition());
+        canonical.value(component.getSize());
+        canonical.value(component.getChildren());
+        canonical.value(component.getParentId());
+        canonical.value(component.getZIndex());
+        canonical.value(component.getVisible());
+        canonical.value(component.getLocked());
+        return canonical.digest();
+    }
+
+    public static String hashCanvasConfig(Design.CanvasConfig config) {
+        if (config == null) {
+            return null;
+        }
+        Canonical canonical = new Canonical();
+        canonical.value(config.getWidth());
+        canonical.value(config.getHeight());
+        canonical.value(config.getBackgroundColor());
+        canonical.value(config.getGridSize());
+        canonical.value(config.getShowGrid());
+        canonical.value(config.getZoomLevel());
+        canonical.value(config.getOrientation());
+        return canonical.digest();
+    }
+
+    // Component hashes in order, reusing stored hashes so unchanged components are not rehashed
+    public static List<String> componentHashes(List<Design.DesignComponent> components) {
+        if (components == null) {
+            return null;
+        }
+        List<String> hashes = new ArrayList<>(components.size());
+        for (Design.DesignComponent component : components) {
+            hashes.add(hashOf(component));
+        }
+        return hashes;
+    }
+
+    // Hash an arbitrary value tree (maps, lists, scalars) canonically
+    public static String hashValue(Object value) {
+        Canonical canonical = new Canonical();
+        canonical.value(value);
+        return canonical.digest();
+    }
+
+    public static String hashThemeSettings(Design.ThemeSettings theme) {
+        if (theme == null) {
+            return null;
+        }
+        List<Object> fields = new ArrayList<>();
+        fields.add(theme.getPrimaryColor());
+        fields.add(theme.getSecondaryColor());
+        fields.add(theme.getBackgroundColor());
+        fields.add(theme.getTextColor());
+        fields.add(theme.getFontFamily());
+        fields.add(theme.getFontSize());
+        fields.add(theme.getFontWeight());
+        fields.add(theme.getBorderRadius());
+        fields.add(theme.getSpacing());
+        fields.add(theme.getShadowStyle());
+        return hashValue(fields);
+    }
+
+    public static String hashMetadata(Design.DesignMetadata metadata) {
+        if (metadata == null) {
+            return null;
+        }
+        List<Object> fields = new ArrayList<>();
+        fields.add(metadata.getCategory());
+        fields.add(metadata.getDifficulty());
+        fields.add(metadata.getRequiredFeatures());
+        fields.add(metadata.getCustomFields());
+        fields.add(metadata.getExportFormat());
+        fields.add(metadata.getTargetPlatform());
+        return hashValue(fields);
+    }
+
+    /**
+     * Type-tagged, length-prefixed serialization fed straight into the digest
+     */
+    private static final class Canonical {
+        private final MessageDigest digest;
+
+        Canonical() {
+            try {
+                digest = MessageDigest.getInstance("SHA-256");
+            } catch (NoSuchAlgorithmException e) {
+                throw new IllegalStateException("SHA-256 is not available", e);
+            }
+        }
+
+        void value(Object value) {
+            if (value == null) {
+                digest.update((byte) 'n');
+            } else if (value instanceof String string) {
+                digest.update((byte) 's');
+                bytes(string.getBytes(StandardCharsets.UTF_8));
+            } else if (value instanceof Boolean bool) {
+                digest.update((byte) (bool ? 'T' : 'F'));
+            } else if (value instanceof Number number) {
+                digest.update((byte) 'd');
+                bytes(canonicalNumber(number).getBytes(StandardCharsets.US_ASCII));
+            } else if (value instanceof Map<?, ?> map) {
+                digest.update((byte) 'm');
+                Map<String, Object> sorted = new TreeMap<>();
+                map.forEach((key, entry) -> sorted.put(String.valueOf(key), entry));
+                length(sorted.size());
+                sorted.forEach((key, entry) -> {
+                    bytes(key.getBytes(StandardCharsets.UTF_8));
+                    value(entry);
+                });
+            } else if (value instanceof Collection<?> collection) {
+                digest.update((byte) 'l');
+                length(collection.size());
+                collection.forEach(this::value);
+            } else if (value instanceof Enum<?> enumValue) {
+                value(enumValue.name());
+            } else {
+                value(value.toString());
+            }
+        }
+
+        String digest() {
+            byte[] hash = digest.digest();
+            return HexFormat.of().formatHex(hash, 0, HASH_BYTES);
+        }
+
+        private void bytes(byte[] bytes) {
+            length(bytes.length);
+            digest.update(bytes);
+        }
+
+        private void length(int length) {
+            digest.update((byte) (length >>> 24));
+            digest.update((byte) (length >>> 16));
+            digest.update((byte) (length >>> 8));
+            digest.update((byte) length);
+        }
+
+        private static String canonicalNumber(Number number) {
+            if (number instanceof Integer || number instanceof Long || number instanceof Short || number instanceof Byte) {
+                return Long.toString(number.longValue());
+            }
+            double value = number.doubleValue();
+            if (Double.isNaN(value) || Double.isInfinite(value)) {
+                return Double.toString(value);
+            }
+            return new BigDecimal(number.toString()).stripTrailingZeros().toPlainString();
+        }
+    }
+}
@@ -0,0 +1,363 @@
+package com.ace.templateengine.service;
+
+import com.ace.templateengine.dto.ContentStoreReport;
+import com.ace.templateengine.exception.MissingContentBlobException;
+import com.mongodb.client.MongoCollection;
+import com.mongodb.client.model.Filters;
+import com.mongodb.client.model.Projections;
+import com.mongodb.client.model.UpdateOneModel;
+import com.mongodb.client.model.UpdateOptions;
+import com.mongodb.client.model.BulkWriteOptions;
+import com.mongodb.client.model.Updates;
+import org.bson.Document;
+import org.bson.conversions.Bson;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Content-addressable store for component bodies and style maps.
+ *
+ * Before a design or history entry is written, the properties, styles, position, size and
+ * children of every component (and the global styles) are moved into the content_blobs
+ * collection under the hash of their content and replaced by a content_ref. Clones and
+ * history snapshots of the same layout therefore share one copy of each body. Documents are
+ * rehydrated as they are loaded, so entities and the API never see the references.
+ *
+ * Blobs are immutable; unreferenced ones are reclaimed by a mark-and-sweep pass that only
+ * deletes blobs nobody has touched for the grace period, which covers writes in flight.
+ */
+@Service
+public class ContentStore {
+
+    private static final Logger logger = LoggerFactory.getLogger(ContentStore.class);
+
+    public static final String COLLECTION = "content_blobs";
+    public static final String REF_FIELD = "content_ref";
+    public static final String GLOBAL_STYLES_REF_FIELD = "global_styles_ref";
+
+    private static final List<String> COMPONENT_BODY_FIELDS = List.of("properties", "styles", "position", "size", "children");
+    private static final String GLOBAL_STYLES_FIELD = "global_styles";
+    private static final int SWEEP_BATCH_SIZE = 1000;
+
+    @Autowired
+    private MongoTemplate mongoTemplate;
+
+    @Value("${app.designs.content-store.enabled:true}")
+    private boolean enabled;
+
+    @Value("${app.designs.content-store.gc-grace-minutes:60}")
+    private long gcGraceMinutes;
+
+    @Value("${app.designs.content-store.cache-size:10000}")
+    private int cacheSize;
+
+    // Blob contents by hash; content never changes for a hash, so entries never go stale
+    private final Map<String, Document> cache = Collections.synchronizedMap(new LinkedHashMap<>(256, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<String, Document> eldest) {
+            return size() > cacheSize;
+        }
+    });
+
+    // When this instance last refreshed referenced_at of a blob, to avoid touching it on every save
+    private final Map<String, Instant> touched = new ConcurrentHashMap<>();
+
+    /**
+     * Replace component bodies and global styles of a design document with references,
+     * storing the bodies first so a reader never sees a dangling reference
+     */
+    public void dehydrate(Document design) {
+        if (!enabled || design == null) {
+            return;
+        }
+        Map<String, Document> blobs = new LinkedHashMap<>();
+        dehydrateComponents(design.getList("components", Object.class), blobs);
+
+        Object globalStyles = design.get(GLOBAL_STYLES_FIELD);
+        if (globalStyles instanceof Map<?, ?> styles && !styles.isEmpty()) {
+            Document body = new Document("styles", styles);
+            String hash = ContentHasher.hashValue(body);
+            blobs.put(hash, body);
+            design.remove(GLOBAL_STYLES_FIELD);
+            design.put(GLOBAL_STYLES_REF_FIELD, hash);
+        }
+        store(blobs);
+    }
+
+    // Same as dehydrate for a bare list of component documents, e.g. the components of a delta
+    public void dehydrateComponents(List<Object> components) {
+        if (!enabled || components == null) {
+            return;
+        }
+        Map<String, Document> blobs = new LinkedHashMap<>();
+        dehydrateComponents(components, blobs);
+        store(blobs);
+    }
+
+    /**
+     * Restore the bodies of a loaded design document in place; documents written without
+     * references pass through untouched. A missing blob fails the load rather than returning
+     * components without their bodies, which the next save would persist.
+     */
+    public void hydrate(Document design) {
+        if (design == null) {
+            return;
+        }
+        List<Object> components = design.getList("components", Object.class);
+        Set<String> refs = new HashSet<>();
+        collectRefs(components, refs);
+        if (design.get(GLOBAL_STYLES_REF_FIELD) instanceof String ref) {
+            refs.add(ref);
+        }
+        if (refs.isEmpty()) {
+            return;
+        }
+
+        Map<String, Document> blobs = load(refs);
+        hydrateComponents(components, blobs);
+        if (design.remove(GLOBAL_STYLES_REF_FIELD) instanceof String ref) {
+            design.put(GLOBAL_STYLES_FIELD, copy(required(blobs, ref, "global styles").get("styles")));
+        }
+    }
+
+    public void hydrateComponents(List<Object> components) {
+        Set<String> refs = new HashSet<>();
+        collectRefs(components, refs);
+        if (!refs.isEmpty()) {
+            hydrateComponents(components, load(refs));
+        }
+    }
+
+    /**
+     * Mark every blob referenced from designs and design history, then delete the unmarked
+     * blobs that were not touched within the grace period
+     */
+    public synchronized ContentStoreReport collectGarbage() {
+        long started = System.currentTimeMillis();
+        Set<String> marked = new HashSet<>();
+        markReferences("designs", "components", GLOBAL_STYLES_REF_FIELD, marked);
+        markReferences("design_versions", "snapshot.components", "snapshot." + GLOBAL_STYLES_REF_FIELD, marked);
+        markReferences("design_versions", "delta.upsertedComponents", "delta.fields." + GLOBAL_STYLES_REF_FIELD, marked);
+        // A delta whose components went from none to some carries them as a changed field
+        markReferences("design_versions", "delta.fields.components", null, marked);
+        markReferences("design_components", "component", null, marked);
+
+        Date cutoff = Date.from(Instant.now().minus(Duration.ofMinutes(gcGraceMinutes)));
+        MongoCollection<Document> blobs = blobs();
+        List<String> batch = new ArrayList<>();
+        long swept = 0;
+        for (Document blob : blobs.find(Filters.lt("referenced_at", cutoff)).projection(Projections.include("_id"))) {
+            String hash = blob.getString("_id");
+            if (!marked.contains(hash)) {
+                batch.add(hash);
+                if (batch.size() == SWEEP_BATCH_SIZE) {
+                    swept += sweep(blobs, batch, cutoff);
+                }
+            }
+        }
+        swept += sweep(blobs, batch, cutoff);
+
+        ContentStoreReport report = report();
+        report.setReferencedBlobs((long) marked.size());
+        report.setSweptBlobs(swept);
+        report.setDurationMs(System.currentTimeMillis() - started);
+        if (swept > 0) {
+            logger.info("Content store garbage collection removed {} blobs in {} ms", swept, report.getDurationMs());
+        }
+        return report;
+    }
+
+    @Scheduled(cron = "${app.designs.content-store.gc-cron:-}")
+    public void scheduledGarbageCollection() {
+        collectGarbage();
+    }
+
+    public ContentStoreReport report() {
+        ContentStoreReport report = new ContentStoreReport();
+        report.setEnabled(enabled);
+        report.setBlobs(blobs().estimatedDocumentCount());
+        report.setCachedBlobs(cache.size());
+        report.setGcGraceMinutes(gcGraceMinutes);
+        return report;
+    }
+
+    private void dehydrateComponents(List<Object> components, Map<String, Document> blobs) {
+        if (components == null) {
+            return;
+        }
+        for (Object element : components) {
+            if (!(element instanceof Document component) || component.containsKey(REF_FIELD)) {
+                continue;
+            }
+            Document body = new Document();
+            for (String field : COMPONENT_BODY_FIELDS) {
+                Object value = component.get(field);
+                if (value != null) {
+                    body.put(field, value);
+                }
+            }
+            // Bare components gain nothing from a reference
+            if (body.isEmpty()) {
+                continue;
+            }
+            String hash = ContentHasher.hashValue(body);
+            blobs.put(hash, body);
+            COMPONENT_BODY_FIELDS.forEach(component::remove);
+            component.put(REF_FIELD, hash);
+        }
+    }
+
+    private void hydrateComponents(List<Object> components, Map<String, Document> blobs) {
+        for (Object element : components) {
+            if (element instanceof Document component && component.remove(REF_FIELD) instanceof String ref) {
+                required(blobs, ref, "component " + component.get("id"))
+                        .forEach((field, value) -> component.put(field, copy(value)));
+            }
+        }
+    }
+
+    private static Document required(Map<String, Document> blobs, String ref, String owner) {
+        Document body = blobs.get(ref);
+        if (body == null) {
+            logger.error("Content blob {} referenced by {} is missing", ref, owner);
+            throw new MissingContentBlobException("Content blob " + ref + " referenced by " + owner + " is missing");
+        }
+        return body;
+    }
+
+    private static void collectRefs(List<Object> components, Set<String> refs) {
+        if (components == null) {
+            return;
+        }
+        for (Object element : components) {
+            if (element instanceof Document component && component.get(REF_FIELD) instanceof String ref) {
+                refs.add(ref);
+            }
+        }
+    }
+
+    // Upsert blobs, refreshing referenced_at at most once per quarter grace period per blob
+    private void store(Map<String, Document> blobs) {
+        if (blobs.isEmpty()) {
+            return;
+        }
+        Instant now = Instant.now();
+        Instant fresh = now.minus(Duration.ofMinutes(gcGraceMinutes).dividedBy(4));
+        List<UpdateOneModel<Document>> writes = new ArrayList<>();
+        blobs.forEach((hash, body) -> {
+            Instant last = touched.get(hash);
+            if (last == null || last.isBefore(fresh)) {
+                writes.add(new UpdateOneModel<>(Filters.eq("_id", hash),
+                        Updates.combine(
+                                Updates.setOnInsert("content", body),
+                                Updates.setOnInsert("created_at", Date.from(now)),
+                                Updates.set("referenced_at", Date.from(now))),
+                        new UpdateOptions().upsert(true)));
+            }
+        });
+        if (!writes.isEmpty()) {
+            blobs().bulkWrite(writes, new BulkWriteOptions().ordered(false));
+            if (touched.size() > cacheSize) {
+                touched.clear();
+            }
+            writes.forEach(write -> touched.put(((Document) write.getFilter()).getString("_id"), now));
+        }
+        blobs.forEach((hash, body) -> cache.putIfAbsent(hash, (Document) copy(body)));
+    }
+
+    private Map<String, Document> load(Set<String> refs) {
+        Map<String, Document> found = new HashMap<>();
+        Set<String> missing = new HashSet<>();
+        for (String ref : refs) {
+            Document body = cache.get(ref);
+            if (body != null) {
+                found.put(ref, body);
+            } else {
+                missing.add(ref);
+            }
+        }
+        if (!missing.isEmpty()) {
+            for (Document blob : blobs().find(Filters.in("_id", missing))) {
+                Document body = blob.get("content", Document.class);
+                found.put(blob.getString("_id"), body);
+                cache.put(blob.getString("_id"), body);
+            }
+        }
+        return found;
+    }
+
+    private void markReferences(String collection, String componentsPath, String globalStylesPath, Set<String> marked) {
+        String componentRefPath = componentsPath + "." + REF_FIELD;
+        Bson filter = globalStylesPath == null ? Filters.exists(componentRefPath)
+                : Filters.or(Filters.exists(componentRefPath), Filters.exists(globalStylesPath));
+        Bson projection = globalStylesPath == null ? Projections.include(componentRefPath)
+                : Projections.include(componentRefPath, globalStylesPath);
+        for (Document document : mongoTemplate.getCollection(collection).find(filter).projection(projection)) {
+            collectMarks(document, componentRefPath.split("\\."), 0, marked);
+            if (globalStylesPath != null) {
+                collectMarks(document, globalStylesPath.split("\\."), 0, marked);
+            }
+        }
+    }
+
+    // Follow a dotted path through nested documents and arrays, collecting the string leaves
+    private static void collectMarks(Object node, String[] path, int depth, Set<String> marked) {
+        if (node instanceof List<?> list) {
+            list.forEach(element -> collectMarks(element, path, depth, marked));
+        } else if (depth == path.length) {
+            if (node instanceof String hash) {
+                marked.add(hash);
+            }
+        } else if (node instanceof Document document) {
+            collectMarks(document.get(path[depth]), path, depth + 1, marked);
+        }
+    }
+
+    private static long sweep(MongoCollection<Document> blobs, List<String> batch, Date cutoff) {
+        if (batch.isEmpty()) {
+            return 0;
+        }
+        // Re-checking referenced_at keeps blobs touched by a write since the mark phase
+        long deleted = blobs.deleteMany(Filters.and(Filters.in("_id", batch), Filters.lt("referenced_at", cutoff)))
+                .getDeletedCount();
+        batch.clear();
+        return deleted;
+    }
+
+    private MongoCollection<Document> blobs() {
+        return mongoTemplate.getCollection(COLLECTION);
+    }
+
+    // Cached bodies are shared, so every document gets its own mutable copy
+    private static Object copy(Object value) {
+        if (value instanceof Map<?, ?> map) {
+            Document copy = new Document();
+            map.forEach((key, entry) -> copy.put(String.valueOf(key), copy(entry)));
+            return copy;
+        }
+        if (value instanceof List<?> list) {
+            List<Object> copy = new ArrayList<>(list.size());
+            list.forEach(entry -> copy.add(copy(entry)));
+            return copy;
+        }
+        return value;
+    }
+}
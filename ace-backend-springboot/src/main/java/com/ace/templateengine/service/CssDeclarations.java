@@ -0,0 +1,102 @@
+package com.ace.templateengine.service;
+
+import com.ace.templateengine.model.Design;
+
+import java.util.Locale;
+import java.util.Set;
+import java.util.regex.Pattern;
+
+/**
+ * CSS as designs store it, turned into declarations that are safe to emit: camelCase names
+ * become kebab-case, numbers get px where CSS needs a unit, theme colour names resolve to the
+ * theme's colours, and anything that could escape a style attribute or rule is dropped.
+ */
+final class CssDeclarations {
+
+    private static final Pattern CSS_PROPERTY = Pattern.compile("-?[a-zA-Z][a-zA-Z0-9-]*");
+    private static final Pattern CSS_SELECTOR = Pattern.compile("[A-Za-z0-9_\\-.#:, >+~*()\\[\\]=\"']+");
+
+    private static final Set<String> UNITLESS = Set.of("opacity", "z-index", "font-weight", "line-height",
+            "flex", "flex-grow", "flex-shrink", "order", "zoom");
+
+    private CssDeclarations() {}
+
+    // CSS name of a stored property, null when it is not a valid one
+    static String name(String property) {
+        if (property == null) {
+            return null;
+        }
+        String name = property.startsWith("--") ? property : kebab(property);
+        boolean valid = name.startsWith("--") ? CSS_PROPERTY.matcher(name.substring(2)).matches() : CSS_PROPERTY.matcher(name).matches();
+        return valid ? name : null;
+    }
+
+    // CSS value of a stored value for the named property, null when it is missing or unsafe
+    static String value(String name, Object value, Design.ThemeSettings theme) {
+        String css;
+        if (value instanceof Number number) {
+            double amount = number.doubleValue();
+            String formatted = amount == Math.rint(amount) ? Long.toString((long) amount) : Double.toString(amount);
+            css = UNITLESS.contains(name) || name.startsWith("--") ? formatted : formatted + "px";
+        } else if (value instanceof String || value instanceof Boolean) {
+            css = themeColor(name, value.toString().trim(), theme);
+        } else {
+            return null;
+        }
+        String lower = css.toLowerCase(Locale.ROOT);
+        if (css.isEmpty() || lower.contains("expression(") || lower.contains("javascript:") || lower.contains("url(")
+                && lower.contains("data:text")) {
+            return null;
+        }
+        for (int i = 0; i < css.length(); i++) {
+            char c = css.charAt(i);
+            if (c == ';' || c == '{' || c == '}' || c == '<' || c == '>' || c == '\\' || c == '"') {
+                return null;
+            }
+        }
+        return css;
+    }
+
+    // A global style selector scoped to the design root, null when it is not a plain selector
+    static String scopedSelector(String selector) {
+        String trimmed = selector.trim();
+        if (!CSS_SELECTOR.matcher(trimmed).matches() || trimmed.contains("</")) {
+            return null;
+        }
+        StringBuilder scoped = new StringBuilder();
+        for (String part : trimmed.split(",")) {
+            if (!scoped.isEmpty()) {
+                scoped.append(',');
+            }
+            scoped.append(".ace-design ").append(part.trim());
+        }
+        return scoped.toString();
+    }
+
+    // Colour names of the theme, as the editor uses them
+    private static String themeColor(String property, String value, Design.ThemeSettings theme) {
+        if (!property.contains("color")) {
+            return value;
+        }
+        return switch (value) {
+            case "primary", "primary.main" -> theme != null && theme.getPrimaryColor() != null ? theme.getPrimaryColor() : "var(--ace-primary)";
+            case "secondary", "secondary.main" -> theme != null && theme.getSecondaryColor() != null ? theme.getSecondaryColor() : "var(--ace-secondary)";
+            case "text.primary" -> theme != null && theme.getTextColor() != null ? theme.getTextColor() : "inherit";
+            case "text.secondary" -> "inherit";
+            default -> value;
+        };
+    }
+
+    private static String kebab(String name) {
+        StringBuilder kebab = new StringBuilder(name.length() + 4);
+        for (int i = 0; i < name.length(); i++) {
+            char c = name.charAt(i);
+            if (Character.isUpperCase(c)) {
+                kebab.append('-').append(Character.toLowerCase(c));
+            } else {
+                kebab.append(c);
+            }
+        }
+        return kebab.toString();
+    }
+}
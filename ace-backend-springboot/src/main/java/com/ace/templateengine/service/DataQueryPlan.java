@@ -0,0 +1,340 @@
+package com.ace.templateengine.service;
+
+import com.mongodb.client.MongoCollection;
+import org.bson.Document;
+import org.bson.json.JsonParseException;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Predicate;
+import java.util.regex.Matcher;
+
+/**
+ * A saved data query compiled for execution.
+ *
+ * Options are parsed and checked once, when the query is saved. Filter and pipeline become
+ * templates in which only the parts holding {{parameter}} placeholders are rebuilt per run;
+ * everything else, sort, projection and the closing $limit stage included, is built once and
+ * shared by all runs. Plans are immutable and safe to run concurrently.
+ */
+final class DataQueryPlan {
+
+    static final int DEFAULT_ROWS = 100;
+
+    enum Operation {
+        FIND, AGGREGATE, COUNT
+    }
+
+    // Part of a filter or pipeline, producing its value for the parameters of a run
+    private sealed interface Node permits Constant, Parameter, Interpolation, DocumentNode, ListNode {
+        Object bind(Deque<Map<String, Object>> parameters);
+    }
+
+    // Value without placeholders, shared by all runs and never modified
+    private record Constant(Object value) implements Node {
+        public Object bind(Deque<Map<String, Object>> parameters) {
+            return value;
+        }
+    }
+
+    // A value that is only a placeholder takes the parameter as is, but only scalars, so parameters cannot smuggle operators in
+    private record Parameter(String[] path) implements Node {
+        public Object bind(Deque<Map<String, Object>> parameters) {
+            Object value = RenderPlan.resolve(path, parameters);
+            return value == null || value instanceof String || value instanceof Number || value instanceof Boolean
+                    ? value : RenderPlan.text(value);
+        }
+    }
+
+    // Text with placeholders inside; literals has one more element than paths
+    private record Interpolation(String[] literals, String[][] paths) implements Node {
+        public Object bind(Deque<Map<String, Object>> parameters) {
+            StringBuilder text = new StringBuilder(literals[0]);
+            for (int i = 0; i < paths.length; i++) {
+                text.append(RenderPlan.text(RenderPlan.resolve(paths[i], parameters))).append(literals[i + 1]);
+            }
+            return text.toString();
+        }
+    }
+
+    private record DocumentNode(String[] keys, Node[] values) implements Node {
+        public Object bind(Deque<Map<String, Object>> parameters) {
+            Document document = new Document();
+            for (int i = 0; i < keys.length; i++) {
+                document.put(keys[i], values[i].bind(parameters));
+            }
+            return document;
+        }
+    }
+
+    private record ListNode(Node[] elements) implements Node {
+        public Object bind(Deque<Map<String, Object>> parameters) {
+            List<Object> list = new ArrayList<>(elements.length);
+            for (Node element : elements) {
+                list.add(element.bind(parameters));
+            }
+            return list;
+        }
+    }
+
+    private final String collection;
+    private final Operation operation;
+    private final Node filter;
+    private final List<Node> pipeline;
+    private final Document sort;
+    private final Document projection;
+    private final int skip;
+    private final int limit;
+    private final Set<String> parameters;
+
+    private DataQueryPlan(String collection, Operation operation, Node filter, List<Node> pipeline, Document sort,
+                          Document projection, int skip, int limit, Set<String> parameters) {
+        this.collection = collection;
+        this.operation = operation;
+        this.filter = filter;
+        this.pipeline = pipeline;
+        this.sort = sort;
+        this.projection = projection;
+        this.skip = skip;
+        this.limit = limit;
+        this.parameters = parameters;
+    }
+
+    /**
+     * Compile the options of a query; throws IllegalArgumentException for options that are
+     * incomplete, not valid JSON or use operators that run code on the server or write
+     */
+    static DataQueryPlan compile(Map<String, Object> options, int maxRows) {
+        if (!(options.get("collection") instanceof String collection) || collection.isBlank()) {
+            throw new IllegalArgumentException("A collection is required");
+        }
+        collection = collection.trim();
+        if (collection.startsWith("system.") || collection.contains("$")) {
+            throw new IllegalArgumentException("Invalid collection " + collection);
+        }
+        Operation operation = operation(options.get("operation"));
+        Object filter = json(options.containsKey("filter") ? options.get("filter") : options.get("query"), "filter");
+        Object pipeline = json(options.get("pipeline"), "pipeline");
+        if (operation == Operation.AGGREGATE && !(pipeline instanceof List<?>)) {
+            throw new IllegalArgumentException("An aggregation needs a pipeline");
+        }
+        if (filter != null && !(filter instanceof Map<?, ?>)) {
+            throw new IllegalArgumentException("The filter must be an object");
+        }
+        RenderPlanCompiler.checkOperators(filter);
+        RenderPlanCompiler.checkOperators(pipeline);
+        checkJoins(pipeline);
+
+        int limit = Math.min(positive(options.get("limit"), DEFAULT_ROWS), maxRows);
+        Set<String> parameters = new LinkedHashSet<>();
+        List<Node> stages = null;
+        if (operation == Operation.AGGREGATE) {
+            stages = new ArrayList<>();
+            for (Object stage : (List<?>) pipeline) {
+                if (!(stage instanceof Map<?, ?>)) {
+                    throw new IllegalArgumentException("Pipeline stages must be objects");
+                }
+                stages.add(template(stage, parameters));
+            }
+            stages.add(new Constant(new Document("$limit", limit)));
+        }
+        return new DataQueryPlan(collection, operation,
+                template(filter == null ? Map.of() : filter, parameters),
+                stages == null ? null : List.copyOf(stages),
+                document(json(options.get("sort"), "sort"), "sort"),
+                document(json(options.get("projection"), "projection"), "projection"),
+                positive(options.get("skip"), 0),
+                limit,
+                Collections.unmodifiableSet(parameters));
+    }
+
+    String collection() {
+        return collection;
+    }
+
+    Operation operation() {
+        return operation;
+    }
+
+    // Pipeline as written, without parameters bound, for checking which collections it reads
+    List<Document> pipelineStages() {
+        if (pipeline == null) {
+            return null;
+        }
+        List<Document> stages = new ArrayList<>(pipeline.size());
+        Deque<Map<String, Object>> none = scopes(Map.of());
+        for (Node stage : pipeline) {
+            stages.add((Document) stage.bind(none));
+        }
+        return stages;
+    }
+
+    // Names of the parameters the query refers to
+    Set<String> parameters() {
+        return parameters;
+    }
+
+    /**
+     * Run the query with the given parameters. Finds and aggregations return their rows, counts
+     * a single row with the count. The bound pipeline must pass readable before it runs, so no
+     * join can take its collection from a parameter.
+     */
+    List<Document> run(MongoCollection<Document> target, Map<String, Object> values, Predicate<List<Document>> readable) {
+        Deque<Map<String, Object>> scopes = scopes(values);
+        List<Document> rows = new ArrayList<>();
+        switch (operation) {
+            case FIND -> target.find((Document) filter.bind(scopes))
+                    .sort(sort)
+                    .projection(projection)
+                    .skip(skip)
+                    .limit(limit)
+                    .into(rows);
+            case AGGREGATE -> {
+                List<Document> stages = new ArrayList<>(pipeline.size());
+                for (Node stage : pipeline) {
+                    stages.add((Document) stage.bind(scopes));
+                }
+                if (!readable.test(stages)) {
+                    throw new IllegalArgumentException("Parameters cannot join collections into the pipeline");
+                }
+                target.aggregate(stages).into(rows);
+            }
+            case COUNT -> rows.add(new Document("count", target.countDocuments((Document) filter.bind(scopes))));
+        }
+        return rows;
+    }
+
+    private static Deque<Map<String, Object>> scopes(Map<String, Object> values) {
+        Deque<Map<String, Object>> scopes = new ArrayDeque<>(1);
+        scopes.push(values);
+        return scopes;
+    }
+
+    // Template of a value: constants where nothing below holds a placeholder
+    private static Node template(Object value, Set<String> parameters) {
+        if (value instanceof Map<?, ?> map) {
+            String[] keys = new String[map.size()];
+            Node[] values = new Node[map.size()];
+            boolean constant = true;
+            int i = 0;
+            for (Map.Entry<?, ?> entry : map.entrySet()) {
+                keys[i] = String.valueOf(entry.getKey());
+                values[i] = template(entry.getValue(), parameters);
+                constant &= values[i] instanceof Constant;
+                i++;
+            }
+            DocumentNode node = new DocumentNode(keys, values);
+            return constant ? new Constant(node.bind(null)) : node;
+        }
+        if (value instanceof List<?> list) {
+            Node[] elements = new Node[list.size()];
+            boolean constant = true;
+            for (int i = 0; i < elements.length; i++) {
+                elements[i] = template(list.get(i), parameters);
+                constant &= elements[i] instanceof Constant;
+            }
+            ListNode node = new ListNode(elements);
+            return constant ? new Constant(node.bind(null)) : node;
+        }
+        if (!(value instanceof String text) || !text.contains("{{")) {
+            return new Constant(value);
+        }
+        Matcher matcher = RenderPlanCompiler.PLACEHOLDER.matcher(text);
+        if (matcher.matches()) {
+            parameters.add(matcher.group(1).split("\\.", 2)[0]);
+            return new Parameter(matcher.group(1).split("\\."));
+        }
+        List<String> literals = new ArrayList<>();
+        List<String[]> paths = new ArrayList<>();
+        int start = 0;
+        while (matcher.find()) {
+            literals.add(text.substring(start, matcher.start()));
+            paths.add(matcher.group(1).split("\\."));
+            parameters.add(matcher.group(1).split("\\.", 2)[0]);
+            start = matcher.end();
+        }
+        literals.add(text.substring(start));
+        return paths.isEmpty() ? new Constant(text)
+                : new Interpolation(literals.toArray(String[]::new), paths.toArray(String[][]::new));
+    }
+
+    // Joined collections must be fixed, so the collections a query reads are known when it is saved
+    static void checkJoins(Object value) {
+        if (value instanceof Map<?, ?> map) {
+            for (Map.Entry<?, ?> entry : map.entrySet()) {
+                Object stage = entry.getValue();
+                Object joined = switch (String.valueOf(entry.getKey())) {
+                    case "$lookup", "$graphLookup" -> stage instanceof Map<?, ?> lookup ? lookup.get("from") : stage;
+                    case "$unionWith" -> stage instanceof Map<?, ?> union ? union.get("coll") : stage;
+                    default -> null;
+                };
+                if (joined instanceof String name && name.contains("{{")) {
+                    throw new IllegalArgumentException("Collections joined by " + entry.getKey() + " cannot be parameters");
+                }
+                checkJoins(stage);
+            }
+        } else if (value instanceof List<?> list) {
+            list.forEach(DataQueryPlan::checkJoins);
+        }
+    }
+
+    private static Operation operation(Object value) {
+        String name = value == null ? "find" : String.valueOf(value).toLowerCase(Locale.ROOT);
+        return switch (name) {
+            case "find", "find_many" -> Operation.FIND;
+            case "aggregate" -> Operation.AGGREGATE;
+            case "count", "count_documents", "count_total" -> Operation.COUNT;
+            default -> throw new IllegalArgumentException("Unsupported operation " + value);
+        };
+    }
+
+    // Options may hold JSON objects or JSON text, as query editors save them
+    private static Object json(Object value, String name) {
+        if (!(value instanceof String text)) {
+            return value;
+        }
+        if (text.isBlank()) {
+            return null;
+        }
+        try {
+            // Wrapped, so arrays parse as well as objects
+            return Document.parse("{\"value\": " + text + "}").get("value");
+        } catch (JsonParseException e) {
+            throw new IllegalArgumentException("The " + name + " is not valid JSON");
+        }
+    }
+
+    private static Document document(Object value, String name) {
+        if (value == null) {
+            return null;
+        }
+        if (!(value instanceof Map<?, ?> map)) {
+            throw new IllegalArgumentException("The " + name + " must be an object");
+        }
+        Document document = new Document();
+        map.forEach((key, nested) -> document.put(String.valueOf(key), nested));
+        return document;
+    }
+
+    private static int positive(Object value, int fallback) {
+        if (value instanceof Number number && number.intValue() > 0) {
+            return number.intValue();
+        }
+        if (value instanceof String text) {
+            try {
+                int parsed = Integer.parseInt(text.trim());
+                return parsed > 0 ? parsed : fallback;
+            } catch (NumberFormatException e) {
+                return fallback;
+            }
+        }
+        return fallback;
+    }
+}
@@ -0,0 +1,276 @@
+package com.ace.templateengine.service;
+
+import com.ace.templateengine.dto.DataQueryRunResult;
+import com.ace.templateengine.exception.DataQueryNotFoundException;
+import com.ace.templateengine.exception.InvalidDataQueryException;
+import com.ace.templateengine.model.DataQuery;
+import com.ace.templateengine.repository.DataQueryRepository;
+import com.mongodb.MongoException;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PostConstruct;
+import org.bson.Document;
+import org.bson.types.Decimal128;
+import org.bson.types.ObjectId;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.stereotype.Service;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Saved data queries of apps, and running them against the application database.
+ *
+ * Database queries are compiled into a {@link DataQueryPlan} when they are saved, which also
+ * rejects invalid ones before they are stored. Plans are cached by query id and update time, so a
+ * run only reads the update time, binds its parameters and executes; a query changed through
+ * another instance, or evicted, is compiled again on its first run.
+ */
+@Service
+public class DataQueryService {
+
+    private static final Logger logger = LoggerFactory.getLogger(DataQueryService.class);
+
+    // Kinds that run against the application database; other kinds are only stored
+    private static final Set<String> DATABASE_KINDS = Set.of("acedb", "mongodb");
+
+    @Autowired
+    private DataQueryRepository dataQueryRepository;
+
+    @Autowired
+    private DesignRenderer designRenderer;
+
+    @Autowired
+    private MongoTemplate mongoTemplate;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Value("${app.data-queries.plan-cache-size:512}")
+    private int planCacheSize;
+
+    @Value("${app.data-queries.max-rows:1000}")
+    private int maxRows;
+
+    private Map<PlanKey, DataQueryPlan> plans;
+    private Counter planHits;
+    private Counter planMisses;
+
+    @PostConstruct
+    void initialize() {
+        plans = new LinkedHashMap<>(64, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<PlanKey, DataQueryPlan> eldest) {
+                return size() > planCacheSize;
+            }
+        };
+        planHits = Counter.builder("ace.data-query.plans").tag("result", "cached")
+                .description("Data query runs by whether the compiled plan was cached")
+                .register(meterRegistry);
+        planMisses = Counter.builder("ace.data-query.plans").tag("result", "compiled")
+                .description("Data query runs by whether the compiled plan was cached")
+                .register(meterRegistry);
+    }
+
+    // Queries of an app, oldest first
+    public List<DataQuery> getDataQueries(String appId) {
+        return dataQueryRepository.findByAppIdOrderByCreatedAtAsc(appId);
+    }
+
+    public DataQuery createDataQuery(Map<String, Object> queryData) {
+        if (!(queryData.get("app_id") instanceof String appId) || appId.isBlank()) {
+            throw new InvalidDataQueryException("An app_id is required");
+        }
+        DataQuery query = new DataQuery();
+        query.setAppId(appId);
+        query.setName(String.valueOf(queryData.getOrDefault("name", "Untitled Query")));
+        query.setKind(String.valueOf(queryData.getOrDefault("kind", "restapi")));
+        query.setOptions(options(queryData.get("options")));
+        query.setDataSourceId(String.valueOf(queryData.getOrDefault("data_source_id", "")));
+        query.setCreatedAt(now());
+        query.setUpdatedAt(query.getCreatedAt());
+        return save(query);
+    }
+
+    // Fields missing from the update keep their values; the app of a query does not change
+    public DataQuery updateDataQuery(String id, Map<String, Object> queryData) {
+        DataQuery query = getDataQuery(id);
+        if (queryData.containsKey("name")) {
+            query.setName(String.valueOf(queryData.get("name")));
+        }
+        if (queryData.containsKey("kind")) {
+            query.setKind(String.valueOf(queryData.get("kind")));
+        }
+        if (queryData.containsKey("options")) {
+            query.setOptions(options(queryData.get("options")));
+        }
+        if (queryData.containsKey("data_source_id")) {
+            query.setDataSourceId(String.valueOf(queryData.get("data_source_id")));
+        }
+        query.setUpdatedAt(now());
+        return save(query);
+    }
+
+    public void deleteDataQuery(String id) {
+        if (!dataQueryRepository.existsById(id)) {
+            throw new DataQueryNotFoundException("Data query not found with id: " + id);
+        }
+        dataQueryRepository.deleteById(id);
+        synchronized (plans) {
+            plans.keySet().removeIf(key -> key.id().equals(id));
+        }
+    }
+
+    public DataQuery getDataQuery(String id) {
+        return dataQueryRepository.findById(id)
+                .orElseThrow(() -> new DataQueryNotFoundException("Data query not found with id: " + id));
+    }
+
+    /**
+     * Run a saved query with the given parameters. Queries that cannot run on the server, and
+     * database errors, give a failed result rather than an error response.
+     */
+    public DataQueryRunResult runDataQuery(String id, Map<String, Object> parameters) {
+        DataQuery current = dataQueryRepository.findUpdatedAtById(id)
+                .orElseThrow(() -> new DataQueryNotFoundException("Data query not found with id: " + id));
+        DataQueryPlan plan;
+        synchronized (plans) {
+            plan = plans.get(new PlanKey(id, current.getUpdatedAt()));
+        }
+        boolean cached = plan != null;
+        if (cached) {
+            planHits.increment();
+        } else {
+            DataQuery query = getDataQuery(id);
+            if (!isDatabaseQuery(query)) {
+                return new DataQueryRunResult("failed", null,
+                        "Queries of kind " + query.getKind() + " cannot run on the server", new DataQueryRunResult.Metadata(id));
+            }
+            planMisses.increment();
+            plan = compile(query);
+            cache(query, plan);
+        }
+
+        String collection = plan.collection();
+        DataQueryRunResult.Metadata metadata = new DataQueryRunResult.Metadata(id);
+        metadata.setCollection(collection);
+        metadata.setOperation(plan.operation().name().toLowerCase(Locale.ROOT));
+        metadata.setPlanCached(cached);
+        long started = System.nanoTime();
+        try {
+            List<Document> rows = plan.run(mongoTemplate.getCollection(collection), parameters,
+                    stages -> designRenderer.bindable(collection, stages));
+            long elapsed = System.nanoTime() - started;
+            Timer.builder("ace.data-query.run").tag("operation", metadata.getOperation())
+                    .description("Time to execute a saved data query")
+                    .register(meterRegistry)
+                    .record(Duration.ofNanos(elapsed));
+            List<Map<String, Object>> data = new ArrayList<>(rows.size());
+            for (Document row : rows) {
+                data.add(jsonSafe(row));
+            }
+            metadata.setRowCount(data.size());
+            metadata.setExecutionTimeMs(elapsed / 1_000_000.0);
+            metadata.setExecutionTime(Math.round(elapsed / 1_000_000.0) + "ms");
+            return new DataQueryRunResult("completed", data, null, metadata);
+        } catch (MongoException | IllegalArgumentException e) {
+            logger.warn("Data query {} failed: {}", id, e.getMessage());
+            long elapsed = System.nanoTime() - started;
+            metadata.setExecutionTimeMs(elapsed / 1_000_000.0);
+            metadata.setExecutionTime(Math.round(elapsed / 1_000_000.0) + "ms");
+            return new DataQueryRunResult("failed", null, e.getMessage(), metadata);
+        }
+    }
+
+    // Database queries are compiled before they are stored, so invalid ones are rejected and valid ones run from cache
+    private DataQuery save(DataQuery query) {
+        DataQueryPlan plan = isDatabaseQuery(query) ? compile(query) : null;
+        DataQuery saved = dataQueryRepository.save(query);
+        cache(saved, plan);
+        return saved;
+    }
+
+    // Plans of older versions of the query are dropped; a null plan only drops them
+    private void cache(DataQuery query, DataQueryPlan plan) {
+        synchronized (plans) {
+            plans.keySet().removeIf(key -> key.id().equals(query.getId()));
+            if (plan != null) {
+                plans.put(new PlanKey(query.getId(), query.getUpdatedAt()), plan);
+            }
+        }
+    }
+
+    // Stored times have millisecond precision; the cached key must match what is read back
+    private static LocalDateTime now() {
+        return LocalDateTime.now().truncatedTo(ChronoUnit.MILLIS);
+    }
+
+    private record PlanKey(String id, LocalDateTime updatedAt) {}
+
+    private DataQueryPlan compile(DataQuery query) {
+        DataQueryPlan plan;
+        try {
+            plan = DataQueryPlan.compile(query.getOptions() == null ? Map.of() : query.getOptions(), maxRows);
+        } catch (IllegalArgumentException e) {
+            throw new InvalidDataQueryException(e.getMessage());
+        }
+        if (!designRenderer.bindable(plan.collection(), plan.pipelineStages())) {
+            throw new InvalidDataQueryException("Data queries can only read bindable collections, not "
+                    + plan.collection() + " or the collections it joins");
+        }
+        return plan;
+    }
+
+    private static boolean isDatabaseQuery(DataQuery query) {
+        return query.getKind() != null && DATABASE_KINDS.contains(query.getKind().toLowerCase(Locale.ROOT));
+    }
+
+    @SuppressWarnings("unchecked")
+    private static Map<String, Object> options(Object options) {
+        if (options == null) {
+            return new LinkedHashMap<>();
+        }
+        if (!(options instanceof Map<?, ?>)) {
+            throw new InvalidDataQueryException("Options must be an object");
+        }
+        return (Map<String, Object>) options;
+    }
+
+    // Ids and decimals as JSON-friendly values, at any depth
+    private static Map<String, Object> jsonSafe(Map<String, Object> row) {
+        Map<String, Object> safe = new LinkedHashMap<>(row.size());
+        row.forEach((key, value) -> safe.put(key, jsonValue(value)));
+        return safe;
+    }
+
+    @SuppressWarnings("unchecked")
+    private static Object jsonValue(Object value) {
+        if (value instanceof ObjectId objectId) {
+            return objectId.toHexString();
+        }
+        if (value instanceof Decimal128 decimal) {
+            return decimal.isNaN() || decimal.isInfinite() ? decimal.toString() : decimal.bigDecimalValue();
+        }
+        if (value instanceof Map<?, ?> map) {
+            return jsonSafe((Map<String, Object>) map);
+        }
+        if (value instanceof List<?> list) {
+            List<Object> safe = new ArrayList<>(list.size());
+            list.forEach(element -> safe.add(jsonValue(element)));
+            return safe;
+        }
+        return value;
+    }
+}
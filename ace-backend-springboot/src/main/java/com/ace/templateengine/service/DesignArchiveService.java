@@ -0,0 +1,287 @@
+package com.ace.templateengine.service;
+
+import com.ace.templateengine.config.DesignConverters;
+import com.ace.templateengine.dto.DesignImportStatus;
+import com.ace.templateengine.model.Design;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.DeserializationFeature;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.mongodb.client.MongoCursor;
+import com.mongodb.client.model.Filters;
+import com.mongodb.client.model.Sorts;
+import org.bson.Document;
+import org.bson.conversions.Bson;
+import org.bson.types.ObjectId;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.stereotype.Service;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.Date;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Bulk export and import of designs as NDJSON archives, one design per line in its API form.
+ *
+ * Export streams designs from a cursor in id order, with split components and preview images
+ * inlined, so the archive is self-contained. Import parses the archive line by line and inserts
+ * batches through {@link DesignService#importDesigns}; memory use stays constant either way.
+ * Archives may be gzip compressed; imports detect that from the content.
+ */
+@Service
+public class DesignArchiveService {
+
+    private static final Logger logger = LoggerFactory.getLogger(DesignArchiveService.class);
+
+    private static final ZoneId ZONE = ZoneId.systemDefault();
+
+    private static final int BUFFER_SIZE = 64 * 1024;
+
+    // Errors kept per import; the failed count keeps counting past them
+    private static final int MAX_REPORTED_ERRORS = 100;
+
+    // Finished imports kept for status queries
+    private static final int MAX_TRACKED_IMPORTS = 50;
+
+    @Autowired
+    private MongoTemplate mongoTemplate;
+
+    @Autowired
+    private ContentStore contentStore;
+
+    @Autowired
+    private DesignComponentStore designComponentStore;
+
+    @Autowired
+    private PreviewImageService previewImageService;
+
+    @Autowired
+    private DesignService designService;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Value("${app.designs.archive.export-batch-size:200}")
+    private int exportBatchSize;
+
+    @Value("${app.designs.archive.import-batch-size:500}")
+    private int importBatchSize;
+
+    private final Map<String, DesignImportStatus> imports = new LinkedHashMap<>() {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<String, DesignImportStatus> eldest) {
+            return size() > MAX_TRACKED_IMPORTS && eldest.getValue().getState() != DesignImportStatus.ImportState.RUNNING;
+        }
+    };
+
+    /**
+     * Write the designs matching all given filters, null filters matching everything, to out.
+     * Designs come in id order, so an interrupted export continues with afterId set to the last
+     * exported id. Returns the number of designs written.
+     */
+    public long exportDesigns(String createdBy, Design.DesignStatus status, String tag, String category,
+                              LocalDateTime updatedAfter, String afterId, boolean gzip, OutputStream out) throws IOException {
+        List<Bson> filters = new ArrayList<>();
+        if (createdBy != null) {
+            filters.add(Filters.eq("created_by", createdBy));
+        }
+        if (status != null) {
+            filters.add(Filters.eq("status", status.name()));
+        }
+        if (tag != null) {
+            filters.add(Filters.eq("tags", tag));
+        }
+        if (category != null) {
+            filters.add(Filters.eq("metadata.category", category));
+        }
+        if (updatedAfter != null) {
+            filters.add(Filters.gt("updated_at", Date.from(updatedAfter.atZone(ZONE).toInstant())));
+        }
+        if (afterId != null) {
+            filters.add(Filters.gt("_id", ObjectId.isValid(afterId) ? new ObjectId(afterId) : afterId));
+        }
+
+        ObjectWriter writer = objectMapper.writerFor(Design.class).without(JsonGenerator.Feature.AUTO_CLOSE_TARGET);
+        OutputStream stream = gzip ? new GZIPOutputStream(out, BUFFER_SIZE) : new BufferedOutputStream(out, BUFFER_SIZE);
+        long count = 0;
+        try (MongoCursor<Document> cursor = mongoTemplate.getCollection(mongoTemplate.getCollectionName(Design.class))
+                .find(filters.isEmpty() ? Filters.empty() : Filters.and(filters))
+                .sort(Sorts.ascending("_id"))
+                .batchSize(exportBatchSize)
+                .iterator()) {
+            while (cursor.hasNext()) {
+                writer.writeValue(stream, toArchived(cursor.next()));
+                stream.write('\n');
+                count++;
+            }
+        }
+        // Finishes the gzip trailer without closing the response stream
+        if (stream instanceof GZIPOutputStream compressed) {
+            compressed.finish();
+        }
+        stream.flush();
+        return count;
+    }
+
+    // Register an import; null when one with the same id is still running
+    public DesignImportStatus beginImport(String importId) {
+        String id = importId != null ? importId : UUID.randomUUID().toString();
+        synchronized (imports) {
+            DesignImportStatus existing = imports.get(id);
+            if (existing != null && existing.getState() == DesignImportStatus.ImportState.RUNNING) {
+                return null;
+            }
+            DesignImportStatus status = new DesignImportStatus(id);
+            imports.remove(id);
+            imports.put(id, status);
+            return status;
+        }
+    }
+
+    /**
+     * Import an archive read from in, skipping its first skipLines lines, e.g. those an
+     * interrupted attempt already committed. Designs that already exist are skipped, so sending
+     * the whole archive again is safe as well, just slower.
+     */
+    public DesignImportStatus importDesigns(DesignImportStatus status, InputStream in, long skipLines) {
+        ObjectReader reader = objectMapper.readerFor(Design.class).without(DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES);
+        List<Design> batch = new ArrayList<>(importBatchSize);
+        List<Long> batchLines = new ArrayList<>(importBatchSize);
+        long line = 0;
+        try (BufferedReader lines = new BufferedReader(new InputStreamReader(decompressed(in), StandardCharsets.UTF_8), BUFFER_SIZE)) {
+            String text;
+            while ((text = lines.readLine()) != null) {
+                line++;
+                if (line <= skipLines || text.isBlank()) {
+                    continue;
+                }
+                try {
+                    batch.add(reader.readValue(text));
+                    batchLines.add(line);
+                } catch (JsonProcessingException e) {
+                    fail(status, line, null, "Not a design: " + e.getOriginalMessage());
+                }
+                if (batch.size() >= importBatchSize) {
+                    commit(status, batch, batchLines, line);
+                }
+            }
+            commit(status, batch, batchLines, line);
+            synchronized (status) {
+                status.setState(DesignImportStatus.ImportState.COMPLETED);
+                status.setFinishedAt(LocalDateTime.now());
+            }
+            logger.info("Imported designs {}: {} imported, {} skipped, {} failed", status.getImportId(),
+                    status.getImported(), status.getSkipped(), status.getFailed());
+        } catch (IOException | RuntimeException e) {
+            synchronized (status) {
+                status.setLinesRead(line);
+                status.setState(DesignImportStatus.ImportState.FAILED);
+                status.setMessage("Import stopped at line " + line + ": " + e.getMessage());
+                status.setFinishedAt(LocalDateTime.now());
+            }
+            logger.warn("Design import {} failed after line {}: {}", status.getImportId(), status.getCommittedLine(), e.getMessage());
+        }
+        return getImportStatus(status.getImportId());
+    }
+
+    // Copy of the current progress of an import, null when unknown
+    public DesignImportStatus getImportStatus(String importId) {
+        DesignImportStatus status;
+        synchronized (imports) {
+            status = imports.get(importId);
+        }
+        if (status == null) {
+            return null;
+        }
+        synchronized (status) {
+            DesignImportStatus copy = new DesignImportStatus();
+            copy.setImportId(status.getImportId());
+            copy.setState(status.getState());
+            copy.setLinesRead(status.getLinesRead());
+            copy.setCommittedLine(status.getCommittedLine());
+            copy.setImported(status.getImported());
+            copy.setSkipped(status.getSkipped());
+            copy.setFailed(status.getFailed());
+            copy.setErrors(new ArrayList<>(status.getErrors()));
+            copy.setMessage(status.getMessage());
+            copy.setStartedAt(status.getStartedAt());
+            copy.setFinishedAt(status.getFinishedAt());
+            return copy;
+        }
+    }
+
+    // Insert the batch and mark every line read so far as committed
+    private void commit(DesignImportStatus status, List<Design> batch, List<Long> batchLines, long line) {
+        DesignService.ImportOutcome outcome = batch.isEmpty()
+                ? new DesignService.ImportOutcome(0, 0, Map.of())
+                : designService.importDesigns(batch);
+        outcome.errors().forEach((position, message) -> fail(status, batchLines.get(position), batch.get(position).getId(), message));
+        synchronized (status) {
+            status.setImported(status.getImported() + outcome.imported());
+            status.setSkipped(status.getSkipped() + outcome.skipped());
+            status.setLinesRead(line);
+            status.setCommittedLine(line);
+        }
+        batch.clear();
+        batchLines.clear();
+    }
+
+    private static void fail(DesignImportStatus status, long line, String designId, String message) {
+        synchronized (status) {
+            status.setFailed(status.getFailed() + 1);
+            if (status.getErrors().size() < MAX_REPORTED_ERRORS) {
+                status.getErrors().add(new DesignImportStatus.ImportError(line, designId, message));
+            }
+        }
+    }
+
+    // A design document as it goes into an archive: hydrated, with its components and preview inline
+    private Design toArchived(Document document) {
+        contentStore.hydrate(document);
+        Design design = DesignConverters.toDesign(document);
+        if (design.getComponentStorage() == Design.ComponentStorage.SPLIT) {
+            design.setComponents(designComponentStore.loadAll(design.getId()));
+        }
+        design.setComponentStorage(null);
+        design.setComponentCount(null);
+        design.setComponentTypes(null);
+        design.setComponentNames(null);
+        PreviewImageService.storedHash(design.getPreviewImage())
+                .flatMap(previewImageService::load)
+                .ifPresent(image -> design.setPreviewImage("data:" + image.contentType() + ";base64,"
+                        + Base64.getEncoder().encodeToString(image.bytes())));
+        return design;
+    }
+
+    // Gzip archives start with the magic bytes 1f 8b; anything else is read as plain NDJSON
+    private static InputStream decompressed(InputStream in) throws IOException {
+        BufferedInputStream buffered = new BufferedInputStream(in, BUFFER_SIZE);
+        buffered.mark(2);
+        int first = buffered.read();
+        int second = buffered.read();
+        buffered.reset();
+        return first == 0x1f && second == 0x8b ? new GZIPInputStream(buffered, BUFFER_SIZE) : buffered;
+    }
+}
@@ -0,0 +1,605 @@
+package com.ace.templateengine.service;
+
+import com.ace.templateengine.config.DesignConverters;
+import com.ace.templateengine.dto.DesignChangeEvent;
+import com.ace.templateengine.model.Design;
+import com.mongodb.MongoCommandException;
+import com.mongodb.MongoException;
+import com.mongodb.client.ChangeStreamIterable;
+import com.mongodb.client.MongoChangeStreamCursor;
+import com.mongodb.client.model.Aggregates;
+import com.mongodb.client.model.Filters;
+import com.mongodb.client.model.changestream.ChangeStreamDocument;
+import com.mongodb.client.model.changestream.FullDocument;
+import com.mongodb.client.model.changestream.FullDocumentBeforeChange;
+import com.mongodb.client.model.changestream.OperationType;
+import com.mongodb.client.model.changestream.UpdateDescription;
+import jakarta.annotation.PreDestroy;
+import org.bson.BsonDocument;
+import org.bson.BsonValue;
+import org.bson.Document;
+import org.bson.conversions.Bson;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.http.MediaType;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.io.IOException;
+import java.lang.reflect.Field;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Date;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Pushes compact change events of designs to subscribed clients over server-sent events.
+ *
+ * Events come from a change stream on the designs collection, resumed after the last seen token
+ * whenever the stream breaks. Change streams need a replica set; against a standalone server
+ * DesignService reports the writes of this instance instead. Recent events are kept so a client
+ * reconnecting with Last-Event-ID receives what it missed; one that fell further behind gets a
+ * resync event and reloads once through /updated-after.
+ *
+ * Publishing only queues events; each subscriber has a bounded queue drained on its own virtual
+ * thread, so a stalled connection delays nobody else, and design writes never wait for a send.
+ * A subscriber whose queue overflows is dropped and reconnects with its Last-Event-ID.
+ */
+@Service
+public class DesignChangeFeed {
+
+    private static final Logger logger = LoggerFactory.getLogger(DesignChangeFeed.class);
+
+    private static final String COLLECTION = "designs";
+
+    // The server is not a replica set member, so it has no change streams
+    private static final int CHANGE_STREAMS_UNSUPPORTED = 40573;
+
+    // The resume token fell off the oplog, or the stream cannot be resumed at all
+    private static final Set<Integer> HISTORY_LOST = Set.of(260, 280, 286);
+
+    private static final ZoneId ZONE = ZoneId.systemDefault();
+
+    // Database field name to API field name; server-maintained component fields report as components
+    private static final Map<String, String> FIELD_NAMES = fieldNames();
+
+    @Autowired
+    private MongoTemplate mongoTemplate;
+
+    @Value("${app.designs.changes.enabled:true}")
+    private boolean enabled;
+
+    @Value("${app.designs.changes.pre-images:true}")
+    private boolean preImages;
+
+    @Value("${app.designs.changes.replay-size:1000}")
+    private int replaySize;
+
+    @Value("${app.designs.changes.timeout-ms:1800000}")
+    private long timeoutMs;
+
+    @Value("${app.designs.changes.queue-size:256}")
+    private int queueSize;
+
+    private final List<Subscriber> subscribers = new CopyOnWriteArrayList<>();
+
+    // Recently published events, oldest first; publishing and replaying hold its lock
+    private final Deque<DesignChangeEvent> recent = new ArrayDeque<>();
+
+    // Drains subscriber queues; sends block on slow clients, so each drain gets its own thread
+    private final ExecutorService sender = Executors.newVirtualThreadPerTaskExecutor();
+
+    // Event ids of locally reported writes must not match ids from before a restart
+    private final String localPrefix = Long.toString(System.currentTimeMillis(), 36) + "-";
+    private final AtomicLong localSequence = new AtomicLong();
+
+    private volatile boolean running;
+    private volatile boolean streaming;
+    private volatile MongoChangeStreamCursor<?> cursor;
+    private boolean preImagesEnabled;
+    private Thread watcher;
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void start() {
+        if (!enabled) {
+            return;
+        }
+        preImagesEnabled = enablePreImages();
+        running = true;
+        watcher = new Thread(this::watch, "design-change-stream");
+        watcher.setDaemon(true);
+        watcher.start();
+    }
+
+    @PreDestroy
+    public void stop() {
+        running = false;
+        MongoChangeStreamCursor<?> open = cursor;
+        if (open != null) {
+            try {
+                open.close();
+            } catch (RuntimeException e) {
+                // The watcher is exiting either way
+            }
+        }
+        if (watcher != null) {
+            watcher.interrupt();
+        }
+        subscribers.forEach(subscriber -> subscriber.emitter().complete());
+        subscribers.clear();
+        sender.shutdownNow();
+    }
+
+    /**
+     * Subscribe to changes of designs matching all given filters; null filters match everything.
+     * lastEventId is the id of the last event the client received before reconnecting.
+     */
+    public SseEmitter subscribe(String createdBy, String tag, String status, String lastEventId) {
+        SseEmitter emitter = new SseEmitter(timeoutMs);
+        Subscriber subscriber = new Subscriber(emitter, createdBy, tag, status, queueSize);
+        emitter.onCompletion(() -> subscribers.remove(subscriber));
+        emitter.onError(e -> subscribers.remove(subscriber));
+
+        synchronized (recent) {
+            if (lastEventId != null && !lastEventId.isBlank()) {
+                List<DesignChangeEvent> missed = eventsAfter(lastEventId);
+                if (missed == null) {
+                    subscriber.replay(List.of(resyncOf("Events after " + lastEventId + " are no longer available")));
+                } else {
+                    subscriber.replay(missed.stream().filter(subscriber::accepts).map(DesignChangeFeed::changeOf).toList());
+                }
+            }
+            subscribers.add(subscriber);
+        }
+        schedule(subscriber);
+        return emitter;
+    }
+
+    // A design was created or updated through this instance; previous is null for new designs
+    public void recordWrite(Design previous, Design saved) {
+        if (!enabled || streaming) {
+            return;
+        }
+        Document after = DesignConverters.toDocument(saved);
+        DesignChangeEvent event = new DesignChangeEvent(saved.getId(),
+                previous == null ? DesignChangeEvent.Operation.CREATE : DesignChangeEvent.Operation.UPDATE);
+        event.setChangedFields(previous == null
+                ? apiFields(after.keySet())
+                : changedFields(DesignConverters.toDocument(previous), after));
+        describe(event, after);
+        event.setEventId(localPrefix + localSequence.incrementAndGet());
+        publish(event);
+    }
+
+    // A design was deleted through this instance
+    public void recordDelete(Design design) {
+        if (!enabled || streaming) {
+            return;
+        }
+        DesignChangeEvent event = new DesignChangeEvent(design.getId(), DesignChangeEvent.Operation.DELETE);
+        describe(event, DesignConverters.toDocument(design));
+        event.setEventId(localPrefix + localSequence.incrementAndGet());
+        publish(event);
+    }
+
+    // Comments keep idle connections open through proxies and reveal clients that went away
+    @Scheduled(fixedDelayString = "${app.designs.changes.heartbeat-ms:15000}")
+    public void heartbeat() {
+        for (Subscriber subscriber : subscribers) {
+            offer(subscriber, SseEmitter.event().comment("heartbeat"));
+        }
+    }
+
+    private void watch() {
+        BsonDocument resumeToken = null;
+        long backoffMs = 1000;
+        while (running) {
+            try (MongoChangeStreamCursor<ChangeStreamDocument<Document>> changes = openStream(resumeToken)) {
+                cursor = changes;
+                if (!streaming) {
+                    streaming = true;
+                    logger.info("Publishing design changes from the {} change stream", COLLECTION);
+                }
+                backoffMs = 1000;
+                while (running) {
+                    ChangeStreamDocument<Document> change = changes.tryNext();
+                    if (change != null && change.getOperationType() == OperationType.INVALIDATE) {
+                        // The collection was dropped or renamed; start over from now
+                        resumeToken = null;
+                        resyncAll("The designs collection was dropped or renamed");
+                        break;
+                    }
+                    resumeToken = changes.getResumeToken();
+                    DesignChangeEvent event = change == null ? null : toEvent(change);
+                    if (event != null) {
+                        publish(event);
+                    }
+                }
+            } catch (RuntimeException e) {
+                if (!running) {
+                    return;
+                }
+                if (!streaming && e instanceof MongoCommandException command
+                        && command.getErrorCode() == CHANGE_STREAMS_UNSUPPORTED) {
+                    logger.info("Change streams are not available, publishing the design writes of this instance only");
+                    return;
+                }
+                if (e instanceof MongoCommandException command && HISTORY_LOST.contains(command.getErrorCode())) {
+                    logger.warn("Design change stream cannot resume: {}", e.getMessage());
+                    resumeToken = null;
+                    resyncAll("Design changes were missed while the change stream was down");
+                    continue;
+                }
+                logger.warn("Design change stream failed, reopening in {} ms: {}", backoffMs, e.getMessage());
+                try {
+                    Thread.sleep(backoffMs);
+                } catch (InterruptedException interrupted) {
+                    Thread.currentThread().interrupt();
+                    return;
+                }
+                backoffMs = Math.min(backoffMs * 2, 30_000);
+            } finally {
+                cursor = null;
+            }
+        }
+    }
+
+    private MongoChangeStreamCursor<ChangeStreamDocument<Document>> openStream(BsonDocument resumeToken) {
+        List<Bson> pipeline = List.of(Aggregates.match(
+                Filters.in("operationType", "insert", "update", "replace", "delete", "invalidate")));
+        ChangeStreamIterable<Document> stream = mongoTemplate.getCollection(COLLECTION).watch(pipeline)
+                .fullDocument(FullDocument.UPDATE_LOOKUP)
+                .maxAwaitTime(1, TimeUnit.SECONDS);
+        if (preImagesEnabled) {
+            stream = stream.fullDocumentBeforeChange(FullDocumentBeforeChange.WHEN_AVAILABLE);
+        }
+        if (resumeToken != null) {
+            stream = stream.resumeAfter(resumeToken);
+        }
+        return stream.cursor();
+    }
+
+    // Designs are written as whole-document replacements, so their changed fields need the pre-image
+    private boolean enablePreImages() {
+        if (!preImages) {
+            return false;
+        }
+        try {
+            if (!mongoTemplate.collectionExists(COLLECTION)) {
+                mongoTemplate.createCollection(COLLECTION);
+            }
+            mongoTemplate.getDb().runCommand(new Document("collMod", COLLECTION)
+                    .append("changeStreamPreAndPostImages", new Document("enabled", true)));
+            return true;
+        } catch (MongoException e) {
+            logger.info("Change stream pre-images are not available, replaced designs report no changed fields: {}",
+                    e.getMessage());
+            return false;
+        }
+    }
+
+    private DesignChangeEvent toEvent(ChangeStreamDocument<Document> change) {
+        String designId = designId(change.getDocumentKey());
+        Document after = change.getFullDocument();
+        Document before = change.getFullDocumentBeforeChange();
+        DesignChangeEvent event;
+        switch (change.getOperationType()) {
+            case INSERT -> {
+                event = new DesignChangeEvent(designId, DesignChangeEvent.Operation.CREATE);
+                event.setChangedFields(after == null ? null : apiFields(after.keySet()));
+            }
+            case UPDATE -> {
+                event = new DesignChangeEvent(designId, DesignChangeEvent.Operation.UPDATE);
+                UpdateDescription update = change.getUpdateDescription();
+                if (update != null) {
+                    Set<String> paths = new LinkedHashSet<>();
+                    if (update.getUpdatedFields() != null) {
+                        paths.addAll(update.getUpdatedFields().keySet());
+                    }
+                    if (update.getRemovedFields() != null) {
+                        paths.addAll(update.getRemovedFields());
+                    }
+                    event.setChangedFields(apiFields(paths));
+                }
+            }
+            case REPLACE -> {
+                event = new DesignChangeEvent(designId, DesignChangeEvent.Operation.UPDATE);
+                if (before != null && after != null) {
+                    event.setChangedFields(changedFields(before, after));
+                }
+            }
+            case DELETE -> event = new DesignChangeEvent(designId, DesignChangeEvent.Operation.DELETE);
+            default -> {
+                return null;
+            }
+        }
+        describe(event, after != null ? after : before);
+        event.setEventId(change.getResumeToken().getString("_data").getValue());
+        return event;
+    }
+
+    private void publish(DesignChangeEvent event) {
+        synchronized (recent) {
+            recent.addLast(event);
+            while (recent.size() > replaySize) {
+                recent.removeFirst();
+            }
+            for (Subscriber subscriber : subscribers) {
+                if (subscriber.accepts(event)) {
+                    offer(subscriber, changeOf(event));
+                }
+            }
+        }
+    }
+
+    // Events published after the given one, or null when it is no longer known
+    private List<DesignChangeEvent> eventsAfter(String eventId) {
+        List<DesignChangeEvent> missed = null;
+        for (DesignChangeEvent event : recent) {
+            if (missed != null) {
+                missed.add(event);
+            } else if (event.getEventId().equals(eventId)) {
+                missed = new ArrayList<>();
+            }
+        }
+        return missed;
+    }
+
+    // Everyone may have missed events, and ids from before the gap can no longer be replayed
+    private void resyncAll(String reason) {
+        synchronized (recent) {
+            recent.clear();
+            for (Subscriber subscriber : subscribers) {
+                offer(subscriber, resyncOf(reason));
+            }
+        }
+    }
+
+    private static SseEmitter.SseEventBuilder changeOf(DesignChangeEvent event) {
+        return SseEmitter.event()
+                .id(event.getEventId())
+                .name("change")
+                .data(event, MediaType.APPLICATION_JSON);
+    }
+
+    private static SseEmitter.SseEventBuilder resyncOf(String reason) {
+        return SseEmitter.event()
+                .name("resync")
+                .data(Map.of("reason", reason), MediaType.APPLICATION_JSON);
+    }
+
+    // Queue an event for a subscriber without waiting on its connection
+    private void offer(Subscriber subscriber, SseEmitter.SseEventBuilder event) {
+        if (!subscriber.offer(event)) {
+            // Fell too far behind; its Last-Event-ID replays or resyncs it on reconnect
+            subscribers.remove(subscriber);
+        }
+        schedule(subscriber);
+    }
+
+    private void schedule(Subscriber subscriber) {
+        if (subscriber.claimDrain()) {
+            try {
+                sender.execute(() -> drain(subscriber));
+            } catch (RuntimeException e) {
+                // Shutting down
+                subscriber.releaseDrain();
+            }
+        }
+    }
+
+    // Send queued events in order until the queue is empty; at most one drain runs per subscriber
+    private void drain(Subscriber subscriber) {
+        while (true) {
+            SseEmitter.SseEventBuilder event = subscriber.next();
+            if (event == null) {
+                if (subscriber.isOverflowed()) {
+                    drop(subscriber);
+                }
+                return;
+            }
+            try {
+                subscriber.emitter().send(event);
+            } catch (IOException | IllegalStateException e) {
+                subscriber.close();
+                drop(subscriber);
+                return;
+            }
+        }
+    }
+
+    private void drop(Subscriber subscriber) {
+        subscribers.remove(subscriber);
+        try {
+            subscriber.emitter().complete();
+        } catch (IllegalStateException e) {
+            // Already completed
+        }
+    }
+
+    // The filterable and versioning fields of a stored design
+    private static void describe(DesignChangeEvent event, Document design) {
+        if (design == null) {
+            return;
+        }
+        event.setVersion(design.getString("version"));
+        event.setUpdatedBy(design.getString("updated_by"));
+        event.setCreatedBy(design.getString("created_by"));
+        Object status = design.get("status");
+        event.setStatus(status == null ? null : status.toString());
+        Object updatedAt = design.get("updated_at");
+        if (updatedAt instanceof Date date) {
+            event.setUpdatedAt(LocalDateTime.ofInstant(date.toInstant(), ZONE));
+        } else if (updatedAt instanceof LocalDateTime dateTime) {
+            event.setUpdatedAt(dateTime);
+        }
+        if (design.get("tags") instanceof List<?> tags) {
+            event.setTags(tags.stream().map(String::valueOf).toList());
+        }
+    }
+
+    private static List<String> changedFields(Document before, Document after) {
+        Set<String> keys = new LinkedHashSet<>(after.keySet());
+        keys.addAll(before.keySet());
+        keys.removeIf(key -> Objects.equals(before.get(key), after.get(key)));
+        return apiFields(keys);
+    }
+
+    // Top-level API field names of database field paths such as components.3.styles
+    private static List<String> apiFields(Collection<String> paths) {
+        Set<String> fields = new LinkedHashSet<>();
+        for (String path : paths) {
+            int dot = path.indexOf('.');
+            String field = dot < 0 ? path : path.substring(0, dot);
+            if (field.startsWith("_")) {
+                continue;
+            }
+            String name = FIELD_NAMES.getOrDefault(field, field);
+            if (!name.isEmpty()) {
+                fields.add(name);
+            }
+        }
+        return new ArrayList<>(fields);
+    }
+
+    private static String designId(BsonDocument documentKey) {
+        BsonValue id = documentKey == null ? null : documentKey.get("_id");
+        if (id == null) {
+            return null;
+        }
+        if (id.isObjectId()) {
+            return id.asObjectId().getValue().toHexString();
+        }
+        return id.isString() ? id.asString().getValue() : id.toString();
+    }
+
+    private static Map<String, String> fieldNames() {
+        Map<String, String> names = new HashMap<>();
+        for (Field field : Design.class.getDeclaredFields()) {
+            org.springframework.data.mongodb.core.mapping.Field mapped =
+                    field.getAnnotation(org.springframework.data.mongodb.core.mapping.Field.class);
+            if (mapped != null) {
+                names.put(mapped.value(), field.getName());
+            }
+        }
+        names.put("component_storage", "components");
+        names.put("component_count", "components");
+        names.put("component_types", "components");
+        names.put("component_names", "components");
+        // Changes with every content change and says nothing on its own
+        names.put("content_hash", "");
+        return Map.copyOf(names);
+    }
+
+    private static final class Subscriber {
+        private final SseEmitter emitter;
+        private final String createdBy;
+        private final String tag;
+        private final String status;
+        private final int capacity;
+        // Events waiting to be sent and the drain state; guarded by this
+        private final Deque<SseEmitter.SseEventBuilder> queue = new ArrayDeque<>();
+        private boolean draining;
+        private boolean overflowed;
+        private boolean closed;
+
+        Subscriber(SseEmitter emitter, String createdBy, String tag, String status, int capacity) {
+            this.emitter = emitter;
+            this.createdBy = createdBy;
+            this.tag = tag;
+            this.status = status;
+            this.capacity = capacity;
+        }
+
+        SseEmitter emitter() {
+            return emitter;
+        }
+
+        // Replayed events are already bounded by the replay size
+        synchronized void replay(List<SseEmitter.SseEventBuilder> events) {
+            queue.addAll(events);
+        }
+
+        // False once the queue has overflowed; what is left is dropped and the subscriber closed
+        synchronized boolean offer(SseEmitter.SseEventBuilder event) {
+            if (overflowed) {
+                return false;
+            }
+            if (closed) {
+                return true;
+            }
+            if (queue.size() >= capacity) {
+                overflowed = true;
+                queue.clear();
+                return false;
+            }
+            queue.addLast(event);
+            return true;
+        }
+
+        synchronized boolean claimDrain() {
+            if (draining || closed || (queue.isEmpty() && !overflowed)) {
+                return false;
+            }
+            draining = true;
+            return true;
+        }
+
+        synchronized void releaseDrain() {
+            draining = false;
+        }
+
+        // The next event to send, or null after releasing the drain when there is none
+        synchronized SseEmitter.SseEventBuilder next() {
+            SseEmitter.SseEventBuilder event = closed ? null : queue.pollFirst();
+            if (event == null) {
+                draining = false;
+            }
+            return event;
+        }
+
+        synchronized boolean isOverflowed() {
+            if (overflowed && !closed) {
+                closed = true;
+                return true;
+            }
+            return false;
+        }
+
+        synchronized void close() {
+            closed = true;
+            draining = false;
+            queue.clear();
+        }
+
+        boolean accepts(DesignChangeEvent event) {
+            // A delete without a pre-image cannot be matched, so every subscriber hears of it
+            if (event.getOp() == DesignChangeEvent.Operation.DELETE && event.getCreatedBy() == null) {
+                return true;
+            }
+            return (createdBy == null || createdBy.equals(event.getCreatedBy()))
+                    && (tag == null || (event.getTags() != null && event.getTags().contains(tag)))
+                    && (status == null || status.equalsIgnoreCase(event.getStatus()));
+        }
+    }
+}
@@ -0,0 +1,210 @@
+package com.ace.templateengine.service;
+
+import com.ace.templateengine.model.Design;
+import com.ace.templateengine.model.StoredComponent;
+import com.ace.templateengine.repository.StoredComponentRepository;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.core.BulkOperations;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.stereotype.Service;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+
+/**
+ * Split component storage for very large designs.
+ *
+ * Designs with more components than the split threshold keep them in the design_components
+ * collection, one document per component, so the design document stays small and editors can
+ * load components by page or by id. Writes only touch components whose content hash or
+ * position in the list changed. Small designs keep their components inline and paging works on
+ * them in memory.
+ */
+@Service
+public class DesignComponentStore {
+
+    @Autowired
+    private StoredComponentRepository storedComponentRepository;
+
+    @Autowired
+    private MongoTemplate mongoTemplate;
+
+    @Value("${app.designs.split-storage.threshold:1000}")
+    private int splitThreshold;
+
+    // Storage mode for the current component count; split designs only move back inline below
+    // half the threshold so a design hovering around it does not flip on every save
+    public Design.ComponentStorage storageFor(Design design) {
+        int count = design.getComponents() == null ? 0 : design.getComponents().size();
+        if (design.getComponentStorage() == Design.ComponentStorage.SPLIT) {
+            return count < splitThreshold / 2 ? Design.ComponentStorage.INLINE : Design.ComponentStorage.SPLIT;
+        }
+        return count > splitThreshold ? Design.ComponentStorage.SPLIT : Design.ComponentStorage.INLINE;
+    }
+
+    // Bring the stored components of a design in line with the given list
+    public void write(String designId, List<Design.DesignComponent> components) {
+        Map<String, StoredComponent> existing = new HashMap<>();
+        for (StoredComponent header : storedComponentRepository.findHeadersByDesignId(designId)) {
+            existing.put(header.getComponentId(), header);
+        }
+
+        List<StoredComponent> inserts = new ArrayList<>();
+        List<StoredComponent> replacements = new ArrayList<>();
+        Map<String, Integer> moves = new HashMap<>();
+        List<Design.DesignComponent> list = components == null ? List.of() : components;
+        for (int order = 0; order < list.size(); order++) {
+            Design.DesignComponent component = list.get(order);
+            String componentId = componentId(component, order);
+            StoredComponent header = existing.remove(componentId);
+            if (header == null) {
+                inserts.add(toStored(designId, componentId, order, component));
+            } else if (!Objects.equals(header.getContentHash(), ContentHasher.hashOf(component))) {
+                StoredComponent stored = toStored(designId, componentId, order, component);
+                stored.setId(header.getId());
+                replacements.add(stored);
+            } else if (!Objects.equals(header.getOrder(), order)) {
+                moves.put(header.getId(), order);
+            }
+        }
+
+        // All-new entities are written as one batch insert
+        if (!inserts.isEmpty()) {
+            storedComponentRepository.saveAll(inserts);
+        }
+        if (!replacements.isEmpty()) {
+            storedComponentRepository.saveAll(replacements);
+        }
+        // Unchanged components that only shifted position get their order updated in place
+        if (!moves.isEmpty()) {
+            BulkOperations bulk = mongoTemplate.bulkOps(BulkOperations.BulkMode.UNORDERED, StoredComponent.class);
+            moves.forEach((id, order) -> bulk.updateOne(Query.query(Criteria.where("_id").is(id)), Update.update("order", order)));
+            bulk.execute();
+        }
+        if (!existing.isEmpty()) {
+            storedComponentRepository.deleteByDesignIdAndComponentIdIn(designId, existing.keySet());
+        }
+    }
+
+    public List<Design.DesignComponent> loadAll(String designId) {
+        return storedComponentRepository.findByDesignIdOrderByOrder(designId).stream()
+                .map(StoredComponent::getComponent)
+                .toList();
+    }
+
+    public void delete(String designId) {
+        storedComponentRepository.deleteByDesignId(designId);
+    }
+
+    // One page of components in list order
+    public Page<Design.DesignComponent> page(Design design, int page, int size) {
+        Pageable pageable = PageRequest.of(page, size, Sort.by("order"));
+        if (isSplit(design)) {
+            return storedComponentRepository.findByDesignId(design.getId(), pageable).map(StoredComponent::getComponent);
+        }
+        List<Design.DesignComponent> components = inline(design);
+        int from = (int) Math.min(pageable.getOffset(), components.size());
+        int to = Math.min(from + size, components.size());
+        return new PageImpl<>(components.subList(from, to), pageable, components.size());
+    }
+
+    // Components of a split design by id, in the order of the given ids
+    public List<Design.DesignComponent> findByIds(String designId, List<String> componentIds) {
+        Map<String, Design.DesignComponent> byId = new HashMap<>();
+        for (StoredComponent stored : storedComponentRepository.findByDesignIdAndComponentIdIn(designId, componentIds)) {
+            byId.put(stored.getComponentId(), stored.getComponent());
+        }
+        return componentIds.stream().map(byId::get).filter(Objects::nonNull).toList();
+    }
+
+    // Distinct component types, stored on split designs for type queries and facets
+    public static List<String> componentTypes(List<Design.DesignComponent> components) {
+        Set<String> types = new LinkedHashSet<>();
+        if (components != null) {
+            for (Design.DesignComponent component : components) {
+                if (component != null && component.getType() != null) {
+                    types.add(component.getType());
+                }
+            }
+        }
+        return new ArrayList<>(types);
+    }
+
+    // Distinct component names, stored on split designs for full-text search
+    public static List<String> componentNames(List<Design.DesignComponent> components) {
+        Set<String> names = new LinkedHashSet<>();
+        if (components != null) {
+            for (Design.DesignComponent component : components) {
+                if (component != null && component.getName() != null && !component.getName().isBlank()) {
+                    names.add(component.getName());
+                }
+            }
+        }
+        return new ArrayList<>(names);
+    }
+    
+    // Left, top, right and bottom of a component from its position and size, or null when unknown
+    static double[] bounds(Design.DesignComponent component) {
+        Double x = number(component.getPosition(), "x");
+        Double y = number(component.getPosition(), "y");
+        Double width = number(component.getSize(), "width");
+        Double height = number(component.getSize(), "height");
+        if (x == null || y == null) {
+            return null;
+        }
+        return new double[] { x, y, x + (width == null ? 0 : width), y + (height == null ? 0 : height) };
+    }
+
+    private static Double number(Map<String, Object> values, String key) {
+        return values != null && values.get(key) instanceof Number number ? number.doubleValue() : null;
+    }
+
+    private static boolean isSplit(Design design) {
+        return design.getComponentStorage() == Design.ComponentStorage.SPLIT;
+    }
+
+    private static List<Design.DesignComponent> inline(Design design) {
+        return design.getComponents() == null ? Collections.emptyList() : design.getComponents();
+    }
+
+    // Components without an id are addressed by their position
+    static String componentId(Design.DesignComponent component, int order) {
+        return component.getId() != null ? component.getId() : "#" + order;
+    }
+
+    private static StoredComponent toStored(String designId, String componentId, int order, Design.DesignComponent component) {
+        StoredComponent stored = new StoredComponent();
+        stored.setDesignId(designId);
+        stored.setComponentId(componentId);
+        stored.setOrder(order);
+        stored.setParentId(component.getParentId());
+        stored.setZIndex(component.getZIndex());
+        stored.setVisible(component.getVisible());
+        stored.setContentHash(ContentHasher.hashOf(component));
+        stored.setComponent(component);
+        double[] bounds = bounds(component);
+        if (bounds != null) {
+            stored.setLeft(bounds[0]);
+            stored.setTop(bounds[1]);
+            stored.setRight(bounds[2]);
+            stored.setBottom(bounds[3]);
+        }
+        return stored;
+    }
+}
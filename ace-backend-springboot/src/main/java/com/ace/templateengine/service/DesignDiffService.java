@@ -0,0 +1,383 @@
+package com.ace.templateengine.service;
+
+import com.ace.templateengine.dto.DesignDiff;
+import com.ace.templateengine.model.Design;
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+
+/**
+ * Structural diff between two designs.
+ *
+ * Components are matched by id and skipped in O(1) when their content hashes agree; only
+ * components whose hashes differ are compared field by field. Orderings (the component list
+ * and each children list) hold unique ids, so their longest common subsequence is found as the
+ * longest increasing subsequence of positions in O(n log n), and everything outside it is
+ * reported as added, removed or moved, in an order that replays to the right design.
+ */
+@Service
+public class DesignDiffService {
+
+    private static final TypeReference<Map<String, Object>> MAP_TYPE = new TypeReference<>() {};
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    public DesignDiff diff(Design left, String leftLabel, Design right, String rightLabel) {
+        DesignDiff diff = new DesignDiff(leftLabel, rightLabel);
+        List<DesignDiff.PatchOperation> ops = diff.getOperations();
+
+        if (Objects.equals(ContentHasher.hashOf(left), ContentHasher.hashOf(right))) {
+            // Same content; the version is the one diffed field the content hash leaves out
+            diffValue("/version", left.getVersion(), right.getVersion(), ops);
+            diff.setIdentical(ops.isEmpty());
+            return diff;
+        }
+
+        diffValue("/name", left.getName(), right.getName(), ops);
+        diffValue("/description", left.getDescription(), right.getDescription(), ops);
+        diffValue("/version", left.getVersion(), right.getVersion(), ops);
+        diffValue("/status", name(left.getStatus()), name(right.getStatus()), ops);
+        diffValue("/tags", left.getTags(), right.getTags(), ops);
+        diffValue("/isPublic", left.getIsPublic(), right.getIsPublic(), ops);
+        diffValue("/previewImage", left.getPreviewImage(), right.getPreviewImage(), ops);
+        diffValue("/globalStyles", left.getGlobalStyles(), right.getGlobalStyles(), ops);
+        if (!Objects.equals(ContentHasher.hashCanvasConfig(left.getCanvasConfig()),
+                ContentHasher.hashCanvasConfig(right.getCanvasConfig()))) {
+            diffValue("/canvasConfig", asMap(left.getCanvasConfig()), asMap(right.getCanvasConfig()), ops);
+        }
+        if (!Objects.equals(ContentHasher.hashThemeSettings(left.getThemeSettings()),
+                ContentHasher.hashThemeSettings(right.getThemeSettings()))) {
+            diffValue("/themeSettings", asMap(left.getThemeSettings()), asMap(right.getThemeSettings()), ops);
+        }
+        if (!Objects.equals(ContentHasher.hashMetadata(left.getMetadata()),
+                ContentHasher.hashMetadata(right.getMetadata()))) {
+            diffValue("/metadata", asMap(left.getMetadata()), asMap(right.getMetadata()), ops);
+        }
+
+        diffComponents(left.getComponents(), right.getComponents(), diff);
+
+        diff.setIdentical(ops.isEmpty());
+        return diff;
+    }
+
+    private void diffComponents(List<Design.DesignComponent> leftComponents,
+                                List<Design.DesignComponent> rightComponents, DesignDiff diff) {
+        List<DesignDiff.PatchOperation> ops = diff.getOperations();
+        Map<String, Design.DesignComponent> leftById = byId(leftComponents);
+        Map<String, Design.DesignComponent> rightById = byId(rightComponents);
+
+        for (String id : leftById.keySet()) {
+            if (!rightById.containsKey(id)) {
+                ops.add(new DesignDiff.PatchOperation("remove", componentPath(id), null, null));
+                diff.setRemovedComponents(diff.getRemovedComponents() + 1);
+            }
+        }
+
+        for (Map.Entry<String, Design.DesignComponent> entry : rightById.entrySet()) {
+            Design.DesignComponent before = leftById.get(entry.getKey());
+            Design.DesignComponent after = entry.getValue();
+            if (before == null) {
+                ops.add(new DesignDiff.PatchOperation("add", componentPath(entry.getKey()), after, null));
+                diff.setAddedComponents(diff.getAddedComponents() + 1);
+            } else if (!Objects.equals(ContentHasher.hashOf(before), ContentHasher.hashOf(after))) {
+                int sizeBefore = ops.size();
+                diffComponent(componentPath(entry.getKey()), before, after, ops);
+                if (ops.size() > sizeBefore) {
+                    diff.setModifiedComponents(diff.getModifiedComponents() + 1);
+                }
+            }
+        }
+
+        List<String> moved = diffOrder("/components", List.copyOf(leftById.keySet()),
+                List.copyOf(rightById.keySet()), false, ops);
+        diff.setMovedComponents(moved.size());
+    }
+
+    private void diffComponent(String path, Design.DesignComponent before, Design.DesignComponent after,
+                               List<DesignDiff.PatchOperation> ops) {
+        diffValue(path + "/type", before.getType(), after.getType(), ops);
+        diffValue(path + "/name", before.getName(), after.getName(), ops);
+        diffValue(path + "/parentId", before.getParentId(), after.getParentId(), ops);
+        diffValue(path + "/zIndex", before.getZIndex(), after.getZIndex(), ops);
+        diffValue(path + "/visible", before.getVisible(), after.getVisible(), ops);
+        diffValue(path + "/locked", before.getLocked(), after.getLocked(), ops);
+        diffValue(path + "/properties", before.getProperties(), after.getProperties(), ops);
+        diffValue(path + "/styles", before.getStyles(), after.getStyles(), ops);
+        diffValue(path + "/position", before.getPosition(), after.getPosition(), ops);
+        diffValue(path + "/size", before.getSize(), after.getSize(), ops);
+
+        List<String> childrenBefore = before.getChildren();
+        List<String> childrenAfter = after.getChildren();
+        if (childrenBefore == null || childrenAfter == null || hasDuplicates(childrenBefore) || hasDuplicates(childrenAfter)) {
+            diffValue(path + "/children", childrenBefore, childrenAfter, ops);
+        } else if (!childrenBefore.equals(childrenAfter)) {
+            diffOrder(path + "/children", childrenBefore, childrenAfter, true, ops);
+        }
+    }
+
+    // Recursive diff of maps; anything else that differs is replaced as a whole
+    private void diffValue(String path, Object before, Object after, List<DesignDiff.PatchOperation> ops) {
+        if (before instanceof Map<?, ?> beforeMap && after instanceof Map<?, ?> afterMap) {
+            for (Map.Entry<?, ?> entry : beforeMap.entrySet()) {
+                if (!afterMap.containsKey(entry.getKey())) {
+                    ops.add(new DesignDiff.PatchOperation("remove", path + "/" + escape(entry.getKey()), null, entry.getValue()));
+                }
+            }
+            for (Map.Entry<?, ?> entry : afterMap.entrySet()) {
+                String childPath = path + "/" + escape(entry.getKey());
+                if (!beforeMap.containsKey(entry.getKey())) {
+                    ops.add(new DesignDiff.PatchOperation("add", childPath, entry.getValue(), null));
+                } else {
+                    diffValue(childPath, beforeMap.get(entry.getKey()), entry.getValue(), ops);
+                }
+            }
+        } else if (!valuesEqual(before, after)) {
+            if (before == null) {
+                ops.add(new DesignDiff.PatchOperation("add", path, after, null));
+            } else if (after == null) {
+                ops.add(new DesignDiff.PatchOperation("remove", path, null, before));
+            } else {
+                ops.add(new DesignDiff.PatchOperation("replace", path, after, before));
+            }
+        }
+    }
+
+    /**
+     * Diff two sequences of unique ids, returning the ids that moved.
+     *
+     * The ids to keep in place are the longest common subsequence, found as the longest
+     * increasing subsequence of their positions in the new sequence. Every other id is then
+     * placed right after its predecessor in the new sequence, in that order, so the operations
+     * replay in order: indexes refer to the list as the previous operations left it. Indexes are
+     * counted in a Fenwick tree, so the whole diff stays O(n log n). With
+     * indexed set the list is addressed by position (removes, then adds and moves with from);
+     * otherwise components are added and removed by id elsewhere, adds appending, and a move's
+     * value is the index it moves to.
+     */
+    private List<String> diffOrder(String path, List<String> before, List<String> after, boolean indexed,
+                                   List<DesignDiff.PatchOperation> ops) {
+        Set<String> afterIds = new HashSet<>(after);
+        if (indexed) {
+            for (int i = before.size() - 1; i >= 0; i--) {
+                if (!afterIds.contains(before.get(i))) {
+                    ops.add(new DesignDiff.PatchOperation("remove", path + "/" + i, null, before.get(i)));
+                }
+            }
+        }
+        List<String> working = new ArrayList<>(before.size() + after.size());
+        for (String id : before) {
+            if (afterIds.contains(id)) {
+                working.add(id);
+            }
+        }
+        Set<String> common = new HashSet<>(working);
+        Set<String> present = common;
+        if (!indexed) {
+            for (String id : after) {
+                if (!common.contains(id)) {
+                    working.add(id);
+                }
+            }
+            present = afterIds;
+        }
+
+        Map<String, Integer> afterIndex = new HashMap<>(after.size() * 2);
+        for (int i = 0; i < after.size(); i++) {
+            afterIndex.put(after.get(i), i);
+        }
+        Map<String, Integer> workingIndex = new HashMap<>(working.size() * 2);
+        int[] positions = new int[working.size()];
+        for (int i = 0; i < positions.length; i++) {
+            workingIndex.put(working.get(i), i);
+            positions[i] = afterIndex.get(working.get(i));
+        }
+        Set<String> stable = longestIncreasing(working, positions);
+        if (stable.size() == after.size()) {
+            return List.of();
+        }
+
+        // Every placed id ends up in a run right after the last stable id before it in the new
+        // sequence, ahead of ids still waiting at their old positions, so both the old and the
+        // placed position of every id have a fixed rank and indexes are counts of occupied ranks
+        long width = after.size() + 1L;
+        long[] placedKeys = new long[after.size()];
+        int anchor = -1;
+        for (int i = 0; i < after.size(); i++) {
+            String id = after.get(i);
+            if (stable.contains(id)) {
+                anchor = workingIndex.get(id);
+            } else {
+                placedKeys[i] = (anchor + 1) * width + i + 1;
+            }
+        }
+        long[] keys = new long[working.size() + after.size()];
+        int keyCount = 0;
+        for (int i = 0; i < working.size(); i++) {
+            keys[keyCount++] = (i + 1) * width;
+        }
+        for (long key : placedKeys) {
+            if (key != 0) {
+                keys[keyCount++] = key;
+            }
+        }
+        keys = Arrays.copyOf(keys, keyCount);
+        Arrays.sort(keys);
+        OccupiedRanks occupied = new OccupiedRanks(keys.length);
+        for (int i = 0; i < working.size(); i++) {
+            occupied.set(Arrays.binarySearch(keys, (i + 1) * width), 1);
+        }
+
+        List<String> moved = new ArrayList<>();
+        for (int i = 0; i < after.size(); i++) {
+            String id = after.get(i);
+            if (stable.contains(id)) {
+                continue;
+            }
+            int from = -1;
+            if (present.contains(id)) {
+                int rank = Arrays.binarySearch(keys, (workingIndex.get(id) + 1) * width);
+                from = occupied.countBefore(rank);
+                occupied.set(rank, -1);
+            }
+            int rank = Arrays.binarySearch(keys, placedKeys[i]);
+            int target = occupied.countBefore(rank);
+            occupied.set(rank, 1);
+            if (from < 0) {
+                ops.add(new DesignDiff.PatchOperation("add", path + "/" + target, id, null));
+            } else {
+                if (common.contains(id)) {
+                    moved.add(id);
+                }
+                ops.add(indexed
+                        ? DesignDiff.PatchOperation.move(path + "/" + from, path + "/" + target)
+                        : new DesignDiff.PatchOperation("move", componentPath(id), target, null));
+            }
+        }
+        return moved;
+    }
+
+    // Fenwick tree over ranks, counting the occupied ones before a rank in O(log n)
+    private static final class OccupiedRanks {
+        private final int[] tree;
+
+        OccupiedRanks(int size) {
+            tree = new int[size + 1];
+        }
+
+        void set(int rank, int delta) {
+            for (int i = rank + 1; i < tree.length; i += i & -i) {
+                tree[i] += delta;
+            }
+        }
+
+        int countBefore(int rank) {
+            int count = 0;
+            for (int i = rank; i > 0; i -= i & -i) {
+                count += tree[i];
+            }
+            return count;
+        }
+    }
+
+    // Patience-sorting LIS in O(n log n), returning the ids on one longest increasing run
+    private static Set<String> longestIncreasing(List<String> ids, int[] positions) {
+        int n = positions.length;
+        int[] tailIndex = new int[n];
+        int[] previous = new int[n];
+        int length = 0;
+        for (int i = 0; i < n; i++) {
+            int low = 0;
+            int high = length;
+            while (low < high) {
+                int mid = (low + high) >>> 1;
+                if (positions[tailIndex[mid]] < positions[i]) {
+                    low = mid + 1;
+                } else {
+                    high = mid;
+                }
+            }
+            previous[i] = low > 0 ? tailIndex[low - 1] : -1;
+            tailIndex[low] = i;
+            if (low == length) {
+                length++;
+            }
+        }
+
+        Set<String> stable = new HashSet<>(length * 2);
+        for (int i = length > 0 ? tailIndex[length - 1] : -1; i >= 0; i = previous[i]) {
+            stable.add(ids.get(i));
+        }
+        return stable;
+    }
+
+    private static Map<String, Design.DesignComponent> byId(List<Design.DesignComponent> components) {
+        Map<String, Design.DesignComponent> byId = new java.util.LinkedHashMap<>();
+        if (components != null) {
+            for (int i = 0; i < components.size(); i++) {
+                Design.DesignComponent component = components.get(i);
+                if (component != null) {
+                    // Components without an id are addressed by position so they still show up in the diff
+                    byId.put(component.getId() != null ? component.getId() : "#" + i, component);
+                }
+            }
+        }
+        return byId;
+    }
+
+    private static boolean hasDuplicates(List<String> ids) {
+        return new LinkedHashSet<>(ids).size() != ids.size();
+    }
+
+    // Numbers compare by value so 1 and 1.0 from different deserializers are not reported
+    private static boolean valuesEqual(Object a, Object b) {
+        if (a instanceof Number x && b instanceof Number y) {
+            return x.doubleValue() == y.doubleValue();
+        }
+        if (a instanceof List<?> x && b instanceof List<?> y) {
+            if (x.size() != y.size()) {
+                return false;
+            }
+            for (int i = 0; i < x.size(); i++) {
+                if (!valuesEqual(x.get(i), y.get(i))) {
+                    return false;
+                }
+            }
+            return true;
+        }
+        if (a instanceof Map<?, ?> && b instanceof Map<?, ?>) {
+            return ContentHasher.hashValue(a).equals(ContentHasher.hashValue(b));
+        }
+        return Objects.equals(a, b);
+    }
+
+    private Map<String, Object> asMap(Object value) {
+        return value == null ? Collections.emptyMap() : objectMapper.convertValue(value, MAP_TYPE);
+    }
+
+    private static String name(Enum<?> value) {
+        return value == null ? null : value.name();
+    }
+
+    private static String componentPath(String id) {
+        return "/components/" + escape(id);
+    }
+
+    // JSON Pointer escaping (RFC 6901)
+    private static String escape(Object key) {
+        return String.valueOf(key).replace("~", "~0").replace("/", "~1");
+    }
+}
@@ -0,0 +1,451 @@
+package com.ace.templateengine.service;
+
+import com.ace.templateengine.dto.FacetQueryResult;
+import com.ace.templateengine.exception.InvalidFacetQueryException;
+import com.ace.templateengine.model.Design;
+import com.mongodb.MongoException;
+import org.bson.Document;
+import org.bson.types.ObjectId;
+import org.roaringbitmap.RoaringBitmap;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.PriorityQueue;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * In-memory index of design facets answering boolean facet queries with counts.
+ *
+ * Designs get dense ordinals, reused after deletes, and every facet value keeps a compressed
+ * bitmap of the ordinals carrying it. A query is a few bitmap operations and its counts are
+ * intersection cardinalities, so neither touches the database. DesignService keeps the index
+ * current for its own writes; a periodic rebuild picks up writes made elsewhere.
+ */
+@Service
+public class DesignFacetIndex {
+
+    private static final Logger logger = LoggerFactory.getLogger(DesignFacetIndex.class);
+
+    public static final String TAG = "tag";
+    public static final String CATEGORY = "category";
+    public static final String STATUS = "status";
+    public static final String PUBLIC = "public";
+    public static final String TYPE = "type";
+    public static final List<String> FACETS = List.of(TAG, CATEGORY, STATUS, PUBLIC, TYPE);
+
+    private static final String COLLECTION = "designs";
+
+    // Queries matching at least one design in this many page through the sorted ids directly
+    private static final int SORTED_WALK_RATIO = 8;
+
+    // Only the facet fields are read when rebuilding
+    private static final Document PROJECTION = new Document("tags", 1)
+            .append("metadata.category", 1)
+            .append("status", 1)
+            .append("is_public", 1)
+            .append("components.type", 1)
+            .append("component_types", 1);
+
+    @Autowired
+    private MongoTemplate mongoTemplate;
+
+    @Value("${app.designs.facets.max-page-size:1000}")
+    private int maxPageSize;
+
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+
+    // Guarded by lock
+    private Ordinals state = new Ordinals();
+
+    // Writes made while a rebuild reads the database, replayed onto its result; null values are deletes
+    private Map<String, Map<String, Set<String>>> writesDuringRebuild;
+
+    private volatile boolean loaded;
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void load() {
+        try {
+            rebuild();
+        } catch (MongoException e) {
+            // The first query retries
+            logger.warn("Could not build the design facet index: {}", e.getMessage());
+        }
+    }
+
+    @Scheduled(cron = "${app.designs.facets.rebuild-cron:0 */15 * * * *}")
+    public void scheduledRebuild() {
+        load();
+    }
+
+    // Index the current state of a saved design
+    public void put(Design design) {
+        if (design == null || design.getId() == null) {
+            return;
+        }
+        write(design.getId(), valuesOf(design));
+    }
+
+    public void remove(String id) {
+        write(id, null);
+    }
+
+    /**
+     * Designs matching a facet query, in design id order, with per-facet value counts over all
+     * matches. A blank query matches every design; countFacets limits the counted facets, null
+     * counts all. The page starts after the design id given as cursor, if any, then skips offset
+     * matches; ordinals are not used for paging since a rebuild reassigns them.
+     */
+    public FacetQueryResult query(String query, String after, int offset, int limit, Collection<String> countFacets) {
+        FacetQuery.Node node = query == null || query.isBlank() ? null : FacetQuery.parse(query, FACETS);
+        List<String> counted = countedFacets(countFacets);
+        if (!loaded) {
+            rebuild();
+        }
+
+        long started = System.nanoTime();
+        FacetQueryResult result = new FacetQueryResult(query);
+        lock.readLock().lock();
+        try {
+            RoaringBitmap matches = node == null ? state.all : evaluate(node, state);
+            int total = matches.getCardinality();
+            result.setTotal(total);
+            result.setIndexedDesigns(state.all.getCardinality());
+
+            int pageSize = Math.max(0, Math.min(limit, maxPageSize));
+            List<String> designIds = new ArrayList<>(Math.min(pageSize, total));
+            if (offset >= 0 && offset < total && pageSize > 0) {
+                Iterator<String> matching = matchingIds(matches, total, after);
+                for (int skipped = 0; skipped < offset && matching.hasNext(); skipped++) {
+                    matching.next();
+                }
+                while (matching.hasNext() && designIds.size() < pageSize) {
+                    designIds.add(matching.next());
+                }
+                if (matching.hasNext() && !designIds.isEmpty()) {
+                    result.setNext(designIds.get(designIds.size() - 1));
+                }
+            }
+            result.setDesignIds(designIds);
+
+            Map<String, Map<String, Integer>> counts = new LinkedHashMap<>();
+            for (String facet : counted) {
+                Map<String, Integer> valueCounts = new TreeMap<>();
+                state.bitmaps.getOrDefault(facet, Map.of()).forEach((value, bitmap) -> {
+                    int count = RoaringBitmap.andCardinality(matches, bitmap);
+                    if (count > 0) {
+                        valueCounts.put(value, count);
+                    }
+                });
+                counts.put(facet, valueCounts);
+            }
+            result.setCounts(counts);
+        } finally {
+            lock.readLock().unlock();
+        }
+        result.setElapsedMicros((System.nanoTime() - started) / 1000);
+        return result;
+    }
+
+    // Matching design ids after the cursor in id order. Broad matches walk the sorted ids, which
+    // stops once the page is full; narrow ones sort just the matches. Callers hold the read lock.
+    private Iterator<String> matchingIds(RoaringBitmap matches, int total, String after) {
+        NavigableMap<String, Integer> ids = after == null ? state.ordinals : state.ordinals.tailMap(after, false);
+        if ((long) total * SORTED_WALK_RATIO >= state.all.getCardinality()) {
+            return ids.entrySet().stream()
+                    .filter(entry -> matches.contains(entry.getValue()))
+                    .map(Map.Entry::getKey)
+                    .iterator();
+        }
+        List<String> matched = new ArrayList<>(total);
+        for (int ordinal : matches) {
+            String id = state.designIds.get(ordinal);
+            if (after == null || id.compareTo(after) > 0) {
+                matched.add(id);
+            }
+        }
+        matched.sort(null);
+        return matched.iterator();
+    }
+
+    // Reload every design's facets from the database and swap the result in
+    public synchronized void rebuild() {
+        long started = System.currentTimeMillis();
+        lock.writeLock().lock();
+        try {
+            writesDuringRebuild = new LinkedHashMap<>();
+        } finally {
+            lock.writeLock().unlock();
+        }
+
+        Ordinals rebuilt = new Ordinals();
+        try {
+            for (Document document : mongoTemplate.getCollection(COLLECTION).find().projection(PROJECTION).batchSize(5000)) {
+                rebuilt.put(idOf(document.get("_id")), valuesOf(document));
+            }
+        } catch (RuntimeException e) {
+            lock.writeLock().lock();
+            try {
+                writesDuringRebuild = null;
+            } finally {
+                lock.writeLock().unlock();
+            }
+            throw e;
+        }
+
+        lock.writeLock().lock();
+        try {
+            writesDuringRebuild.forEach((id, values) -> {
+                if (values == null) {
+                    rebuilt.remove(id);
+                } else {
+                    rebuilt.put(id, values);
+                }
+            });
+            writesDuringRebuild = null;
+            rebuilt.optimize();
+            state = rebuilt;
+            loaded = true;
+        } finally {
+            lock.writeLock().unlock();
+        }
+        logger.debug("Rebuilt the design facet index with {} designs in {} ms",
+                rebuilt.all.getCardinality(), System.currentTimeMillis() - started);
+    }
+
+    private void write(String id, Map<String, Set<String>> values) {
+        lock.writeLock().lock();
+        try {
+            if (values == null) {
+                state.remove(id);
+            } else {
+                state.put(id, values);
+            }
+            if (writesDuringRebuild != null) {
+                writesDuringRebuild.put(id, values);
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    // Stored bitmaps are only read; every operation below returns a new bitmap
+    private static RoaringBitmap evaluate(FacetQuery.Node node, Ordinals state) {
+        return switch (node) {
+            case FacetQuery.Term term -> {
+                RoaringBitmap bitmap = state.bitmaps.getOrDefault(term.facet(), Map.of())
+                        .get(normalize(term.facet(), term.value()));
+                yield bitmap != null ? bitmap : new RoaringBitmap();
+            }
+            case FacetQuery.Not not -> RoaringBitmap.andNot(state.all, evaluate(not.operand(), state));
+            case FacetQuery.And and -> {
+                // Negated operands are subtracted instead of materializing their complement
+                RoaringBitmap result = null;
+                List<FacetQuery.Node> negated = new ArrayList<>();
+                for (FacetQuery.Node operand : and.operands()) {
+                    if (operand instanceof FacetQuery.Not not) {
+                        negated.add(not.operand());
+                    } else {
+                        RoaringBitmap bitmap = evaluate(operand, state);
+                        result = result == null ? bitmap : RoaringBitmap.and(result, bitmap);
+                    }
+                }
+                if (result == null) {
+                    result = state.all;
+                }
+                for (FacetQuery.Node operand : negated) {
+                    result = RoaringBitmap.andNot(result, evaluate(operand, state));
+                }
+                yield result;
+            }
+            case FacetQuery.Or or -> {
+                RoaringBitmap result = new RoaringBitmap();
+                for (FacetQuery.Node operand : or.operands()) {
+                    result.or(evaluate(operand, state));
+                }
+                yield result;
+            }
+        };
+    }
+
+    private static List<String> countedFacets(Collection<String> countFacets) {
+        if (countFacets == null) {
+            return FACETS;
+        }
+        List<String> counted = new ArrayList<>();
+        for (String facet : countFacets) {
+            String name = facet.trim().toLowerCase(Locale.ROOT);
+            if (!FACETS.contains(name)) {
+                throw new InvalidFacetQueryException("Unknown facet '" + facet + "', expected one of " + FACETS);
+            }
+            counted.add(name);
+        }
+        return counted;
+    }
+
+    // Status values are enum names and public values booleans; the other facets match exactly like Mongo does
+    private static String normalize(String facet, String value) {
+        return switch (facet) {
+            case STATUS -> value.toUpperCase(Locale.ROOT);
+            case PUBLIC -> value.toLowerCase(Locale.ROOT);
+            default -> value;
+        };
+    }
+
+    private static Map<String, Set<String>> valuesOf(Design design) {
+        Map<String, Set<String>> values = new HashMap<>();
+        addAll(values, TAG, design.getTags());
+        if (design.getMetadata() != null) {
+            add(values, CATEGORY, design.getMetadata().getCategory());
+        }
+        if (design.getStatus() != null) {
+            add(values, STATUS, design.getStatus().name());
+        }
+        add(values, PUBLIC, String.valueOf(Boolean.TRUE.equals(design.getIsPublic())));
+        if (design.getComponents() != null) {
+            for (Design.DesignComponent component : design.getComponents()) {
+                if (component != null) {
+                    add(values, TYPE, component.getType());
+                }
+            }
+        } else {
+            addAll(values, TYPE, design.getComponentTypes());
+        }
+        return values;
+    }
+
+    private static Map<String, Set<String>> valuesOf(Document design) {
+        Map<String, Set<String>> values = new HashMap<>();
+        if (design.get("tags") instanceof List<?> tags) {
+            addAll(values, TAG, tags);
+        }
+        if (design.get("metadata") instanceof Document metadata && metadata.get("category") instanceof String category) {
+            add(values, CATEGORY, category);
+        }
+        if (design.get("status") instanceof String status) {
+            add(values, STATUS, status);
+        }
+        add(values, PUBLIC, String.valueOf(Boolean.TRUE.equals(design.get("is_public"))));
+        if (design.get("components") instanceof List<?> components) {
+            for (Object component : components) {
+                if (component instanceof Document document && document.get("type") instanceof String type) {
+                    add(values, TYPE, type);
+                }
+            }
+        }
+        if (design.get("component_types") instanceof List<?> types) {
+            addAll(values, TYPE, types);
+        }
+        return values;
+    }
+
+    private static void addAll(Map<String, Set<String>> values, String facet, Collection<?> items) {
+        if (items != null) {
+            for (Object item : items) {
+                if (item instanceof String value) {
+                    add(values, facet, value);
+                }
+            }
+        }
+    }
+
+    private static void add(Map<String, Set<String>> values, String facet, String value) {
+        if (value != null) {
+            values.computeIfAbsent(facet, key -> new LinkedHashSet<>()).add(value);
+        }
+    }
+
+    private static String idOf(Object id) {
+        return id instanceof ObjectId objectId ? objectId.toHexString() : String.valueOf(id);
+    }
+
+    // Dense ordinals of the indexed designs and the bitmaps of their facet values
+    private static final class Ordinals {
+        // In design id order, which paging follows
+        final NavigableMap<String, Integer> ordinals = new TreeMap<>();
+        final List<String> designIds = new ArrayList<>();
+        final List<Map<String, Set<String>>> valuesByOrdinal = new ArrayList<>();
+        final PriorityQueue<Integer> freeOrdinals = new PriorityQueue<>();
+        final Map<String, Map<String, RoaringBitmap>> bitmaps = new HashMap<>();
+        final RoaringBitmap all = new RoaringBitmap();
+
+        void put(String id, Map<String, Set<String>> values) {
+            Integer ordinal = ordinals.get(id);
+            if (ordinal == null) {
+                // The lowest free ordinal keeps the bitmaps dense
+                ordinal = freeOrdinals.isEmpty() ? designIds.size() : freeOrdinals.poll();
+                if (ordinal == designIds.size()) {
+                    designIds.add(id);
+                    valuesByOrdinal.add(null);
+                } else {
+                    designIds.set(ordinal, id);
+                }
+                ordinals.put(id, ordinal);
+                all.add(ordinal);
+            } else {
+                unindex(ordinal);
+            }
+            valuesByOrdinal.set(ordinal, values);
+            int indexed = ordinal;
+            values.forEach((facet, facetValues) -> {
+                Map<String, RoaringBitmap> facetBitmaps = bitmaps.computeIfAbsent(facet, key -> new HashMap<>());
+                for (String value : facetValues) {
+                    facetBitmaps.computeIfAbsent(value, key -> new RoaringBitmap()).add(indexed);
+                }
+            });
+        }
+
+        void remove(String id) {
+            Integer ordinal = ordinals.remove(id);
+            if (ordinal == null) {
+                return;
+            }
+            unindex(ordinal);
+            designIds.set(ordinal, null);
+            valuesByOrdinal.set(ordinal, null);
+            all.remove(ordinal);
+            freeOrdinals.add(ordinal);
+        }
+
+        // Run-length encode the containers once a bulk load is done
+        void optimize() {
+            all.runOptimize();
+            bitmaps.values().forEach(facetBitmaps -> facetBitmaps.values().forEach(RoaringBitmap::runOptimize));
+        }
+
+        private void unindex(int ordinal) {
+            Map<String, Set<String>> values = valuesByOrdinal.get(ordinal);
+            if (values == null) {
+                return;
+            }
+            values.forEach((facet, facetValues) -> {
+                Map<String, RoaringBitmap> facetBitmaps = bitmaps.get(facet);
+                for (String value : facetValues) {
+                    RoaringBitmap bitmap = facetBitmaps.get(value);
+                    bitmap.remove(ordinal);
+                    if (bitmap.isEmpty()) {
+                        facetBitmaps.remove(value);
+                    }
+                }
+            });
+        }
+    }
+}
@@ -0,0 +1,275 @@
+package com.ace.templateengine.service;
+
+import com.ace.templateengine.model.Design;
+import com.mongodb.MongoException;
+import com.mongodb.client.model.Aggregates;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import org.bson.Document;
+import org.bson.conversions.Bson;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.regex.Matcher;
+
+/**
+ * Renders designs to HTML on the server, for emails, PDFs and previews.
+ *
+ * A design is compiled once into a {@link RenderPlan}, cached by content hash, so rendering a
+ * design again, with any data, only runs its queries and streams the plan. The queries of a
+ * render run concurrently before output starts; a failing query leaves its section empty
+ * rather than failing the whole render.
+ */
+@Service
+public class DesignRenderer {
+
+    private static final Logger logger = LoggerFactory.getLogger(DesignRenderer.class);
+
+    @Autowired
+    private DesignService designService;
+
+    @Autowired
+    private MongoTemplate mongoTemplate;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Value("${app.designs.render.plan-cache-size:256}")
+    private int planCacheSize;
+
+    // Data collections designs may bind to and join; the application's own collections are never listed
+    @Value("${app.designs.render.bindable-collections:account_balances,chart_of_accounts,distributions,fund_info,journal_entries,nav_history,share_transactions}")
+    private Set<String> bindableCollections;
+
+    private Map<String, RenderPlan> plans;
+    private Counter planHits;
+    private Counter planMisses;
+
+    @PostConstruct
+    void initialize() {
+        plans = new LinkedHashMap<>(64, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, RenderPlan> eldest) {
+                return size() > planCacheSize;
+            }
+        };
+        planHits = Counter.builder("ace.design.render.plans").tag("result", "cached")
+                .description("Design renders by whether the compiled plan was cached")
+                .register(meterRegistry);
+        planMisses = Counter.builder("ace.design.render.plans").tag("result", "compiled")
+                .description("Design renders by whether the compiled plan was cached")
+                .register(meterRegistry);
+    }
+
+    /**
+     * Render a design with the given variables, as a complete HTML document or, when fragment is
+     * set, only its root element for embedding. Nothing is written before the design is found
+     * and its data is loaded.
+     */
+    public void render(String designId, Map<String, Object> variables, boolean fragment, Writer out) throws IOException {
+        RenderPlan plan = plan(designService.getDesignShell(designId));
+        List<List<Map<String, Object>>> rows = fetch(plan.bindings(), variables);
+        plan.render(out, variables, rows, fragment);
+        out.flush();
+    }
+
+    // Only the shell is loaded to look up the plan; components are loaded when it has to be compiled
+    RenderPlan plan(Design shell) {
+        String contentHash = ContentHasher.hashOf(shell);
+        RenderPlan plan;
+        synchronized (plans) {
+            plan = plans.get(contentHash);
+        }
+        if (plan != null) {
+            planHits.increment();
+            return plan;
+        }
+        planMisses.increment();
+        plan = RenderPlanCompiler.compile(designService.withComponents(shell));
+        synchronized (plans) {
+            plans.put(contentHash, plan);
+        }
+        return plan;
+    }
+
+    private List<List<Map<String, Object>>> fetch(List<RenderPlan.DataBinding> bindings, Map<String, Object> variables) {
+        if (bindings.isEmpty()) {
+            return List.of();
+        }
+        if (bindings.size() == 1) {
+            return List.of(fetch(bindings.get(0), variables));
+        }
+        try (ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor()) {
+            List<Future<List<Map<String, Object>>>> futures = new ArrayList<>(bindings.size());
+            for (RenderPlan.DataBinding binding : bindings) {
+                futures.add(executor.submit(() -> fetch(binding, variables)));
+            }
+            List<List<Map<String, Object>>> rows = new ArrayList<>(bindings.size());
+            for (Future<List<Map<String, Object>>> future : futures) {
+                rows.add(future.get());
+            }
+            return rows;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while loading design data", e);
+        } catch (ExecutionException e) {
+            throw e.getCause() instanceof RuntimeException runtime ? runtime : new IllegalStateException(e.getCause());
+        }
+    }
+
+    private List<Map<String, Object>> fetch(RenderPlan.DataBinding binding, Map<String, Object> variables) {
+        try {
+            return query(binding, variables);
+        } catch (MongoException e) {
+            logger.warn("Design data query on {} failed: {}", binding.collection(), e.getMessage());
+            return List.of();
+        }
+    }
+
+    // Rows of a binding for the given variables; empty for bindings that read collections not bindable
+    List<Map<String, Object>> query(RenderPlan.DataBinding binding, Map<String, Object> variables) {
+        if (!isBindable(binding.collection(), binding.pipeline())) {
+            return List.of();
+        }
+        List<Map<String, Object>> rows = new ArrayList<>();
+        if (binding.pipeline() != null) {
+            List<Document> stages = new ArrayList<>(binding.pipeline().size());
+            for (Document stage : binding.pipeline()) {
+                stages.add((Document) substitute(stage, variables));
+            }
+            // Checked again as it runs, so no join can take its collection from a variable
+            if (!isBindable(binding.collection(), stages)) {
+                return List.of();
+            }
+            List<Bson> pipeline = new ArrayList<>(stages);
+            pipeline.add(Aggregates.limit(binding.limit()));
+            mongoTemplate.getCollection(binding.collection()).aggregate(pipeline).forEach(rows::add);
+        } else {
+            Document filter = binding.filter() == null ? new Document() : (Document) substitute(binding.filter(), variables);
+            mongoTemplate.getCollection(binding.collection()).find(filter)
+                    .sort(binding.sort())
+                    .projection(binding.projection())
+                    .limit(binding.limit())
+                    .forEach(rows::add);
+        }
+        return rows;
+    }
+
+    /**
+     * Rows of a find binding for many values of one filter field at once, grouped by that field
+     * and limited per value like separate queries would be. The field's own filter condition is
+     * replaced by the given values.
+     */
+    Map<Object, List<Map<String, Object>>> queryGrouped(RenderPlan.DataBinding binding, String field, Collection<?> values,
+                                                        Map<String, Object> variables) {
+        Map<Object, List<Map<String, Object>>> grouped = new HashMap<>();
+        if (!isBindable(binding.collection(), binding.pipeline()) || values.isEmpty()) {
+            return grouped;
+        }
+        Document filter = binding.filter() == null ? new Document() : (Document) substitute(binding.filter(), variables);
+        filter.put(field, new Document("$in", new ArrayList<>(values)));
+        Document projection = binding.projection() == null ? null : new Document(binding.projection()).append(field, 1);
+        for (Document row : mongoTemplate.getCollection(binding.collection()).find(filter)
+                .sort(binding.sort())
+                .projection(projection)
+                .batchSize(1000)) {
+            List<Map<String, Object>> rows = grouped.computeIfAbsent(row.get(field), key -> new ArrayList<>());
+            if (rows.size() < binding.limit()) {
+                rows.add(row);
+            }
+        }
+        return grouped;
+    }
+
+    private boolean isBindable(String collection, List<Document> pipeline) {
+        if (!bindable(collection, pipeline)) {
+            logger.warn("Design data binding through {} reads a collection that is not bindable, ignored", collection);
+            return false;
+        }
+        return true;
+    }
+
+    // Whether a query on the collection, with the pipeline if any, reads bindable collections only
+    boolean bindable(String collection, List<Document> pipeline) {
+        return bindableCollections.contains(collection) && joinsBindable(pipeline);
+    }
+
+    // Whether every collection joined in through $lookup, $graphLookup or $unionWith is bindable
+    private boolean joinsBindable(Object value) {
+        if (value instanceof Map<?, ?> map) {
+            for (Map.Entry<?, ?> entry : map.entrySet()) {
+                Object stage = entry.getValue();
+                Object joined = switch (String.valueOf(entry.getKey())) {
+                    case "$lookup", "$graphLookup" -> stage instanceof Map<?, ?> lookup ? lookup.get("from") : stage;
+                    case "$unionWith" -> stage instanceof Map<?, ?> union ? union.get("coll") : stage;
+                    default -> null;
+                };
+                // A join without a collection reads only the documents of its own pipeline
+                if ((joined != null && !(joined instanceof String name && bindableCollections.contains(name)))
+                        || !joinsBindable(stage)) {
+                    return false;
+                }
+            }
+        } else if (value instanceof List<?> list) {
+            for (Object element : list) {
+                if (!joinsBindable(element)) {
+                    return false;
+                }
+            }
+        }
+        return true;
+    }
+
+    // Copy of a query with placeholders filled in; a value that is just a placeholder takes the variable as is
+    static Object substitute(Object value, Map<String, Object> variables) {
+        if (value instanceof Document document) {
+            Document copy = new Document();
+            document.forEach((key, nested) -> copy.put(key, substitute(nested, variables)));
+            return copy;
+        }
+        if (value instanceof List<?> list) {
+            List<Object> copy = new ArrayList<>(list.size());
+            list.forEach(element -> copy.add(substitute(element, variables)));
+            return copy;
+        }
+        if (!(value instanceof String text) || !text.contains("{{")) {
+            return value;
+        }
+        Deque<Map<String, Object>> scopes = new ArrayDeque<>();
+        scopes.push(variables);
+        Matcher matcher = RenderPlanCompiler.PLACEHOLDER.matcher(text);
+        if (matcher.matches()) {
+            // Only scalars, so a variable cannot smuggle query operators in
+            Object variable = RenderPlan.resolve(matcher.group(1).split("\\."), scopes);
+            return variable == null || variable instanceof String || variable instanceof Number || variable instanceof Boolean
+                    ? variable : RenderPlan.text(variable);
+        }
+        StringBuilder result = new StringBuilder();
+        while (matcher.find()) {
+            matcher.appendReplacement(result, Matcher.quoteReplacement(
+                    RenderPlan.text(RenderPlan.resolve(matcher.group(1).split("\\."), scopes))));
+        }
+        matcher.appendTail(result);
+        return result.toString();
+    }
+}
@@ -1,36 +1,118 @@
 package com.ace.templateengine.service;
 
+import com.ace.templateengine.config.DesignConverters;
 import com.ace.templateengine.model.Design;
+import com.ace.templateengine.model.DesignVersion;
+import com.ace.templateengine.repository.DesignIndexManager;
 import com.ace.templateengine.repository.DesignRepository;
 import com.ace.templateengine.exception.DesignNotFoundException;
 import com.ace.templateengine.exception.DuplicateDesignNameException;
+import com.ace.templateengine.exception.InvalidComponentHierarchyException;
+import com.ace.templateengine.dto.DesignDiff;
 import com.ace.templateengine.dto.DesignStats;
+import com.ace.templateengine.dto.SimilarDesign;
 
+import com.mongodb.MongoBulkWriteException;
+import com.mongodb.bulk.BulkWriteError;
+import com.mongodb.client.MongoCollection;
+import com.mongodb.client.model.Filters;
+import com.mongodb.client.model.InsertManyOptions;
+import com.mongodb.client.model.Projections;
+import org.bson.Document;
+import org.bson.types.ObjectId;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.TextCriteria;
 import org.springframework.stereotype.Service;
 
+import java.time.Duration;
+import java.time.Instant;
 import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.Objects;
 import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
 
 @Service
 public class DesignService {
     
+    private static final Logger logger = LoggerFactory.getLogger(DesignService.class);
+    
+    // Cache key used for the statistics over all designs
+    private static final String ALL_DESIGNS_STATS_KEY = "";
+    
+    private static final int DUPLICATE_KEY = 11000;
+    
     @Autowired
     private DesignRepository designRepository;
     
+    @Autowired
+    private DesignIndexManager designIndexManager;
+    
+    @Autowired
+    private DesignVersionService designVersionService;
+    
+    @Autowired
+    private DesignDiffService designDiffService;
+    
+    @Autowired
+    private DesignComponentStore designComponentStore;
+    
+    @Autowired
+    private SpatialIndexService spatialIndexService;
+    
+    @Autowired
+    private HierarchyIndexService hierarchyIndexService;
+    
+    @Autowired
+    private PreviewImageService previewImageService;
+    
+    @Autowired
+    private DesignChangeFeed designChangeFeed;
+    
+    @Autowired
+    private ComponentUsageService componentUsageService;
+    
+    @Autowired
+    private DesignFacetIndex designFacetIndex;
+    
+    @Autowired
+    private ContentStore contentStore;
+    
+    @Autowired
+    private MongoTemplate mongoTemplate;
+    
+    @Autowired
+    private DesignSimilarityIndex designSimilarityIndex;
+    
+    @Autowired
+    private RenderBundleService renderBundleService;
+    
+    @Value("${app.designs.stats-cache-ttl-seconds:30}")
+    private long statsCacheTtlSeconds;
+    
+    // Short-lived statistics cache keyed by creator, cleared on every design write
+    private final Map<String, CachedStats> statsCache = new ConcurrentHashMap<>();
+    
+    // Bumped on every invalidation; entries aggregated under an older generation are never served
+    private final AtomicLong statsGeneration = new AtomicLong();
+    
     // Create a new design
     public Design createDesign(Design design) {
-        // Check for duplicate name for the same user
-        if (design.getCreatedBy() != null && 
-            designRepository.existsByNameIgnoreCaseAndCreatedBy(design.getName(), design.getCreatedBy())) {
-            throw new DuplicateDesignNameException("Design with name '" + design.getName() + "' already exists for this user");
-        }
-        
         design.setCreatedAt(LocalDateTime.now());
         design.setUpdatedAt(LocalDateTime.now());
         
@@ -44,8 +126,21 @@ public class DesignService {
         if (design.getIsPublic() == null) {
             design.setIsPublic(false);
         }
+        checkNameAvailable(design.getName(), design.getCreatedBy());
+        HierarchyIndex hierarchy = hierarchyIndexService.validate(design.getComponents());
+        previewImageService.offload(design);
+        ContentHasher.apply(design);
         
-        return designRepository.save(design);
+        Design savedDesign = persist(design, null);
+        hierarchyIndexService.put(savedDesign, hierarchy);
+        afterWrite("version history", savedDesign.getId(), () -> designVersionService.recordVersion(null, savedDesign));
+        afterWrite("viewer assets", savedDesign.getId(), () -> prepareForViewers(null, savedDesign));
+        invalidateStats();
+        afterWrite("facet index", savedDesign.getId(), () -> designFacetIndex.put(savedDesign));
+        afterWrite("similarity index", savedDesign.getId(), () -> designSimilarityIndex.put(savedDesign));
+        afterWrite("change feed", savedDesign.getId(), () -> designChangeFeed.recordWrite(null, savedDesign));
+        afterWrite("component usage", savedDesign.getId(), () -> componentUsageService.record(null, savedDesign));
+        return savedDesign;
     }
     
     // Get all designs with pagination
@@ -60,12 +155,168 @@ public class DesignService {
         return designRepository.findAll();
     }
     
-    // Get design by ID
+    // Get design by ID, with all of its components
     public Design getDesignById(String id) {
+        return withComponents(getDesignShell(id));
+    }
+    
+    // Load the components of a design shell that keeps them in split storage
+    public Design withComponents(Design design) {
+        if (design.getComponentStorage() == Design.ComponentStorage.SPLIT && design.getComponents() == null) {
+            design.setComponents(designComponentStore.loadAll(design.getId()));
+        }
+        return design;
+    }
+    
+    // Get design by ID without loading split components; inline components come along with the document
+    public Design getDesignShell(String id) {
         return designRepository.findById(id)
                 .orElseThrow(() -> new DesignNotFoundException("Design not found with id: " + id));
     }
     
+    // Get one page of the components of a design
+    public Page<Design.DesignComponent> getDesignComponents(String id, int page, int size) {
+        return designComponentStore.page(getDesignShell(id), page, size);
+    }
+    
+    // Get a component and its descendants in hierarchy order
+    public List<Design.DesignComponent> getComponentSubtree(String id, String componentId) {
+        Design design = getDesignShell(id);
+        List<String> subtree = hierarchyFor(design).subtree(componentId);
+        if (subtree.isEmpty()) {
+            throw componentNotFound(id, componentId);
+        }
+        return componentsById(design, subtree);
+    }
+    
+    // Get the ancestors of a component, top level first
+    public List<Design.DesignComponent> getComponentAncestors(String id, String componentId) {
+        Design design = getDesignShell(id);
+        HierarchyIndex hierarchy = hierarchyFor(design);
+        if (!hierarchy.contains(componentId)) {
+            throw componentNotFound(id, componentId);
+        }
+        return componentsById(design, hierarchy.ancestors(componentId));
+    }
+    
+    // Move a component with its subtree under a new parent (null for the top level) at a position among its siblings
+    public Design moveComponent(String id, String componentId, String newParentId, Integer index, String updatedBy) {
+        Design design = getDesignById(id);
+        HierarchyIndex hierarchy = hierarchyIndexService.indexFor(design);
+        if (!hierarchy.contains(componentId)) {
+            throw componentNotFound(id, componentId);
+        }
+        if (newParentId != null) {
+            if (!hierarchy.contains(newParentId)) {
+                throw componentNotFound(id, newParentId);
+            }
+            if (newParentId.equals(componentId) || hierarchy.isAncestor(componentId, newParentId)) {
+                throw new InvalidComponentHierarchyException("Invalid component move",
+                        List.of("Component " + componentId + " cannot move into its own subtree"));
+            }
+        }
+        
+        // Changed components are replaced by copies without a stored content hash
+        List<Design.DesignComponent> components = new ArrayList<>(design.getComponents());
+        String oldParentId = hierarchy.parentOf(componentId);
+        if (oldParentId != null) {
+            Design.DesignComponent oldParent = copyOf(components.get(hierarchy.positionOf(oldParentId)));
+            if (oldParent.getChildren() != null) {
+                List<String> children = new ArrayList<>(oldParent.getChildren());
+                children.remove(componentId);
+                oldParent.setChildren(children);
+            }
+            components.set(hierarchy.positionOf(oldParentId), oldParent);
+        }
+        if (newParentId != null) {
+            Design.DesignComponent newParent = copyOf(components.get(hierarchy.positionOf(newParentId)));
+            List<String> children = newParent.getChildren() == null ? new ArrayList<>() : new ArrayList<>(newParent.getChildren());
+            children.remove(componentId);
+            children.add(index == null ? children.size() : Math.max(0, Math.min(index, children.size())), componentId);
+            newParent.setChildren(children);
+            components.set(hierarchy.positionOf(newParentId), newParent);
+        }
+        Design.DesignComponent moved = copyOf(components.get(hierarchy.positionOf(componentId)));
+        moved.setParentId(newParentId);
+        components.set(hierarchy.positionOf(componentId), moved);
+        
+        Design patch = new Design();
+        patch.setComponents(components);
+        patch.setUpdatedBy(updatedBy);
+        // Only the components change; keep the defaults of a new Design out of the patch
+        patch.setVersion(null);
+        patch.setStatus(null);
+        patch.setIsPublic(null);
+        return patchDesign(id, patch);
+    }
+    
+    // Validate the hierarchy only when components changed, so existing designs stay editable otherwise
+    private HierarchyIndex validateHierarchy(Design previous, Design updated) {
+        if (Objects.equals(ContentHasher.componentHashes(previous.getComponents()),
+                ContentHasher.componentHashes(updated.getComponents()))) {
+            return HierarchyIndex.build(updated.getComponents());
+        }
+        return hierarchyIndexService.validate(updated.getComponents());
+    }
+    
+    // Hierarchy of a design shell, loading split components only when no current index is cached
+    private HierarchyIndex hierarchyFor(Design design) {
+        HierarchyIndex hierarchy = hierarchyIndexService.cached(design);
+        return hierarchy != null ? hierarchy : hierarchyIndexService.indexFor(withComponents(design));
+    }
+    
+    private static Design.DesignComponent copyOf(Design.DesignComponent component) {
+        Design.DesignComponent copy = new Design.DesignComponent();
+        copy.setId(component.getId());
+        copy.setType(component.getType());
+        copy.setName(component.getName());
+        copy.setProperties(component.getProperties());
+        copy.setStyles(component.getStyles());
+        copy.setPosition(component.getPosition());
+        copy.setSize(component.getSize());
+        copy.setChildren(component.getChildren());
+        copy.setParentId(component.getParentId());
+        copy.setZIndex(component.getZIndex());
+        copy.setVisible(component.getVisible());
+        copy.setLocked(component.getLocked());
+        return copy;
+    }
+    
+    private static DesignNotFoundException componentNotFound(String id, String componentId) {
+        return new DesignNotFoundException("Component not found with id: " + componentId + " in design: " + id);
+    }
+    
+    // Get the components intersecting a canvas region, in paint order
+    public List<Design.DesignComponent> getComponentsInRegion(String id, double x, double y, double width, double height,
+                                                              boolean includeHidden) {
+        Design design = getDesignShell(id);
+        return componentsById(design, spatialIndexService.intersecting(design, x, y, width, height, includeHidden));
+    }
+    
+    // Get the top-most visible component at a canvas point
+    public Design.DesignComponent getComponentAt(String id, double x, double y) {
+        Design design = getDesignShell(id);
+        String componentId = spatialIndexService.topmostAt(design, x, y);
+        if (componentId == null) {
+            return null;
+        }
+        List<Design.DesignComponent> hit = componentsById(design, List.of(componentId));
+        return hit.isEmpty() ? null : hit.get(0);
+    }
+    
+    // Resolve component ids from an index, fetching only those components of split designs that are not loaded
+    private List<Design.DesignComponent> componentsById(Design design, List<String> componentIds) {
+        if (design.getComponents() == null) {
+            return designComponentStore.findByIds(design.getId(), componentIds);
+        }
+        Map<String, Design.DesignComponent> byId = new HashMap<>();
+        List<Design.DesignComponent> components = design.getComponents() == null ? List.of() : design.getComponents();
+        for (int i = 0; i < components.size(); i++) {
+            byId.put(DesignComponentStore.componentId(components.get(i), i), components.get(i));
+        }
+        return componentIds.stream().map(byId::get).filter(Objects::nonNull).toList();
+    }
+    
     // Get designs by creator
     public List<Design> getDesignsByCreator(String createdBy) {
         return designRepository.findByCreatedBy(createdBy);
@@ -81,17 +332,17 @@ public class DesignService {
     // Update design
     public Design updateDesign(String id, Design updatedDesign) {
         Design existingDesign = getDesignById(id);
-        
-        // Check for duplicate name if name is being changed
-        if (!existingDesign.getName().equalsIgnoreCase(updatedDesign.getName()) &&
-            updatedDesign.getCreatedBy() != null &&
-            designRepository.existsByNameIgnoreCaseAndCreatedBy(updatedDesign.getName(), updatedDesign.getCreatedBy())) {
-            throw new DuplicateDesignNameException("Design with name '" + updatedDesign.getName() + "' already exists for this user");
-        }
+        Design previousDesign = DesignVersionService.copyOf(existingDesign);
+        String previousHash = ContentHasher.hashOf(existingDesign);
+        String previousVersion = existingDesign.getVersion();
         
         // Check if this is a significant update that warrants version increment
         boolean isSignificantChange = hasSignificantChanges(existingDesign, updatedDesign);
         
+        if (!existingDesign.getName().equalsIgnoreCase(updatedDesign.getName())) {
+            checkNameAvailable(updatedDesign.getName(), existingDesign.getCreatedBy());
+        }
+        
         // Update fields
         existingDesign.setName(updatedDesign.getName());
         existingDesign.setDescription(updatedDesign.getDescription());
@@ -100,6 +351,10 @@ public class DesignService {
         existingDesign.setGlobalStyles(updatedDesign.getGlobalStyles());
         existingDesign.setThemeSettings(updatedDesign.getThemeSettings());
         existingDesign.setMetadata(updatedDesign.getMetadata());
+        existingDesign.setTags(updatedDesign.getTags());
+        existingDesign.setIsPublic(updatedDesign.getIsPublic());
+        existingDesign.setPreviewImage(updatedDesign.getPreviewImage());
+        previewImageService.offload(existingDesign);
         
         // Handle version increment for significant changes
         if (isSignificantChange) {
@@ -119,26 +374,39 @@ public class DesignService {
             }
         }
         
-        existingDesign.setTags(updatedDesign.getTags());
+        // Identical content and version: skip the write and keep updatedAt untouched
+        if (isUnchanged(existingDesign, previousHash, previousVersion)) {
+            return existingDesign;
+        }
+        
         existingDesign.setUpdatedBy(updatedDesign.getUpdatedBy());
-        existingDesign.setIsPublic(updatedDesign.getIsPublic());
-        existingDesign.setPreviewImage(updatedDesign.getPreviewImage());
         existingDesign.setUpdatedAt(LocalDateTime.now());
+        HierarchyIndex hierarchy = validateHierarchy(previousDesign, existingDesign);
         
-        return designRepository.save(existingDesign);
+        Design savedDesign = persist(existingDesign, previousDesign.getComponents());
+        hierarchyIndexService.put(savedDesign, hierarchy);
+        afterWrite("version history", savedDesign.getId(), () -> designVersionService.recordVersion(previousDesign, savedDesign));
+        afterWrite("spatial index", savedDesign.getId(), () -> spatialIndexService.update(savedDesign));
+        afterWrite("viewer assets", savedDesign.getId(), () -> prepareForViewers(previousDesign, savedDesign));
+        invalidateStats();
+        afterWrite("facet index", savedDesign.getId(), () -> designFacetIndex.put(savedDesign));
+        afterWrite("similarity index", savedDesign.getId(), () -> designSimilarityIndex.put(savedDesign));
+        afterWrite("change feed", savedDesign.getId(), () -> designChangeFeed.recordWrite(previousDesign, savedDesign));
+        afterWrite("component usage", savedDesign.getId(), () -> componentUsageService.record(previousDesign, savedDesign));
+        return savedDesign;
     }
     
     // Partially update design
     public Design patchDesign(String id, Design partialDesign) {
         Design existingDesign = getDesignById(id);
+        Design previousDesign = DesignVersionService.copyOf(existingDesign);
+        String previousHash = ContentHasher.hashOf(existingDesign);
+        String previousVersion = existingDesign.getVersion();
         
         // Update only non-null fields
         if (partialDesign.getName() != null) {
-            // Check for duplicate name if name is being changed
-            if (!existingDesign.getName().equalsIgnoreCase(partialDesign.getName()) &&
-                partialDesign.getCreatedBy() != null &&
-                designRepository.existsByNameIgnoreCaseAndCreatedBy(partialDesign.getName(), partialDesign.getCreatedBy())) {
-                throw new DuplicateDesignNameException("Design with name '" + partialDesign.getName() + "' already exists for this user");
+            if (!existingDesign.getName().equalsIgnoreCase(partialDesign.getName())) {
+                checkNameAvailable(partialDesign.getName(), existingDesign.getCreatedBy());
             }
             existingDesign.setName(partialDesign.getName());
         }
@@ -169,30 +437,68 @@ public class DesignService {
         if (partialDesign.getTags() != null) {
             existingDesign.setTags(partialDesign.getTags());
         }
-        if (partialDesign.getUpdatedBy() != null) {
-            existingDesign.setUpdatedBy(partialDesign.getUpdatedBy());
-        }
         if (partialDesign.getIsPublic() != null) {
             existingDesign.setIsPublic(partialDesign.getIsPublic());
         }
         if (partialDesign.getPreviewImage() != null) {
             existingDesign.setPreviewImage(partialDesign.getPreviewImage());
+            previewImageService.offload(existingDesign);
+        }
+        
+        // Identical content and version: skip the write and keep updatedAt untouched
+        if (isUnchanged(existingDesign, previousHash, previousVersion)) {
+            return existingDesign;
         }
         
+        if (partialDesign.getUpdatedBy() != null) {
+            existingDesign.setUpdatedBy(partialDesign.getUpdatedBy());
+        }
         existingDesign.setUpdatedAt(LocalDateTime.now());
+        HierarchyIndex hierarchy = validateHierarchy(previousDesign, existingDesign);
         
-        return designRepository.save(existingDesign);
+        Design savedDesign = persist(existingDesign, previousDesign.getComponents());
+        hierarchyIndexService.put(savedDesign, hierarchy);
+        afterWrite("version history", savedDesign.getId(), () -> designVersionService.recordVersion(previousDesign, savedDesign));
+        afterWrite("spatial index", savedDesign.getId(), () -> spatialIndexService.update(savedDesign));
+        afterWrite("viewer assets", savedDesign.getId(), () -> prepareForViewers(previousDesign, savedDesign));
+        invalidateStats();
+        afterWrite("facet index", savedDesign.getId(), () -> designFacetIndex.put(savedDesign));
+        afterWrite("similarity index", savedDesign.getId(), () -> designSimilarityIndex.put(savedDesign));
+        afterWrite("change feed", savedDesign.getId(), () -> designChangeFeed.recordWrite(previousDesign, savedDesign));
+        afterWrite("component usage", savedDesign.getId(), () -> componentUsageService.record(previousDesign, savedDesign));
+        return savedDesign;
     }
     
     // Delete design
     public void deleteDesign(String id) {
         Design design = getDesignById(id);
         designRepository.delete(design);
+        if (design.getComponentStorage() == Design.ComponentStorage.SPLIT) {
+            designComponentStore.delete(id);
+        }
+        afterWrite("version history", id, () -> designVersionService.deleteHistory(id));
+        spatialIndexService.evict(id);
+        hierarchyIndexService.evict(id);
+        invalidateStats();
+        afterWrite("facet index", id, () -> designFacetIndex.remove(id));
+        afterWrite("similarity index", id, () -> designSimilarityIndex.remove(id));
+        afterWrite("change feed", id, () -> designChangeFeed.recordDelete(design));
+        afterWrite("component usage", id, () -> componentUsageService.record(design, null));
     }
     
-    // Search designs by name or description
+    // Search designs by name, description, tags, category and component names/types, best match first
     public List<Design> searchDesigns(String searchTerm) {
-        return designRepository.findByNameOrDescriptionContainingIgnoreCase(searchTerm);
+        return designRepository.findAllByOrderByScoreDesc(textCriteria(searchTerm));
+    }
+    
+    // Search designs with pagination, best match first
+    public Page<Design> searchDesigns(String searchTerm, int page, int size) {
+        Pageable pageable = PageRequest.of(page, size, Sort.by("score"));
+        return designRepository.findAllBy(textCriteria(searchTerm), pageable);
+    }
+    
+    private TextCriteria textCriteria(String searchTerm) {
+        return TextCriteria.forDefaultLanguage().matching(searchTerm);
     }
     
     // Get designs by status
@@ -238,11 +544,7 @@ public class DesignService {
     // Clone/duplicate a design
     public Design cloneDesign(String id, String newName, String createdBy) {
         Design originalDesign = getDesignById(id);
-        
-        // Check if new name already exists for the user
-        if (designRepository.existsByNameIgnoreCaseAndCreatedBy(newName, createdBy)) {
-            throw new DuplicateDesignNameException("Design with name '" + newName + "' already exists for this user");
-        }
+        checkNameAvailable(newName, createdBy);
         
         Design clonedDesign = new Design();
         clonedDesign.setName(newName);
@@ -260,39 +562,307 @@ public class DesignService {
         clonedDesign.setIsPublic(false); // Make cloned design private by default
         clonedDesign.setCreatedAt(LocalDateTime.now());
         clonedDesign.setUpdatedAt(LocalDateTime.now());
+        ContentHasher.apply(clonedDesign);
         
-        return designRepository.save(clonedDesign);
+        Design savedDesign = persist(clonedDesign, null);
+        afterWrite("version history", savedDesign.getId(), () -> designVersionService.recordVersion(null, savedDesign));
+        invalidateStats();
+        afterWrite("facet index", savedDesign.getId(), () -> designFacetIndex.put(savedDesign));
+        afterWrite("similarity index", savedDesign.getId(), () -> designSimilarityIndex.put(savedDesign));
+        afterWrite("change feed", savedDesign.getId(), () -> designChangeFeed.recordWrite(null, savedDesign));
+        afterWrite("component usage", savedDesign.getId(), () -> componentUsageService.record(null, savedDesign));
+        return savedDesign;
     }
     
-    // Get design statistics
-    public DesignStats getDesignStats() {
-        long totalDesigns = designRepository.count();
-        long publicDesigns = designRepository.countByIsPublicTrue();
+    /**
+     * Insert a batch of designs as they are, e.g. from an archive, with one unordered bulk insert.
+     * Designs whose id already exists are skipped, so importing the same designs again is safe;
+     * invalid designs and name conflicts are reported by their position in the batch. Imported
+     * designs start without version history.
+     */
+    public ImportOutcome importDesigns(List<Design> designs) {
+        Map<Integer, String> errors = new HashMap<>();
+        Map<Object, Integer> positions = new LinkedHashMap<>();
+        for (int i = 0; i < designs.size(); i++) {
+            Design design = designs.get(i);
+            try {
+                prepareImport(design);
+            } catch (RuntimeException e) {
+                errors.put(i, e.getMessage());
+                continue;
+            }
+            Object id = DesignConverters.toDocument(design).get("_id");
+            if (positions.putIfAbsent(id, i) != null) {
+                errors.put(i, "Design " + design.getId() + " appears twice in the batch");
+            }
+        }
         
-        DesignStats stats = new DesignStats();
-        stats.setTotalDesigns(totalDesigns);
-        stats.setPublicDesigns(publicDesigns);
-        stats.setPrivateDesigns(totalDesigns - publicDesigns);
+        // One lookup per batch finds the designs a previous attempt already imported
+        int skipped = 0;
+        for (Document existing : designCollection().find(Filters.in("_id", positions.keySet())).projection(Projections.include("_id"))) {
+            positions.remove(existing.get("_id"));
+            skipped++;
+        }
+        if (positions.isEmpty()) {
+            return new ImportOutcome(0, skipped, errors);
+        }
         
-        return stats;
+        List<Integer> order = new ArrayList<>(positions.values());
+        List<Document> documents = new ArrayList<>(order.size());
+        for (int position : order) {
+            Design design = designs.get(position);
+            if (designComponentStore.storageFor(design) == Design.ComponentStorage.SPLIT) {
+                designComponentStore.write(design.getId(), design.getComponents());
+                design.setComponentStorage(Design.ComponentStorage.SPLIT);
+                design.setComponentCount(design.getComponents().size());
+                design.setComponentTypes(DesignComponentStore.componentTypes(design.getComponents()));
+                design.setComponentNames(DesignComponentStore.componentNames(design.getComponents()));
+            }
+            Document document = DesignConverters.toDocument(design);
+            if (design.getComponentStorage() == Design.ComponentStorage.SPLIT) {
+                document.remove("components");
+            }
+            contentStore.dehydrate(document);
+            documents.add(document);
+        }
+        
+        Set<Integer> rejected = new HashSet<>();
+        try {
+            designCollection().insertMany(documents, new InsertManyOptions().ordered(false));
+        } catch (MongoBulkWriteException e) {
+            for (BulkWriteError error : e.getWriteErrors()) {
+                int position = order.get(error.getIndex());
+                Design design = designs.get(position);
+                rejected.add(position);
+                if (error.getCode() == DUPLICATE_KEY && error.getMessage().contains("_id_")) {
+                    // Imported concurrently by another request, which owns the split components now
+                    skipped++;
+                    continue;
+                }
+                errors.put(position, error.getCode() == DUPLICATE_KEY
+                        ? "Design name already exists for " + design.getCreatedBy()
+                        : error.getMessage());
+                if (design.getComponentStorage() == Design.ComponentStorage.SPLIT) {
+                    designComponentStore.delete(design.getId());
+                }
+            }
+        }
+        
+        List<Design> imported = new ArrayList<>(order.size() - rejected.size());
+        for (int position : order) {
+            if (!rejected.contains(position)) {
+                imported.add(designs.get(position));
+            }
+        }
+        if (!imported.isEmpty()) {
+            invalidateStats();
+            String batch = imported.size() + " imported designs";
+            afterWrite("facet index", batch, () -> imported.forEach(designFacetIndex::put));
+            afterWrite("similarity index", batch, () -> designSimilarityIndex.putAll(imported));
+            afterWrite("change feed", batch, () -> imported.forEach(design -> designChangeFeed.recordWrite(null, design)));
+            afterWrite("component usage", batch, () -> componentUsageService.recordAll(imported));
+        }
+        return new ImportOutcome(imported.size(), skipped, errors);
+    }
+    
+    // Archived designs keep their id, timestamps and authorship; missing values get the defaults of a new design
+    private void prepareImport(Design design) {
+        if (design.getId() == null) {
+            design.setId(new ObjectId().toHexString());
+        }
+        if (design.getName() == null || design.getName().isBlank()) {
+            throw new IllegalArgumentException("Design name is required");
+        }
+        LocalDateTime now = LocalDateTime.now();
+        if (design.getCreatedAt() == null) {
+            design.setCreatedAt(now);
+        }
+        if (design.getUpdatedAt() == null) {
+            design.setUpdatedAt(design.getCreatedAt());
+        }
+        if (design.getStatus() == null) {
+            design.setStatus(Design.DesignStatus.DRAFT);
+        }
+        if (design.getVersion() == null) {
+            design.setVersion("1.0.0");
+        }
+        if (design.getIsPublic() == null) {
+            design.setIsPublic(false);
+        }
+        if (design.getComponents() == null) {
+            design.setComponents(new ArrayList<>());
+        }
+        design.setComponentStorage(null);
+        design.setComponentCount(null);
+        design.setComponentTypes(null);
+        design.setComponentNames(null);
+        hierarchyIndexService.validate(design.getComponents());
+        previewImageService.offload(design);
+        ContentHasher.apply(design);
+    }
+    
+    // Result of importing a batch; errors are keyed by position in the batch
+    public record ImportOutcome(int imported, int skipped, Map<Integer, String> errors) {}
+    
+    private MongoCollection<Document> designCollection() {
+        return mongoTemplate.getCollection(mongoTemplate.getCollectionName(Design.class));
+    }
+    
+    // Get the version history of a design, newest first
+    public List<DesignVersion> getDesignVersions(String id) {
+        getDesignById(id);
+        return designVersionService.getVersions(id);
+    }
+    
+    // Get a design as it was at a given history entry
+    public Design getDesignVersion(String id, long sequence) {
+        return designVersionService.materializeVersion(id, sequence);
+    }
+    
+    // Restore the content of a history entry; the rollback itself becomes a new history entry
+    public Design rollbackDesign(String id, long sequence, String updatedBy) {
+        Design restored = designVersionService.materializeVersion(id, sequence);
+        restored.setVersion(null); // Keep moving the version forward instead of reverting it
+        restored.setUpdatedBy(updatedBy);
+        return updateDesign(id, restored);
+    }
+    
+    // Designs with a similar component structure, most similar first
+    public List<SimilarDesign> getSimilarDesigns(String id, int limit, double minSimilarity) {
+        return designSimilarityIndex.similarTo(getDesignById(id), limit, minSimilarity);
+    }
+    
+    // Structural diff between two designs
+    public DesignDiff diffDesigns(String leftId, String rightId) {
+        return designDiffService.diff(getDesignById(leftId), leftId, getDesignById(rightId), rightId);
+    }
+    
+    // Structural diff between two history entries of a design, or an entry and the current design
+    public DesignDiff diffVersions(String id, long fromSequence, Long toSequence) {
+        Design from = designVersionService.materializeVersion(id, fromSequence);
+        Design to = toSequence == null ? getDesignById(id) : designVersionService.materializeVersion(id, toSequence);
+        return designDiffService.diff(from, id + "@" + fromSequence,
+                to, toSequence == null ? id : id + "@" + toSequence);
+    }
+    
+    /**
+     * Run follow-up work of a write that is already committed. A failure is logged rather than
+     * thrown, so the caller still gets the saved design and the remaining hooks still run. The
+     * facet index catches up on its scheduled rebuild, similarity signatures on the next startup,
+     * and usage counters through a backfill.
+     */
+    private static void afterWrite(String hook, String designId, Runnable action) {
+        try {
+            action.run();
+        } catch (RuntimeException e) {
+            logger.warn("Could not update the {} after writing design {}", hook, designId, e);
+        }
+    }
+    
+    // Publishing is when designs get looked at: prepare thumbnails and the render bundle in the background
+    private void prepareForViewers(Design previousDesign, Design savedDesign) {
+        boolean wasPublished = previousDesign != null && previousDesign.getStatus() == Design.DesignStatus.PUBLISHED;
+        if (!wasPublished && savedDesign.getStatus() == Design.DesignStatus.PUBLISHED) {
+            previewImageService.generateThumbnails(savedDesign);
+        }
+        if (savedDesign.getStatus() == Design.DesignStatus.PUBLISHED) {
+            renderBundleService.buildOnPublish(savedDesign);
+        }
+    }
+    
+    // Save a design, moving its components to split storage once it grows past the threshold;
+    // storedComponents are those of the design as stored, null for a new design
+    private Design persist(Design design, List<Design.DesignComponent> storedComponents) {
+        List<Design.DesignComponent> components = design.getComponents();
+        boolean wasSplit = design.getComponentStorage() == Design.ComponentStorage.SPLIT;
+        
+        if (designComponentStore.storageFor(design) == Design.ComponentStorage.INLINE) {
+            design.setComponentStorage(null);
+            design.setComponentCount(null);
+            design.setComponentTypes(null);
+            design.setComponentNames(null);
+            Design savedDesign = designRepository.save(design);
+            if (wasSplit) {
+                designComponentStore.delete(savedDesign.getId());
+            }
+            return savedDesign;
+        }
+        
+        // Components are written first so a reader never sees a split design without them
+        boolean isNew = design.getId() == null;
+        if (isNew) {
+            design.setId(new ObjectId().toHexString());
+        }
+        designComponentStore.write(design.getId(), components);
+        design.setComponentStorage(Design.ComponentStorage.SPLIT);
+        design.setComponentCount(components.size());
+        design.setComponentTypes(DesignComponentStore.componentTypes(components));
+        design.setComponentNames(DesignComponentStore.componentNames(components));
+        design.setComponents(null);
+        try {
+            return designRepository.save(design);
+        } catch (RuntimeException e) {
+            // The stored design still describes its previous components, so those are put back
+            try {
+                if (isNew || !wasSplit) {
+                    designComponentStore.delete(design.getId());
+                } else {
+                    designComponentStore.write(design.getId(), storedComponents);
+                }
+            } catch (RuntimeException cleanup) {
+                e.addSuppressed(cleanup);
+            }
+            if (isNew) {
+                design.setId(null);
+            }
+            throw e;
+        } finally {
+            design.setComponents(components);
+        }
+    }
+    
+    // The unique index rejects duplicate names; only while it is not in place are names checked before saving
+    private void checkNameAvailable(String name, String createdBy) {
+        if (createdBy != null && !designIndexManager.enforcesUniqueNames()
+                && designRepository.existsByNameIgnoreCaseAndCreatedBy(name, createdBy)) {
+            throw new DuplicateDesignNameException("Design with name '" + name + "' already exists for this user");
+        }
+    }
+    
+    // Get design statistics
+    public DesignStats getDesignStats() {
+        return cachedStats(ALL_DESIGNS_STATS_KEY, null);
     }
     
     // Get design statistics for a specific user
     public DesignStats getDesignStatsByUser(String createdBy) {
-        long totalDesigns = designRepository.countByCreatedBy(createdBy);
-        List<Design> userDesigns = designRepository.findByCreatedBy(createdBy);
-        long publicDesigns = userDesigns.stream()
-                .mapToLong(design -> design.getIsPublic() ? 1 : 0)
-                .sum();
-        
-        DesignStats stats = new DesignStats();
-        stats.setTotalDesigns(totalDesigns);
-        stats.setPublicDesigns(publicDesigns);
-        stats.setPrivateDesigns(totalDesigns - publicDesigns);
+        return cachedStats(createdBy, createdBy);
+    }
+    
+    // Drop all cached statistics so the next request re-aggregates
+    public void invalidateStats() {
+        statsGeneration.incrementAndGet();
+        statsCache.clear();
+    }
+    
+    // An aggregation that overlaps an invalidation is stored under the old generation, so it is dropped on next read
+    private DesignStats cachedStats(String key, String createdBy) {
+        Instant now = Instant.now();
+        long generation = statsGeneration.get();
+        CachedStats cached = statsCache.get(key);
+        if (cached != null && cached.generation() == generation && now.isBefore(cached.expiresAt())) {
+            return cached.stats();
+        }
         
+        DesignStats stats = designRepository.aggregateDesignStats(createdBy);
+        if (statsGeneration.get() == generation) {
+            statsCache.put(key, new CachedStats(stats, now.plus(Duration.ofSeconds(statsCacheTtlSeconds)), generation));
+        }
         return stats;
     }
     
+    private record CachedStats(DesignStats stats, Instant expiresAt, long generation) {}
+    
     // Helper method to increment version numbers
     private String incrementVersion(String currentVersion) {
         if (currentVersion == null || currentVersion.isEmpty()) {
@@ -320,22 +890,30 @@ public class DesignService {
     
     // Helper method to determine if changes are significant enough to warrant version increment
     private boolean hasSignificantChanges(Design existing, Design updated) {
-        // Check if components have changed (significant structural change)
-        if (!java.util.Objects.equals(existing.getComponents(), updated.getComponents())) {
+        // Check if name has changed (significant identity change)
+        if (!java.util.Objects.equals(existing.getName(), updated.getName())) {
             return true;
         }
         
         // Check if canvas configuration has changed significantly
-        if (!java.util.Objects.equals(existing.getCanvasConfig(), updated.getCanvasConfig())) {
+        if (!java.util.Objects.equals(ContentHasher.hashCanvasConfig(existing.getCanvasConfig()),
+                ContentHasher.hashCanvasConfig(updated.getCanvasConfig()))) {
             return true;
         }
         
-        // Check if name has changed (significant identity change)
-        if (!java.util.Objects.equals(existing.getName(), updated.getName())) {
+        // Check if components have changed (significant structural change), comparing per-component hashes
+        if (!java.util.Objects.equals(ContentHasher.componentHashes(existing.getComponents()),
+                ContentHasher.componentHashes(updated.getComponents()))) {
             return true;
         }
         
         // Description changes are not considered significant
         return false;
     }
+    
+    // Helper method to detect no-op updates by comparing content hashes
+    private boolean isUnchanged(Design design, String previousHash, String previousVersion) {
+        return ContentHasher.apply(design).equals(previousHash)
+                && java.util.Objects.equals(design.getVersion(), previousVersion);
+    }
 }
@@ -0,0 +1,551 @@
+package com.ace.templateengine.service;
+
+import com.ace.templateengine.dto.DuplicateReport;
+import com.ace.templateengine.dto.SimilarDesign;
+import com.ace.templateengine.model.Design;
+import com.ace.templateengine.repository.DesignRepository;
+import com.mongodb.MongoException;
+import com.mongodb.client.model.BulkWriteOptions;
+import com.mongodb.client.model.Filters;
+import com.mongodb.client.model.Projections;
+import com.mongodb.client.model.ReplaceOneModel;
+import com.mongodb.client.model.ReplaceOptions;
+import com.mongodb.client.model.WriteModel;
+import org.bson.Document;
+import org.bson.types.Binary;
+import org.bson.types.ObjectId;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.scheduling.annotation.Async;
+import org.springframework.stereotype.Service;
+
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.SplittableRandom;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * Finds structurally similar designs with MinHash signatures indexed by locality-sensitive hashing.
+ *
+ * A design is reduced to shingles of its component types, parent/child type edges, depths and
+ * property keys with short scalar values. Its MinHash signature estimates the Jaccard similarity
+ * of those sets, and split into bands it puts similar designs into shared LSH buckets, so a
+ * query only compares the designs sharing a bucket instead of the whole library. With 16 bands
+ * of 8 rows, pairs above about 0.7 similarity are almost always candidates.
+ *
+ * Signatures are computed on every design write and stored in design_signatures, so a restart
+ * only recomputes those of designs whose content changed meanwhile.
+ */
+@Service
+public class DesignSimilarityIndex {
+
+    private static final Logger logger = LoggerFactory.getLogger(DesignSimilarityIndex.class);
+
+    static final int HASHES = 128;
+    static final int BANDS = 16;
+    static final int ROWS = HASHES / BANDS;
+
+    // Bump when shingling or hashing changes, so stored signatures get recomputed
+    private static final int SIGNATURE_VERSION = 1;
+
+    private static final String COLLECTION = "design_signatures";
+
+    // Longer string values are content rather than structure
+    private static final int MAX_VALUE_LENGTH = 40;
+
+    private static final long[] SEEDS = new SplittableRandom(0x6d696e68617368L).longs(HASHES).toArray();
+
+    @Autowired
+    private MongoTemplate mongoTemplate;
+
+    @Autowired
+    private DesignRepository designRepository;
+
+    @Autowired
+    private DesignComponentStore designComponentStore;
+
+    // Most members of one bucket compared pairwise when looking for duplicates
+    @Value("${app.designs.similarity.max-bucket-size:200}")
+    private int maxBucketSize;
+
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+
+    // Signatures of the indexed designs; designs without components are not indexed
+    private final Map<String, int[]> signatures = new HashMap<>();
+
+    // Per band, the designs whose signature rows in that band hash to the key
+    private final List<Map<Long, Set<String>>> buckets = new ArrayList<>();
+
+    public DesignSimilarityIndex() {
+        for (int band = 0; band < BANDS; band++) {
+            buckets.add(new HashMap<>());
+        }
+    }
+
+    // Load stored signatures, then recompute those of designs changed or added while the index was not running
+    @Async
+    @EventListener(ApplicationReadyEvent.class)
+    public void load() {
+        try {
+            long started = System.currentTimeMillis();
+            Map<String, String> storedHashes = new HashMap<>();
+            for (Document stored : mongoTemplate.getCollection(COLLECTION).find()) {
+                String id = stored.getString("_id");
+                if (!Objects.equals(stored.getInteger("version"), SIGNATURE_VERSION)) {
+                    continue;
+                }
+                storedHashes.put(id, stored.getString("content_hash"));
+                Binary signature = stored.get("signature", Binary.class);
+                if (signature != null) {
+                    lock.writeLock().lock();
+                    try {
+                        // A design written since startup already has a fresher signature
+                        if (!signatures.containsKey(id)) {
+                            index(id, fromBytes(signature.getData()));
+                        }
+                    } finally {
+                        lock.writeLock().unlock();
+                    }
+                }
+            }
+
+            Set<String> existing = new HashSet<>();
+            int recomputed = 0;
+            for (Document design : mongoTemplate.getCollection("designs").find()
+                    .projection(Projections.include("content_hash"))) {
+                String id = idOf(design.get("_id"));
+                existing.add(id);
+                if (!storedHashes.containsKey(id) || !Objects.equals(storedHashes.get(id), design.getString("content_hash"))) {
+                    designRepository.findById(id).ifPresent(this::putWithComponents);
+                    recomputed++;
+                }
+            }
+            for (String id : storedHashes.keySet()) {
+                if (!existing.contains(id)) {
+                    remove(id);
+                }
+            }
+            logger.info("Loaded design similarity index: {} signatures, {} recomputed, in {} ms",
+                    existing.size(), recomputed, System.currentTimeMillis() - started);
+        } catch (MongoException e) {
+            logger.warn("Could not load the design similarity index: {}", e.getMessage());
+        }
+    }
+
+    // Compute, index and store the signature of a saved design
+    public void put(Design design) {
+        if (design != null) {
+            putAll(List.of(design));
+        }
+    }
+
+    // Same for a batch of saved designs, storing their signatures in one bulk write
+    public void putAll(List<Design> designs) {
+        Map<String, int[]> computed = new LinkedHashMap<>();
+        for (Design design : designs) {
+            if (design != null && design.getId() != null) {
+                computed.put(design.getId(), signature(shingles(design.getComponents())));
+            }
+        }
+        if (computed.isEmpty()) {
+            return;
+        }
+        lock.writeLock().lock();
+        try {
+            computed.forEach((id, signature) -> {
+                unindex(id);
+                if (signature != null) {
+                    index(id, signature);
+                }
+            });
+        } finally {
+            lock.writeLock().unlock();
+        }
+        List<WriteModel<Document>> writes = new ArrayList<>(computed.size());
+        for (Design design : designs) {
+            if (design != null && design.getId() != null) {
+                int[] signature = computed.get(design.getId());
+                Document stored = new Document("_id", design.getId())
+                        .append("version", SIGNATURE_VERSION)
+                        .append("content_hash", design.getContentHash())
+                        .append("signature", signature == null ? null : new Binary(toBytes(signature)));
+                writes.add(new ReplaceOneModel<>(Filters.eq("_id", design.getId()), stored, new ReplaceOptions().upsert(true)));
+            }
+        }
+        mongoTemplate.getCollection(COLLECTION).bulkWrite(writes, new BulkWriteOptions().ordered(false));
+    }
+
+    public void remove(String id) {
+        lock.writeLock().lock();
+        try {
+            unindex(id);
+        } finally {
+            lock.writeLock().unlock();
+        }
+        mongoTemplate.getCollection(COLLECTION).deleteOne(Filters.eq("_id", id));
+    }
+
+    // Indexed designs sharing an LSH bucket with the design and at least minSimilarity similar to it, most similar first
+    public List<SimilarDesign> similarTo(Design design, int limit, double minSimilarity) {
+        int[] signature = signature(shingles(design.getComponents()));
+        if (signature == null) {
+            return List.of();
+        }
+        List<SimilarDesign> similar = new ArrayList<>();
+        lock.readLock().lock();
+        try {
+            Set<String> candidates = new HashSet<>();
+            for (int band = 0; band < BANDS; band++) {
+                Set<String> bucket = buckets.get(band).get(bandKey(signature, band));
+                if (bucket != null) {
+                    candidates.addAll(bucket);
+                }
+            }
+            candidates.remove(design.getId());
+            for (String candidate : candidates) {
+                double similarity = similarity(signature, signatures.get(candidate));
+                if (similarity >= minSimilarity) {
+                    similar.add(new SimilarDesign(candidate, similarity));
+                }
+            }
+        } finally {
+            lock.readLock().unlock();
+        }
+        similar.sort(Comparator.comparingDouble(SimilarDesign::getSimilarity).reversed()
+                .thenComparing(SimilarDesign::getDesignId));
+        List<SimilarDesign> page = new ArrayList<>(similar.subList(0, Math.min(Math.max(limit, 0), similar.size())));
+        describe(page);
+        return page;
+    }
+
+    /**
+     * Group the library into clusters of near-duplicates: designs sharing a bucket are compared,
+     * and pairs at or above the threshold join their clusters. Largest clusters come first.
+     * Buckets larger than the configured size are sampled, so a template copied thousands of
+     * times does not make the report quadratic in its copies.
+     */
+    public DuplicateReport duplicates(double threshold, int limit) {
+        long started = System.currentTimeMillis();
+        DuplicateReport report = new DuplicateReport(threshold);
+        Map<String, String> parents = new HashMap<>();
+        List<DuplicateReport.DuplicateCluster> clusters = new ArrayList<>();
+        long compared = 0;
+
+        // Copy the candidates under the lock and compare outside it, so indexing is not held up;
+        // signatures are replaced rather than changed in place, so the copied arrays stay valid
+        List<List<String>> candidates = new ArrayList<>();
+        Map<String, int[]> candidateSignatures = new HashMap<>();
+        int sampled = 0;
+        lock.readLock().lock();
+        try {
+            report.setIndexedDesigns(signatures.size());
+            for (Map<Long, Set<String>> band : buckets) {
+                for (Set<String> bucket : band.values()) {
+                    if (bucket.size() < 2) {
+                        continue;
+                    }
+                    List<String> members = new ArrayList<>(bucket);
+                    if (members.size() > maxBucketSize) {
+                        members = sample(members, maxBucketSize);
+                        sampled++;
+                    }
+                    members.forEach(id -> candidateSignatures.put(id, signatures.get(id)));
+                    candidates.add(members);
+                }
+            }
+        } finally {
+            lock.readLock().unlock();
+        }
+
+        for (List<String> members : candidates) {
+            for (int i = 0; i < members.size(); i++) {
+                for (int j = i + 1; j < members.size(); j++) {
+                    String left = find(parents, members.get(i));
+                    String right = find(parents, members.get(j));
+                    // Already linked through other pairs
+                    if (left.equals(right)) {
+                        continue;
+                    }
+                    compared++;
+                    if (similarity(candidateSignatures.get(members.get(i)), candidateSignatures.get(members.get(j))) >= threshold) {
+                        parents.put(left, right);
+                    }
+                }
+            }
+        }
+
+        Map<String, List<String>> groups = new HashMap<>();
+        for (String id : parents.keySet()) {
+            groups.computeIfAbsent(find(parents, id), root -> new ArrayList<>()).add(id);
+        }
+        for (List<String> group : groups.values()) {
+            if (group.size() < 2) {
+                continue;
+            }
+            group.sort(null);
+            int[] representative = candidateSignatures.get(group.get(0));
+            List<SimilarDesign> duplicates = new ArrayList<>();
+            for (String id : group.subList(1, group.size())) {
+                duplicates.add(new SimilarDesign(id, similarity(representative, candidateSignatures.get(id))));
+            }
+            duplicates.sort(Comparator.comparingDouble(SimilarDesign::getSimilarity).reversed());
+            clusters.add(new DuplicateReport.DuplicateCluster(new SimilarDesign(group.get(0), 1.0), duplicates));
+        }
+
+        clusters.sort(Comparator.comparingInt((DuplicateReport.DuplicateCluster cluster) -> cluster.getDuplicates().size())
+                .reversed()
+                .thenComparing(cluster -> cluster.getRepresentative().getDesignId()));
+        List<DuplicateReport.DuplicateCluster> page = new ArrayList<>(clusters.subList(0, Math.min(Math.max(limit, 0), clusters.size())));
+        List<SimilarDesign> described = new ArrayList<>();
+        for (DuplicateReport.DuplicateCluster cluster : page) {
+            described.add(cluster.getRepresentative());
+            described.addAll(cluster.getDuplicates());
+        }
+        describe(described);
+        report.setComparedPairs(compared);
+        report.setSampledBuckets(sampled);
+        report.setTotalClusters(clusters.size());
+        report.setClusters(page);
+        report.setElapsedMillis(System.currentTimeMillis() - started);
+        return report;
+    }
+
+    // Evenly spaced members of the bucket in id order, the same on every run over the same index
+    static List<String> sample(List<String> members, int size) {
+        List<String> sorted = new ArrayList<>(members);
+        sorted.sort(null);
+        List<String> sample = new ArrayList<>(size);
+        for (int i = 0; i < size; i++) {
+            sample.add(sorted.get((int) ((long) i * sorted.size() / size)));
+        }
+        return sample;
+    }
+
+    /**
+     * Structural features of a set of components. Repeated features are numbered, so a design
+     * with fifty buttons does not look like one with five.
+     */
+    static Set<String> shingles(List<Design.DesignComponent> components) {
+        Set<String> shingles = new HashSet<>();
+        if (components == null || components.isEmpty()) {
+            return shingles;
+        }
+        Map<String, Design.DesignComponent> byId = new HashMap<>();
+        for (Design.DesignComponent component : components) {
+            if (component != null && component.getId() != null) {
+                byId.put(component.getId(), component);
+            }
+        }
+        Map<String, Integer> occurrences = new HashMap<>();
+        for (Design.DesignComponent component : components) {
+            if (component == null) {
+                continue;
+            }
+            String type = typeOf(component);
+            Design.DesignComponent parent = component.getParentId() == null ? null : byId.get(component.getParentId());
+            add(shingles, occurrences, "type:" + type);
+            add(shingles, occurrences, "edge:" + (parent == null ? "root" : typeOf(parent)) + ">" + type);
+            add(shingles, occurrences, "depth:" + depthOf(component, byId) + ":" + type);
+            if (component.getProperties() != null) {
+                for (Map.Entry<String, Object> property : component.getProperties().entrySet()) {
+                    String key = type + "." + property.getKey();
+                    add(shingles, occurrences, "property:" + key);
+                    Object value = property.getValue();
+                    if (value instanceof Number || value instanceof Boolean
+                            || (value instanceof String string && string.length() <= MAX_VALUE_LENGTH)) {
+                        add(shingles, occurrences, "value:" + key + "=" + value);
+                    }
+                }
+            }
+        }
+        return shingles;
+    }
+
+    // MinHash signature of a shingle set, or null for an empty one
+    static int[] signature(Set<String> shingles) {
+        if (shingles.isEmpty()) {
+            return null;
+        }
+        long[] minimums = new long[HASHES];
+        Arrays.fill(minimums, Long.MAX_VALUE);
+        for (String shingle : shingles) {
+            long hash = hash(shingle);
+            for (int i = 0; i < HASHES; i++) {
+                long value = mix(hash ^ SEEDS[i]);
+                if (value < minimums[i]) {
+                    minimums[i] = value;
+                }
+            }
+        }
+        int[] signature = new int[HASHES];
+        for (int i = 0; i < HASHES; i++) {
+            signature[i] = (int) (minimums[i] >>> 32);
+        }
+        return signature;
+    }
+
+    // Estimated Jaccard similarity: the share of hash functions with the same minimum
+    static double similarity(int[] left, int[] right) {
+        if (left == null || right == null) {
+            return 0;
+        }
+        int equal = 0;
+        for (int i = 0; i < HASHES; i++) {
+            if (left[i] == right[i]) {
+                equal++;
+            }
+        }
+        return (double) equal / HASHES;
+    }
+
+    private void putWithComponents(Design design) {
+        if (design.getComponentStorage() == Design.ComponentStorage.SPLIT && design.getComponents() == null) {
+            design.setComponents(designComponentStore.loadAll(design.getId()));
+        }
+        put(design);
+    }
+
+    // Callers hold the write lock
+    private void index(String id, int[] signature) {
+        signatures.put(id, signature);
+        for (int band = 0; band < BANDS; band++) {
+            buckets.get(band).computeIfAbsent(bandKey(signature, band), key -> new HashSet<>()).add(id);
+        }
+    }
+
+    private void unindex(String id) {
+        int[] signature = signatures.remove(id);
+        if (signature == null) {
+            return;
+        }
+        for (int band = 0; band < BANDS; band++) {
+            Map<Long, Set<String>> bandBuckets = buckets.get(band);
+            long key = bandKey(signature, band);
+            Set<String> bucket = bandBuckets.get(key);
+            if (bucket != null) {
+                bucket.remove(id);
+                if (bucket.isEmpty()) {
+                    bandBuckets.remove(key);
+                }
+            }
+        }
+    }
+
+    // Fill in names and creators with one query
+    private void describe(List<SimilarDesign> designs) {
+        if (designs.isEmpty()) {
+            return;
+        }
+        List<Object> ids = new ArrayList<>();
+        for (SimilarDesign design : designs) {
+            ids.add(ObjectId.isValid(design.getDesignId()) ? new ObjectId(design.getDesignId()) : design.getDesignId());
+        }
+        Map<String, Document> found = new HashMap<>();
+        for (Document document : mongoTemplate.getCollection("designs").find(Filters.in("_id", ids))
+                .projection(Projections.include("name", "created_by"))) {
+            found.put(idOf(document.get("_id")), document);
+        }
+        for (SimilarDesign design : designs) {
+            Document document = found.get(design.getDesignId());
+            if (document != null) {
+                design.setName(document.getString("name"));
+                design.setCreatedBy(document.getString("created_by"));
+            }
+        }
+    }
+
+    private static String find(Map<String, String> parents, String id) {
+        String root = id;
+        String parent;
+        while ((parent = parents.get(root)) != null && !parent.equals(root)) {
+            root = parent;
+        }
+        parents.putIfAbsent(id, id);
+        // Path compression
+        String current = id;
+        while (!current.equals(root)) {
+            String next = parents.get(current);
+            parents.put(current, root);
+            current = next;
+        }
+        return root;
+    }
+
+    private static void add(Set<String> shingles, Map<String, Integer> occurrences, String shingle) {
+        int occurrence = occurrences.merge(shingle, 1, Integer::sum);
+        shingles.add(shingle + "#" + occurrence);
+    }
+
+    private static String typeOf(Design.DesignComponent component) {
+        return component.getType() == null ? "?" : component.getType();
+    }
+
+    // Distance to the root, stopping at cycles or dangling parents
+    private static int depthOf(Design.DesignComponent component, Map<String, Design.DesignComponent> byId) {
+        int depth = 0;
+        Design.DesignComponent current = component;
+        while (current.getParentId() != null && depth < byId.size()) {
+            current = byId.get(current.getParentId());
+            if (current == null) {
+                break;
+            }
+            depth++;
+        }
+        return depth;
+    }
+
+    private static long bandKey(int[] signature, int band) {
+        long key = band;
+        for (int row = band * ROWS; row < (band + 1) * ROWS; row++) {
+            key = mix(key * 31 + signature[row]);
+        }
+        return key;
+    }
+
+    // 64-bit FNV-1a
+    private static long hash(String value) {
+        long hash = 0xcbf29ce484222325L;
+        for (int i = 0; i < value.length(); i++) {
+            hash ^= value.charAt(i);
+            hash *= 0x100000001b3L;
+        }
+        return mix(hash);
+    }
+
+    // SplitMix64 finalizer
+    private static long mix(long value) {
+        value = (value ^ (value >>> 30)) * 0xbf58476d1ce4e5b9L;
+        value = (value ^ (value >>> 27)) * 0x94d049bb133111ebL;
+        return value ^ (value >>> 31);
+    }
+
+    private static byte[] toBytes(int[] signature) {
+        ByteBuffer buffer = ByteBuffer.allocate(signature.length * Integer.BYTES);
+        buffer.asIntBuffer().put(signature);
+        return buffer.array();
+    }
+
+    private static int[] fromBytes(byte[] bytes) {
+        int[] signature = new int[bytes.length / Integer.BYTES];
+        ByteBuffer.wrap(bytes).asIntBuffer().get(signature);
+        return signature;
+    }
+
+    private static String idOf(Object id) {
+        return id instanceof ObjectId objectId ? objectId.toHexString() : String.valueOf(id);
+    }
+}
@@ -0,0 +1,340 @@
+package com.ace.templateengine.service;
+
+import com.ace.templateengine.exception.DesignNotFoundException;
+import com.ace.templateengine.model.Design;
+import com.ace.templateengine.model.DesignVersion;
+import com.ace.templateengine.repository.DesignVersionRepository;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Sort;
+import org.springframework.stereotype.Service;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+
+/**
+ * Version history of designs: a full snapshot every snapshot-interval entries and
+ * component-level deltas in between.
+ */
+@Service
+public class DesignVersionService {
+
+    @Autowired
+    private DesignVersionRepository designVersionRepository;
+
+    @Value("${app.designs.history.snapshot-interval:10}")
+    private int snapshotInterval;
+
+    // Record the new state of a design; previous is the state before the write, or null for new designs
+    public DesignVersion recordVersion(Design previous, Design current) {
+        DesignVersion latest = latestHeader(current.getId());
+        long sequence = latest == null ? 1 : latest.getSequence() + 1;
+
+        // A delta is only valid on top of the state the latest entry describes
+        boolean deltaApplies = previous != null && latest != null
+                && (sequence - 1) % snapshotInterval != 0
+                && Objects.equals(latest.getContentHash(), ContentHasher.hashOf(previous));
+
+        DesignVersion.DesignDelta delta = deltaApplies ? diff(previous, current) : null;
+        DesignVersion entry = delta != null ? deltaEntry(current, sequence, delta) : snapshotEntry(current, sequence);
+
+        try {
+            return designVersionRepository.save(entry);
+        } catch (DuplicateKeyException e) {
+            // A concurrent write took this sequence number; a snapshot is correct regardless of order
+            DesignVersion newest = latestHeader(current.getId());
+            return designVersionRepository.save(snapshotEntry(current, newest.getSequence() + 1));
+        }
+    }
+
+    // History of a design, newest first, without payloads
+    public List<DesignVersion> getVersions(String designId) {
+        return designVersionRepository.findHeadersByDesignId(designId, Sort.by(Sort.Direction.DESC, "sequence"));
+    }
+
+    // Rebuild a design as it was at the given history entry
+    public Design materializeVersion(String designId, long sequence) {
+        DesignVersion base = designVersionRepository
+                .findFirstByDesignIdAndKindAndSequenceLessThanEqualOrderBySequenceDesc(
+                        designId, DesignVersion.Kind.SNAPSHOT, sequence)
+                .orElseThrow(() -> versionNotFound(designId, sequence));
+
+        Design design = base.getSnapshot();
+        long reached = base.getSequence();
+        if (reached < sequence) {
+            List<DesignVersion> deltas = designVersionRepository.findRange(
+                    designId, base.getSequence(), sequence, Sort.by("sequence"));
+            for (DesignVersion entry : deltas) {
+                if (entry.getKind() == DesignVersion.Kind.SNAPSHOT) {
+                    design = entry.getSnapshot();
+                } else {
+                    applyDelta(design, entry.getDelta());
+                }
+                reached = entry.getSequence();
+            }
+        }
+        if (reached != sequence) {
+            throw versionNotFound(designId, sequence);
+        }
+
+        design.setId(designId);
+        return design;
+    }
+
+    // Drop the history of a deleted design
+    public void deleteHistory(String designId) {
+        designVersionRepository.deleteByDesignId(designId);
+    }
+
+    // Shallow copy taken before a design is modified in place; setters replace references, so it stays intact
+    static Design copyOf(Design design) {
+        Design copy = new Design();
+        copy.setId(design.getId());
+        copy.setName(design.getName());
+        copy.setDescription(design.getDescription());
+        copy.setCanvasConfig(design.getCanvasConfig());
+        copy.setComponents(design.getComponents());
+        copy.setGlobalStyles(design.getGlobalStyles());
+        copy.setThemeSettings(design.getThemeSettings());
+        copy.setMetadata(design.getMetadata());
+        copy.setVersion(design.getVersion());
+        copy.setStatus(design.getStatus());
+        copy.setTags(design.getTags());
+        copy.setCreatedAt(design.getCreatedAt());
+        copy.setUpdatedAt(design.getUpdatedAt());
+        copy.setCreatedBy(design.getCreatedBy());
+        copy.setUpdatedBy(design.getUpdatedBy());
+        copy.setIsPublic(design.getIsPublic());
+        copy.setPreviewImage(design.getPreviewImage());
+        copy.setContentHash(design.getContentHash());
+        copy.setComponentStorage(design.getComponentStorage());
+        copy.setComponentCount(design.getComponentCount());
+        copy.setComponentTypes(design.getComponentTypes());
+        copy.setComponentNames(design.getComponentNames());
+        return copy;
+    }
+
+    private DesignVersion latestHeader(String designId) {
+        List<DesignVersion> latest = designVersionRepository.findLatestHeader(designId, PageRequest.of(0, 1));
+        return latest.isEmpty() ? null : latest.get(0);
+    }
+
+    private DesignVersion snapshotEntry(Design current, long sequence) {
+        DesignVersion entry = newEntry(current, sequence, DesignVersion.Kind.SNAPSHOT);
+        entry.setSnapshot(current);
+        return entry;
+    }
+
+    private DesignVersion deltaEntry(Design current, long sequence, DesignVersion.DesignDelta delta) {
+        DesignVersion entry = newEntry(current, sequence, DesignVersion.Kind.DELTA);
+        entry.setDelta(delta);
+        return entry;
+    }
+
+    private DesignVersion newEntry(Design current, long sequence, DesignVersion.Kind kind) {
+        DesignVersion entry = new DesignVersion();
+        entry.setDesignId(current.getId());
+        entry.setSequence(sequence);
+        entry.setVersion(current.getVersion());
+        entry.setKind(kind);
+        entry.setContentHash(ContentHasher.hashOf(current));
+        entry.setCreatedBy(current.getUpdatedBy() != null ? current.getUpdatedBy() : current.getCreatedBy());
+        return entry;
+    }
+
+    // Changes from previous to current, or null when they cannot be expressed as a delta
+    private DesignVersion.DesignDelta diff(Design previous, Design current) {
+        Design fields = new Design();
+        fields.setCreatedAt(null);
+        fields.setUpdatedAt(null);
+        fields.setVersion(null);
+        fields.setStatus(null);
+        fields.setIsPublic(null);
+        List<String> changed = new ArrayList<>();
+
+        if (!Objects.equals(previous.getName(), current.getName())) {
+            changed.add("name");
+            fields.setName(current.getName());
+        }
+        if (!Objects.equals(previous.getDescription(), current.getDescription())) {
+            changed.add("description");
+            fields.setDescription(current.getDescription());
+        }
+        if (!Objects.equals(ContentHasher.hashCanvasConfig(previous.getCanvasConfig()),
+                ContentHasher.hashCanvasConfig(current.getCanvasConfig()))) {
+            changed.add("canvasConfig");
+            fields.setCanvasConfig(current.getCanvasConfig());
+        }
+        if (!Objects.equals(ContentHasher.hashValue(previous.getGlobalStyles()),
+                ContentHasher.hashValue(current.getGlobalStyles()))) {
+            changed.add("globalStyles");
+            fields.setGlobalStyles(current.getGlobalStyles());
+        }
+        if (!Objects.equals(ContentHasher.hashThemeSettings(previous.getThemeSettings()),
+                ContentHasher.hashThemeSettings(current.getThemeSettings()))) {
+            changed.add("themeSettings");
+            fields.setThemeSettings(current.getThemeSettings());
+        }
+        if (!Objects.equals(ContentHasher.hashMetadata(previous.getMetadata()),
+                ContentHasher.hashMetadata(current.getMetadata()))) {
+            changed.add("metadata");
+            fields.setMetadata(current.getMetadata());
+        }
+        if (!Objects.equals(previous.getVersion(), current.getVersion())) {
+            changed.add("version");
+            fields.setVersion(current.getVersion());
+        }
+        if (previous.getStatus() != current.getStatus()) {
+            changed.add("status");
+            fields.setStatus(current.getStatus());
+        }
+        if (!Objects.equals(previous.getTags(), current.getTags())) {
+            changed.add("tags");
+            fields.setTags(current.getTags());
+        }
+        if (!Objects.equals(previous.getIsPublic(), current.getIsPublic())) {
+            changed.add("isPublic");
+            fields.setIsPublic(current.getIsPublic());
+        }
+        if (!Objects.equals(previous.getPreviewImage(), current.getPreviewImage())) {
+            changed.add("previewImage");
+            fields.setPreviewImage(current.getPreviewImage());
+        }
+        if (!Objects.equals(previous.getUpdatedBy(), current.getUpdatedBy())) {
+            changed.add("updatedBy");
+            fields.setUpdatedBy(current.getUpdatedBy());
+        }
+        changed.add("updatedAt");
+        fields.setUpdatedAt(current.getUpdatedAt());
+
+        DesignVersion.DesignDelta delta = new DesignVersion.DesignDelta();
+        List<Design.DesignComponent> before = previous.getComponents();
+        List<Design.DesignComponent> after = current.getComponents();
+        if (before == null || after == null) {
+            if (before != after) {
+                changed.add("components");
+                fields.setComponents(after);
+            }
+        } else if (!diffComponents(before, after, delta)) {
+            return null;
+        }
+
+        delta.setChangedFields(changed);
+        delta.setFields(fields);
+        return delta;
+    }
+
+    // Fill component upserts, removals and order into the delta; false when components lack unique ids
+    private boolean diffComponents(List<Design.DesignComponent> before, List<Design.DesignComponent> after,
+                                   DesignVersion.DesignDelta delta) {
+        Map<String, String> beforeHashes = new LinkedHashMap<>();
+        for (Design.DesignComponent component : before) {
+            if (component == null || component.getId() == null
+                    || beforeHashes.put(component.getId(), ContentHasher.hashOf(component)) != null) {
+                return false;
+            }
+        }
+
+        List<Design.DesignComponent> upserted = new ArrayList<>();
+        List<String> afterOrder = new ArrayList<>(after.size());
+        List<String> appended = new ArrayList<>();
+        Set<String> afterIds = new HashSet<>();
+        for (Design.DesignComponent component : after) {
+            if (component == null || component.getId() == null || !afterIds.add(component.getId())) {
+                return false;
+            }
+            afterOrder.add(component.getId());
+            String previousHash = beforeHashes.get(component.getId());
+            if (previousHash == null) {
+                upserted.add(component);
+                appended.add(component.getId());
+            } else if (!previousHash.equals(ContentHasher.hashOf(component))) {
+                upserted.add(component);
+            }
+        }
+
+        List<String> removed = new ArrayList<>();
+        List<String> derivedOrder = new ArrayList<>(after.size());
+        for (String id : beforeHashes.keySet()) {
+            if (afterIds.contains(id)) {
+                derivedOrder.add(id);
+            } else {
+                removed.add(id);
+            }
+        }
+        derivedOrder.addAll(appended);
+
+        if (!upserted.isEmpty()) {
+            delta.setUpsertedComponents(upserted);
+        }
+        if (!removed.isEmpty()) {
+            delta.setRemovedComponentIds(removed);
+        }
+        if (!derivedOrder.equals(afterOrder)) {
+            delta.setComponentOrder(afterOrder);
+        }
+        return true;
+    }
+
+    private void applyDelta(Design design, DesignVersion.DesignDelta delta) {
+        Design fields = delta.getFields();
+        for (String field : delta.getChangedFields()) {
+            switch (field) {
+                case "name" -> design.setName(fields.getName());
+                case "description" -> design.setDescription(fields.getDescription());
+                case "canvasConfig" -> design.setCanvasConfig(fields.getCanvasConfig());
+                case "components" -> design.setComponents(fields.getComponents());
+                case "globalStyles" -> design.setGlobalStyles(fields.getGlobalStyles());
+                case "themeSettings" -> design.setThemeSettings(fields.getThemeSettings());
+                case "metadata" -> design.setMetadata(fields.getMetadata());
+                case "version" -> design.setVersion(fields.getVersion());
+                case "status" -> design.setStatus(fields.getStatus());
+                case "tags" -> design.setTags(fields.getTags());
+                case "isPublic" -> design.setIsPublic(fields.getIsPublic());
+                case "previewImage" -> design.setPreviewImage(fields.getPreviewImage());
+                case "updatedBy" -> design.setUpdatedBy(fields.getUpdatedBy());
+                case "updatedAt" -> design.setUpdatedAt(fields.getUpdatedAt());
+                default -> { }
+            }
+        }
+
+        if (delta.getUpsertedComponents() == null && delta.getRemovedComponentIds() == null
+                && delta.getComponentOrder() == null) {
+            return;
+        }
+
+        Map<String, Design.DesignComponent> components = new LinkedHashMap<>();
+        if (design.getComponents() != null) {
+            design.getComponents().forEach(component -> components.put(component.getId(), component));
+        }
+        if (delta.getRemovedComponentIds() != null) {
+            delta.getRemovedComponentIds().forEach(components::remove);
+        }
+        if (delta.getUpsertedComponents() != null) {
+            delta.getUpsertedComponents().forEach(component -> components.put(component.getId(), component));
+        }
+
+        List<Design.DesignComponent> ordered;
+        if (delta.getComponentOrder() != null) {
+            ordered = new ArrayList<>(components.size());
+            for (String id : delta.getComponentOrder()) {
+                ordered.add(components.get(id));
+            }
+        } else {
+            ordered = new ArrayList<>(components.values());
+        }
+        design.setComponents(ordered);
+    }
+
+    private DesignNotFoundException versionNotFound(String designId, long sequence) {
+        return new DesignNotFoundException("Version " + sequence + " not found for design with id: " + designId);
+    }
+}
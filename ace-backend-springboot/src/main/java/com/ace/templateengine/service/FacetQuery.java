@@ -0,0 +1,142 @@
+package com.ace.templateengine.service;
+
+import com.ace.templateengine.exception.InvalidFacetQueryException;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * Parsed boolean query over design facets, e.g. {@code tag:finance AND (status:PUBLISHED OR NOT type:chart)}.
+ *
+ * Terms are facet:value pairs; values containing spaces or parentheses are quoted, as in
+ * {@code tag:"year end"}. NOT binds tightest, then AND, then OR; adjacent terms without an
+ * operator are ANDed.
+ */
+final class FacetQuery {
+
+    static final int MAX_LENGTH = 4096;
+
+    sealed interface Node permits Term, Not, And, Or {}
+
+    record Term(String facet, String value) implements Node {}
+
+    record Not(Node operand) implements Node {}
+
+    record And(List<Node> operands) implements Node {}
+
+    record Or(List<Node> operands) implements Node {}
+
+    private final List<String> tokens;
+    private final Collection<String> facets;
+    private int position;
+
+    private FacetQuery(List<String> tokens, Collection<String> facets) {
+        this.tokens = tokens;
+        this.facets = facets;
+    }
+
+    static Node parse(String query, Collection<String> facets) {
+        if (query.length() > MAX_LENGTH) {
+            throw new InvalidFacetQueryException("Facet query is longer than " + MAX_LENGTH + " characters");
+        }
+        FacetQuery parser = new FacetQuery(tokenize(query), facets);
+        Node node = parser.or();
+        if (parser.position < parser.tokens.size()) {
+            throw new InvalidFacetQueryException("Unexpected '" + parser.tokens.get(parser.position) + "' in facet query");
+        }
+        return node;
+    }
+
+    private Node or() {
+        List<Node> operands = new ArrayList<>(List.of(and()));
+        while (isOperator(peek(), "OR")) {
+            position++;
+            operands.add(and());
+        }
+        return operands.size() == 1 ? operands.get(0) : new Or(operands);
+    }
+
+    private Node and() {
+        List<Node> operands = new ArrayList<>(List.of(unary()));
+        while (peek() != null && !isOperator(peek(), "OR") && !")".equals(peek())) {
+            if (isOperator(peek(), "AND")) {
+                position++;
+            }
+            operands.add(unary());
+        }
+        return operands.size() == 1 ? operands.get(0) : new And(operands);
+    }
+
+    private Node unary() {
+        String token = peek();
+        if (token == null) {
+            throw new InvalidFacetQueryException("Facet query ends unexpectedly");
+        }
+        position++;
+        if (isOperator(token, "NOT")) {
+            return new Not(unary());
+        }
+        if ("(".equals(token)) {
+            Node node = or();
+            if (!")".equals(peek())) {
+                throw new InvalidFacetQueryException("Missing ')' in facet query");
+            }
+            position++;
+            return node;
+        }
+        int colon = token.indexOf(':');
+        if (colon <= 0 || colon == token.length() - 1) {
+            throw new InvalidFacetQueryException("Expected facet:value in facet query, got '" + token + "'");
+        }
+        String facet = token.substring(0, colon).toLowerCase(Locale.ROOT);
+        if (!facets.contains(facet)) {
+            throw new InvalidFacetQueryException("Unknown facet '" + facet + "', expected one of " + facets);
+        }
+        return new Term(facet, token.substring(colon + 1));
+    }
+
+    private String peek() {
+        return position < tokens.size() ? tokens.get(position) : null;
+    }
+
+    // Terms always contain a colon, so a quoted value never reads as an operator
+    private static boolean isOperator(String token, String operator) {
+        return token != null && token.equalsIgnoreCase(operator);
+    }
+
+    private static List<String> tokenize(String query) {
+        List<String> tokens = new ArrayList<>();
+        int length = query.length();
+        int i = 0;
+        while (i < length) {
+            char c = query.charAt(i);
+            if (Character.isWhitespace(c)) {
+                i++;
+                continue;
+            }
+            if (c == '(' || c == ')') {
+                tokens.add(String.valueOf(c));
+                i++;
+                continue;
+            }
+            StringBuilder token = new StringBuilder();
+            while (i < length && !Character.isWhitespace(c = query.charAt(i)) && c != '(' && c != ')') {
+                if (c == '"') {
+                    int end = query.indexOf('"', i + 1);
+                    if (end < 0) {
+                        throw new InvalidFacetQueryException("Unterminated quote in facet query");
+                    }
+                    token.append(query, i + 1, end);
+                    i = end + 1;
+                } else {
+                    token.append(c);
+                    i++;
+                }
+            }
+            tokens.add(token.toString());
+        }
+        return tokens;
+    }
+}
@@ -0,0 +1,578 @@
+package com.ace.templateengine.service;
+
+import com.ace.templateengine.dto.ReportJobRequest;
+import com.ace.templateengine.dto.ReportJobStatus;
+import com.ace.templateengine.exception.InvalidReportJobException;
+import com.ace.templateengine.model.Design;
+import com.mongodb.client.MongoCursor;
+import com.mongodb.client.model.Filters;
+import com.mongodb.client.model.Sorts;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.apache.commons.compress.archivers.zip.ParallelScatterZipCreator;
+import org.apache.commons.compress.archivers.zip.ZipArchiveEntry;
+import org.apache.commons.compress.archivers.zip.ZipArchiveOutputStream;
+import org.bson.Document;
+import org.bson.conversions.Bson;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.Future;
+import java.util.regex.Matcher;
+import java.util.zip.ZipEntry;
+
+/**
+ * Batch report jobs: one published design rendered once per fund of fund_info, with the fund
+ * and its code as variables, e.g. for a find on nav_history with {"fund_code": "{{fund_code}}"}.
+ *
+ * Funds are read in chunks. Queries filtering a field by the fund code are run once per chunk
+ * with $in over all codes of the chunk, queries not depending on the fund once per job, and
+ * only the rest once per fund. The next chunk is prefetched while the current one renders on a
+ * pool bounded to the job's parallelism, so at most two chunks of fund data are held at once.
+ * Rendering and zip compression are CPU bound and run on that same pool, which is what makes a
+ * run scale with the cores given to it. Jobs run one at a time, in the order submitted.
+ */
+@Service
+public class FundReportService {
+
+    private static final Logger logger = LoggerFactory.getLogger(FundReportService.class);
+
+    // Errors kept per job; the failed count keeps counting past them
+    private static final int MAX_REPORTED_ERRORS = 100;
+
+    // Finished jobs kept for status queries
+    private static final int MAX_TRACKED_JOBS = 50;
+
+    @Autowired
+    private DesignService designService;
+
+    @Autowired
+    private DesignRenderer designRenderer;
+
+    @Autowired
+    private MongoTemplate mongoTemplate;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Value("${app.reports.output-dir:data/reports}")
+    private String outputDir;
+
+    @Value("${app.reports.fund-collection:fund_info}")
+    private String fundCollection;
+
+    @Value("${app.reports.fund-key:fund_code}")
+    private String fundKey;
+
+    @Value("${app.reports.prefetch-chunk-size:250}")
+    private int chunkSize;
+
+    @Value("${app.reports.max-attempts:3}")
+    private int maxAttempts;
+
+    @Value("${app.reports.retry-backoff-ms:200}")
+    private long retryBackoffMs;
+
+    @Value("${app.reports.nightly-design-id:}")
+    private String nightlyDesignId;
+
+    // Upper bound on the threads one job may render on, 0 for the number of processors
+    @Value("${app.reports.max-parallelism:0}")
+    private int maxParallelism;
+
+    private final Map<String, ReportJobStatus> jobs = new LinkedHashMap<>() {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<String, ReportJobStatus> eldest) {
+            ReportJobStatus.JobState state = eldest.getValue().getState();
+            return size() > MAX_TRACKED_JOBS && state != ReportJobStatus.JobState.QUEUED && state != ReportJobStatus.JobState.RUNNING;
+        }
+    };
+
+    private final Set<String> cancelled = ConcurrentHashMap.newKeySet();
+
+    private ExecutorService runner;
+    private Timer renderTimer;
+    private Timer prefetchTimer;
+    private Counter renderedCounter;
+    private Counter failedCounter;
+    private Counter retryCounter;
+
+    // How the rows of a binding are obtained for a fund
+    private enum Fetch {
+        // Once per job, the binding does not depend on the fund
+        SHARED,
+        // Once per chunk of funds, with $in on the field filtered by the fund code
+        CHUNK,
+        // Once per fund
+        FUND
+    }
+
+    private record Binding(RenderPlan.DataBinding binding, Fetch fetch, String field) {}
+
+    // A fund of the current chunk with the rows of its CHUNK bindings, by binding position
+    private record PrefetchedFund(Document fund, Object code, Map<Integer, List<Map<String, Object>>> rows) {}
+
+    @PostConstruct
+    void initialize() {
+        runner = Executors.newSingleThreadExecutor(Thread.ofPlatform().name("report-jobs").daemon().factory());
+        renderTimer = Timer.builder("ace.report.render")
+                .description("Time to fetch, render and write the report of one fund")
+                .register(meterRegistry);
+        prefetchTimer = Timer.builder("ace.report.prefetch")
+                .description("Time to prefetch the fund data of one chunk of funds")
+                .register(meterRegistry);
+        renderedCounter = Counter.builder("ace.report.reports").tag("result", "rendered")
+                .description("Fund reports by outcome")
+                .register(meterRegistry);
+        failedCounter = Counter.builder("ace.report.reports").tag("result", "failed")
+                .description("Fund reports by outcome")
+                .register(meterRegistry);
+        retryCounter = Counter.builder("ace.report.retries")
+                .description("Fund report attempts retried after a failure")
+                .register(meterRegistry);
+    }
+
+    @PreDestroy
+    void shutdown() {
+        runner.shutdownNow();
+    }
+
+    /**
+     * Queue a job rendering the design for the requested funds, all funds when none are given.
+     * The design must be published.
+     */
+    public ReportJobStatus submit(ReportJobRequest request) {
+        if (request.getDesignId() == null || request.getDesignId().isBlank()) {
+            throw new InvalidReportJobException("A design is required");
+        }
+        int limit = maxParallelism > 0 ? maxParallelism : Runtime.getRuntime().availableProcessors();
+        if (request.getParallelism() != null && request.getParallelism() < 1) {
+            throw new InvalidReportJobException("Parallelism must be at least 1");
+        }
+        if (request.getParallelism() != null && request.getParallelism() > limit) {
+            throw new InvalidReportJobException("Parallelism must be at most " + limit);
+        }
+        Design design = designService.getDesignShell(request.getDesignId());
+        if (design.getStatus() != Design.DesignStatus.PUBLISHED) {
+            throw new InvalidReportJobException("Design " + design.getId() + " is not published");
+        }
+        ReportJobRequest.OutputFormat output = request.getOutput() != null ? request.getOutput() : ReportJobRequest.OutputFormat.ZIP;
+        ReportJobStatus status = new ReportJobStatus(UUID.randomUUID().toString(), design.getId(), output);
+        status.setDesignName(design.getName());
+        status.setParallelism(request.getParallelism() != null ? request.getParallelism() : limit);
+        Path base = Paths.get(outputDir);
+        status.setLocation((output == ReportJobRequest.OutputFormat.ZIP
+                ? base.resolve(status.getJobId() + ".zip") : base.resolve(status.getJobId())).toString());
+        synchronized (jobs) {
+            jobs.put(status.getJobId(), status);
+        }
+        runner.execute(() -> run(status, design, request));
+        return getJob(status.getJobId());
+    }
+
+    // Nightly run over all funds, when a design is configured for it
+    @Scheduled(cron = "${app.reports.nightly-cron:-}")
+    public void runNightly() {
+        if (nightlyDesignId == null || nightlyDesignId.isBlank()) {
+            logger.warn("Nightly report run skipped: no design configured");
+            return;
+        }
+        ReportJobStatus status = submit(new ReportJobRequest(nightlyDesignId, ReportJobRequest.OutputFormat.ZIP));
+        logger.info("Queued nightly report job {} for design {}", status.getJobId(), nightlyDesignId);
+    }
+
+    // Stop a queued or running job; reports already written are kept
+    public ReportJobStatus cancel(String jobId) {
+        ReportJobStatus status = getJob(jobId);
+        if (status != null && (status.getState() == ReportJobStatus.JobState.QUEUED
+                || status.getState() == ReportJobStatus.JobState.RUNNING)) {
+            cancelled.add(jobId);
+        }
+        return status;
+    }
+
+    // Copy of the current progress of a job, null when unknown
+    public ReportJobStatus getJob(String jobId) {
+        ReportJobStatus status;
+        synchronized (jobs) {
+            status = jobs.get(jobId);
+        }
+        return status == null ? null : snapshot(status);
+    }
+
+    // Tracked jobs, most recent first
+    public List<ReportJobStatus> getJobs() {
+        List<ReportJobStatus> statuses;
+        synchronized (jobs) {
+            statuses = new ArrayList<>(jobs.values());
+        }
+        List<ReportJobStatus> copies = new ArrayList<>(statuses.size());
+        for (int i = statuses.size() - 1; i >= 0; i--) {
+            copies.add(snapshot(statuses.get(i)));
+        }
+        return copies;
+    }
+
+    private void run(ReportJobStatus status, Design design, ReportJobRequest request) {
+        String jobId = status.getJobId();
+        if (cancelled.remove(jobId)) {
+            finish(status, ReportJobStatus.JobState.CANCELLED, "Cancelled before it started");
+            return;
+        }
+        Bson filter = request.getFundCodes() != null && !request.getFundCodes().isEmpty()
+                ? Filters.in(fundKey, request.getFundCodes())
+                : Filters.exists(fundKey);
+        Map<String, Object> variables = request.getVariables() != null ? request.getVariables() : Map.of();
+        ForkJoinPool pool = new ForkJoinPool(status.getParallelism());
+        Path location = Paths.get(status.getLocation());
+        Path partial = location.resolveSibling(location.getFileName() + ".part");
+        ParallelScatterZipCreator zip = null;
+        try {
+            RenderPlan plan = designRenderer.plan(design);
+            List<Binding> bindings = classify(plan.bindings());
+            List<List<Map<String, Object>>> shared = new ArrayList<>(bindings.size());
+            for (Binding binding : bindings) {
+                shared.add(binding.fetch() == Fetch.SHARED
+                        ? withRetries(status, () -> designRenderer.query(binding.binding(), variables))
+                        : null);
+            }
+            long total = mongoTemplate.getCollection(fundCollection).countDocuments(filter);
+            synchronized (status) {
+                status.setTotalFunds(total);
+                status.setState(ReportJobStatus.JobState.RUNNING);
+                status.setStartedAt(LocalDateTime.now());
+            }
+            logger.info("Report job {} started: design {} for {} funds on {} threads", jobId, design.getId(), total, status.getParallelism());
+
+            if (status.getOutput() == ReportJobRequest.OutputFormat.ZIP) {
+                Files.createDirectories(location.getParent() != null ? location.getParent() : Paths.get("."));
+                zip = new ParallelScatterZipCreator(pool);
+            } else {
+                Files.createDirectories(location);
+            }
+            ParallelScatterZipCreator archive = zip;
+            ReportSink sink = archive != null
+                    ? (fileName, bytes) -> {
+                        ZipArchiveEntry entry = new ZipArchiveEntry(fileName);
+                        entry.setMethod(ZipEntry.DEFLATED);
+                        archive.addArchiveEntry(entry, () -> new ByteArrayInputStream(bytes));
+                    }
+                    : (fileName, bytes) -> Files.write(location.resolve(fileName), bytes);
+
+            try (MongoCursor<Document> funds = mongoTemplate.getCollection(fundCollection)
+                    .find(filter)
+                    .sort(Sorts.ascending(fundKey))
+                    .batchSize(chunkSize)
+                    .iterator()) {
+                Set<Object> seen = new HashSet<>();
+                List<PrefetchedFund> chunk = prefetch(status, bindings, nextChunk(funds, seen), variables);
+                while (!chunk.isEmpty() && !cancelled.contains(jobId)) {
+                    List<Future<?>> renders = new ArrayList<>(chunk.size());
+                    for (PrefetchedFund fund : chunk) {
+                        renders.add(pool.submit(() -> renderFund(status, plan, bindings, shared, fund, variables, request.isFragment(), sink)));
+                    }
+                    // The next chunk is read and prefetched while this one renders
+                    List<PrefetchedFund> next = prefetch(status, bindings, nextChunk(funds, seen), variables);
+                    for (Future<?> render : renders) {
+                        render.get();
+                    }
+                    chunk = next;
+                }
+            }
+
+            if (archive != null) {
+                try (ZipArchiveOutputStream out = new ZipArchiveOutputStream(partial.toFile())) {
+                    archive.writeTo(out);
+                }
+                Files.move(partial, location, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            }
+            if (cancelled.remove(jobId)) {
+                finish(status, ReportJobStatus.JobState.CANCELLED, "Cancelled; reports rendered so far were written");
+            } else {
+                finish(status, ReportJobStatus.JobState.COMPLETED, null);
+            }
+            ReportJobStatus done = getJob(jobId);
+            logger.info("Report job {} finished: {} rendered, {} failed, {} retries, {} reports/s", jobId,
+                    done.getRendered(), done.getFailed(), done.getRetries(), String.format("%.1f", done.getReportsPerSecond()));
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            finish(status, ReportJobStatus.JobState.FAILED, "Interrupted");
+        } catch (Exception e) {
+            Throwable cause = e instanceof ExecutionException ? e.getCause() : e;
+            finish(status, ReportJobStatus.JobState.FAILED, "Job failed: " + cause.getMessage());
+            logger.warn("Report job {} failed: {}", jobId, cause.getMessage());
+        } finally {
+            cancelled.remove(jobId);
+            pool.shutdownNow();
+            try {
+                Files.deleteIfExists(partial);
+            } catch (IOException e) {
+                logger.warn("Could not remove partial report archive {}: {}", partial, e.getMessage());
+            }
+        }
+    }
+
+    @FunctionalInterface
+    private interface ReportSink {
+        void write(String fileName, byte[] bytes) throws IOException;
+    }
+
+    // Render, and on failure retry, the report of one fund; a fund failing every attempt is recorded, not thrown
+    private void renderFund(ReportJobStatus status, RenderPlan plan, List<Binding> bindings, List<List<Map<String, Object>>> shared,
+                            PrefetchedFund fund, Map<String, Object> jobVariables, boolean fragment, ReportSink sink) {
+        if (cancelled.contains(status.getJobId())) {
+            return;
+        }
+        String code = RenderPlan.text(fund.code());
+        if (fund.rows() == null) {
+            fail(status, code, "Prefetching the fund's data failed");
+            return;
+        }
+        Map<String, Object> variables = new HashMap<>(jobVariables);
+        variables.put("fund", fund.fund());
+        variables.put(fundKey, fund.code());
+        long started = System.nanoTime();
+        try {
+            byte[] bytes = withRetries(status, () -> {
+                List<List<Map<String, Object>>> rows = new ArrayList<>(bindings.size());
+                for (int i = 0; i < bindings.size(); i++) {
+                    Binding binding = bindings.get(i);
+                    rows.add(switch (binding.fetch()) {
+                        case SHARED -> shared.get(i);
+                        case CHUNK -> fund.rows().getOrDefault(i, List.of());
+                        case FUND -> designRenderer.query(binding.binding(), variables);
+                    });
+                }
+                ByteArrayOutputStream buffer = new ByteArrayOutputStream(16 * 1024);
+                try (Writer out = new OutputStreamWriter(buffer, StandardCharsets.UTF_8)) {
+                    plan.render(out, variables, rows, fragment);
+                }
+                byte[] report = buffer.toByteArray();
+                sink.write(fileName(code), report);
+                return report;
+            });
+            renderTimer.record(Duration.ofNanos(System.nanoTime() - started));
+            renderedCounter.increment();
+            synchronized (status) {
+                status.setRendered(status.getRendered() + 1);
+                status.setBytesWritten(status.getBytesWritten() + bytes.length);
+            }
+        } catch (Exception e) {
+            fail(status, code, e.getMessage());
+        }
+    }
+
+    // Up to maxAttempts tries with a growing pause in between
+    private <T> T withRetries(ReportJobStatus status, Callable<T> attempt) throws Exception {
+        for (int tries = 1; ; tries++) {
+            try {
+                return attempt.call();
+            } catch (Exception e) {
+                if (tries >= maxAttempts || cancelled.contains(status.getJobId())) {
+                    throw e;
+                }
+                retryCounter.increment();
+                synchronized (status) {
+                    status.setRetries(status.getRetries() + 1);
+                }
+                Thread.sleep(retryBackoffMs * tries);
+            }
+        }
+    }
+
+    private List<Document> nextChunk(MongoCursor<Document> funds, Set<Object> seen) {
+        List<Document> chunk = new ArrayList<>(chunkSize);
+        while (chunk.size() < chunkSize && funds.hasNext()) {
+            Document fund = funds.next();
+            // One report per fund, even if fund_info lists a fund twice
+            if (seen.add(fund.get(fundKey))) {
+                chunk.add(fund);
+            }
+        }
+        return chunk;
+    }
+
+    // The funds of a chunk with their rows of every CHUNK binding; rows are null for all funds when that fails
+    private List<PrefetchedFund> prefetch(ReportJobStatus status, List<Binding> bindings, List<Document> funds,
+                                         Map<String, Object> variables) throws InterruptedException {
+        List<Object> codes = new ArrayList<>(funds.size());
+        for (Document fund : funds) {
+            codes.add(fund.get(fundKey));
+        }
+        Map<Integer, Map<Object, List<Map<String, Object>>>> grouped = new HashMap<>();
+        long started = System.nanoTime();
+        try {
+            for (int i = 0; i < bindings.size() && !funds.isEmpty(); i++) {
+                Binding binding = bindings.get(i);
+                if (binding.fetch() == Fetch.CHUNK) {
+                    grouped.put(i, withRetries(status, () -> designRenderer.queryGrouped(binding.binding(), binding.field(), codes, variables)));
+                }
+            }
+            prefetchTimer.record(Duration.ofNanos(System.nanoTime() - started));
+        } catch (InterruptedException e) {
+            throw e;
+        } catch (Exception e) {
+            logger.warn("Report job {}: prefetching {} funds failed: {}", status.getJobId(), funds.size(), e.getMessage());
+            grouped = null;
+        }
+        List<PrefetchedFund> chunk = new ArrayList<>(funds.size());
+        for (int f = 0; f < funds.size(); f++) {
+            Map<Integer, List<Map<String, Object>>> rows = null;
+            if (grouped != null) {
+                rows = new HashMap<>();
+                for (Map.Entry<Integer, Map<Object, List<Map<String, Object>>>> entry : grouped.entrySet()) {
+                    rows.put(entry.getKey(), entry.getValue().getOrDefault(codes.get(f), List.of()));
+                }
+            }
+            chunk.add(new PrefetchedFund(funds.get(f), codes.get(f), rows));
+        }
+        return chunk;
+    }
+
+    /**
+     * Decide how each binding of the plan is fetched: a find whose filter has a top-level field
+     * equal to just the fund code placeholder, and no other reference to the fund, is prefetched
+     * per chunk; anything else referring to the fund is fetched per fund.
+     */
+    private List<Binding> classify(List<RenderPlan.DataBinding> bindings) {
+        List<Binding> classified = new ArrayList<>(bindings.size());
+        for (RenderPlan.DataBinding binding : bindings) {
+            if (binding.pipeline() != null) {
+                classified.add(new Binding(binding, referencesFund(binding.pipeline()) ? Fetch.FUND : Fetch.SHARED, null));
+                continue;
+            }
+            if (binding.filter() == null || !referencesFund(binding.filter())) {
+                classified.add(new Binding(binding, Fetch.SHARED, null));
+                continue;
+            }
+            String field = null;
+            for (Map.Entry<String, Object> entry : binding.filter().entrySet()) {
+                if (!entry.getKey().startsWith("$") && isFundCode(entry.getValue())) {
+                    Document rest = new Document(binding.filter());
+                    rest.remove(entry.getKey());
+                    if (!referencesFund(rest)) {
+                        field = entry.getKey();
+                    }
+                    break;
+                }
+            }
+            classified.add(new Binding(binding, field != null ? Fetch.CHUNK : Fetch.FUND, field));
+        }
+        return classified;
+    }
+
+    private boolean isFundCode(Object value) {
+        if (!(value instanceof String text)) {
+            return false;
+        }
+        Matcher matcher = RenderPlanCompiler.PLACEHOLDER.matcher(text);
+        return matcher.matches() && (matcher.group(1).equals(fundKey) || matcher.group(1).equals("fund." + fundKey));
+    }
+
+    // Whether a query has a placeholder for the fund or its code
+    private boolean referencesFund(Object value) {
+        if (value instanceof Map<?, ?> map) {
+            return map.values().stream().anyMatch(this::referencesFund);
+        }
+        if (value instanceof List<?> list) {
+            return list.stream().anyMatch(this::referencesFund);
+        }
+        if (value instanceof String text && text.contains("{{")) {
+            Matcher matcher = RenderPlanCompiler.PLACEHOLDER.matcher(text);
+            while (matcher.find()) {
+                String root = matcher.group(1).split("\\.", 2)[0];
+                if (root.equals("fund") || root.equals(fundKey)) {
+                    return true;
+                }
+            }
+        }
+        return false;
+    }
+
+    // Fund codes become file names, so anything but letters, digits, dots, dashes and underscores is replaced
+    private static String fileName(String fundCode) {
+        String name = fundCode.replaceAll("[^A-Za-z0-9._-]", "_");
+        return (name.isEmpty() || name.startsWith(".") ? "_" + name : name) + ".html";
+    }
+
+    private void fail(ReportJobStatus status, String fundCode, String message) {
+        failedCounter.increment();
+        synchronized (status) {
+            status.setFailed(status.getFailed() + 1);
+            if (status.getErrors().size() < MAX_REPORTED_ERRORS) {
+                status.getErrors().add(new ReportJobStatus.ReportError(fundCode, message));
+            }
+        }
+    }
+
+    private void finish(ReportJobStatus status, ReportJobStatus.JobState state, String message) {
+        synchronized (status) {
+            status.setState(state);
+            status.setMessage(message);
+            status.setFinishedAt(LocalDateTime.now());
+        }
+    }
+
+    private static ReportJobStatus snapshot(ReportJobStatus status) {
+        synchronized (status) {
+            ReportJobStatus copy = new ReportJobStatus();
+            copy.setJobId(status.getJobId());
+            copy.setDesignId(status.getDesignId());
+            copy.setDesignName(status.getDesignName());
+            copy.setState(status.getState());
+            copy.setOutput(status.getOutput());
+            copy.setLocation(status.getLocation());
+            copy.setParallelism(status.getParallelism());
+            copy.setTotalFunds(status.getTotalFunds());
+            copy.setRendered(status.getRendered());
+            copy.setFailed(status.getFailed());
+            copy.setRetries(status.getRetries());
+            copy.setBytesWritten(status.getBytesWritten());
+            copy.setErrors(new ArrayList<>(status.getErrors()));
+            copy.setMessage(status.getMessage());
+            copy.setQueuedAt(status.getQueuedAt());
+            copy.setStartedAt(status.getStartedAt());
+            copy.setFinishedAt(status.getFinishedAt());
+            if (status.getStartedAt() != null) {
+                LocalDateTime end = status.getFinishedAt() != null ? status.getFinishedAt() : LocalDateTime.now();
+                long millis = Math.max(1, Duration.between(status.getStartedAt(), end).toMillis());
+                copy.setReportsPerSecond(status.getRendered() * 1000.0 / millis);
+            }
+            return copy;
+        }
+    }
+}
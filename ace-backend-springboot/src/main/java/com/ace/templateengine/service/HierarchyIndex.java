@@ -0,0 +1,221 @@
+package com.ace.templateengine.service;
+
+import com.ace.templateengine.model.Design;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Component hierarchy of a design numbered by a pre-order (Euler tour) walk.
+ *
+ * Every component gets the position where the walk enters it and the size of its subtree, so
+ * a subtree is one contiguous slice of the walk (O(k)) and "is A an ancestor of B" is two
+ * comparisons (O(1)). The parent of a component is its parentId, or the component whose
+ * children list names it; children lists give the sibling order, and children only known by
+ * parentId follow in component list order.
+ *
+ * Building is a single linear pass that also collects hierarchy problems: duplicate ids,
+ * references to missing components, conflicting parents and cycles. Components caught in a
+ * cycle are not part of the walk.
+ */
+final class HierarchyIndex {
+
+    private final String[] ids;
+    private final Map<String, Integer> positions;
+    private final int[] parent;
+    private final int[] depth;
+    // Pre-order entry number and subtree size (including the node) of every component, -1/0 when unreachable
+    private final int[] enter;
+    private final int[] size;
+    // Components in walk order
+    private final int[] walk;
+    private final List<String> problems;
+
+    private HierarchyIndex(String[] ids, Map<String, Integer> positions, int[] parent, int[] depth,
+                           int[] enter, int[] size, int[] walk, List<String> problems) {
+        this.ids = ids;
+        this.positions = positions;
+        this.parent = parent;
+        this.depth = depth;
+        this.enter = enter;
+        this.size = size;
+        this.walk = walk;
+        this.problems = problems;
+    }
+
+    static HierarchyIndex build(List<Design.DesignComponent> components) {
+        List<Design.DesignComponent> list = components == null ? List.of() : components;
+        int n = list.size();
+        List<String> problems = new ArrayList<>();
+
+        String[] ids = new String[n];
+        Map<String, Integer> positions = new HashMap<>(n * 2);
+        for (int i = 0; i < n; i++) {
+            ids[i] = DesignComponentStore.componentId(list.get(i), i);
+            if (positions.putIfAbsent(ids[i], i) != null) {
+                problems.add("Duplicate component id: " + ids[i]);
+            }
+        }
+
+        // Resolve parents from parentId first, then from children lists
+        int[] parent = new int[n];
+        Arrays.fill(parent, -1);
+        List<List<Integer>> children = new ArrayList<>(n);
+        for (int i = 0; i < n; i++) {
+            children.add(new ArrayList<>());
+            String parentId = list.get(i).getParentId();
+            if (parentId != null) {
+                Integer p = positions.get(parentId);
+                if (p == null) {
+                    problems.add("Component " + ids[i] + " references missing parent " + parentId);
+                } else {
+                    parent[i] = p;
+                }
+            }
+        }
+        boolean[] listed = new boolean[n];
+        for (int p = 0; p < n; p++) {
+            List<String> childIds = list.get(p).getChildren();
+            if (childIds == null) {
+                continue;
+            }
+            for (String childId : childIds) {
+                Integer c = positions.get(childId);
+                if (c == null) {
+                    problems.add("Component " + ids[p] + " lists missing child " + childId);
+                } else if (listed[c]) {
+                    problems.add("Component " + childId + " is listed as a child more than once");
+                } else if (parent[c] != -1 && parent[c] != p) {
+                    problems.add("Component " + childId + " has parentId " + ids[parent[c]] + " but is listed as a child of " + ids[p]);
+                } else {
+                    listed[c] = true;
+                    parent[c] = p;
+                    children.get(p).add(c);
+                }
+            }
+        }
+        List<Integer> roots = new ArrayList<>();
+        for (int i = 0; i < n; i++) {
+            if (parent[i] == -1) {
+                roots.add(i);
+            } else if (!listed[i]) {
+                children.get(parent[i]).add(i);
+            }
+        }
+
+        // Iterative pre-order walk from the roots; whatever it does not reach sits on or below a cycle
+        int[] enter = new int[n];
+        int[] size = new int[n];
+        int[] depth = new int[n];
+        Arrays.fill(enter, -1);
+        int[] walk = new int[n];
+        int visited = 0;
+        int[] stack = new int[n + 1];
+        int[] next = new int[n];
+        for (int root : roots) {
+            int top = 0;
+            stack[top] = root;
+            enter[root] = visited;
+            walk[visited++] = root;
+            while (top >= 0) {
+                int node = stack[top];
+                List<Integer> nodeChildren = children.get(node);
+                if (next[node] < nodeChildren.size()) {
+                    int child = nodeChildren.get(next[node]++);
+                    if (enter[child] != -1) {
+                        continue;
+                    }
+                    enter[child] = visited;
+                    depth[child] = depth[node] + 1;
+                    walk[visited++] = child;
+                    stack[++top] = child;
+                } else {
+                    size[node] = visited - enter[node];
+                    top--;
+                }
+            }
+        }
+        if (visited < n) {
+            List<String> cyclic = new ArrayList<>();
+            for (int i = 0; i < n; i++) {
+                if (enter[i] == -1) {
+                    cyclic.add(ids[i]);
+                }
+            }
+            problems.add("Components form a cycle or hang below one: " + cyclic);
+        }
+
+        return new HierarchyIndex(ids, positions, parent, depth, enter, size,
+                Arrays.copyOf(walk, visited), Collections.unmodifiableList(problems));
+    }
+
+    List<String> problems() {
+        return problems;
+    }
+
+    // Positions in the design's component list in walk order, so every subtree directly follows its root
+    int[] walkOrder() {
+        return walk.clone();
+    }
+
+    // Depth of the component at a list position; top-level components are at depth 0
+    int depthAt(int position) {
+        return depth[position];
+    }
+
+    boolean contains(String id) {
+        return positions.containsKey(id);
+    }
+
+    // Position of the component in the design's component list, or -1
+    int positionOf(String id) {
+        Integer position = positions.get(id);
+        return position == null ? -1 : position;
+    }
+
+    // Id of the parent of a component, or null for top-level and unknown components
+    String parentOf(String id) {
+        Integer node = positions.get(id);
+        return node == null || parent[node] == -1 ? null : ids[parent[node]];
+    }
+
+    // True when ancestorId is a proper ancestor of id
+    boolean isAncestor(String ancestorId, String id) {
+        Integer a = positions.get(ancestorId);
+        Integer d = positions.get(id);
+        if (a == null || d == null || enter[a] == -1 || enter[d] == -1) {
+            return false;
+        }
+        return enter[a] < enter[d] && enter[d] < enter[a] + size[a];
+    }
+
+    // Ids of the component and all of its descendants in walk order; empty when missing or unreachable
+    List<String> subtree(String id) {
+        Integer node = positions.get(id);
+        if (node == null || enter[node] == -1) {
+            return List.of();
+        }
+        List<String> result = new ArrayList<>(size[node]);
+        for (int i = enter[node]; i < enter[node] + size[node]; i++) {
+            result.add(ids[walk[i]]);
+        }
+        return result;
+    }
+
+    // Ids of the ancestors of a component, root first
+    List<String> ancestors(String id) {
+        Integer node = positions.get(id);
+        if (node == null || enter[node] == -1) {
+            return List.of();
+        }
+        String[] result = new String[depth[node]];
+        for (int p = parent[node], i = depth[node] - 1; p != -1; p = parent[p], i--) {
+            result[i] = ids[p];
+        }
+        return Arrays.asList(result);
+    }
+}
@@ -0,0 +1,66 @@
+package com.ace.templateengine.service;
+
+import com.ace.templateengine.exception.InvalidComponentHierarchyException;
+import com.ace.templateengine.model.Design;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+
+/**
+ * Cached component hierarchy indexes of recently used designs, tagged with the content hash of
+ * the design they were built from.
+ */
+@Service
+public class HierarchyIndexService {
+
+    @Value("${app.designs.hierarchy-index.cache-size:200}")
+    private int cacheSize;
+
+    private final Map<String, CachedHierarchy> cache = Collections.synchronizedMap(new LinkedHashMap<>(64, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<String, CachedHierarchy> eldest) {
+            return size() > cacheSize;
+        }
+    });
+
+    // Index the components about to be written, rejecting cycles, orphans and conflicting parents
+    public HierarchyIndex validate(List<Design.DesignComponent> components) {
+        HierarchyIndex index = HierarchyIndex.build(components);
+        if (!index.problems().isEmpty()) {
+            throw new InvalidComponentHierarchyException("Invalid component hierarchy", index.problems());
+        }
+        return index;
+    }
+
+    // Cached index for a design shell when it is current, otherwise null
+    public HierarchyIndex cached(Design design) {
+        CachedHierarchy cached = cache.get(design.getId());
+        return cached != null && Objects.equals(cached.contentHash(), ContentHasher.hashOf(design)) ? cached.index() : null;
+    }
+
+    // Index of a design whose components are loaded, cached for later lookups by hash
+    public HierarchyIndex indexFor(Design design) {
+        HierarchyIndex index = cached(design);
+        if (index == null) {
+            index = HierarchyIndex.build(design.getComponents());
+            put(design, index);
+        }
+        return index;
+    }
+
+    public void put(Design design, HierarchyIndex index) {
+        cache.put(design.getId(), new CachedHierarchy(ContentHasher.hashOf(design), index));
+    }
+
+    public void evict(String designId) {
+        cache.remove(designId);
+    }
+
+    private record CachedHierarchy(String contentHash, HierarchyIndex index) {}
+}
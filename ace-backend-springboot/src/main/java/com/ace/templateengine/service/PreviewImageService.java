@@ -0,0 +1,276 @@
+package com.ace.templateengine.service;
+
+import com.ace.templateengine.model.Design;
+import com.mongodb.client.gridfs.GridFSBucket;
+import com.mongodb.client.gridfs.GridFSBuckets;
+import com.mongodb.client.gridfs.model.GridFSFile;
+import com.mongodb.client.gridfs.model.GridFSUploadOptions;
+import com.mongodb.client.model.Filters;
+import com.mongodb.client.model.Projections;
+import com.mongodb.client.model.Updates;
+import org.bson.Document;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.http.InvalidMediaTypeException;
+import org.springframework.http.MediaType;
+import org.springframework.scheduling.annotation.Async;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import javax.imageio.ImageIO;
+import java.awt.Graphics2D;
+import java.awt.RenderingHints;
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.Date;
+import java.util.HashSet;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.Optional;
+import java.util.Set;
+
+/**
+ * Preview images stored in GridFS instead of inline in design documents.
+ *
+ * Data URLs written to previewImage are decoded and stored once per content hash; the design
+ * keeps a short URL under {@link #URL_PREFIX} in their place. Images are immutable per hash,
+ * so they can be served with long-lived cache headers. Thumbnails are generated in the
+ * background when a design is published, and on first request otherwise.
+ */
+@Service
+public class PreviewImageService {
+
+    private static final Logger logger = LoggerFactory.getLogger(PreviewImageService.class);
+
+    public static final String URL_PREFIX = "/api/previews/";
+
+    private static final String BUCKET = "preview_images";
+    private static final String THUMBNAIL_SEPARATOR = "@";
+
+    @Autowired
+    private MongoTemplate mongoTemplate;
+
+    @Value("${app.designs.previews.thumbnail-widths:160,320}")
+    private List<Integer> thumbnailWidths;
+
+    @Value("${app.designs.previews.gc-grace-minutes:60}")
+    private long gcGraceMinutes;
+
+    /**
+     * Replace an inline data URL preview of the design with a stored image URL; other values,
+     * including URLs of already stored images, are left alone
+     */
+    public void offload(Design design) {
+        String preview = design.getPreviewImage();
+        if (preview == null || !preview.startsWith("data:")) {
+            return;
+        }
+        int comma = preview.indexOf(',');
+        String header = comma < 0 ? "" : preview.substring(5, comma);
+        if (!header.startsWith("image/") || !header.endsWith(";base64")) {
+            return;
+        }
+        byte[] bytes;
+        try {
+            bytes = Base64.getMimeDecoder().decode(preview.substring(comma + 1));
+        } catch (IllegalArgumentException e) {
+            // Not valid base64: keep the value inline rather than lose it
+            return;
+        }
+        String contentType = header.substring(0, header.length() - ";base64".length());
+        try {
+            MediaType.parseMediaType(contentType);
+        } catch (InvalidMediaTypeException e) {
+            return;
+        }
+        design.setPreviewImage(URL_PREFIX + store(bytes, contentType));
+    }
+
+    // Hash of the stored image a preview URL points to, if any
+    public static Optional<String> storedHash(String previewImage) {
+        if (previewImage == null || !previewImage.startsWith(URL_PREFIX)) {
+            return Optional.empty();
+        }
+        return Optional.of(previewImage.substring(URL_PREFIX.length()));
+    }
+
+    public Optional<StoredImage> load(String hash) {
+        return read(hash);
+    }
+
+    // Thumbnail of a stored image, generated now when it does not exist yet; empty for unknown widths or non-raster images
+    public Optional<StoredImage> loadThumbnail(String hash, int width) {
+        if (!thumbnailWidths.contains(width)) {
+            return Optional.empty();
+        }
+        Optional<StoredImage> thumbnail = read(hash + THUMBNAIL_SEPARATOR + width);
+        return thumbnail.isPresent() ? thumbnail : generateThumbnail(hash, width);
+    }
+
+    // Generate all configured thumbnails of a design's preview off the request thread
+    @Async
+    public void generateThumbnails(Design design) {
+        storedHash(design.getPreviewImage()).ifPresent(hash -> {
+            for (int width : thumbnailWidths) {
+                if (find(hash + THUMBNAIL_SEPARATOR + width) == null) {
+                    generateThumbnail(hash, width);
+                }
+            }
+        });
+    }
+
+    /**
+     * Delete stored images and thumbnails no design or history entry points to any more, once
+     * they were not stored or reused within the grace period
+     */
+    public synchronized long collectGarbage() {
+        Set<String> referenced = new HashSet<>();
+        collectReferences("designs", "preview_image", referenced);
+        collectReferences("design_versions", "snapshot.preview_image", referenced);
+        collectReferences("design_versions", "delta.fields.preview_image", referenced);
+
+        Date cutoff = Date.from(Instant.now().minus(Duration.ofMinutes(gcGraceMinutes)));
+        List<GridFSFile> unreferenced = new ArrayList<>();
+        // Files stored before referenced_at was recorded fall back to their upload date
+        for (GridFSFile file : bucket().find(Filters.or(
+                Filters.lt("metadata.referenced_at", cutoff),
+                Filters.and(Filters.exists("metadata.referenced_at", false), Filters.lt("uploadDate", cutoff))))) {
+            String hash = file.getFilename().split(THUMBNAIL_SEPARATOR, 2)[0];
+            if (!referenced.contains(hash)) {
+                unreferenced.add(file);
+            }
+        }
+        long removed = 0;
+        for (GridFSFile file : unreferenced) {
+            // Re-checking referenced_at keeps files reused by a write since the mark phase
+            long deleted = mongoTemplate.getCollection(BUCKET + ".files").deleteOne(Filters.and(
+                    Filters.eq("_id", file.getObjectId()),
+                    Filters.or(Filters.lt("metadata.referenced_at", cutoff), Filters.exists("metadata.referenced_at", false))))
+                    .getDeletedCount();
+            if (deleted > 0) {
+                mongoTemplate.getCollection(BUCKET + ".chunks").deleteMany(Filters.eq("files_id", file.getObjectId()));
+                removed++;
+            }
+        }
+        if (removed > 0) {
+            logger.info("Preview image garbage collection removed {} files", removed);
+        }
+        return removed;
+    }
+
+    @Scheduled(cron = "${app.designs.previews.gc-cron:-}")
+    public void scheduledGarbageCollection() {
+        collectGarbage();
+    }
+
+    private String store(byte[] bytes, String contentType) {
+        String hash = sha256(bytes);
+        // Reusing a stored image refreshes it, so garbage collection does not remove it before
+        // the design pointing to it is saved; a file removed meanwhile matches nothing and is uploaded again
+        long refreshed = mongoTemplate.getCollection(BUCKET + ".files").updateMany(Filters.eq("filename", hash),
+                Updates.set("metadata.referenced_at", new Date())).getMatchedCount();
+        if (refreshed == 0) {
+            upload(hash, bytes, contentType);
+        }
+        return hash;
+    }
+
+    private Optional<StoredImage> generateThumbnail(String hash, int width) {
+        Optional<StoredImage> original = read(hash);
+        if (original.isEmpty()) {
+            return Optional.empty();
+        }
+        try {
+            BufferedImage source = ImageIO.read(new ByteArrayInputStream(original.get().bytes()));
+            if (source == null) {
+                // Not a raster format ImageIO understands, e.g. SVG
+                return Optional.empty();
+            }
+            int targetWidth = Math.min(width, source.getWidth());
+            int targetHeight = Math.max(1, Math.round(source.getHeight() * (targetWidth / (float) source.getWidth())));
+            BufferedImage scaled = new BufferedImage(targetWidth, targetHeight, BufferedImage.TYPE_INT_ARGB);
+            Graphics2D graphics = scaled.createGraphics();
+            graphics.setRenderingHint(RenderingHints.KEY_INTERPOLATION, RenderingHints.VALUE_INTERPOLATION_BILINEAR);
+            graphics.setRenderingHint(RenderingHints.KEY_RENDERING, RenderingHints.VALUE_RENDER_QUALITY);
+            graphics.drawImage(source, 0, 0, targetWidth, targetHeight, null);
+            graphics.dispose();
+
+            ByteArrayOutputStream out = new ByteArrayOutputStream();
+            ImageIO.write(scaled, "png", out);
+            StoredImage thumbnail = new StoredImage(hash + THUMBNAIL_SEPARATOR + width, out.toByteArray(), "image/png");
+            if (find(thumbnail.name()) == null) {
+                upload(thumbnail.name(), thumbnail.bytes(), thumbnail.contentType());
+            }
+            return Optional.of(thumbnail);
+        } catch (IOException e) {
+            logger.warn("Could not generate {}px thumbnail of preview {}: {}", width, hash, e.getMessage());
+            return Optional.empty();
+        }
+    }
+
+    private Optional<StoredImage> read(String name) {
+        GridFSFile file = find(name);
+        if (file == null) {
+            return Optional.empty();
+        }
+        ByteArrayOutputStream out = new ByteArrayOutputStream((int) file.getLength());
+        bucket().downloadToStream(file.getObjectId(), out);
+        String contentType = file.getMetadata() == null ? null : file.getMetadata().getString("contentType");
+        if (contentType == null) {
+            contentType = "application/octet-stream";
+        }
+        return Optional.of(new StoredImage(name, out.toByteArray(), contentType));
+    }
+
+    private GridFSFile find(String name) {
+        return bucket().find(Filters.eq("filename", name)).first();
+    }
+
+    private void upload(String name, byte[] bytes, String contentType) {
+        bucket().uploadFromStream(name, new ByteArrayInputStream(bytes),
+                new GridFSUploadOptions().metadata(new Document("contentType", contentType)
+                        .append("referenced_at", new Date())));
+    }
+
+    private void collectReferences(String collection, String path, Set<String> referenced) {
+        for (Document document : mongoTemplate.getCollection(collection)
+                .find(Filters.regex(path, "^" + URL_PREFIX))
+                .projection(Projections.include(path))) {
+            Object value = document;
+            for (String key : path.split("\\.")) {
+                value = value instanceof Document nested ? nested.get(key) : null;
+            }
+            if (value instanceof String url) {
+                storedHash(url).ifPresent(referenced::add);
+            }
+        }
+    }
+
+    private GridFSBucket bucket() {
+        return GridFSBuckets.create(mongoTemplate.getDb(), BUCKET);
+    }
+
+    private static String sha256(byte[] bytes) {
+        try {
+            return HexFormat.of().formatHex(MessageDigest.getInstance("SHA-256").digest(bytes));
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 is not available", e);
+        }
+    }
+
+    /**
+     * Stored image bytes with their content type
+     */
+    public record StoredImage(String name, byte[] bytes, String contentType) {}
+}
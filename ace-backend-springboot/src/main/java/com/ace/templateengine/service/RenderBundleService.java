@@ -0,0 +1,280 @@
+package com.ace.templateengine.service;
+
+import com.ace.templateengine.dto.RenderBundle;
+import com.ace.templateengine.model.Design;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.mongodb.client.gridfs.GridFSBucket;
+import com.mongodb.client.gridfs.GridFSBuckets;
+import com.mongodb.client.gridfs.model.GridFSFile;
+import com.mongodb.client.gridfs.model.GridFSUploadOptions;
+import com.mongodb.client.model.Filters;
+import com.mongodb.client.model.Projections;
+import org.bson.Document;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.scheduling.annotation.Async;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.Date;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+
+/**
+ * Render bundles of published designs, stored in GridFS by content hash.
+ *
+ * A bundle is built in the background when a design becomes published, and on first request
+ * otherwise, so viewers fetch one precomputed, immutable JSON document instead of resolving
+ * theme, global styles and component styles themselves on every load.
+ */
+@Service
+public class RenderBundleService {
+
+    private static final Logger logger = LoggerFactory.getLogger(RenderBundleService.class);
+
+    private static final String BUCKET = "render_bundles";
+
+    // Properties children take from their parent unless they set them
+    private static final Set<String> INHERITED = Set.of("color", "cursor", "direction", "font", "font-family", "font-size",
+            "font-style", "font-variant", "font-weight", "letter-spacing", "line-height", "text-align", "text-indent",
+            "text-transform", "visibility", "white-space", "word-spacing");
+
+    @Autowired
+    private MongoTemplate mongoTemplate;
+
+    @Autowired
+    private DesignComponentStore designComponentStore;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Value("${app.designs.bundles.gc-grace-minutes:60}")
+    private long gcGraceMinutes;
+
+    // Build and store the bundle of a design that was just published, off the request thread
+    @Async
+    public void buildOnPublish(Design design) {
+        try {
+            bundleFor(design);
+        } catch (RuntimeException e) {
+            logger.warn("Could not build the render bundle of design {}: {}", design.getId(), e.getMessage());
+        }
+    }
+
+    // Stored bundle JSON by content hash
+    public Optional<byte[]> load(String contentHash) {
+        GridFSFile file = find(contentHash);
+        if (file == null) {
+            return Optional.empty();
+        }
+        ByteArrayOutputStream out = new ByteArrayOutputStream((int) file.getLength());
+        bucket().downloadToStream(file.getObjectId(), out);
+        return Optional.of(out.toByteArray());
+    }
+
+    // Bundle JSON of a design, built and stored now when it does not exist yet
+    public byte[] bundleFor(Design design) {
+        String contentHash = ContentHasher.hashOf(design);
+        Optional<byte[]> stored = load(contentHash);
+        if (stored.isPresent()) {
+            return stored.get();
+        }
+        if (design.getComponentStorage() == Design.ComponentStorage.SPLIT && design.getComponents() == null) {
+            design.setComponents(designComponentStore.loadAll(design.getId()));
+        }
+        byte[] json;
+        try {
+            json = objectMapper.writeValueAsBytes(build(design, contentHash));
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("Could not serialize render bundle", e);
+        }
+        // A concurrent build may have stored the same bundle meanwhile; either copy serves
+        if (find(contentHash) == null) {
+            bucket().uploadFromStream(contentHash, new ByteArrayInputStream(json),
+                    new GridFSUploadOptions().metadata(new Document("designId", design.getId())));
+        }
+        return json;
+    }
+
+    /**
+     * Delete bundles no published design has as its content any more, once they are older than
+     * the grace period
+     */
+    public synchronized long collectGarbage() {
+        Set<String> referenced = new HashSet<>();
+        for (Document document : mongoTemplate.getCollection(mongoTemplate.getCollectionName(Design.class))
+                .find(Filters.eq("status", Design.DesignStatus.PUBLISHED.name()))
+                .projection(Projections.include("content_hash"))) {
+            referenced.add(document.getString("content_hash"));
+        }
+        Date cutoff = Date.from(Instant.now().minus(Duration.ofMinutes(gcGraceMinutes)));
+        List<GridFSFile> unreferenced = new ArrayList<>();
+        for (GridFSFile file : bucket().find(Filters.lt("uploadDate", cutoff))) {
+            if (!referenced.contains(file.getFilename())) {
+                unreferenced.add(file);
+            }
+        }
+        unreferenced.forEach(file -> bucket().delete(file.getObjectId()));
+        if (!unreferenced.isEmpty()) {
+            logger.info("Render bundle garbage collection removed {} bundles", unreferenced.size());
+        }
+        return unreferenced.size();
+    }
+
+    @Scheduled(cron = "${app.designs.bundles.gc-cron:-}")
+    public void scheduledGarbageCollection() {
+        collectGarbage();
+    }
+
+    static RenderBundle build(Design design, String contentHash) {
+        Design.CanvasConfig canvas = design.getCanvasConfig();
+        Design.ThemeSettings theme = design.getThemeSettings();
+        RenderBundle bundle = new RenderBundle();
+        bundle.setContentHash(contentHash);
+        bundle.setName(design.getName());
+
+        // Same cascade as the server-side renderer: theme, then scalar global styles, then the canvas background
+        Map<String, String> rootStyle = new LinkedHashMap<>();
+        if (canvas != null) {
+            bundle.setWidth(canvas.getWidth());
+            bundle.setHeight(canvas.getHeight());
+        }
+        if (theme != null) {
+            declare(rootStyle, "--ace-primary", theme.getPrimaryColor(), theme);
+            declare(rootStyle, "--ace-secondary", theme.getSecondaryColor(), theme);
+            declare(rootStyle, "font-family", theme.getFontFamily(), theme);
+            declare(rootStyle, "font-size", theme.getFontSize(), theme);
+            declare(rootStyle, "font-weight", theme.getFontWeight(), theme);
+            declare(rootStyle, "color", theme.getTextColor(), theme);
+            declare(rootStyle, "background-color", theme.getBackgroundColor(), theme);
+        }
+        List<RenderBundle.StyleRule> rules = new ArrayList<>();
+        if (design.getGlobalStyles() != null) {
+            for (Map.Entry<String, Object> entry : design.getGlobalStyles().entrySet()) {
+                if (entry.getValue() instanceof Map<?, ?> declarations) {
+                    String selector = CssDeclarations.scopedSelector(entry.getKey());
+                    Map<String, String> resolved = new LinkedHashMap<>();
+                    declarations.forEach((property, value) -> declare(resolved, String.valueOf(property), value, theme));
+                    if (selector != null && !resolved.isEmpty()) {
+                        rules.add(new RenderBundle.StyleRule(selector, resolved));
+                    }
+                } else {
+                    declare(rootStyle, entry.getKey(), entry.getValue(), theme);
+                }
+            }
+        }
+        if (canvas != null) {
+            declare(rootStyle, "background-color", canvas.getBackgroundColor(), theme);
+        }
+        bundle.setRootStyle(rootStyle);
+        bundle.setRules(rules);
+        bundle.setComponents(components(design.getComponents(), rootStyle, theme));
+        return bundle;
+    }
+
+    // Visible components in walk order with their effective styles, then put in paint order
+    private static List<RenderBundle.BundleComponent> components(List<Design.DesignComponent> components,
+                                                               Map<String, String> rootStyle, Design.ThemeSettings theme) {
+        if (components == null || components.isEmpty()) {
+            return List.of();
+        }
+        HierarchyIndex hierarchy = HierarchyIndex.build(components);
+        List<Map<String, String>> inherited = new ArrayList<>();
+        inherited.add(inheritable(rootStyle));
+        List<RenderBundle.BundleComponent> flat = new ArrayList<>(components.size());
+        int hiddenDepth = Integer.MAX_VALUE;
+
+        for (int position : hierarchy.walkOrder()) {
+            int depth = hierarchy.depthAt(position);
+            while (inherited.size() > depth + 1) {
+                inherited.remove(inherited.size() - 1);
+            }
+            if (depth > hiddenDepth) {
+                continue;
+            }
+            hiddenDepth = Integer.MAX_VALUE;
+            Design.DesignComponent component = components.get(position);
+            if (component == null || Boolean.FALSE.equals(component.getVisible())) {
+                hiddenDepth = depth;
+                continue;
+            }
+            Map<String, Object> properties = component.getProperties() == null ? Map.of() : component.getProperties();
+            Map<String, String> style = new LinkedHashMap<>(inherited.get(inherited.size() - 1));
+            declare(style, "color", properties.get("color"), theme);
+            declare(style, "background-color", properties.get("backgroundColor"), theme);
+            declare(style, "font-size", properties.get("fontSize"), theme);
+            declare(style, "font-weight", properties.get("fontWeight"), theme);
+            declare(style, "text-align", properties.get("align"), theme);
+            if (component.getStyles() != null) {
+                component.getStyles().forEach((property, value) -> declare(style, property, value, theme));
+            }
+            inherited.add(inheritable(style));
+
+            RenderBundle.BundleComponent flattened = new RenderBundle.BundleComponent();
+            flattened.setId(component.getId());
+            flattened.setType(component.getType());
+            flattened.setName(component.getName());
+            flattened.setParentId(component.getParentId());
+            flattened.setDepth(depth);
+            flattened.setX(number(component.getPosition(), "x"));
+            flattened.setY(number(component.getPosition(), "y"));
+            if (component.getSize() != null) {
+                flattened.setWidth(component.getSize().get("width"));
+                flattened.setHeight(component.getSize().get("height"));
+            }
+            flattened.setZIndex(component.getZIndex() == null ? 0 : component.getZIndex());
+            flattened.setStyle(style);
+            flattened.setProperties(component.getProperties());
+            flat.add(flattened);
+        }
+        // Stable, so components with the same zIndex keep parents before children
+        flat.sort(Comparator.comparingInt(RenderBundle.BundleComponent::getZIndex));
+        return flat;
+    }
+
+    private static Map<String, String> inheritable(Map<String, String> style) {
+        Map<String, String> inheritable = new LinkedHashMap<>();
+        style.forEach((name, value) -> {
+            if (INHERITED.contains(name) || name.startsWith("--")) {
+                inheritable.put(name, value);
+            }
+        });
+        return inheritable;
+    }
+
+    // A later declaration of a property replaces an earlier one, as in the cascade
+    private static void declare(Map<String, String> style, String property, Object value, Design.ThemeSettings theme) {
+        String name = CssDeclarations.name(property);
+        String css = name == null || value == null ? null : CssDeclarations.value(name, value, theme);
+        if (css != null) {
+            style.remove(name);
+            style.put(name, css);
+        }
+    }
+
+    private static double number(Map<String, Object> values, String key) {
+        return values != null && values.get(key) instanceof Number number ? number.doubleValue() : 0;
+    }
+
+    private GridFSFile find(String contentHash) {
+        return bucket().find(Filters.eq("filename", contentHash)).first();
+    }
+
+    private GridFSBucket bucket() {
+        return GridFSBuckets.create(mongoTemplate.getDb(), BUCKET);
+    }
+}
@@ -0,0 +1,229 @@
+package com.ace.templateengine.service;
+
+import org.bson.Document;
+import org.bson.types.ObjectId;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.util.ArrayDeque;
+import java.util.Collection;
+import java.util.Date;
+import java.util.Deque;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * A design compiled for server-side rendering (see {@link RenderPlanCompiler}).
+ *
+ * Layout, styles, theme and all static text are already turned into escaped HTML; what is left
+ * are bound values and data-bound sections, resolved per render against the caller's variables
+ * and the rows of the plan's queries. Queries only depend on the variables, so all of them are
+ * known before the first byte is written.
+ */
+final class RenderPlan {
+
+    sealed interface Part permits Static, Value, DataScope, Rows, AutoTable {}
+
+    // Literal HTML
+    record Static(String html) implements Part {}
+
+    // A bound value such as row.name, escaped so it is safe in text and attribute values alike
+    record Value(String[] path) implements Part {}
+
+    // The body with rows of a query bound as rows, and the first of them as row
+    record DataScope(int binding, List<Part> body) implements Part {}
+
+    // The body once per row of the enclosing data scope, with row bound to that row
+    record Rows(List<Part> body) implements Part {}
+
+    // Header and body rows of a table without configured columns, taking those of the first row
+    record AutoTable(int maxColumns) implements Part {}
+
+    /**
+     * Query behind a data-bound component: a find with filter, sort and projection, or an
+     * aggregation pipeline. String values in filter and pipeline may hold {{variable}} placeholders.
+     */
+    record DataBinding(String collection, Document filter, List<Document> pipeline, Document sort, Document projection, int limit) {}
+
+    private final String contentHash;
+    private final String documentStart;
+    private final String documentEnd;
+    private final List<Part> body;
+    private final List<DataBinding> bindings;
+
+    RenderPlan(String contentHash, String documentStart, String documentEnd, List<Part> body, List<DataBinding> bindings) {
+        this.contentHash = contentHash;
+        this.documentStart = documentStart;
+        this.documentEnd = documentEnd;
+        this.body = body;
+        this.bindings = bindings;
+    }
+
+    String contentHash() {
+        return contentHash;
+    }
+
+    List<DataBinding> bindings() {
+        return bindings;
+    }
+
+    /**
+     * Write the design, a complete HTML document or only its root element when fragment is set;
+     * rows holds the result of every binding in order
+     */
+    void render(Writer out, Map<String, Object> variables, List<List<Map<String, Object>>> rows, boolean fragment) throws IOException {
+        if (!fragment) {
+            out.write(documentStart);
+        }
+        Deque<Map<String, Object>> scopes = new ArrayDeque<>();
+        scopes.push(variables);
+        write(out, body, scopes, rows);
+        if (!fragment) {
+            out.write(documentEnd);
+        }
+    }
+
+    private static void write(Writer out, List<Part> parts, Deque<Map<String, Object>> scopes,
+                              List<List<Map<String, Object>>> rows) throws IOException {
+        for (Part part : parts) {
+            switch (part) {
+                case Static text -> out.write(text.html());
+                case Value value -> out.write(escape(text(resolve(value.path(), scopes))));
+                case DataScope scope -> {
+                    List<Map<String, Object>> result = rows.get(scope.binding());
+                    scopes.push(Map.of("rows", result, "row", result.isEmpty() ? Map.of() : result.get(0)));
+                    write(out, scope.body(), scopes, rows);
+                    scopes.pop();
+                }
+                case Rows repeated -> {
+                    if (resolve(new String[] {"rows"}, scopes) instanceof List<?> list) {
+                        for (Object row : list) {
+                            scopes.push(Map.of("row", row));
+                            write(out, repeated.body(), scopes, rows);
+                            scopes.pop();
+                        }
+                    }
+                }
+                case AutoTable table -> writeAutoTable(out, table.maxColumns(), scopes);
+            }
+        }
+    }
+
+    private static void writeAutoTable(Writer out, int maxColumns, Deque<Map<String, Object>> scopes) throws IOException {
+        if (!(resolve(new String[] {"rows"}, scopes) instanceof List<?> list) || list.isEmpty()) {
+            return;
+        }
+        Set<String> columns = new LinkedHashSet<>();
+        if (list.get(0) instanceof Map<?, ?> first) {
+            for (Object key : first.keySet()) {
+                if (columns.size() < maxColumns && !"_id".equals(key)) {
+                    columns.add(String.valueOf(key));
+                }
+            }
+        }
+        out.write("<thead><tr>");
+        for (String column : columns) {
+            out.write("<th>");
+            out.write(escape(column));
+            out.write("</th>");
+        }
+        out.write("</tr></thead><tbody>");
+        for (Object row : list) {
+            out.write("<tr>");
+            for (String column : columns) {
+                out.write("<td>");
+                out.write(escape(text(row instanceof Map<?, ?> map ? map.get(column) : null)));
+                out.write("</td>");
+            }
+            out.write("</tr>");
+        }
+        out.write("</tbody>");
+    }
+
+    // The first path element is looked up from the innermost scope outwards, the rest navigate maps and lists
+    static Object resolve(String[] path, Deque<Map<String, Object>> scopes) {
+        Object value = null;
+        for (Map<String, Object> scope : scopes) {
+            if (scope.containsKey(path[0])) {
+                value = scope.get(path[0]);
+                break;
+            }
+        }
+        for (int i = 1; i < path.length && value != null; i++) {
+            if (value instanceof Map<?, ?> map) {
+                value = map.get(path[i]);
+            } else if (value instanceof List<?> list && isIndex(path[i])) {
+                int index = Integer.parseInt(path[i]);
+                value = index < list.size() ? list.get(index) : null;
+            } else {
+                value = null;
+            }
+        }
+        return value;
+    }
+
+    private static boolean isIndex(String segment) {
+        if (segment.isEmpty() || segment.length() > 9) {
+            return false;
+        }
+        for (int i = 0; i < segment.length(); i++) {
+            if (!Character.isDigit(segment.charAt(i))) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    static String text(Object value) {
+        if (value == null) {
+            return "";
+        }
+        if (value instanceof Date date) {
+            return date.toInstant().toString();
+        }
+        if (value instanceof ObjectId objectId) {
+            return objectId.toHexString();
+        }
+        if (value instanceof Document document) {
+            return document.toJson();
+        }
+        if (value instanceof Collection<?> collection) {
+            StringBuilder joined = new StringBuilder();
+            for (Object element : collection) {
+                if (!joined.isEmpty()) {
+                    joined.append(", ");
+                }
+                joined.append(text(element));
+            }
+            return joined.toString();
+        }
+        return value.toString();
+    }
+
+    static String escape(String text) {
+        StringBuilder escaped = null;
+        for (int i = 0; i < text.length(); i++) {
+            String replacement = switch (text.charAt(i)) {
+                case '&' -> "&amp;";
+                case '<' -> "&lt;";
+                case '>' -> "&gt;";
+                case '"' -> "&quot;";
+                case '\'' -> "&#39;";
+                default -> null;
+            };
+            if (replacement != null && escaped == null) {
+                escaped = new StringBuilder(text.length() + 16).append(text, 0, i);
+            }
+            if (escaped != null) {
+                if (replacement != null) {
+                    escaped.append(replacement);
+                } else {
+                    escaped.append(text.charAt(i));
+                }
+            }
+        }
+        return escaped == null ? text : escaped.toString();
+    }
+}
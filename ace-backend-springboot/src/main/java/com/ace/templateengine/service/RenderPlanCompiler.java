@@ -0,0 +1,614 @@
+package com.ace.templateengine.service;
+
+import com.ace.templateengine.model.Design;
+import org.bson.Document;
+import org.bson.json.JsonParseException;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Compiles a design into a {@link RenderPlan}.
+ *
+ * Components are laid out like on the canvas: absolutely positioned, children inside their
+ * parent at coordinates relative to it. Each component type maps to plain semantic HTML
+ * (buttons, inputs, tables, ...) with its styles inline, so the output also works where
+ * stylesheets do not, e.g. in emails. Theme colours can be referred to by name (primary,
+ * secondary, text.primary), and text may contain {{path}} placeholders.
+ *
+ * A component with a dataSource property is bound to the rows of that Mongo collection,
+ * filtered by its query property; tables list the rows, other components see the first one
+ * as row. A dataSource of custom_query takes collection and query or pipeline from the query
+ * JSON, as saved by the table editor.
+ */
+final class RenderPlanCompiler {
+
+    static final int MAX_ROWS = 1000;
+    private static final int DEFAULT_ROWS = 100;
+    private static final int MAX_AUTO_COLUMNS = 20;
+
+    static final Pattern PLACEHOLDER = Pattern.compile("\\{\\{\\s*([A-Za-z0-9_$][A-Za-z0-9_.$-]*)\\s*}}");
+
+    // Stages and operators that run code on the server or write
+    private static final Set<String> FORBIDDEN_OPERATORS = Set.of("$where", "$function", "$accumulator", "$out", "$merge");
+
+    private static final Pattern CONTROL_CHARACTERS = Pattern.compile("[\\x00-\\x1F\\x7F]");
+    private static final Pattern WHITESPACE = Pattern.compile("\\s");
+    private static final Pattern URL_SCHEME = Pattern.compile("([a-z][a-z0-9+.-]*):");
+
+    private static final List<String> TEXT_PROPERTIES = List.of("content", "text", "label", "title", "message", "value");
+
+    private final Design design;
+    private final List<RenderPlan.DataBinding> bindings = new ArrayList<>();
+
+    private RenderPlanCompiler(Design design) {
+        this.design = design;
+    }
+
+    static RenderPlan compile(Design design) {
+        return new RenderPlanCompiler(design).compile();
+    }
+
+    private RenderPlan compile() {
+        Parts root = new Parts();
+        Design.CanvasConfig canvas = design.getCanvasConfig();
+        Design.ThemeSettings theme = design.getThemeSettings();
+
+        StringBuilder style = new StringBuilder("position:relative;overflow:hidden;box-sizing:border-box;");
+        if (canvas != null) {
+            declare(style, "width", canvas.getWidth());
+            declare(style, "height", canvas.getHeight());
+        }
+        if (theme != null) {
+            declare(style, "--ace-primary", theme.getPrimaryColor());
+            declare(style, "--ace-secondary", theme.getSecondaryColor());
+            declare(style, "font-family", theme.getFontFamily());
+            declare(style, "font-size", theme.getFontSize());
+            declare(style, "font-weight", theme.getFontWeight());
+            declare(style, "color", theme.getTextColor());
+            declare(style, "background-color", theme.getBackgroundColor());
+        }
+        if (canvas != null) {
+            declare(style, "background-color", canvas.getBackgroundColor());
+        }
+        String stylesheet = globalStyles(style);
+
+        root.html("<div class=\"ace-design\"").attribute("data-design-id", design.getId());
+        root.html(" style=\"").html(RenderPlan.escape(style.toString())).html("\">");
+        if (!stylesheet.isEmpty()) {
+            root.html("<style>").html(stylesheet).html("</style>");
+        }
+        components(root);
+        root.html("</div>");
+
+        String title = RenderPlan.escape(design.getName() == null ? "" : design.getName());
+        String documentStart = "<!DOCTYPE html><html><head><meta charset=\"utf-8\"><title>" + title + "</title></head><body style=\"margin:0\">";
+        return new RenderPlan(ContentHasher.hashOf(design), documentStart, "</body></html>", root.finish(), List.copyOf(bindings));
+    }
+
+    // Top-level scalar global styles apply to the design root; nested maps are rules for selectors inside it
+    private String globalStyles(StringBuilder rootStyle) {
+        StringBuilder stylesheet = new StringBuilder();
+        if (design.getGlobalStyles() == null) {
+            return "";
+        }
+        for (Map.Entry<String, Object> entry : design.getGlobalStyles().entrySet()) {
+            if (entry.getValue() instanceof Map<?, ?> rules) {
+                String selector = CssDeclarations.scopedSelector(entry.getKey());
+                if (selector == null) {
+                    continue;
+                }
+                StringBuilder declarations = new StringBuilder();
+                rules.forEach((property, value) -> declare(declarations, String.valueOf(property), value));
+                if (!declarations.isEmpty()) {
+                    stylesheet.append(selector).append('{').append(declarations).append('}');
+                }
+            } else {
+                declare(rootStyle, entry.getKey(), entry.getValue());
+            }
+        }
+        return stylesheet.toString();
+    }
+
+    // Components in walk order, closing each one once the walk leaves its subtree
+    private void components(Parts root) {
+        List<Design.DesignComponent> components = design.getComponents() == null ? List.of() : design.getComponents();
+        HierarchyIndex hierarchy = HierarchyIndex.build(components);
+        List<Open> open = new ArrayList<>();
+        open.add(new Open(root, 0, 0, null));
+        int hiddenDepth = Integer.MAX_VALUE;
+
+        for (int position : hierarchy.walkOrder()) {
+            int depth = hierarchy.depthAt(position);
+            while (open.size() > depth + 1) {
+                close(open);
+            }
+            if (depth > hiddenDepth) {
+                continue;
+            }
+            hiddenDepth = Integer.MAX_VALUE;
+            Design.DesignComponent component = components.get(position);
+            if (component == null || Boolean.FALSE.equals(component.getVisible())) {
+                hiddenDepth = depth;
+                continue;
+            }
+            open.add(open(component, open.get(open.size() - 1)));
+        }
+        while (open.size() > 1) {
+            close(open);
+        }
+    }
+
+    // A component being compiled: where its HTML goes (its data scope's parts when bound), its offset and how to close it
+    private record Open(Parts parts, double x, double y, Runnable close) {}
+
+    private Open open(Design.DesignComponent component, Open parent) {
+        Map<String, Object> properties = component.getProperties() == null ? Map.of() : component.getProperties();
+        String type = component.getType() == null ? "" : component.getType().toLowerCase(Locale.ROOT);
+        double x = number(component.getPosition(), "x");
+        double y = number(component.getPosition(), "y");
+
+        StringBuilder style = new StringBuilder("position:absolute;box-sizing:border-box;");
+        declare(style, "left", x - parent.x());
+        declare(style, "top", y - parent.y());
+        if (component.getSize() != null) {
+            declare(style, "width", component.getSize().get("width"));
+            declare(style, "height", component.getSize().get("height"));
+        }
+        declare(style, "z-index", component.getZIndex());
+        declare(style, "color", properties.get("color"));
+        declare(style, "background-color", properties.get("backgroundColor"));
+        declare(style, "font-size", properties.get("fontSize"));
+        declare(style, "font-weight", properties.get("fontWeight"));
+        declare(style, "text-align", properties.get("align"));
+        if (component.getStyles() != null) {
+            component.getStyles().forEach((property, value) -> declare(style, property, value));
+        }
+
+        Parts outer = parent.parts();
+        Parts parts = outer;
+        RenderPlan.DataBinding binding = null;
+        String bindingError = null;
+        if (properties.get("dataSource") instanceof String source && !source.isBlank()) {
+            try {
+                binding = binding(source.trim(), properties);
+            } catch (IllegalArgumentException e) {
+                bindingError = e.getMessage();
+            }
+        }
+        if (binding != null) {
+            bindings.add(binding);
+            parts = new Parts();
+        }
+
+        String tag = tagFor(type);
+        if (tag.equals("table")) {
+            style.append("border-collapse:collapse;");
+        }
+        parts.html("<").html(tag).html(" class=\"ace-component\"")
+                .attribute("data-component-id", component.getId())
+                .attribute("data-component-type", component.getType())
+                .attribute("data-ace-error", bindingError);
+        parts.html(" style=\"").html(RenderPlan.escape(style.toString())).html("\"");
+        content(parts, type, tag, properties, binding != null);
+
+        Parts scoped = parts;
+        int bindingIndex = bindings.size() - 1;
+        boolean bound = binding != null;
+        Runnable close = () -> {
+            scoped.html(isVoid(tag) ? "" : "</" + tag + ">");
+            if (bound) {
+                outer.add(new RenderPlan.DataScope(bindingIndex, scoped.finish()));
+            }
+        };
+        // Void elements have no closing tag, so their children follow them as siblings
+        return new Open(parts, x, y, close);
+    }
+
+    private static void close(List<Open> open) {
+        open.remove(open.size() - 1).close().run();
+    }
+
+    private static String tagFor(String type) {
+        if (type.contains("button")) {
+            return "button";
+        }
+        if (type.contains("table")) {
+            return "table";
+        }
+        if (type.contains("textarea")) {
+            return "textarea";
+        }
+        if (type.contains("select") || type.contains("dropdown") || type.contains("combobox")) {
+            return "select";
+        }
+        if (type.contains("progress")) {
+            return "progress";
+        }
+        if (type.contains("header")) {
+            return "header";
+        }
+        if (type.contains("badge")) {
+            return "span";
+        }
+        if (type.contains("image") || type.equals("img")) {
+            return "img";
+        }
+        if (type.contains("input") && !type.contains("search-box")) {
+            return "label";
+        }
+        if (type.contains("checkbox") || type.contains("switch") || type.contains("toggle")) {
+            return "label";
+        }
+        if (type.contains("radio")) {
+            return "fieldset";
+        }
+        return "div";
+    }
+
+    private static boolean isVoid(String tag) {
+        return tag.equals("img");
+    }
+
+    // Attributes after the style and the element content; the closing tag comes after the children
+    private void content(Parts parts, String type, String tag, Map<String, Object> properties, boolean bound) {
+        switch (tag) {
+            case "button" -> {
+                parts.html(" type=\"button\"");
+                if (Boolean.TRUE.equals(properties.get("disabled"))) {
+                    parts.html(" disabled");
+                }
+                parts.html(">");
+                parts.text(firstText(properties));
+            }
+            case "table" -> {
+                parts.html(">");
+                table(parts, properties, bound);
+            }
+            case "textarea" -> {
+                textAttributes(parts, properties);
+                parts.html(">").text(properties.get("value"));
+            }
+            case "select" -> {
+                if (Boolean.TRUE.equals(properties.get("multiple"))) {
+                    parts.html(" multiple");
+                }
+                parts.html(">");
+                options(parts, properties.get("options"), properties.get("value"), (value, label, selected) ->
+                        parts.html("<option").attribute("value", value).html(selected ? " selected>" : ">").text(label).html("</option>"));
+            }
+            case "progress" -> {
+                parts.html(" max=\"100\"").attribute("value", properties.get("value")).html(">");
+            }
+            case "img" -> {
+                Object source = properties.containsKey("src") ? properties.get("src") : properties.get("url");
+                parts.attribute("src", safeUrl(source)).attribute("alt", properties.getOrDefault("alt", firstText(properties))).html(">");
+            }
+            case "label" -> {
+                parts.html(">");
+                if (type.contains("input")) {
+                    if (properties.get("label") != null) {
+                        parts.html("<span>").text(properties.get("label")).html("</span>");
+                    }
+                    String inputType = type.contains("password") ? "password" : type.contains("email") ? "email"
+                            : type.contains("search") ? "search" : "text";
+                    parts.html("<input type=\"").html(inputType).html("\"");
+                    textAttributes(parts, properties);
+                    parts.attribute("value", properties.get("value")).html(">");
+                } else {
+                    parts.html("<input type=\"checkbox\"");
+                    if (Boolean.TRUE.equals(properties.get("checked"))) {
+                        parts.html(" checked");
+                    }
+                    parts.html("><span>").text(properties.get("label")).html("</span>");
+                }
+            }
+            case "fieldset" -> {
+                parts.html(">");
+                if (properties.get("label") != null) {
+                    parts.html("<legend>").text(properties.get("label")).html("</legend>");
+                }
+                options(parts, properties.get("options"), properties.get("value"), (value, label, selected) ->
+                        parts.html("<label><input type=\"radio\"").attribute("value", value).html(selected ? " checked>" : ">")
+                                .text(label).html("</label>"));
+            }
+            default -> {
+                if (type.contains("alert") || type.contains("toast")) {
+                    parts.html(" role=\"alert\"");
+                }
+                parts.html(">");
+                if (type.contains("card")) {
+                    if (properties.get("title") != null) {
+                        parts.html("<h3>").text(properties.get("title")).html("</h3>");
+                    }
+                    for (String key : List.of("subtitle", "value", "content", "description")) {
+                        if (properties.get(key) != null) {
+                            parts.html("<p>").text(properties.get(key)).html("</p>");
+                        }
+                    }
+                } else {
+                    parts.text(firstText(properties));
+                }
+            }
+        }
+    }
+
+    private static Object firstText(Map<String, Object> properties) {
+        for (String key : TEXT_PROPERTIES) {
+            Object value = properties.get(key);
+            if (value instanceof String || value instanceof Number) {
+                return value;
+            }
+        }
+        return null;
+    }
+
+    private static void textAttributes(Parts parts, Map<String, Object> properties) {
+        parts.attribute("placeholder", properties.get("placeholder"));
+        if (Boolean.TRUE.equals(properties.get("required"))) {
+            parts.html(" required");
+        }
+        if (Boolean.TRUE.equals(properties.get("disabled"))) {
+            parts.html(" disabled");
+        }
+        if (Boolean.TRUE.equals(properties.get("readOnly"))) {
+            parts.html(" readonly");
+        }
+    }
+
+    private interface OptionWriter {
+        void write(Object value, Object label, boolean selected);
+    }
+
+    private static void options(Parts parts, Object options, Object selectedValue, OptionWriter writer) {
+        if (!(options instanceof List<?> list)) {
+            return;
+        }
+        for (Object option : list) {
+            Object value = option instanceof Map<?, ?> map ? map.get("value") : option;
+            Object label = option instanceof Map<?, ?> map && map.get("label") != null ? map.get("label") : value;
+            boolean selected = selectedValue != null && String.valueOf(selectedValue).equals(String.valueOf(value));
+            writer.write(value, label, selected);
+        }
+    }
+
+    // Tables list the rows of their data binding, or static rows given as data or rows
+    private void table(Parts parts, Map<String, Object> properties, boolean bound) {
+        List<String[]> columns = columns(properties.get("columns"));
+        if (bound && columns.isEmpty()) {
+            parts.add(new RenderPlan.AutoTable(MAX_AUTO_COLUMNS));
+            return;
+        }
+        Object data = properties.containsKey("data") ? properties.get("data") : properties.get("rows");
+        List<?> rows = !bound && data instanceof List<?> list ? list : List.of();
+        if (columns.isEmpty() && !rows.isEmpty() && rows.get(0) instanceof Map<?, ?> first) {
+            for (Object key : first.keySet()) {
+                if (columns.size() < MAX_AUTO_COLUMNS) {
+                    columns.add(new String[] {String.valueOf(key), String.valueOf(key)});
+                }
+            }
+        }
+        if (columns.isEmpty()) {
+            return;
+        }
+        parts.html("<thead><tr>");
+        for (String[] column : columns) {
+            parts.html("<th>").text(column[1]).html("</th>");
+        }
+        parts.html("</tr></thead><tbody>");
+        if (bound) {
+            Parts row = new Parts();
+            row.html("<tr>");
+            for (String[] column : columns) {
+                row.html("<td>").add(new RenderPlan.Value(("row." + column[0]).split("\\."))).html("</td>");
+            }
+            row.html("</tr>");
+            parts.add(new RenderPlan.Rows(row.finish()));
+        } else {
+            for (Object row : rows) {
+                parts.html("<tr>");
+                for (String[] column : columns) {
+                    Object value = row instanceof Map<?, ?> map ? map.get(column[0]) : null;
+                    parts.html("<td>").html(RenderPlan.escape(RenderPlan.text(value))).html("</td>");
+                }
+                parts.html("</tr>");
+            }
+        }
+        parts.html("</tbody>");
+    }
+
+    // Field and header of each configured column; columns are field names or maps with field and headerName, label or title
+    private static List<String[]> columns(Object configured) {
+        List<String[]> columns = new ArrayList<>();
+        if (configured instanceof List<?> list) {
+            for (Object column : list) {
+                if (column instanceof String field && !field.isBlank()) {
+                    columns.add(new String[] {field, field});
+                } else if (column instanceof Map<?, ?> map && map.get("field") instanceof String field) {
+                    if (Boolean.FALSE.equals(map.get("visible")) || Boolean.TRUE.equals(map.get("hide"))) {
+                        continue;
+                    }
+                    Object header = map.get("headerName") != null ? map.get("headerName")
+                            : map.get("label") != null ? map.get("label") : map.get("title");
+                    columns.add(new String[] {field, header == null ? field : String.valueOf(header)});
+                }
+            }
+        }
+        return columns;
+    }
+
+    private static RenderPlan.DataBinding binding(String source, Map<String, Object> properties) {
+        String collection = source;
+        Document filter = null;
+        List<Document> pipeline = null;
+        Object query = properties.get("query");
+        if ("custom_query".equals(source)) {
+            Document custom = query instanceof Map<?, ?> map ? toDocument(map) : query instanceof String json ? parse(json) : null;
+            if (custom == null || !(custom.get("collection") instanceof String name)) {
+                throw new IllegalArgumentException("Custom query needs a collection");
+            }
+            collection = name;
+            filter = custom.get("query", Document.class);
+            if (custom.get("pipeline") instanceof List<?> stages) {
+                pipeline = new ArrayList<>();
+                for (Object stage : stages) {
+                    if (stage instanceof Document document) {
+                        pipeline.add(document);
+                    }
+                }
+            }
+        } else if (query instanceof Map<?, ?> map) {
+            filter = toDocument(map);
+        } else if (query instanceof String json && json.trim().startsWith("{")) {
+            filter = parse(json);
+        }
+        if (collection.isEmpty() || collection.startsWith("system.") || collection.contains("$") || collection.contains("{{")) {
+            throw new IllegalArgumentException("Invalid collection " + collection);
+        }
+        checkOperators(filter);
+        if (pipeline != null) {
+            pipeline.forEach(RenderPlanCompiler::checkOperators);
+            DataQueryPlan.checkJoins(pipeline);
+        }
+
+        Document sort = null;
+        if (properties.get("sortBy") instanceof String sortBy && !sortBy.isBlank()) {
+            sort = new Document(sortBy, "desc".equalsIgnoreCase(String.valueOf(properties.get("sortDirection"))) ? -1 : 1);
+        }
+        Document projection = null;
+        List<String[]> columns = columns(properties.get("columns"));
+        if (!columns.isEmpty()) {
+            projection = new Document();
+            for (String[] column : columns) {
+                projection.append(column[0], 1);
+            }
+        }
+        int limit = DEFAULT_ROWS;
+        for (String key : List.of("limit", "pageSize", "rowsPerPage")) {
+            if (properties.get(key) instanceof Number number && number.intValue() > 0) {
+                limit = number.intValue();
+                break;
+            }
+        }
+        return new RenderPlan.DataBinding(collection, filter, pipeline, sort, projection, Math.min(limit, MAX_ROWS));
+    }
+
+    private static Document parse(String json) {
+        try {
+            return Document.parse(json);
+        } catch (JsonParseException e) {
+            throw new IllegalArgumentException("Query is not valid JSON");
+        }
+    }
+
+    private static Document toDocument(Map<?, ?> map) {
+        Document document = new Document();
+        map.forEach((key, value) -> document.put(String.valueOf(key), value instanceof Map<?, ?> nested ? toDocument(nested) : value));
+        return document;
+    }
+
+    // Rejects operators that run code on the server or write, anywhere in a filter or pipeline
+    static void checkOperators(Object value) {
+        if (value instanceof Map<?, ?> map) {
+            for (Map.Entry<?, ?> entry : map.entrySet()) {
+                if (FORBIDDEN_OPERATORS.contains(String.valueOf(entry.getKey()))) {
+                    throw new IllegalArgumentException("Operator " + entry.getKey() + " is not allowed in queries");
+                }
+                checkOperators(entry.getValue());
+            }
+        } else if (value instanceof List<?> list) {
+            list.forEach(RenderPlanCompiler::checkOperators);
+        }
+    }
+
+    // A URL with an allowed scheme, or a relative one. Browsers skip control characters and
+    // whitespace inside a scheme, so java\tscript: is read from what is left after removing them.
+    static String safeUrl(Object value) {
+        if (!(value instanceof String url)) {
+            return null;
+        }
+        String cleaned = CONTROL_CHARACTERS.matcher(url).replaceAll("").trim();
+        String compact = WHITESPACE.matcher(cleaned).replaceAll("").toLowerCase(Locale.ROOT);
+        Matcher scheme = URL_SCHEME.matcher(compact);
+        if (!scheme.lookingAt()) {
+            return cleaned;
+        }
+        return switch (scheme.group(1)) {
+            case "http", "https", "mailto" -> cleaned;
+            case "data" -> compact.startsWith("data:image/") ? cleaned : null;
+            default -> null;
+        };
+    }
+
+    // Append a CSS declaration, dropping names and values that could escape the style attribute or rule
+    private void declare(StringBuilder style, String property, Object value) {
+        String name = CssDeclarations.name(property);
+        String css = name == null || value == null ? null : CssDeclarations.value(name, value, design.getThemeSettings());
+        if (css != null) {
+            style.append(name).append(':').append(css).append(';');
+        }
+    }
+
+    private static double number(Map<String, Object> values, String key) {
+        return values != null && values.get(key) instanceof Number number ? number.doubleValue() : 0;
+    }
+
+    // Parts under construction; consecutive static HTML is merged into one part
+    private static final class Parts {
+        private final List<RenderPlan.Part> parts = new ArrayList<>();
+        private final StringBuilder pending = new StringBuilder();
+
+        Parts html(String html) {
+            pending.append(html);
+            return this;
+        }
+
+        Parts add(RenderPlan.Part part) {
+            flush();
+            parts.add(part);
+            return this;
+        }
+
+        // Text with placeholders: static pieces are escaped now, placeholders become bound values
+        Parts text(Object value) {
+            if (value == null) {
+                return this;
+            }
+            String text = RenderPlan.text(value);
+            Matcher matcher = PLACEHOLDER.matcher(text);
+            int start = 0;
+            while (matcher.find()) {
+                html(RenderPlan.escape(text.substring(start, matcher.start())));
+                add(new RenderPlan.Value(matcher.group(1).split("\\.")));
+                start = matcher.end();
+            }
+            return html(RenderPlan.escape(text.substring(start)));
+        }
+
+        Parts attribute(String name, Object value) {
+            if (value == null) {
+                return this;
+            }
+            html(" ").html(name).html("=\"");
+            text(value);
+            return html("\"");
+        }
+
+        List<RenderPlan.Part> finish() {
+            flush();
+            return List.copyOf(parts);
+        }
+
+        private void flush() {
+            if (!pending.isEmpty()) {
+                parts.add(new RenderPlan.Static(pending.toString()));
+                pending.setLength(0);
+            }
+        }
+    }
+}
@@ -0,0 +1,209 @@
+package com.ace.templateengine.service;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Region quadtree over component bounding boxes.
+ *
+ * Every entry lives in the deepest node whose bounds fully contain it, so an entry straddling a
+ * split line stays in the parent and is never duplicated. Entries are located by id for O(depth)
+ * updates and removals. Not thread-safe; callers synchronize.
+ */
+final class SpatialIndex {
+
+    private static final int NODE_CAPACITY = 8;
+    private static final int MAX_DEPTH = 12;
+
+    // Paint order: higher zIndex on top, later components on top of earlier ones at equal zIndex
+    static final Comparator<Entry> PAINT_ORDER = Comparator.comparingInt(Entry::zIndex).thenComparingInt(Entry::order);
+
+    private Node root;
+    private final Map<String, Entry> entries = new HashMap<>();
+    private final Map<String, Node> locations = new HashMap<>();
+
+    SpatialIndex(Collection<Entry> initial) {
+        rebuild(initial);
+    }
+
+    int size() {
+        return entries.size();
+    }
+
+    Entry get(String id) {
+        return entries.get(id);
+    }
+
+    Collection<Entry> entries() {
+        return entries.values();
+    }
+
+    // Insert or replace an entry
+    void put(Entry entry) {
+        remove(entry.id());
+        if (!root.contains(entry)) {
+            // Grow the root to cover the new entry; rare for canvases of a stable size
+            List<Entry> all = new ArrayList<>(entries.values());
+            all.add(entry);
+            rebuild(all);
+            return;
+        }
+        entries.put(entry.id(), entry);
+        insert(root, entry);
+    }
+
+    void remove(String id) {
+        Entry entry = entries.remove(id);
+        if (entry != null) {
+            locations.remove(id).items.remove(entry);
+        }
+    }
+
+    // Entries whose bounds intersect the rectangle, in paint order
+    List<Entry> intersecting(double left, double top, double right, double bottom) {
+        List<Entry> result = new ArrayList<>();
+        collect(root, left, top, right, bottom, result);
+        result.sort(PAINT_ORDER);
+        return result;
+    }
+
+    // Entries containing the point, in paint order
+    List<Entry> at(double x, double y) {
+        List<Entry> result = new ArrayList<>();
+        collectAt(root, x, y, result);
+        result.sort(PAINT_ORDER);
+        return result;
+    }
+
+    private void rebuild(Collection<Entry> all) {
+        entries.clear();
+        locations.clear();
+        double left = 0;
+        double top = 0;
+        double right = 1;
+        double bottom = 1;
+        for (Entry entry : all) {
+            left = Math.min(left, entry.left());
+            top = Math.min(top, entry.top());
+            right = Math.max(right, entry.right());
+            bottom = Math.max(bottom, entry.bottom());
+        }
+        // Head room so growing designs do not rebuild on every new component at the edge
+        root = new Node(left, top, left + (right - left) * 2, top + (bottom - top) * 2, 0);
+        for (Entry entry : all) {
+            entries.put(entry.id(), entry);
+            insert(root, entry);
+        }
+    }
+
+    private void insert(Node node, Entry entry) {
+        while (node.children != null) {
+            Node child = node.childContaining(entry);
+            if (child == null) {
+                break;
+            }
+            node = child;
+        }
+        node.items.add(entry);
+        locations.put(entry.id(), node);
+        if (node.children == null && node.items.size() > NODE_CAPACITY && node.depth < MAX_DEPTH) {
+            split(node);
+        }
+    }
+
+    private void split(Node node) {
+        double midX = (node.left + node.right) / 2;
+        double midY = (node.top + node.bottom) / 2;
+        node.children = new Node[] {
+            new Node(node.left, node.top, midX, midY, node.depth + 1),
+            new Node(midX, node.top, node.right, midY, node.depth + 1),
+            new Node(node.left, midY, midX, node.bottom, node.depth + 1),
+            new Node(midX, midY, node.right, node.bottom, node.depth + 1)
+        };
+        List<Entry> items = node.items;
+        node.items = new ArrayList<>();
+        for (Entry entry : items) {
+            insert(node, entry);
+        }
+    }
+
+    private static void collect(Node node, double left, double top, double right, double bottom, List<Entry> result) {
+        if (node.left >= right || node.right <= left || node.top >= bottom || node.bottom <= top) {
+            return;
+        }
+        for (Entry entry : node.items) {
+            if (entry.intersects(left, top, right, bottom)) {
+                result.add(entry);
+            }
+        }
+        if (node.children != null) {
+            for (Node child : node.children) {
+                collect(child, left, top, right, bottom, result);
+            }
+        }
+    }
+
+    private static void collectAt(Node node, double x, double y, List<Entry> result) {
+        for (Entry entry : node.items) {
+            if (entry.contains(x, y)) {
+                result.add(entry);
+            }
+        }
+        if (node.children != null) {
+            for (Node child : node.children) {
+                if (x >= child.left && x < child.right && y >= child.top && y < child.bottom) {
+                    collectAt(child, x, y, result);
+                }
+            }
+        }
+    }
+
+    /**
+     * Bounding box of one component with what hit-testing needs to rank it
+     */
+    record Entry(String id, double left, double top, double right, double bottom, int zIndex, int order, boolean visible) {
+
+        boolean intersects(double l, double t, double r, double b) {
+            return left < r && right > l && top < b && bottom > t;
+        }
+
+        boolean contains(double x, double y) {
+            return x >= left && x < right && y >= top && y < bottom;
+        }
+    }
+
+    private static final class Node {
+        final double left;
+        final double top;
+        final double right;
+        final double bottom;
+        final int depth;
+        List<Entry> items = new ArrayList<>();
+        Node[] children;
+
+        Node(double left, double top, double right, double bottom, int depth) {
+            this.left = left;
+            this.top = top;
+            this.right = right;
+            this.bottom = bottom;
+            this.depth = depth;
+        }
+
+        boolean contains(Entry entry) {
+            return entry.left() >= left && entry.right() <= right && entry.top() >= top && entry.bottom() <= bottom;
+        }
+
+        Node childContaining(Entry entry) {
+            for (Node child : children) {
+                if (child.contains(entry)) {
+                    return child;
+                }
+            }
+            return null;
+        }
+    }
+}
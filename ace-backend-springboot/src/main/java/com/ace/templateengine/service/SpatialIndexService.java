@@ -0,0 +1,165 @@
+package com.ace.templateengine.service;
+
+import com.ace.templateengine.model.Design;
+import com.ace.templateengine.model.StoredComponent;
+import com.ace.templateengine.repository.StoredComponentRepository;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+
+/**
+ * In-memory spatial indexes of recently used designs for viewport queries and hit-testing.
+ *
+ * An index is tagged with the content hash of the design it was built from. Writes through
+ * DesignService update a cached index in place, touching only components whose bounds, zIndex,
+ * visibility or paint order changed; a read that finds a stale index (e.g. written by another
+ * instance) patches it the same way, and only a design seen for the first time is indexed from
+ * scratch. Split designs are indexed from the denormalized bounds of their stored components,
+ * without loading component bodies.
+ */
+@Service
+public class SpatialIndexService {
+
+    @Autowired
+    private StoredComponentRepository storedComponentRepository;
+
+    @Value("${app.designs.spatial-index.cache-size:200}")
+    private int cacheSize;
+
+    private final Map<String, CachedIndex> cache = Collections.synchronizedMap(new LinkedHashMap<>(64, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<String, CachedIndex> eldest) {
+            return size() > cacheSize;
+        }
+    });
+
+    // Ids of the components intersecting the rectangle, bottom-most first
+    public List<String> intersecting(Design design, double x, double y, double width, double height, boolean includeHidden) {
+        CachedIndex cached = indexFor(design);
+        synchronized (cached) {
+            return cached.index.intersecting(x, y, x + width, y + height).stream()
+                    .filter(entry -> includeHidden || entry.visible())
+                    .map(SpatialIndex.Entry::id)
+                    .toList();
+        }
+    }
+
+    // Id of the top-most visible component under the point, or null
+    public String topmostAt(Design design, double x, double y) {
+        CachedIndex cached = indexFor(design);
+        synchronized (cached) {
+            List<SpatialIndex.Entry> hits = cached.index.at(x, y);
+            for (int i = hits.size() - 1; i >= 0; i--) {
+                if (hits.get(i).visible()) {
+                    return hits.get(i).id();
+                }
+            }
+            return null;
+        }
+    }
+
+    // Bring a cached index up to date with a design that was just written; uncached designs are left alone
+    public void update(Design design) {
+        CachedIndex cached = cache.get(design.getId());
+        if (cached != null && design.getComponents() != null) {
+            synchronized (cached) {
+                cached.apply(fromComponents(design.getComponents()), ContentHasher.hashOf(design));
+            }
+        }
+    }
+
+    public void evict(String designId) {
+        cache.remove(designId);
+    }
+
+    private CachedIndex indexFor(Design design) {
+        String hash = ContentHasher.hashOf(design);
+        CachedIndex cached = cache.get(design.getId());
+        if (cached != null) {
+            synchronized (cached) {
+                if (!Objects.equals(cached.contentHash, hash)) {
+                    cached.apply(entriesFor(design), hash);
+                }
+            }
+            return cached;
+        }
+        CachedIndex built = new CachedIndex(entriesFor(design), hash);
+        cache.put(design.getId(), built);
+        return built;
+    }
+
+    private Map<String, SpatialIndex.Entry> entriesFor(Design design) {
+        if (design.getComponentStorage() == Design.ComponentStorage.SPLIT && design.getComponents() == null) {
+            Map<String, SpatialIndex.Entry> entries = new HashMap<>();
+            for (StoredComponent stored : storedComponentRepository.findSpatialByDesignId(design.getId())) {
+                SpatialIndex.Entry entry = stored.getLeft() == null ? null : new SpatialIndex.Entry(stored.getComponentId(),
+                        stored.getLeft(), stored.getTop(), stored.getRight(), stored.getBottom(),
+                        stored.getZIndex() == null ? 0 : stored.getZIndex(), stored.getOrder(),
+                        !Boolean.FALSE.equals(stored.getVisible()));
+                entries.put(stored.getComponentId(), entry);
+            }
+            return entries;
+        }
+        return fromComponents(design.getComponents() == null ? List.of() : design.getComponents());
+    }
+
+    private static Map<String, SpatialIndex.Entry> fromComponents(List<Design.DesignComponent> components) {
+        Map<String, SpatialIndex.Entry> entries = new HashMap<>();
+        for (int order = 0; order < components.size(); order++) {
+            Design.DesignComponent component = components.get(order);
+            String id = DesignComponentStore.componentId(component, order);
+            double[] bounds = DesignComponentStore.bounds(component);
+            SpatialIndex.Entry entry = bounds == null ? null : new SpatialIndex.Entry(id,
+                    bounds[0], bounds[1], bounds[2], bounds[3],
+                    component.getZIndex() == null ? 0 : component.getZIndex(), order,
+                    !Boolean.FALSE.equals(component.getVisible()));
+            entries.put(id, entry);
+        }
+        return entries;
+    }
+
+    // Index of one design; components maps every component id to its entry, null without a position
+    private static final class CachedIndex {
+        String contentHash;
+        Map<String, SpatialIndex.Entry> components;
+        final SpatialIndex index;
+
+        CachedIndex(Map<String, SpatialIndex.Entry> components, String contentHash) {
+            this.components = components;
+            this.contentHash = contentHash;
+            List<SpatialIndex.Entry> entries = new ArrayList<>(components.values());
+            entries.removeIf(Objects::isNull);
+            this.index = new SpatialIndex(entries);
+        }
+
+        // Re-index only components whose bounds, zIndex, visibility or paint order changed
+        void apply(Map<String, SpatialIndex.Entry> latest, String latestHash) {
+            for (String id : components.keySet()) {
+                if (!latest.containsKey(id)) {
+                    index.remove(id);
+                }
+            }
+            latest.forEach((id, entry) -> {
+                if (components.containsKey(id) && Objects.equals(components.get(id), entry)) {
+                    return;
+                }
+                if (entry == null) {
+                    index.remove(id);
+                } else {
+                    index.put(entry);
+                }
+            });
+            components = latest;
+            contentHash = latestHash;
+        }
+    }
+}
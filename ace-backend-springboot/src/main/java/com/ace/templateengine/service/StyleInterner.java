@@ -0,0 +1,325 @@
+package com.ace.templateengine.service;
+
+import com.ace.templateengine.dto.InterningReport;
+import com.ace.templateengine.model.Design;
+import com.ace.templateengine.model.DesignVersion;
+import com.mongodb.MongoClientSettings;
+import org.bson.Document;
+import org.bson.RawBsonDocument;
+import org.bson.codecs.DocumentCodec;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.lang.ref.Reference;
+import java.lang.ref.ReferenceQueue;
+import java.lang.ref.WeakReference;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Canonicalizes the style, property and theme values of loaded designs into shared immutable
+ * instances.
+ *
+ * The same style blocks repeat across the components of a design and across designs, and every
+ * load used to materialize them as separate maps. Interned maps, lists and strings are held
+ * weakly, so a canonical instance lives exactly as long as some loaded design uses it. Interned
+ * maps are unmodifiable; code changing a style replaces the map instead of mutating it.
+ */
+@Service
+public class StyleInterner {
+
+    private static final DocumentCodec BSON_CODEC = new DocumentCodec(MongoClientSettings.getDefaultCodecRegistry());
+
+    @Value("${app.designs.interning.enabled:true}")
+    private boolean enabled;
+
+    @Value("${app.designs.interning.theme-cache-size:1000}")
+    private int themeCacheSize;
+
+    // Canonical instance of every interned value, held weakly
+    private final WeakInterner canonical = new WeakInterner();
+
+    // Themes are mutable beans without equals, so they are shared by content hash instead
+    private final Map<String, Design.ThemeSettings> themes = Collections.synchronizedMap(new LinkedHashMap<>(64, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<String, Design.ThemeSettings> eldest) {
+            return size() > themeCacheSize;
+        }
+    });
+
+    private final LongAdder lookups = new LongAdder();
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder bytesSaved = new LongAdder();
+
+    public void intern(Design design) {
+        if (!enabled || design == null) {
+            return;
+        }
+        design.setGlobalStyles(internMap(design.getGlobalStyles()));
+        design.setThemeSettings(internTheme(design.getThemeSettings()));
+        internComponents(design.getComponents());
+    }
+
+    public void intern(DesignVersion version) {
+        if (!enabled || version == null) {
+            return;
+        }
+        intern(version.getSnapshot());
+        if (version.getDelta() != null) {
+            intern(version.getDelta().getFields());
+            internComponents(version.getDelta().getUpsertedComponents());
+        }
+    }
+
+    public void internComponents(List<Design.DesignComponent> components) {
+        if (!enabled || components == null) {
+            return;
+        }
+        for (Design.DesignComponent component : components) {
+            if (component != null) {
+                component.setStyles(internMap(component.getStyles()));
+                component.setProperties(internMap(component.getProperties()));
+            }
+        }
+    }
+
+    // Counters since startup
+    public InterningReport report() {
+        InterningReport report = new InterningReport();
+        report.setEnabled(enabled);
+        report.setCanonicalInstances(canonical.size());
+        report.setCanonicalThemes(themes.size());
+        report.setLookups(lookups.sum());
+        report.setHits(hits.sum());
+        report.setEstimatedHeapBytesSaved(bytesSaved.sum());
+        return report;
+    }
+
+    /**
+     * Measure what sharing saves on a corpus of designs: heap held by style and property maps
+     * with and without interning, and their BSON size stored inline, as whole component bodies
+     * in the content store, and as individually shared maps
+     */
+    public InterningReport analyze(List<Design> designs) {
+        InterningReport report = report();
+        List<Map<?, ?>> maps = new ArrayList<>();
+        Set<Object> distinctBodies = new HashSet<>();
+        long componentBodyBytes = 0;
+        for (Design design : designs) {
+            if (design.getGlobalStyles() != null) {
+                maps.add(design.getGlobalStyles());
+            }
+            if (design.getComponents() == null) {
+                continue;
+            }
+            for (Design.DesignComponent component : design.getComponents()) {
+                Document body = new Document("properties", component.getProperties())
+                        .append("styles", component.getStyles())
+                        .append("position", component.getPosition())
+                        .append("size", component.getSize())
+                        .append("children", component.getChildren());
+                if (distinctBodies.add(body)) {
+                    componentBodyBytes += bsonSize(body);
+                }
+                if (component.getStyles() != null) {
+                    maps.add(component.getStyles());
+                }
+                if (component.getProperties() != null) {
+                    maps.add(component.getProperties());
+                }
+            }
+        }
+
+        Set<Map<?, ?>> distinct = new HashSet<>();
+        long heapBefore = 0;
+        long heapAfter = 0;
+        long storageInline = 0;
+        long storageShared = 0;
+        for (Map<?, ?> map : maps) {
+            long heap = estimateHeap(map);
+            long bson = bsonSize(new Document("v", map));
+            heapBefore += heap;
+            storageInline += bson;
+            if (distinct.add(map)) {
+                heapAfter += heap;
+                storageShared += bson;
+            }
+        }
+        report.setSampledDesigns(designs.size());
+        report.setMaps((long) maps.size());
+        report.setDistinctMaps((long) distinct.size());
+        report.setHeapBytesWithoutInterning(heapBefore);
+        report.setHeapBytesWithInterning(heapAfter);
+        report.setStorageBytesInline(storageInline);
+        report.setStorageBytesSharedMaps(storageShared);
+        report.setStorageBytesSharedComponentBodies(componentBodyBytes);
+        return report;
+    }
+
+    private Map<String, Object> internMap(Map<String, Object> map) {
+        if (map == null) {
+            return null;
+        }
+        @SuppressWarnings("unchecked")
+        Map<String, Object> interned = (Map<String, Object>) internValue(map);
+        return interned;
+    }
+
+    private Design.ThemeSettings internTheme(Design.ThemeSettings theme) {
+        if (theme == null) {
+            return null;
+        }
+        lookups.increment();
+        Design.ThemeSettings shared = themes.putIfAbsent(ContentHasher.hashThemeSettings(theme), theme);
+        if (shared == null) {
+            return theme;
+        }
+        hits.increment();
+        // The bean and its strings, less the 80 bytes the temporary list adds to the estimate
+        bytesSaved.add(56 + estimateHeap(Arrays.asList(theme.getPrimaryColor(), theme.getSecondaryColor(),
+                theme.getBackgroundColor(), theme.getTextColor(), theme.getFontFamily(), theme.getFontSize(),
+                theme.getFontWeight(), theme.getBorderRadius(), theme.getSpacing(), theme.getShadowStyle())) - 80);
+        return shared;
+    }
+
+    // Immutable copy of a value with all of its maps, lists and strings replaced by canonical instances
+    private Object internValue(Object value) {
+        if (value instanceof Map<?, ?> map) {
+            Map<Object, Object> copy = new LinkedHashMap<>(Math.max(4, map.size() * 4 / 3 + 1));
+            map.forEach((key, item) -> copy.put(internValue(key), internValue(item)));
+            return canonicalize(Collections.unmodifiableMap(copy));
+        }
+        if (value instanceof List<?> list) {
+            List<Object> copy = new ArrayList<>(list.size());
+            list.forEach(item -> copy.add(internValue(item)));
+            return canonicalize(Collections.unmodifiableList(copy));
+        }
+        if (value instanceof String) {
+            return canonicalize(value);
+        }
+        return value;
+    }
+
+    private Object canonicalize(Object value) {
+        lookups.increment();
+        Object shared = canonical.intern(value);
+        if (shared != value) {
+            hits.increment();
+            // Nested values were counted when they were interned themselves
+            bytesSaved.add(estimateShallowHeap(value));
+        }
+        return shared;
+    }
+
+    /**
+     * Concurrent set of weakly held canonical instances. Lookups do not lock, and each hashes its
+     * value once; entries whose value was collected are purged on the next intern.
+     */
+    private static final class WeakInterner {
+
+        private final Map<Key, Key> keys = new ConcurrentHashMap<>();
+        private final ReferenceQueue<Object> collected = new ReferenceQueue<>();
+
+        // The canonical instance equal to the value, which becomes canonical itself when there is none
+        Object intern(Object value) {
+            purge();
+            Key probe = new Key(value, null);
+            while (true) {
+                Key existing = keys.get(probe);
+                if (existing == null) {
+                    Key key = new Key(value, collected);
+                    existing = keys.putIfAbsent(key, key);
+                    if (existing == null) {
+                        return value;
+                    }
+                }
+                Object shared = existing.get();
+                if (shared != null) {
+                    return shared;
+                }
+                keys.remove(existing, existing);
+            }
+        }
+
+        int size() {
+            purge();
+            return keys.size();
+        }
+
+        private void purge() {
+            Reference<?> reference;
+            while ((reference = collected.poll()) != null) {
+                keys.remove(reference, reference);
+            }
+        }
+    }
+
+    // Weak reference comparing by its value, with the hash taken once while the value is alive
+    private static final class Key extends WeakReference<Object> {
+
+        private final int hash;
+
+        Key(Object value, ReferenceQueue<Object> queue) {
+            super(value, queue);
+            this.hash = value.hashCode();
+        }
+
+        @Override
+        public int hashCode() {
+            return hash;
+        }
+
+        @Override
+        public boolean equals(Object other) {
+            if (this == other) {
+                return true;
+            }
+            if (!(other instanceof Key key) || hash != key.hash) {
+                return false;
+            }
+            Object value = get();
+            return value != null && Objects.equals(value, key.get());
+        }
+    }
+
+    // Rough retained size of a value on a 64-bit JVM with compressed references
+    private static long estimateHeap(Object value) {
+        long size = estimateShallowHeap(value);
+        if (value instanceof Map<?, ?> map) {
+            for (Map.Entry<?, ?> entry : map.entrySet()) {
+                size += estimateHeap(entry.getKey()) + estimateHeap(entry.getValue());
+            }
+        } else if (value instanceof List<?> list) {
+            for (Object item : list) {
+                size += estimateHeap(item);
+            }
+        }
+        return size;
+    }
+
+    private static long estimateShallowHeap(Object value) {
+        if (value instanceof Map<?, ?> map) {
+            return 64 + 40L * map.size();
+        }
+        if (value instanceof List<?> list) {
+            return 40 + 4L * list.size();
+        }
+        if (value instanceof String string) {
+            return 40 + string.length();
+        }
+        return value == null ? 0 : 16;
+    }
+
+    private static long bsonSize(Document document) {
+        return new RawBsonDocument(document, BSON_CODEC).getByteBuffer().remaining();
+    }
+}
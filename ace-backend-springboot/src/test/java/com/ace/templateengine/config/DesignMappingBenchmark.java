@@ -0,0 +1,138 @@
+package com.ace.templateengine.config;
+
+import com.ace.templateengine.model.Design;
+import org.bson.Document;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import org.springframework.data.mongodb.core.convert.MappingMongoConverter;
+import org.springframework.data.mongodb.core.convert.MongoCustomConversions;
+import org.springframework.data.mongodb.core.convert.NoOpDbRefResolver;
+import org.springframework.data.mongodb.core.mapping.MongoMappingContext;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Time and allocation of mapping a large design through MappingMongoConverter, reflectively
+ * and with the DesignConverters registered as in MongoConfig. Run through main, which adds the
+ * GC profiler; gc.alloc.rate.norm is the allocation per operation.
+ *
+ * Run with: mvn test-compile exec:java -Dexec.classpathScope=test
+ * -Dexec.mainClass=com.ace.templateengine.config.DesignMappingBenchmark
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class DesignMappingBenchmark {
+
+    @Param({"3000"})
+    private int components;
+
+    private MappingMongoConverter reflective;
+    private MappingMongoConverter handWritten;
+    private Design design;
+    private Document reflectiveDocument;
+    private Document handWrittenDocument;
+
+    @Setup
+    public void setUp() {
+        reflective = converter(List.of());
+        handWritten = converter(DesignConverters.converters());
+        design = design();
+        reflectiveDocument = writeReflective();
+        handWrittenDocument = writeHandWritten();
+    }
+
+    @Benchmark
+    public Document writeReflective() {
+        Document document = new Document();
+        reflective.write(design, document);
+        return document;
+    }
+
+    @Benchmark
+    public Document writeHandWritten() {
+        Document document = new Document();
+        handWritten.write(design, document);
+        return document;
+    }
+
+    @Benchmark
+    public Design readReflective() {
+        return reflective.read(Design.class, reflectiveDocument);
+    }
+
+    @Benchmark
+    public Design readHandWritten() {
+        return handWritten.read(Design.class, handWrittenDocument);
+    }
+
+    private static MappingMongoConverter converter(List<?> converters) {
+        MongoCustomConversions conversions = new MongoCustomConversions(converters);
+        MongoMappingContext context = new MongoMappingContext();
+        context.setSimpleTypeHolder(conversions.getSimpleTypeHolder());
+        context.afterPropertiesSet();
+        MappingMongoConverter converter = new MappingMongoConverter(NoOpDbRefResolver.INSTANCE, context);
+        converter.setCustomConversions(conversions);
+        converter.afterPropertiesSet();
+        return converter;
+    }
+
+    private Design design() {
+        Design design = new Design();
+        design.setId("65f0c0ffee0000000000beef");
+        design.setName("Quarterly fund factsheet");
+        design.setDescription("Benchmark design");
+        design.setVersion("1.4.2");
+        design.setStatus(Design.DesignStatus.PUBLISHED);
+        design.setTags(List.of("factsheet", "quarterly"));
+        design.setCreatedBy("benchmark");
+        design.setCreatedAt(LocalDateTime.now());
+        design.setUpdatedAt(LocalDateTime.now());
+        design.setGlobalStyles(new LinkedHashMap<>(Map.of("fontFamily", "Inter", "color", "#222222")));
+        List<Design.DesignComponent> list = new ArrayList<>(components);
+        for (int i = 0; i < components; i++) {
+            Design.DesignComponent component = new Design.DesignComponent();
+            component.setId("component-" + i);
+            component.setType(i % 10 == 0 ? "container" : "text");
+            component.setName("Component " + i);
+            component.setParentId(i % 10 == 0 ? null : "component-" + (i - i % 10));
+            component.setZIndex(i % 10);
+            component.setVisible(true);
+            component.setProperties(new LinkedHashMap<>(Map.of("text", "Net asset value " + i, "align", "left")));
+            component.setStyles(new LinkedHashMap<>(Map.of("color", "#333333", "fontSize", "12px", "padding", "4px")));
+            component.setPosition(new LinkedHashMap<>(Map.of("x", i % 800, "y", i / 8)));
+            component.setSize(new LinkedHashMap<>(Map.of("width", 120, "height", 24)));
+            list.add(component);
+        }
+        design.setComponents(list);
+        return design;
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder()
+                .include(DesignMappingBenchmark.class.getSimpleName())
+                .addProfiler(GCProfiler.class)
+                .build()).run();
+    }
+}
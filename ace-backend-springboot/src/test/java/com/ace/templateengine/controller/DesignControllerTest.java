@@ -0,0 +1,33 @@
+package com.ace.templateengine.controller;
+
+import com.ace.templateengine.exception.CollaborationInProgressException;
+import com.ace.templateengine.service.CollaborationService;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class DesignControllerTest {
+
+    private DesignController controller;
+
+    @BeforeEach
+    @SuppressWarnings("unchecked")
+    void setUp() {
+        CollaborationService collaborationService = new CollaborationService();
+        // Only the key of a room is looked at when checking for one
+        ((Map<String, Object>) ReflectionTestUtils.getField(collaborationService, "rooms")).put("design", new Object());
+        // No DesignService: a deletion that got past the check would fail with a NullPointerException
+        controller = new DesignController();
+        ReflectionTestUtils.setField(controller, "collaborationService", collaborationService);
+    }
+
+    @Test
+    void designWithAnOpenRoomIsNotDeleted() {
+        assertThatThrownBy(() -> controller.deleteDesign("design"))
+                .isInstanceOf(CollaborationInProgressException.class);
+    }
+}
@@ -0,0 +1,26 @@
+package com.ace.templateengine.repository;
+
+import org.junit.jupiter.api.Test;
+
+import java.lang.reflect.Method;
+import java.util.Arrays;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.stream.Collectors;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class DesignIndexManagerTest {
+
+    @Test
+    void accessPathsCoverEveryRepositoryQueryMethod() {
+        Set<String> queryMethods = Arrays.stream(DesignRepository.class.getDeclaredMethods())
+                .map(Method::getName)
+                .collect(Collectors.toCollection(TreeSet::new));
+        Set<String> accessPaths = DesignIndexManager.accessPaths().stream()
+                .map(DesignIndexManager.AccessPath::name)
+                .collect(Collectors.toCollection(TreeSet::new));
+
+        assertThat(accessPaths).isEqualTo(queryMethods);
+    }
+}
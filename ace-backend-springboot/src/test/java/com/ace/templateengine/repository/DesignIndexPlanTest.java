@@ -0,0 +1,95 @@
+package com.ace.templateengine.repository;
+
+import com.ace.templateengine.dto.IndexReport;
+import com.mongodb.client.MongoClient;
+import com.mongodb.client.MongoClients;
+import com.mongodb.client.MongoCollection;
+import org.bson.Document;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.MethodSource;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.testcontainers.containers.MongoDBContainer;
+import org.testcontainers.junit.jupiter.Container;
+import org.testcontainers.junit.jupiter.Testcontainers;
+
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Explains every repository access path against a real server with the declared indexes in
+ * place, so a query method without a supporting index fails the build instead of scanning the
+ * collection in production. Skipped when Docker is not available.
+ */
+@Testcontainers(disabledWithoutDocker = true)
+class DesignIndexPlanTest {
+
+    @Container
+    static final MongoDBContainer MONGO = new MongoDBContainer("mongo:7.0");
+
+    private static MongoClient client;
+    private static MongoTemplate mongoTemplate;
+    private static DesignIndexManager indexManager;
+
+    @BeforeAll
+    static void createIndexes() {
+        client = MongoClients.create(MONGO.getConnectionString());
+        mongoTemplate = new MongoTemplate(client, "ace_index_plans");
+        indexManager = new DesignIndexManager();
+        ReflectionTestUtils.setField(indexManager, "mongoTemplate", mongoTemplate);
+
+        // Enough designs that the planner has real choices to make
+        List<Document> designs = new ArrayList<>();
+        for (int i = 0; i < 200; i++) {
+            designs.add(new Document("name", "Design " + i)
+                    .append("created_by", "user" + (i % 10))
+                    .append("status", i % 3 == 0 ? "PUBLISHED" : "DRAFT")
+                    .append("is_public", i % 2 == 0)
+                    .append("version", "1.0." + (i % 5))
+                    .append("tags", List.of("tag" + (i % 7), "sample"))
+                    .append("metadata", new Document("category", "category" + (i % 4)))
+                    .append("components", List.of(new Document("type", i % 2 == 0 ? "button" : "table")))
+                    .append("description", "Quarterly fund report " + i)
+                    .append("created_at", new Date())
+                    .append("updated_at", new Date()));
+        }
+        designs().insertMany(designs);
+
+        IndexReport report = indexManager.synchronize();
+        assertThat(report.getFailures()).isEmpty();
+        assertThat(report.getMissing()).isEmpty();
+    }
+
+    @AfterAll
+    static void close() {
+        client.close();
+    }
+
+    static List<DesignIndexManager.AccessPath> accessPaths() {
+        return DesignIndexManager.accessPaths();
+    }
+
+    @ParameterizedTest(name = "{0}")
+    @MethodSource("accessPaths")
+    void accessPathUsesAnIndex(DesignIndexManager.AccessPath path) {
+        IndexReport.AccessPathPlan plan = DesignIndexManager.explain(designs(), path);
+
+        assertThat(plan.getStages()).doesNotContain("COLLSCAN");
+        assertThat(plan.getIndexes()).isNotEmpty();
+    }
+
+    @Test
+    void reportIsHealthyOnceSynchronized() {
+        assertThat(indexManager.report().isHealthy()).isTrue();
+    }
+
+    private static MongoCollection<Document> designs() {
+        return mongoTemplate.getCollection(DesignIndexes.COLLECTION);
+    }
+}
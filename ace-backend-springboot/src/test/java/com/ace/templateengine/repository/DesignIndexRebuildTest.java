@@ -0,0 +1,68 @@
+package com.ace.templateengine.repository;
+
+import com.ace.templateengine.dto.IndexReport;
+import com.mongodb.client.MongoClient;
+import com.mongodb.client.MongoClients;
+import com.mongodb.client.MongoCollection;
+import com.mongodb.client.model.IndexOptions;
+import com.mongodb.client.model.Indexes;
+import org.bson.Document;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.testcontainers.containers.MongoDBContainer;
+import org.testcontainers.junit.jupiter.Container;
+import org.testcontainers.junit.jupiter.Testcontainers;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Upgrading a deployment whose designs already break a new unique index must keep the old
+ * index rather than drop it. Skipped when Docker is not available.
+ */
+@Testcontainers(disabledWithoutDocker = true)
+class DesignIndexRebuildTest {
+
+    @Container
+    static final MongoDBContainer MONGO = new MongoDBContainer("mongo:7.0");
+
+    private static MongoClient client;
+
+    @BeforeAll
+    static void connect() {
+        client = MongoClients.create(MONGO.getConnectionString());
+    }
+
+    @AfterAll
+    static void close() {
+        client.close();
+    }
+
+    @Test
+    void duplicateNamesKeepTheNonUniqueIndex() {
+        MongoTemplate mongoTemplate = new MongoTemplate(client, "ace_index_rebuild");
+        MongoCollection<Document> designs = mongoTemplate.getCollection(DesignIndexes.COLLECTION);
+        // The creator/name index as it was before it became unique
+        designs.createIndex(Indexes.ascending("created_by", "name"),
+                new IndexOptions().name(DesignIndexes.CREATOR_NAME_INDEX).collation(DesignIndexes.CASE_INSENSITIVE));
+        designs.insertMany(List.of(
+                new Document("name", "Fund Report").append("created_by", "alice"),
+                new Document("name", "fund report").append("created_by", "alice")));
+        DesignIndexManager indexManager = new DesignIndexManager();
+        ReflectionTestUtils.setField(indexManager, "mongoTemplate", mongoTemplate);
+
+        IndexReport report = indexManager.synchronize();
+
+        List<String> indexes = designs.listIndexes().map(index -> index.getString("name")).into(new ArrayList<>());
+        assertThat(indexes).contains(DesignIndexes.CREATOR_NAME_INDEX);
+        assertThat(report.getFailures()).anySatisfy(failure -> assertThat(failure)
+                .startsWith(DesignIndexes.CREATOR_NAME_INDEX).contains("duplicate keys"));
+        assertThat(report.getOutdated()).contains(DesignIndexes.CREATOR_NAME_INDEX);
+        assertThat(indexManager.enforcesUniqueNames()).isFalse();
+    }
+}
@@ -0,0 +1,82 @@
+package com.ace.templateengine.service;
+
+import com.ace.templateengine.dto.ContentStoreReport;
+import com.mongodb.client.MongoClient;
+import com.mongodb.client.MongoClients;
+import com.mongodb.client.model.Filters;
+import com.mongodb.client.model.Updates;
+import org.bson.Document;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.testcontainers.containers.MongoDBContainer;
+import org.testcontainers.junit.jupiter.Container;
+import org.testcontainers.junit.jupiter.Testcontainers;
+
+import java.util.Date;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Blobs referenced only from design history must survive garbage collection. Skipped when
+ * Docker is not available.
+ */
+@Testcontainers(disabledWithoutDocker = true)
+class ContentStoreGarbageCollectionTest {
+
+    @Container
+    static final MongoDBContainer MONGO = new MongoDBContainer("mongo:7.0");
+
+    private static MongoClient client;
+
+    @BeforeAll
+    static void connect() {
+        client = MongoClients.create(MONGO.getConnectionString());
+    }
+
+    @AfterAll
+    static void close() {
+        client.close();
+    }
+
+    @Test
+    void componentsAddedByADeltaSurviveCollection() {
+        MongoTemplate mongoTemplate = new MongoTemplate(client, "ace_content_gc");
+        ContentStore writer = contentStore(mongoTemplate);
+        // A delta from a design without components to one with, as the version history writes it
+        Document fields = new Document("components", List.of(new Document("id", "title")
+                .append("type", "text")
+                .append("properties", new Document("text", "Quarterly report"))));
+        writer.dehydrate(fields);
+        mongoTemplate.getCollection("design_versions").insertOne(new Document("design_id", "design")
+                .append("sequence", 2L)
+                .append("delta", new Document("fields", fields)));
+        mongoTemplate.getCollection(ContentStore.COLLECTION).insertOne(new Document("_id", "unreferenced")
+                .append("content", new Document("styles", new Document())));
+        // Past the grace period
+        mongoTemplate.getCollection(ContentStore.COLLECTION).updateMany(Filters.empty(),
+                Updates.set("referenced_at", new Date(0)));
+
+        ContentStoreReport report = writer.collectGarbage();
+
+        assertThat(report.getSweptBlobs()).isEqualTo(1);
+        Document stored = mongoTemplate.getCollection("design_versions").find(Filters.eq("design_id", "design")).first();
+        Document loaded = stored.get("delta", Document.class).get("fields", Document.class);
+        // A fresh instance, so nothing is served from the blob cache
+        contentStore(mongoTemplate).hydrate(loaded);
+        Document component = (Document) loaded.getList("components", Object.class).get(0);
+        assertThat(component.get("properties", Document.class).getString("text")).isEqualTo("Quarterly report");
+    }
+
+    private static ContentStore contentStore(MongoTemplate mongoTemplate) {
+        ContentStore contentStore = new ContentStore();
+        ReflectionTestUtils.setField(contentStore, "mongoTemplate", mongoTemplate);
+        ReflectionTestUtils.setField(contentStore, "enabled", true);
+        ReflectionTestUtils.setField(contentStore, "gcGraceMinutes", 60L);
+        ReflectionTestUtils.setField(contentStore, "cacheSize", 100);
+        return contentStore;
+    }
+}
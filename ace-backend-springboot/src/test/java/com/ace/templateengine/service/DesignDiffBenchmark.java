@@ -0,0 +1,128 @@
+package com.ace.templateengine.service;
+
+import com.ace.templateengine.dto.DesignDiff;
+import com.ace.templateengine.model.Design;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Diff time for large designs: containers of ten components each, with a typical edit (1% of
+ * components changed, a few added, removed and reordered) and a heavy reorder (every children
+ * list shuffled). The target is under 100 ms for 10,000 components.
+ *
+ * Run with: mvn test-compile exec:java -Dexec.classpathScope=test
+ * -Dexec.mainClass=com.ace.templateengine.service.DesignDiffBenchmark
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class DesignDiffBenchmark {
+
+    @Param({"10000"})
+    private int components;
+
+    @Param({"edit", "reorder"})
+    private String change;
+
+    private DesignDiffService diffService;
+    private Design before;
+    private Design after;
+
+    @Setup
+    public void setUp() {
+        diffService = new DesignDiffService();
+        ReflectionTestUtils.setField(diffService, "objectMapper", new ObjectMapper());
+        before = design(new Random(1));
+        after = design(new Random(1));
+        Random random = new Random(2);
+        List<Design.DesignComponent> list = new ArrayList<>(after.getComponents());
+        if ("edit".equals(change)) {
+            for (int i = 0; i < components / 100; i++) {
+                Design.DesignComponent component = list.get(random.nextInt(list.size()));
+                component.getStyles().put("color", "#" + Integer.toHexString(random.nextInt(0xffffff)));
+                component.getPosition().put("x", random.nextInt(1000));
+            }
+            for (int i = 0; i < components / 1000; i++) {
+                list.remove(random.nextInt(list.size()));
+                list.add(random.nextInt(list.size()), component("added-" + i, null, random));
+                list.add(random.nextInt(list.size()), list.remove(random.nextInt(list.size())));
+            }
+        } else {
+            for (Design.DesignComponent component : list) {
+                if (component.getChildren() != null) {
+                    Collections.shuffle(component.getChildren(), random);
+                }
+            }
+            Collections.shuffle(list.subList(0, list.size() / 2), random);
+        }
+        after.setComponents(list);
+        // Loaded designs carry their stored hashes
+        ContentHasher.apply(before);
+        ContentHasher.apply(after);
+    }
+
+    @Benchmark
+    public DesignDiff diff() {
+        return diffService.diff(before, "before", after, "after");
+    }
+
+    private Design design(Random random) {
+        List<Design.DesignComponent> list = new ArrayList<>(components);
+        for (int container = 0; list.size() < components; container++) {
+            Design.DesignComponent parent = component("container-" + container, null, random);
+            parent.setChildren(new ArrayList<>());
+            list.add(parent);
+            for (int child = 0; child < 9 && list.size() < components; child++) {
+                String id = "component-" + container + "-" + child;
+                parent.getChildren().add(id);
+                list.add(component(id, parent.getId(), random));
+            }
+        }
+        Design design = new Design();
+        design.setName("Benchmark");
+        design.setComponents(list);
+        return design;
+    }
+
+    private static Design.DesignComponent component(String id, String parentId, Random random) {
+        Design.DesignComponent component = new Design.DesignComponent();
+        component.setId(id);
+        component.setType(parentId == null ? "container" : "text");
+        component.setName(id);
+        component.setParentId(parentId);
+        component.setProperties(new LinkedHashMap<>(Map.of("text", "Net asset value " + random.nextInt(100))));
+        component.setStyles(new LinkedHashMap<>(Map.of("color", "#333333", "fontSize", 12 + random.nextInt(4))));
+        component.setPosition(new LinkedHashMap<>(Map.of("x", random.nextInt(1000), "y", random.nextInt(1000))));
+        component.setSize(new LinkedHashMap<>(Map.of("width", 120, "height", 24)));
+        return component;
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder().include(DesignDiffBenchmark.class.getSimpleName()).build()).run();
+    }
+}
@@ -0,0 +1,171 @@
+package com.ace.templateengine.service;
+
+import com.ace.templateengine.dto.DesignDiff;
+import com.ace.templateengine.model.Design;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.RepeatedTest;
+import org.junit.jupiter.api.RepetitionInfo;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class DesignDiffServiceTest {
+
+    private static final String CHILDREN = "/components/root/children";
+
+    private Random random = new Random(42);
+    private DesignDiffService diffService;
+
+    @BeforeEach
+    void setUp() {
+        diffService = new DesignDiffService();
+        ReflectionTestUtils.setField(diffService, "objectMapper", new ObjectMapper());
+    }
+
+    @Test
+    void childrenOperationsUseIndexesAndReplay() {
+        List<String> before = List.of("a", "b", "c", "d", "e");
+        List<String> after = List.of("e", "a", "x", "c", "b");
+
+        DesignDiff diff = diffService.diff(withChildren(before), "left", withChildren(after), "right");
+
+        assertThat(diff.getOperations()).allSatisfy(op ->
+                assertThat(op.getPath()).matches(CHILDREN + "/\\d+"));
+        assertThat(replayChildren(before, diff)).isEqualTo(after);
+    }
+
+    @RepeatedTest(200)
+    void childrenOperationsReplayToTheNewOrder(RepetitionInfo repetition) {
+        random = new Random(repetition.getCurrentRepetition());
+        List<String> before = randomIds("c", random.nextInt(25));
+        List<String> after = edit(before, "n");
+
+        DesignDiff diff = diffService.diff(withChildren(before), "left", withChildren(after), "right");
+
+        assertThat(replayChildren(before, diff)).isEqualTo(after);
+    }
+
+    @RepeatedTest(200)
+    void componentOperationsReplayToTheNewOrder(RepetitionInfo repetition) {
+        random = new Random(repetition.getCurrentRepetition());
+        List<String> before = randomIds("c", random.nextInt(25));
+        List<String> after = edit(before, "n");
+
+        DesignDiff diff = diffService.diff(withComponents(before), "left", withComponents(after), "right");
+
+        List<String> replayed = new ArrayList<>(before);
+        for (DesignDiff.PatchOperation op : diff.getOperations()) {
+            String id = op.getPath().substring("/components/".length());
+            switch (op.getOp()) {
+                case "remove" -> replayed.remove(id);
+                case "add" -> replayed.add(id);
+                case "move" -> {
+                    replayed.remove(id);
+                    replayed.add((Integer) op.getValue(), id);
+                }
+                default -> throw new AssertionError("Unexpected operation " + op.getOp());
+            }
+        }
+        assertThat(replayed).isEqualTo(after);
+    }
+
+    @Test
+    void movesOnlyWhatLeftTheCommonSubsequence() {
+        List<String> before = List.of("a", "b", "c", "d", "e", "f");
+        List<String> after = List.of("a", "c", "d", "e", "f", "b");
+
+        DesignDiff diff = diffService.diff(withComponents(before), "left", withComponents(after), "right");
+
+        assertThat(diff.getMovedComponents()).isEqualTo(1);
+        assertThat(diff.getOperations()).hasSize(1);
+    }
+
+    @Test
+    void versionChangeIsNotIdentical() {
+        Design left = withComponents(List.of("a", "b"));
+        Design right = withComponents(List.of("a", "b"));
+        right.setVersion("1.0.1");
+
+        DesignDiff diff = diffService.diff(left, "left", right, "right");
+
+        assertThat(diff.isIdentical()).isFalse();
+        assertThat(diff.getOperations()).singleElement().satisfies(op -> {
+            assertThat(op.getPath()).isEqualTo("/version");
+            assertThat(op.getValue()).isEqualTo("1.0.1");
+        });
+        assertThat(diffService.diff(left, "left", withComponents(List.of("a", "b")), "right").isIdentical()).isTrue();
+    }
+
+    private static List<String> replayChildren(List<String> before, DesignDiff diff) {
+        List<String> replayed = new ArrayList<>(before);
+        for (DesignDiff.PatchOperation op : diff.getOperations()) {
+            switch (op.getOp()) {
+                case "remove" -> replayed.remove(index(op.getPath()));
+                case "add" -> replayed.add(index(op.getPath()), (String) op.getValue());
+                case "move" -> replayed.add(index(op.getPath()), replayed.remove(index(op.getFrom())));
+                default -> throw new AssertionError("Unexpected operation " + op.getOp());
+            }
+        }
+        return replayed;
+    }
+
+    private static int index(String path) {
+        assertThat(path).startsWith(CHILDREN + "/");
+        return Integer.parseInt(path.substring(CHILDREN.length() + 1));
+    }
+
+    private List<String> randomIds(String prefix, int count) {
+        List<String> ids = new ArrayList<>();
+        for (int i = 0; i < count; i++) {
+            ids.add(prefix + i);
+        }
+        return ids;
+    }
+
+    // Remove some ids, add new ones and move a few, sometimes shuffling everything
+    private List<String> edit(List<String> before, String prefix) {
+        List<String> after = new ArrayList<>(before);
+        after.removeIf(id -> random.nextInt(5) == 0);
+        for (String id : randomIds(prefix, random.nextInt(4))) {
+            after.add(random.nextInt(after.size() + 1), id);
+        }
+        if (random.nextInt(4) == 0) {
+            Collections.shuffle(after, random);
+        } else {
+            for (int moves = random.nextInt(3); moves > 0 && !after.isEmpty(); moves--) {
+                after.add(random.nextInt(after.size()), after.remove(random.nextInt(after.size())));
+            }
+        }
+        return after;
+    }
+
+    private static Design withChildren(List<String> children) {
+        Design.DesignComponent root = component("root");
+        root.setChildren(new ArrayList<>(children));
+        Design design = new Design();
+        design.setName("Design");
+        design.setComponents(List.of(root));
+        return design;
+    }
+
+    private static Design withComponents(List<String> ids) {
+        Design design = new Design();
+        design.setName("Design");
+        design.setComponents(ids.stream().map(DesignDiffServiceTest::component).toList());
+        return design;
+    }
+
+    private static Design.DesignComponent component(String id) {
+        Design.DesignComponent component = new Design.DesignComponent();
+        component.setId(id);
+        component.setType("text");
+        return component;
+    }
+}
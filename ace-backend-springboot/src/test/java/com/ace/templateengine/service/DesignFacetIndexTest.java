@@ -0,0 +1,78 @@
+package com.ace.templateengine.service;
+
+import com.ace.templateengine.dto.FacetQueryResult;
+import com.ace.templateengine.model.Design;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class DesignFacetIndexTest {
+
+    private DesignFacetIndex index;
+
+    @BeforeEach
+    void setUp() {
+        // Marked loaded, so queries do not rebuild from a MongoTemplate
+        index = new DesignFacetIndex();
+        ReflectionTestUtils.setField(index, "maxPageSize", 1000);
+        ReflectionTestUtils.setField(index, "loaded", true);
+    }
+
+    @Test
+    void pagesFollowDesignIdOrder() {
+        for (String id : List.of("d", "b", "e", "a", "c")) {
+            index.put(design(id, "finance"));
+        }
+
+        FacetQueryResult first = index.query(null, null, 0, 2, List.of());
+        FacetQueryResult second = index.query(null, first.getNext(), 0, 2, List.of());
+        FacetQueryResult last = index.query(null, second.getNext(), 0, 2, List.of());
+
+        assertThat(first.getDesignIds()).containsExactly("a", "b");
+        assertThat(second.getDesignIds()).containsExactly("c", "d");
+        assertThat(last.getDesignIds()).containsExactly("e");
+        assertThat(last.getNext()).isNull();
+        assertThat(index.query(null, null, 3, 10, List.of()).getDesignIds()).containsExactly("d", "e");
+    }
+
+    @Test
+    void cursorSurvivesReassignedOrdinals() {
+        for (int i = 0; i < 40; i++) {
+            index.put(design(String.format("design-%02d", i), i % 10 == 0 ? "rare" : "common"));
+        }
+        FacetQueryResult first = index.query("tag:common", null, 0, 10, List.of());
+
+        // Deletes free low ordinals and new designs take them, ahead of the page already read
+        index.remove("design-01");
+        index.remove("design-02");
+        index.put(design("design-98", "common"));
+        index.put(design("design-99", "rare"));
+
+        List<String> rest = new ArrayList<>();
+        String after = first.getNext();
+        do {
+            FacetQueryResult page = index.query("tag:common", after, 0, 10, List.of());
+            rest.addAll(page.getDesignIds());
+            after = page.getNext();
+        } while (after != null);
+
+        assertThat(first.getDesignIds()).startsWith("design-01", "design-02", "design-03");
+        assertThat(rest).doesNotContainAnyElementsOf(first.getDesignIds());
+        assertThat(rest).isSorted().startsWith("design-12").endsWith("design-39", "design-98");
+        // Narrow queries sort their matches instead of walking every id
+        assertThat(index.query("tag:rare", "design-10", 0, 10, List.of()).getDesignIds())
+                .containsExactly("design-20", "design-30", "design-99");
+    }
+
+    private static Design design(String id, String tag) {
+        Design design = new Design();
+        design.setId(id);
+        design.setTags(List.of(tag));
+        return design;
+    }
+}
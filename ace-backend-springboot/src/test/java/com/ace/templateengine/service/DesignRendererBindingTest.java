@@ -0,0 +1,82 @@
+package com.ace.templateengine.service;
+
+import com.ace.templateengine.model.Design;
+import org.bson.Document;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class DesignRendererBindingTest {
+
+    private DesignRenderer renderer;
+
+    @BeforeEach
+    void setUp() {
+        // No MongoTemplate: a query that got past the checks would fail with a NullPointerException
+        renderer = new DesignRenderer();
+        ReflectionTestUtils.setField(renderer, "bindableCollections", Set.of("fund_info", "nav_history"));
+    }
+
+    @Test
+    void placeholderJoinsAreRejectedWhenCompiled() {
+        assertThat(bindingsOf("{\"collection\": \"fund_info\", \"pipeline\": [{\"$unionWith\": \"{{c}}\"}]}")).isEmpty();
+        assertThat(bindingsOf("{\"collection\": \"fund_info\", \"pipeline\": [{\"$unionWith\": {\"coll\": \"{{c}}\"}}]}")).isEmpty();
+        assertThat(bindingsOf("{\"collection\": \"fund_info\", \"pipeline\": [{\"$lookup\": {\"from\": \"{{c}}\", \"as\": \"x\"}}]}")).isEmpty();
+        assertThat(bindingsOf("{\"collection\": \"{{c}}\"}")).isEmpty();
+        assertThat(bindingsOf("{\"collection\": \"fund_info\", \"pipeline\": [{\"$lookup\": {\"from\": \"nav_history\", \"as\": \"x\"}}]}"))
+                .hasSize(1);
+    }
+
+    @Test
+    void onlyBindableCollectionsAreRead() {
+        assertThat(renderer.bindable("fund_info", null)).isTrue();
+        assertThat(renderer.bindable("designs", null)).isFalse();
+        assertThat(renderer.bindable("not_listed", null)).isFalse();
+        assertThat(renderer.bindable("fund_info", List.of(lookup("nav_history")))).isTrue();
+        assertThat(renderer.bindable("fund_info", List.of(lookup("data_queries")))).isFalse();
+        assertThat(renderer.bindable("fund_info", List.of(new Document("$unionWith", "designs")))).isFalse();
+        assertThat(renderer.bindable("fund_info", List.of(new Document("$facet",
+                new Document("nested", List.of(new Document("$unionWith", new Document("coll", "projects")))))))).isFalse();
+        // Joins without a collection only read the documents of their own pipeline
+        assertThat(renderer.bindable("fund_info", List.of(new Document("$unionWith",
+                new Document("pipeline", List.of(new Document("$documents", List.of()))))))).isTrue();
+    }
+
+    @Test
+    void substitutedPipelineIsCheckedBeforeItRuns() {
+        // As cached before the compiler rejected placeholder joins
+        RenderPlan.DataBinding binding = new RenderPlan.DataBinding("fund_info", null,
+                List.of(new Document("$unionWith", new Document("coll", "{{c}}"))), null, null, 10);
+
+        assertThat(renderer.query(binding, Map.of("c", "designs"))).isEmpty();
+    }
+
+    @Test
+    void collectionsNotBindableYieldNoRows() {
+        RenderPlan.DataBinding binding = new RenderPlan.DataBinding("designs", new Document(), null, null, null, 10);
+
+        assertThat(renderer.query(binding, Map.of())).isEmpty();
+        assertThat(renderer.queryGrouped(binding, "owner", List.of("a"), Map.of())).isEmpty();
+    }
+
+    private static Document lookup(String from) {
+        return new Document("$lookup", new Document("from", from).append("as", "joined"));
+    }
+
+    private static List<RenderPlan.DataBinding> bindingsOf(String customQuery) {
+        Design.DesignComponent table = new Design.DesignComponent();
+        table.setId("table");
+        table.setType("table");
+        table.setProperties(Map.of("dataSource", "custom_query", "query", customQuery));
+        Design design = new Design();
+        design.setName("bindings");
+        design.setComponents(List.of(table));
+        return RenderPlanCompiler.compile(design).bindings();
+    }
+}
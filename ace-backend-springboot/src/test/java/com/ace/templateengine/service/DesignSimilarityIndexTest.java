@@ -0,0 +1,45 @@
+package com.ace.templateengine.service;
+
+import com.ace.templateengine.dto.DuplicateReport;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class DesignSimilarityIndexTest {
+
+    @Test
+    void largeBucketsAreSampled() {
+        DesignSimilarityIndex index = new DesignSimilarityIndex();
+        ReflectionTestUtils.setField(index, "maxBucketSize", 50);
+        int[] signature = DesignSimilarityIndex.signature(Set.of("text", "table", "chart"));
+        for (int i = 0; i < 1000; i++) {
+            ReflectionTestUtils.invokeMethod(index, "index", String.format("design-%04d", i), signature);
+        }
+
+        // No page, so no MongoTemplate is needed to describe the clusters
+        DuplicateReport report = index.duplicates(0.9, 0);
+
+        assertThat(report.getIndexedDesigns()).isEqualTo(1000);
+        assertThat(report.getSampledBuckets()).isEqualTo(DesignSimilarityIndex.BANDS);
+        assertThat(report.getComparedPairs()).isLessThanOrEqualTo(DesignSimilarityIndex.BANDS * 50L * 49 / 2);
+        assertThat(report.getTotalClusters()).isEqualTo(1);
+    }
+
+    @Test
+    void sampleIsSpreadOverTheBucketAndStable() {
+        List<String> members = new ArrayList<>();
+        for (int i = 99; i >= 0; i--) {
+            members.add(String.format("%02d", i));
+        }
+
+        List<String> sample = DesignSimilarityIndex.sample(members, 10);
+
+        assertThat(sample).containsExactly("00", "10", "20", "30", "40", "50", "60", "70", "80", "90");
+        assertThat(DesignSimilarityIndex.sample(members.reversed(), 10)).isEqualTo(sample);
+    }
+}
@@ -0,0 +1,51 @@
+package com.ace.templateengine.service;
+
+import com.ace.templateengine.dto.ReportJobRequest;
+import com.ace.templateengine.exception.InvalidReportJobException;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class FundReportServiceTest {
+
+    private FundReportService service;
+
+    @BeforeEach
+    void setUp() {
+        // No DesignService: a request that got past the checks would fail with a NullPointerException
+        service = new FundReportService();
+        ReflectionTestUtils.setField(service, "maxParallelism", 4);
+    }
+
+    @Test
+    void parallelismAboveTheLimitIsRejected() {
+        assertThatThrownBy(() -> service.submit(request(5)))
+                .isInstanceOf(InvalidReportJobException.class)
+                .hasMessageContaining("at most 4");
+        assertThatThrownBy(() -> service.submit(request(10_000)))
+                .isInstanceOf(InvalidReportJobException.class);
+    }
+
+    @Test
+    void parallelismBelowOneIsRejected() {
+        assertThatThrownBy(() -> service.submit(request(0)))
+                .isInstanceOf(InvalidReportJobException.class)
+                .hasMessageContaining("at least 1");
+    }
+
+    @Test
+    void defaultLimitIsTheNumberOfProcessors() {
+        ReflectionTestUtils.setField(service, "maxParallelism", 0);
+
+        assertThatThrownBy(() -> service.submit(request(Runtime.getRuntime().availableProcessors() + 1)))
+                .isInstanceOf(InvalidReportJobException.class);
+    }
+
+    private static ReportJobRequest request(int parallelism) {
+        ReportJobRequest request = new ReportJobRequest("design", ReportJobRequest.OutputFormat.ZIP);
+        request.setParallelism(parallelism);
+        return request;
+    }
+}
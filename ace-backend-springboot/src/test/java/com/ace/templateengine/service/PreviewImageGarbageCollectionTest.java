@@ -0,0 +1,72 @@
+package com.ace.templateengine.service;
+
+import com.ace.templateengine.model.Design;
+import com.mongodb.client.MongoClient;
+import com.mongodb.client.MongoClients;
+import com.mongodb.client.model.Filters;
+import com.mongodb.client.model.Updates;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.testcontainers.containers.MongoDBContainer;
+import org.testcontainers.junit.jupiter.Container;
+import org.testcontainers.junit.jupiter.Testcontainers;
+
+import java.util.Base64;
+import java.util.Date;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Stored previews reused by a write must survive garbage collection until the design pointing
+ * to them is saved. Skipped when Docker is not available.
+ */
+@Testcontainers(disabledWithoutDocker = true)
+class PreviewImageGarbageCollectionTest {
+
+    @Container
+    static final MongoDBContainer MONGO = new MongoDBContainer("mongo:7.0");
+
+    private static MongoClient client;
+
+    @BeforeAll
+    static void connect() {
+        client = MongoClients.create(MONGO.getConnectionString());
+    }
+
+    @AfterAll
+    static void close() {
+        client.close();
+    }
+
+    @Test
+    void reusedPreviewSurvivesCollection() {
+        MongoTemplate mongoTemplate = new MongoTemplate(client, "ace_preview_gc");
+        PreviewImageService service = new PreviewImageService();
+        ReflectionTestUtils.setField(service, "mongoTemplate", mongoTemplate);
+        ReflectionTestUtils.setField(service, "thumbnailWidths", List.of(160));
+        ReflectionTestUtils.setField(service, "gcGraceMinutes", 60L);
+
+        service.offload(design("reused"));
+        service.offload(design("unreferenced"));
+        // Both uploaded long ago, past the grace period
+        mongoTemplate.getCollection("preview_images.files").updateMany(Filters.empty(), Updates.combine(
+                Updates.set("uploadDate", new Date(0)), Updates.set("metadata.referenced_at", new Date(0))));
+        // A write reusing the first image whose design is not saved yet
+        Design pending = design("reused");
+        service.offload(pending);
+
+        assertThat(service.collectGarbage()).isEqualTo(1);
+        assertThat(service.load(PreviewImageService.storedHash(pending.getPreviewImage()).orElseThrow())).isPresent();
+        assertThat(mongoTemplate.getCollection("preview_images.chunks").countDocuments()).isEqualTo(1);
+    }
+
+    private static Design design(String content) {
+        Design design = new Design();
+        design.setPreviewImage("data:image/png;base64," + Base64.getEncoder().encodeToString(content.getBytes()));
+        return design;
+    }
+}
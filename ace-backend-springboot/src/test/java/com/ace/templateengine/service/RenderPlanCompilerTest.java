@@ -0,0 +1,31 @@
+package com.ace.templateengine.service;
+
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class RenderPlanCompilerTest {
+
+    @Test
+    void scriptUrlsAreDropped() {
+        assertThat(RenderPlanCompiler.safeUrl("javascript:alert(1)")).isNull();
+        assertThat(RenderPlanCompiler.safeUrl(" JavaScript:alert(1)")).isNull();
+        assertThat(RenderPlanCompiler.safeUrl("java\tscript:alert(1)")).isNull();
+        assertThat(RenderPlanCompiler.safeUrl("java\nscr\u0000ipt:alert(1)")).isNull();
+        assertThat(RenderPlanCompiler.safeUrl("\u0001javascript:alert(1)")).isNull();
+        assertThat(RenderPlanCompiler.safeUrl("vbscript:msgbox(1)")).isNull();
+        assertThat(RenderPlanCompiler.safeUrl("data:text/html,<script>alert(1)</script>")).isNull();
+        assertThat(RenderPlanCompiler.safeUrl("file:///etc/passwd")).isNull();
+    }
+
+    @Test
+    void allowedAndRelativeUrlsAreKept() {
+        assertThat(RenderPlanCompiler.safeUrl("https://example.com/logo.png")).isEqualTo("https://example.com/logo.png");
+        assertThat(RenderPlanCompiler.safeUrl(" http://example.com/a.png ")).isEqualTo("http://example.com/a.png");
+        assertThat(RenderPlanCompiler.safeUrl("mailto:ops@example.com")).isEqualTo("mailto:ops@example.com");
+        assertThat(RenderPlanCompiler.safeUrl("data:image/png;base64,AAAA")).isEqualTo("data:image/png;base64,AAAA");
+        assertThat(RenderPlanCompiler.safeUrl("/api/previews/abc")).isEqualTo("/api/previews/abc");
+        assertThat(RenderPlanCompiler.safeUrl("images/logo.png?v=1:2")).isEqualTo("images/logo.png?v=1:2");
+        assertThat(RenderPlanCompiler.safeUrl(42)).isNull();
+    }
+}